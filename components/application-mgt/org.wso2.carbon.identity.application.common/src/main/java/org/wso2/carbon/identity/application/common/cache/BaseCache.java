@@ -31,18 +31,26 @@ import javax.cache.CacheBuilder;
 import javax.cache.CacheConfiguration;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
+import javax.cache.Status;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * A base class for all cache implementations in Identity Application Management modules.
+ * <p>
+ * All the caches live in the super tenant cache manager. The cache handle is resolved once and reused, and the
+ * super tenant flow is started only when the calling thread is not already in the super tenant context, since the
+ * cache implementation only allows access from the tenant which owns the cache.
  */
 public class BaseCache<K extends Serializable, V extends Serializable> {
 
     private static final String CACHE_MANAGER_NAME = "IdentityApplicationManagementCacheManager";
+    private final Object cacheLock = new Object();
     private CacheBuilder<K, V> cacheBuilder;
+    private volatile Cache<K, V> cache;
     private String cacheName;
     private List<AbstractCacheListener> cacheListeners = new ArrayList<AbstractCacheListener>();
 
@@ -54,56 +62,95 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         }
     }
 
+    /**
+     * Returns the cache handle. Must be called within the super tenant context.
+     *
+     * @return Cache.
+     */
     private Cache<K, V> getBaseCache() {
 
-        Cache<K, V> cache = null;
-        try {
-
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-
+        Cache<K, V> baseCache = this.cache;
+        if (baseCache != null && baseCache.getStatus() == Status.STARTED) {
+            return baseCache;
+        }
+        synchronized (cacheLock) {
+            baseCache = this.cache;
+            if (baseCache != null && baseCache.getStatus() == Status.STARTED) {
+                return baseCache;
+            }
             CacheManager cacheManager = Caching.getCacheManagerFactory()
                     .getCacheManager(CACHE_MANAGER_NAME);
 
             if (getCacheTimeout() > 0 && cacheBuilder == null) {
-                synchronized (cacheName.intern()) {
-                    if (cacheBuilder == null) {
-                        cacheManager.removeCache(cacheName);
-                        cacheBuilder = cacheManager.<K, V>createCacheBuilder(cacheName).
-                                setExpiry(CacheConfiguration.ExpiryType.ACCESSED,
-                                        new CacheConfiguration
-                                                .Duration(TimeUnit.SECONDS, getCacheTimeout())).
-                                setExpiry(CacheConfiguration.ExpiryType.MODIFIED,
-                                        new CacheConfiguration
-                                                .Duration(TimeUnit.SECONDS, getCacheTimeout())).
-                                setStoreByValue(false);
-                        cache = cacheBuilder.build();
-
-                        for (AbstractCacheListener cacheListener : cacheListeners) {
-                            if (cacheListener.isEnable()) {
-                                this.cacheBuilder.registerCacheEntryListener(cacheListener);
-                            }
-                        }
-
-                        setCapacity((CacheImpl) cache);
-                    } else {
-                        cache = cacheManager.getCache(cacheName);
-                        setCapacity((CacheImpl) cache);
+                cacheManager.removeCache(cacheName);
+                cacheBuilder = cacheManager.<K, V>createCacheBuilder(cacheName).
+                        setExpiry(CacheConfiguration.ExpiryType.ACCESSED,
+                                new CacheConfiguration
+                                        .Duration(TimeUnit.SECONDS, getCacheTimeout())).
+                        setExpiry(CacheConfiguration.ExpiryType.MODIFIED,
+                                new CacheConfiguration
+                                        .Duration(TimeUnit.SECONDS, getCacheTimeout())).
+                        setStoreByValue(false);
+                baseCache = cacheBuilder.build();
+
+                for (AbstractCacheListener cacheListener : cacheListeners) {
+                    if (cacheListener.isEnable()) {
+                        this.cacheBuilder.registerCacheEntryListener(cacheListener);
                     }
                 }
-
             } else {
-                cache = cacheManager.getCache(cacheName);
-                setCapacity((CacheImpl) cache);
-
+                baseCache = cacheManager.getCache(cacheName);
             }
+            if (baseCache != null) {
+                setCapacity((CacheImpl) baseCache);
+            }
+            this.cache = baseCache;
+            return baseCache;
+        }
+    }
+
+    /**
+     * Checks whether the calling thread is already in the super tenant context, in which case the cache can be
+     * accessed without starting a tenant flow.
+     *
+     * @return true if the thread is in the super tenant context.
+     */
+    private boolean isSuperTenantFlow() {
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        return carbonContext.getTenantId() == MultitenantConstants.SUPER_TENANT_ID &&
+                MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(carbonContext.getTenantDomain());
+    }
+
+    private void startSuperTenantFlow() {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    /**
+     * Runs the given operation against the underlying cache in the super tenant context. A tenant flow is only started
+     * when the calling thread is not already in the super tenant context.
+     *
+     * @param operation Operation to run against the cache. It is not called if the cache is not available.
+     * @param <T>       Result type of the operation.
+     * @return Result of the operation, or null if the cache is not available.
+     */
+    private <T> T runInSuperTenantFlow(Function<Cache<K, V>, T> operation) {
+
+        if (isSuperTenantFlow()) {
+            Cache<K, V> cache = getBaseCache();
+            return cache != null ? operation.apply(cache) : null;
+        }
+        try {
+            startSuperTenantFlow();
+            Cache<K, V> cache = getBaseCache();
+            return cache != null ? operation.apply(cache) : null;
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
         }
-
-        return cache;
     }
 
     /**
@@ -117,20 +164,10 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
-        try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-            // Element already in the cache. Remove it first
-            Cache<K, V> cache = getBaseCache();
-            if (cache != null) {
-                cache.put(key, entry);
-            }
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
-        }
+        runInSuperTenantFlow(cache -> {
+            cache.put(key, entry);
+            return null;
+        });
     }
 
     /**
@@ -148,20 +185,7 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return null;
         }
 
-        try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-            Cache<K, V> cache = getBaseCache();
-            if (cache != null && cache.get(key) != null) {
-                return (V) cache.get(key);
-            }
-            return null;
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
-        }
+        return runInSuperTenantFlow(cache -> cache.get(key));
     }
 
     /**
@@ -174,19 +198,7 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
-        try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-            Cache<K, V> cache = getBaseCache();
-            if (cache != null) {
-                cache.remove(key);
-            }
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
-        }
+        runInSuperTenantFlow(cache -> cache.remove(key));
     }
 
     /**
@@ -197,19 +209,10 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
-        try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-            Cache<K, V> cache = getBaseCache();
-            if (cache != null) {
-                cache.removeAll();
-            }
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
-        }
+        runInSuperTenantFlow(cache -> {
+            cache.removeAll();
+            return null;
+        });
     }
 
     public void addListener(AbstractCacheListener listener){
@@ -47,6 +47,9 @@ import org.wso2.carbon.identity.application.common.util.IdentityApplicationConst
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCache;
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCacheEntry;
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCacheKey;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderClientIdCache;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderClientIdCacheEntry;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderClientIdCacheKey;
 import org.wso2.carbon.identity.application.mgt.dao.ApplicationDAO;
 import org.wso2.carbon.identity.application.mgt.dao.IdentityProviderDAO;
 import org.wso2.carbon.identity.application.mgt.dao.OAuthApplicationDAO;
@@ -239,7 +242,12 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
 
             ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
             String storedAppName = appDAO.getApplicationName(serviceProvider.getApplicationID());
+            // Client ids removed from the application or mapped to the renamed application must not be served from
+            // the cache.
+            ServiceProvider storedServiceProvider = appDAO.getApplication(serviceProvider.getApplicationID());
             appDAO.updateApplication(serviceProvider, tenantDomain);
+            ServiceProviderClientIdCache.getInstance().clearCacheEntries(storedServiceProvider, tenantDomain);
+            ServiceProviderClientIdCache.getInstance().clearCacheEntries(serviceProvider, tenantDomain);
 
             if (!isValidPEMCertificate(serviceProvider.getCertificateContent())) {
                 String errorMessage = "Application certificate of the service provider " +
@@ -335,6 +343,7 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
             ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
             ServiceProvider serviceProvider = appDAO.getApplication(applicationName, tenantDomain);
             appDAO.deleteApplication(applicationName);
+            ServiceProviderClientIdCache.getInstance().clearCacheEntries(serviceProvider, tenantDomain);
 
             ApplicationMgtUtil.deleteAppRole(applicationName);
             ApplicationMgtUtil.deletePermissions(applicationName);
@@ -519,8 +528,7 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
         }
 
         try {
-            ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
-            name =  appDAO.getServiceProviderNameByClientId(clientId, type, tenantDomain);
+            name = getServiceProviderNameByClientIdFromStore(clientId, type, tenantDomain);
 
         } catch (Exception e) {
             String error = "Error occurred while retrieving the service provider for client id :  " + clientId;
@@ -621,6 +629,40 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
         return reqClaims;
     }
 
+    /**
+     * Resolves the name of the service provider stored in the database by the client id, through the client id
+     * cache.
+     *
+     * @param clientId     client id
+     * @param clientType   inbound authentication type
+     * @param tenantDomain tenant domain
+     * @return service provider name or null if the client id is not associated with a stored service provider
+     * @throws IdentityApplicationManagementException
+     */
+    private String getServiceProviderNameByClientIdFromStore(String clientId, String clientType, String tenantDomain)
+            throws IdentityApplicationManagementException {
+
+        ServiceProviderClientIdCache cache = ServiceProviderClientIdCache.getInstance();
+        ServiceProviderClientIdCacheKey cacheKey = new ServiceProviderClientIdCacheKey(clientId, clientType,
+                tenantDomain);
+        ServiceProviderClientIdCacheEntry entry = cache.getValueFromCache(cacheKey);
+        if (entry != null) {
+            return entry.getServiceProviderName();
+        }
+
+        ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
+        String name = appDAO.getServiceProviderNameByClientId(clientId, clientType, tenantDomain);
+        // Unknown client ids are not cached, as creating an application would have to invalidate them.
+        if (name != null) {
+            cache.addToCache(cacheKey, new ServiceProviderClientIdCacheEntry(name));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Service provider for client id: " + clientId + " of type: " + clientType +
+                    " is loaded from the database. Client id cache hit ratio: " + cache.getHitRatio());
+        }
+        return name;
+    }
+
     /**
      * @param clientId
      * @param clientType
@@ -642,8 +684,7 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
             }
         }
 
-        ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
-        name = appDAO.getServiceProviderNameByClientId(clientId, clientType, tenantDomain);
+        name = getServiceProviderNameByClientIdFromStore(clientId, clientType, tenantDomain);
 
         if (name == null) {
             name = new FileBasedApplicationDAO().getServiceProviderNameByClientId(clientId,
@@ -101,12 +101,33 @@ public class ApplicationMgtDBQueries {
     public static final String LOAD_APP_NAME_BY_APP_ID = "SELECT APP_NAME FROM SP_APP WHERE ID = ? AND TENANT_ID = ?";
     public static final String LOAD_CLIENTS_INFO_BY_APP_ID = "SELECT INBOUND_AUTH_KEY, INBOUND_AUTH_TYPE, PROP_NAME, " +
                                                              "PROP_VALUE,INBOUND_CONFIG_TYPE FROM  SP_INBOUND_AUTH WHERE APP_ID = ? AND TENANT_ID = ?";
+    /**
+     * @deprecated Use {@link #LOAD_STEPS_AND_AUTHENTICATORS_BY_APP_ID} instead.
+     */
+    @Deprecated
     public static final String LOAD_STEPS_INFO_BY_APP_ID = "SELECT STEP_ORDER, AUTHENTICATOR_ID, IS_SUBJECT_STEP, " +
                                                            "IS_ATTRIBUTE_STEP "
                                                            + "FROM SP_AUTH_STEP INNER JOIN SP_FEDERATED_IDP "
                                                            + "ON SP_AUTH_STEP.ID=SP_FEDERATED_IDP.ID "
                                                            + "WHERE APP_ID = ?";
+    public static final String LOAD_STEPS_AND_AUTHENTICATORS_BY_APP_ID = "SELECT SP_AUTH_STEP.STEP_ORDER, " +
+                                                                         "SP_FEDERATED_IDP.AUTHENTICATOR_ID, SP_AUTH_STEP.IS_SUBJECT_STEP, " +
+                                                                         "SP_AUTH_STEP.IS_ATTRIBUTE_STEP, IDP.NAME, IDP_AUTHENTICATOR.NAME, " +
+                                                                         "IDP_AUTHENTICATOR.DISPLAY_NAME, IDP.IS_FEDERATION_HUB, IDP.TENANT_ID "
+                                                                         + "FROM SP_AUTH_STEP INNER JOIN SP_FEDERATED_IDP "
+                                                                         + "ON SP_AUTH_STEP.ID=SP_FEDERATED_IDP.ID "
+                                                                         + "LEFT OUTER JOIN IDP_AUTHENTICATOR "
+                                                                         + "ON SP_FEDERATED_IDP.AUTHENTICATOR_ID=IDP_AUTHENTICATOR.ID "
+                                                                         + "LEFT OUTER JOIN IDP ON IDP_AUTHENTICATOR.IDP_ID=IDP.ID AND "
+                                                                         + "((IDP.TENANT_ID=? AND IDP_AUTHENTICATOR.TENANT_ID=?) OR "
+                                                                         + "(IDP.TENANT_ID=? AND IDP.NAME LIKE 'SHARED_%' AND "
+                                                                         + "IDP_AUTHENTICATOR.TENANT_ID=?)) "
+                                                                         + "WHERE SP_AUTH_STEP.APP_ID = ?";
     public static final String LOAD_STEP_ID_BY_APP_ID = "SELECT ID FROM SP_AUTH_STEP WHERE APP_ID = ?";
+    /**
+     * @deprecated Use {@link #LOAD_STEPS_AND_AUTHENTICATORS_BY_APP_ID} instead.
+     */
+    @Deprecated
     public static final String LOAD_HUB_IDP_BY_NAME = "SELECT IS_FEDERATION_HUB FROM IDP WHERE NAME = ? AND TENANT_ID " +
                                                       "= ?";
 
@@ -161,6 +182,10 @@ public class ApplicationMgtDBQueries {
     public static final String LOAD_IDP_AUTHENTICATOR_ID = "SELECT A.ID FROM IDP_AUTHENTICATOR A JOIN IDP B ON A" +
                                                            ".IDP_ID= B.ID WHERE A.NAME =? AND B.NAME=? AND ((A.TENANT_ID =? AND B.TENANT_ID =?) OR (B.TENANT_ID=? " +
                                                            "AND B.NAME LIKE 'SHARED_%'))";
+    /**
+     * @deprecated Use {@link #LOAD_STEPS_AND_AUTHENTICATORS_BY_APP_ID} instead.
+     */
+    @Deprecated
     public static final String LOAD_IDP_AND_AUTHENTICATOR_NAMES = "SELECT A.NAME, B.NAME, " +
                                                                   "B.DISPLAY_NAME FROM IDP A JOIN IDP_AUTHENTICATOR B ON A.ID = B.IDP_ID WHERE B.ID =? AND ((A.TENANT_ID =?" +
                                                                   " AND B.TENANT_ID =?) OR  (A.TENANT_ID=? AND A.NAME LIKE 'SHARED_%' AND B.TENANT_ID=?))";
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationRequestConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the service provider names resolved by client id. Client ids which are not associated with a service
+ * provider are not cached. Entries are removed by client id when the service provider which owns the client id is
+ * updated or deleted.
+ */
+public class ServiceProviderClientIdCache extends
+        BaseCache<ServiceProviderClientIdCacheKey, ServiceProviderClientIdCacheEntry> {
+
+    public static final String SP_CLIENT_ID_CACHE_NAME = "ServiceProviderClientIdCache";
+
+    private static volatile ServiceProviderClientIdCache instance;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private ServiceProviderClientIdCache() {
+        super(SP_CLIENT_ID_CACHE_NAME);
+    }
+
+    public static ServiceProviderClientIdCache getInstance() {
+        if (instance == null) {
+            synchronized (ServiceProviderClientIdCache.class) {
+                if (instance == null) {
+                    instance = new ServiceProviderClientIdCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public ServiceProviderClientIdCacheEntry getValueFromCache(ServiceProviderClientIdCacheKey key) {
+
+        ServiceProviderClientIdCacheEntry entry = super.getValueFromCache(key);
+        if (entry != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Removes the entries of the client ids of the given service provider. Entries of other service providers and
+     * other tenants are left in the cache.
+     *
+     * @param serviceProvider service provider, can be null
+     * @param tenantDomain    tenant domain of the service provider
+     */
+    public void clearCacheEntries(ServiceProvider serviceProvider, String tenantDomain) {
+
+        if (serviceProvider == null) {
+            return;
+        }
+        InboundAuthenticationConfig inboundAuthenticationConfig = serviceProvider.getInboundAuthenticationConfig();
+        if (inboundAuthenticationConfig == null ||
+                inboundAuthenticationConfig.getInboundAuthenticationRequestConfigs() == null) {
+            return;
+        }
+        for (InboundAuthenticationRequestConfig config :
+                inboundAuthenticationConfig.getInboundAuthenticationRequestConfigs()) {
+            if (config != null && config.getInboundAuthKey() != null) {
+                clearCacheEntry(new ServiceProviderClientIdCacheKey(config.getInboundAuthKey(),
+                        config.getInboundAuthType(), tenantDomain));
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return ratio of the lookups served from the cache
+     */
+    public double getHitRatio() {
+
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheEntry;
+
+/**
+ * Cache entry of a service provider name resolved by client id. The service provider name is null when the client id
+ * is not associated with a service provider.
+ */
+public class ServiceProviderClientIdCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -4357109652135481267L;
+
+    private String serviceProviderName;
+
+    public ServiceProviderClientIdCacheEntry(String serviceProviderName) {
+        this.serviceProviderName = serviceProviderName;
+    }
+
+    public String getServiceProviderName() {
+        return serviceProviderName;
+    }
+}
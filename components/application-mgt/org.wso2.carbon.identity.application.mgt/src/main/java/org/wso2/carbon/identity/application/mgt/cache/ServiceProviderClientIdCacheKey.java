@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheKey;
+
+/**
+ * Cache key to resolve a service provider name by the client id and the inbound authentication type.
+ */
+public class ServiceProviderClientIdCacheKey extends CacheKey {
+
+    private static final long serialVersionUID = 2847366318127930547L;
+
+    private String clientId;
+    private String clientType;
+
+    public ServiceProviderClientIdCacheKey(String clientId, String clientType, String tenantDomain) {
+        this.clientId = clientId;
+        this.clientType = clientType;
+        if (tenantDomain != null) {
+            this.tenantDomain = tenantDomain.toLowerCase();
+        }
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getClientType() {
+        return clientType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        ServiceProviderClientIdCacheKey that = (ServiceProviderClientIdCacheKey) o;
+
+        if (clientId != null ? !clientId.equals(that.clientId) : that.clientId != null) return false;
+        if (clientType != null ? !clientType.equals(that.clientType) : that.clientType != null) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (clientId != null ? clientId.hashCode() : 0);
+        result = 31 * result + (clientType != null ? clientType.hashCode() : 0);
+        return result;
+    }
+}
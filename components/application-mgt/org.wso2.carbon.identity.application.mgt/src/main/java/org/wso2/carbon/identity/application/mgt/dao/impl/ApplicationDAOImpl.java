@@ -64,9 +64,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * This class access the IDN_APPMGT database to store/update and delete application configurations.
@@ -2212,15 +2214,23 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         }
 
         try {
+            // Steps are loaded together with their authenticators and identity providers in a single query,
+            // instead of querying each authenticator and identity provider separately.
             getStepInfoPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_STEPS_INFO_BY_APP_ID);
-            // STEP_ORDER, AUTHENTICATOR_ID, IS_SUBJECT_STEP, IS_ATTRIBUTE_STEP
-            getStepInfoPrepStmt.setInt(1, applicationId);
+                    .prepareStatement(ApplicationMgtDBQueries.LOAD_STEPS_AND_AUTHENTICATORS_BY_APP_ID);
+            // STEP_ORDER, AUTHENTICATOR_ID, IS_SUBJECT_STEP, IS_ATTRIBUTE_STEP, IDP_NAME, AUTHENTICATOR_NAME,
+            // AUTHENTICATOR_DISPLAY_NAME, IS_FEDERATION_HUB, IDP_TENANT_ID
+            getStepInfoPrepStmt.setInt(1, tenantId);
+            getStepInfoPrepStmt.setInt(2, tenantId);
+            getStepInfoPrepStmt.setInt(3, MultitenantConstants.SUPER_TENANT_ID);
+            getStepInfoPrepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            getStepInfoPrepStmt.setInt(5, applicationId);
             stepInfoResultSet = getStepInfoPrepStmt.executeQuery();
 
             Map<String, AuthenticationStep> authSteps = new HashMap<String, AuthenticationStep>();
             Map<String, Map<String, List<FederatedAuthenticatorConfig>>> stepFedIdPAuthenticators = new HashMap<String, Map<String, List<FederatedAuthenticatorConfig>>>();
             Map<String, List<LocalAuthenticatorConfig>> stepLocalAuth = new HashMap<String, List<LocalAuthenticatorConfig>>();
+            Set<String> federationHubIdPs = new HashSet<String>();
 
             while (stepInfoResultSet.next()) {
 
@@ -2237,9 +2247,18 @@ public class ApplicationDAOImpl implements ApplicationDAO {
                             new HashMap<String, List<FederatedAuthenticatorConfig>>());
                 }
 
-                int authenticatorId = stepInfoResultSet.getInt(2);
-                Map<String, String> authenticatorInfo = getAuthenticatorInfo(connection, tenantId,
-                        authenticatorId);
+                Map<String, String> authenticatorInfo = new HashMap<String, String>();
+                String idpName = stepInfoResultSet.getString(5);
+                if (idpName != null) {
+                    authenticatorInfo.put(ApplicationConstants.IDP_NAME, idpName);
+                    authenticatorInfo.put(ApplicationConstants.IDP_AUTHENTICATOR_NAME, stepInfoResultSet.getString(6));
+                    authenticatorInfo.put(ApplicationConstants.IDP_AUTHENTICATOR_DISPLAY_NAME,
+                            stepInfoResultSet.getString(7));
+                    // Shared identity providers of the super tenant are never federation hubs of the tenant.
+                    if ("1".equals(stepInfoResultSet.getString(8)) && stepInfoResultSet.getInt(9) == tenantId) {
+                        federationHubIdPs.add(idpName);
+                    }
+                }
 
                 if (authenticatorInfo != null
                         && authenticatorInfo.get(ApplicationConstants.IDP_NAME) != null
@@ -2309,7 +2328,7 @@ public class ApplicationDAOImpl implements ApplicationDAO {
                         List<FederatedAuthenticatorConfig> fedAuthenticators = idpEntry.getValue();
                         IdentityProvider idp = new IdentityProvider();
                         idp.setIdentityProviderName(idpName);
-                        idp.setFederationHub(isFederationHubIdP(idpName, connection, tenantId));
+                        idp.setFederationHub(federationHubIdPs.contains(idpName));
                         idp.setFederatedAuthenticatorConfigs(
                                 fedAuthenticators.toArray(new FederatedAuthenticatorConfig[fedAuthenticators.size()]));
                         idp.setDefaultAuthenticatorConfig(idp.getFederatedAuthenticatorConfigs()[0]);
@@ -2439,31 +2458,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         return null;
     }
 
-    private boolean isFederationHubIdP(String idPName, Connection connection, int tenantId)
-            throws SQLException {
-
-        PreparedStatement get = null;
-        ResultSet resultSet = null;
-
-        try {
-            get = connection.prepareStatement(ApplicationMgtDBQueries.LOAD_HUB_IDP_BY_NAME);
-
-            get.setString(1, idPName);
-            get.setInt(2, tenantId);
-            resultSet = get.executeQuery();
-
-            if (resultSet.next()) {
-                return "1".equals(resultSet.getString(1));
-            }
-
-            return false;
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(get);
-            IdentityApplicationManagementUtil.closeResultSet(resultSet);
-        }
-
-    }
-
     /**
      * @param applicationId
      * @param connection
@@ -3343,39 +3337,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         return authId;
     }
 
-    /**
-     * @param conn
-     * @param tenantId
-     * @param authenticatorId
-     * @return
-     * @throws SQLException
-     */
-    private Map<String, String> getAuthenticatorInfo(Connection conn, int tenantId,
-                                                     int authenticatorId) throws SQLException {
-        PreparedStatement prepStmt = null;
-        ResultSet rs = null;
-        String sqlStmt = ApplicationMgtDBQueries.LOAD_IDP_AND_AUTHENTICATOR_NAMES;
-        Map<String, String> returnData = new HashMap<String, String>();
-        try {
-            prepStmt = conn.prepareStatement(sqlStmt);
-            prepStmt.setInt(1, authenticatorId);
-            prepStmt.setInt(2, tenantId);
-            prepStmt.setInt(3, tenantId);
-            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
-            prepStmt.setInt(5, MultitenantConstants.SUPER_TENANT_ID);
-            rs = prepStmt.executeQuery();
-            while (rs.next()) {
-                returnData.put(ApplicationConstants.IDP_NAME, rs.getString(1));
-                returnData.put(ApplicationConstants.IDP_AUTHENTICATOR_NAME, rs.getString(2));
-                returnData
-                        .put(ApplicationConstants.IDP_AUTHENTICATOR_DISPLAY_NAME, rs.getString(3));
-            }
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(prepStmt);
-        }
-        return returnData;
-    }
-
     /**
      * @param conn
      * @param tenantId
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderClientIdCache;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderClientIdCacheEntry;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderClientIdCacheKey;
+import org.wso2.carbon.identity.application.mgt.dao.ApplicationDAO;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests the client id cache usage of the ApplicationManagementServiceImpl.
+ */
+@PrepareForTest({ServiceProviderClientIdCache.class, ApplicationMgtSystemConfig.class})
+public class ApplicationManagementServiceImplTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String CLIENT_ID = "client-a";
+    private static final String CLIENT_TYPE = "oauth2";
+
+    private ServiceProviderClientIdCache cache;
+    private ApplicationDAO applicationDAO;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() {
+
+        cache = mock(ServiceProviderClientIdCache.class);
+        mockStatic(ServiceProviderClientIdCache.class);
+        when(ServiceProviderClientIdCache.getInstance()).thenReturn(cache);
+
+        applicationDAO = mock(ApplicationDAO.class);
+        ApplicationMgtSystemConfig systemConfig = mock(ApplicationMgtSystemConfig.class);
+        when(systemConfig.getApplicationDAO()).thenReturn(applicationDAO);
+        mockStatic(ApplicationMgtSystemConfig.class);
+        when(ApplicationMgtSystemConfig.getInstance()).thenReturn(systemConfig);
+    }
+
+    @Test
+    public void testUnknownClientIdIsNotCached() throws Exception {
+
+        when(applicationDAO.getServiceProviderNameByClientId(CLIENT_ID, CLIENT_TYPE, TENANT_DOMAIN))
+                .thenReturn(null);
+
+        String name = ApplicationManagementServiceImpl.getInstance()
+                .getServiceProviderNameByClientIdExcludingFileBasedSPs(CLIENT_ID, CLIENT_TYPE, TENANT_DOMAIN);
+
+        assertNull(name);
+        verify(cache, never()).addToCache(any(ServiceProviderClientIdCacheKey.class),
+                any(ServiceProviderClientIdCacheEntry.class));
+    }
+
+    @Test
+    public void testKnownClientIdIsCached() throws Exception {
+
+        when(applicationDAO.getServiceProviderNameByClientId(CLIENT_ID, CLIENT_TYPE, TENANT_DOMAIN))
+                .thenReturn("app");
+
+        String name = ApplicationManagementServiceImpl.getInstance()
+                .getServiceProviderNameByClientIdExcludingFileBasedSPs(CLIENT_ID, CLIENT_TYPE, TENANT_DOMAIN);
+
+        assertEquals(name, "app");
+        verify(cache).addToCache(eq(new ServiceProviderClientIdCacheKey(CLIENT_ID, CLIENT_TYPE, TENANT_DOMAIN)),
+                any(ServiceProviderClientIdCacheEntry.class));
+    }
+
+    @Test
+    public void testCachedClientIdIsNotLoadedFromStore() throws Exception {
+
+        when(cache.getValueFromCache(new ServiceProviderClientIdCacheKey(CLIENT_ID, CLIENT_TYPE, TENANT_DOMAIN)))
+                .thenReturn(new ServiceProviderClientIdCacheEntry("app"));
+
+        String name = ApplicationManagementServiceImpl.getInstance()
+                .getServiceProviderNameByClientIdExcludingFileBasedSPs(CLIENT_ID, CLIENT_TYPE, TENANT_DOMAIN);
+
+        assertEquals(name, "app");
+        verify(applicationDAO, never()).getServiceProviderNameByClientId(anyString(), anyString(), anyString());
+    }
+}
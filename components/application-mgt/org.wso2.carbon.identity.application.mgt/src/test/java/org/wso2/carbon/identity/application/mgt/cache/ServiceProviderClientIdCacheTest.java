@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt.cache;
+
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationRequestConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the removal of the client id entries of a service provider from the ServiceProviderClientIdCache.
+ */
+public class ServiceProviderClientIdCacheTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+
+    private ServiceProviderClientIdCache cache;
+
+    @BeforeMethod
+    public void setUp() {
+
+        cache = spy(Whitebox.newInstance(ServiceProviderClientIdCache.class));
+        doNothing().when(cache).clearCacheEntry(any(ServiceProviderClientIdCacheKey.class));
+        doNothing().when(cache).clear();
+    }
+
+    @Test
+    public void testClearCacheEntriesRemovesOnlyClientIdsOfServiceProvider() {
+
+        ServiceProvider serviceProvider = createServiceProvider(createInboundConfig("client-a", "oauth2"),
+                createInboundConfig("issuer-b", "samlsso"), createInboundConfig(null, "wstrust"));
+
+        cache.clearCacheEntries(serviceProvider, TENANT_DOMAIN);
+
+        verify(cache).clearCacheEntry(new ServiceProviderClientIdCacheKey("client-a", "oauth2", TENANT_DOMAIN));
+        verify(cache).clearCacheEntry(new ServiceProviderClientIdCacheKey("issuer-b", "samlsso", TENANT_DOMAIN));
+        verify(cache, times(2)).clearCacheEntry(any(ServiceProviderClientIdCacheKey.class));
+        verify(cache, never()).clear();
+    }
+
+    @Test
+    public void testClearCacheEntriesWithoutInboundConfigs() {
+
+        cache.clearCacheEntries(null, TENANT_DOMAIN);
+        cache.clearCacheEntries(new ServiceProvider(), TENANT_DOMAIN);
+        cache.clearCacheEntries(createServiceProvider(), TENANT_DOMAIN);
+
+        verify(cache, never()).clearCacheEntry(any(ServiceProviderClientIdCacheKey.class));
+        verify(cache, never()).clear();
+    }
+
+    private ServiceProvider createServiceProvider(InboundAuthenticationRequestConfig... configs) {
+
+        InboundAuthenticationConfig inboundAuthenticationConfig = new InboundAuthenticationConfig();
+        inboundAuthenticationConfig.setInboundAuthenticationRequestConfigs(configs);
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setInboundAuthenticationConfig(inboundAuthenticationConfig);
+        return serviceProvider;
+    }
+
+    private InboundAuthenticationRequestConfig createInboundConfig(String clientId, String type) {
+
+        InboundAuthenticationRequestConfig config = new InboundAuthenticationRequestConfig();
+        config.setInboundAuthKey(clientId);
+        config.setInboundAuthType(type);
+        return config;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.cache;
+
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+/**
+ * Cache of the versions of the sequence templates built for the service providers. Removing the entry of a service
+ * provider is propagated to the other nodes of the cluster, so that all of them rebuild the sequence template.
+ */
+public class SequenceTemplateVersionCache extends
+        BaseCache<SequenceTemplateVersionCacheKey, SequenceTemplateVersionCacheEntry> {
+
+    private static final String CACHE_NAME = "SequenceTemplateVersionCache";
+
+    private static volatile SequenceTemplateVersionCache instance;
+
+    private SequenceTemplateVersionCache() {
+        super(CACHE_NAME);
+    }
+
+    public static SequenceTemplateVersionCache getInstance() {
+        if (instance == null) {
+            synchronized (SequenceTemplateVersionCache.class) {
+                if (instance == null) {
+                    instance = new SequenceTemplateVersionCache();
+                }
+            }
+        }
+        return instance;
+    }
+}
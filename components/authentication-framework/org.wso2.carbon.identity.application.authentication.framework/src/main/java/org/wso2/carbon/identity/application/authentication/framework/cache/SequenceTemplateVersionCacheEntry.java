@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheEntry;
+
+/**
+ * Version of the sequence template of a service provider. A new version is assigned whenever the entry is missing.
+ */
+public class SequenceTemplateVersionCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = 3170469436582935818L;
+
+    private String version;
+
+    public SequenceTemplateVersionCacheEntry(String version) {
+        this.version = version;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+}
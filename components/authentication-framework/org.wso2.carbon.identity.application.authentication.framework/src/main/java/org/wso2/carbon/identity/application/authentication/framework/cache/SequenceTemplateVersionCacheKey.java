@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheKey;
+
+/**
+ * Identifies the sequence template of a service provider by the application name and the tenant domain.
+ */
+public class SequenceTemplateVersionCacheKey extends CacheKey {
+
+    private static final long serialVersionUID = -6213785031563915021L;
+
+    private String applicationName;
+
+    public SequenceTemplateVersionCacheKey(String applicationName, String tenantDomain) {
+        this.applicationName = applicationName;
+        this.tenantDomain = tenantDomain;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass() || !super.equals(o)) {
+            return false;
+        }
+
+        SequenceTemplateVersionCacheKey that = (SequenceTemplateVersionCacheKey) o;
+
+        return applicationName != null ? applicationName.equals(that.applicationName) : that.applicationName == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + (applicationName != null ? applicationName.hashCode() : 0);
+        return result;
+    }
+}
@@ -18,10 +18,15 @@
 
 package org.wso2.carbon.identity.application.authentication.framework.config.loader;
 
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
 import org.wso2.carbon.identity.application.authentication.framework.JsFunctionRegistry;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceTemplateVersionCache;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceTemplateVersionCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceTemplateVersionCacheKey;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.ApplicationConfig;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
@@ -31,7 +36,7 @@ import org.wso2.carbon.identity.application.authentication.framework.config.mode
 import org.wso2.carbon.identity.application.authentication.framework.config.model.graph.JsGraphBuilderFactory;
 import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
 import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
-import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceComponent;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.common.model.AuthenticationStep;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
@@ -41,13 +46,17 @@ import org.wso2.carbon.identity.application.common.model.LocalAuthenticatorConfi
 import org.wso2.carbon.identity.application.common.model.RequestPathAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 import org.wso2.carbon.identity.application.common.model.script.AuthenticationScriptConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Sequence Configuration loader, loads the sequence configuration from the database.
@@ -55,10 +64,28 @@ import java.util.Map;
  * History: The main logic was moved from @see {@link org.wso2.carbon.identity.application.authentication.framework.config.builder.UIBasedConfigurationBuilder},
  * This is one step to move away from Singleton pattern used throughout the code.
  * Few other singletons should be removed and passed relevant information as setters or constructor arguments here.
+ * <p>
+ * The sequence built for a service provider is kept as a template and every request gets its own copy of it. Each
+ * template carries the version of the service provider it was built from, which is kept in the
+ * {@link SequenceTemplateVersionCache}. Updating or deleting the application removes that version on all the nodes, and
+ * registering or unregistering an authenticator changes the authenticators modification count, either of which makes
+ * the template to be rebuilt.
  */
 public class UIBasedConfigurationLoader implements SequenceLoader {
 
     private static final Log log = LogFactory.getLog(UIBasedConfigurationLoader.class);
+    private static final String SEQUENCE_TEMPLATE_CACHE_SIZE = "Authentication.SequenceTemplateCacheSize";
+    private static final int DEFAULT_SEQUENCE_TEMPLATE_CACHE_SIZE = 500;
+    private static final int sequenceTemplateCacheSize = readSequenceTemplateCacheSize();
+    private static final Map<String, SequenceTemplate> sequenceTemplates =
+            Collections.synchronizedMap(new LinkedHashMap<String, SequenceTemplate>(16, 0.75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SequenceTemplate> eldest) {
+
+                    return size() > sequenceTemplateCacheSize;
+                }
+            });
     private JsFunctionRegistry jsFunctionRegistrar;
     private JsGraphBuilderFactory jsGraphBuilderFactory;
 
@@ -141,6 +168,43 @@ public class UIBasedConfigurationLoader implements SequenceLoader {
         if (serviceProvider == null) {
             throw new FrameworkException("ServiceProvider cannot be null");
         }
+        if (sequenceTemplateCacheSize <= 0 || !isConfiguredSteps(serviceProvider, authenticationSteps) ||
+                !isTemplateCacheable(authenticationSteps)) {
+            return buildSequence(serviceProvider, tenantDomain, authenticationSteps);
+        }
+
+        String templateKey = getSequenceTemplateKey(tenantDomain, serviceProvider.getApplicationName());
+        // The version is read before the sequence is built, so that a template built from a service provider which
+        // is updated meanwhile is not reused.
+        String version = getSequenceTemplateVersion(tenantDomain, serviceProvider.getApplicationName());
+        int authenticatorsModificationCount = FrameworkServiceDataHolder.getInstance()
+                .getAuthenticatorsModificationCount();
+        SequenceTemplate template = sequenceTemplates.get(templateKey);
+        if (template == null || !template.isValid(version, authenticatorsModificationCount)) {
+            template = new SequenceTemplate(version, authenticatorsModificationCount,
+                    buildSequence(serviceProvider, tenantDomain, authenticationSteps));
+            sequenceTemplates.put(templateKey, template);
+        }
+        return copySequence(template.sequenceConfig);
+    }
+
+    /**
+     * Removes the sequence templates built for the given application, on this node and the other nodes of the
+     * cluster.
+     *
+     * @param tenantDomain    Tenant domain of the application.
+     * @param applicationName Name of the application.
+     */
+    public static void clearSequenceTemplates(String tenantDomain, String applicationName) {
+
+        SequenceTemplateVersionCache.getInstance().clearCacheEntry(
+                new SequenceTemplateVersionCacheKey(applicationName, tenantDomain));
+        sequenceTemplates.remove(getSequenceTemplateKey(tenantDomain, applicationName));
+    }
+
+    private SequenceConfig buildSequence(ServiceProvider serviceProvider, String tenantDomain,
+                                         AuthenticationStep[] authenticationSteps) throws FrameworkException {
+
         SequenceConfig sequenceConfig = new SequenceConfig();
         sequenceConfig.setApplicationId(serviceProvider.getApplicationName());
         sequenceConfig.setApplicationConfig(new ApplicationConfig(serviceProvider));
@@ -203,13 +267,10 @@ public class UIBasedConfigurationLoader implements SequenceLoader {
                 authConfig.setName(authenticatorName);
                 authConfig.setEnabled(true);
 
-                // iterate through each system authentication config
-                for (ApplicationAuthenticator appAuthenticator : FrameworkServiceComponent.getAuthenticators()) {
-
-                    if (authenticatorName.equalsIgnoreCase(appAuthenticator.getName())) {
-                        authConfig.setApplicationAuthenticator(appAuthenticator);
-                        break;
-                    }
+                ApplicationAuthenticator appAuthenticator = FrameworkServiceDataHolder.getInstance()
+                        .getAuthenticatorByName(authenticatorName, true);
+                if (appAuthenticator != null) {
+                    authConfig.setApplicationAuthenticator(appAuthenticator);
                 }
                 requestPathAuthenticators.add(authConfig);
             }
@@ -280,13 +341,10 @@ public class UIBasedConfigurationLoader implements SequenceLoader {
         if (authenticatorConfig == null) {
             authenticatorConfig = new AuthenticatorConfig();
             authenticatorConfig.setName(authenticatorName);
-
-            for (ApplicationAuthenticator appAuthenticator : FrameworkServiceComponent.getAuthenticators()) {
-
-                if (authenticatorName.equalsIgnoreCase(appAuthenticator.getName())) {
-                    authenticatorConfig.setApplicationAuthenticator(appAuthenticator);
-                    break;
-                }
+            ApplicationAuthenticator appAuthenticator = FrameworkServiceDataHolder.getInstance()
+                    .getAuthenticatorByName(authenticatorName, true);
+            if (appAuthenticator != null) {
+                authenticatorConfig.setApplicationAuthenticator(appAuthenticator);
             }
 
             stepConfig.getAuthenticatorList().add(authenticatorConfig);
@@ -310,4 +368,150 @@ public class UIBasedConfigurationLoader implements SequenceLoader {
     public void setJsGraphBuilderFactory(JsGraphBuilderFactory jsGraphBuilderFactory) {
         this.jsGraphBuilderFactory = jsGraphBuilderFactory;
     }
+
+    /**
+     * A template can be shared only when it does not depend on anything other than the service provider itself.
+     * Federated IdPs without a default authenticator (e.g. the ones of file based service providers) are resolved
+     * from the IdP management service, so those sequences are built on each request.
+     */
+    private boolean isTemplateCacheable(AuthenticationStep[] authenticationSteps) {
+
+        if (authenticationSteps == null) {
+            return true;
+        }
+        for (AuthenticationStep authenticationStep : authenticationSteps) {
+            IdentityProvider[] federatedIDPs = authenticationStep.getFederatedIdentityProviders();
+            if (federatedIDPs == null) {
+                continue;
+            }
+            for (IdentityProvider federatedIDP : federatedIDPs) {
+                if (federatedIDP.getDefaultAuthenticatorConfig() == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Templates are versioned by the service provider, so they are used only for the steps configured in it.
+     */
+    private boolean isConfiguredSteps(ServiceProvider serviceProvider, AuthenticationStep[] authenticationSteps) {
+
+        LocalAndOutboundAuthenticationConfig localAndOutboundAuthenticationConfig = serviceProvider
+                .getLocalAndOutBoundAuthenticationConfig();
+        AuthenticationStep[] configuredSteps = localAndOutboundAuthenticationConfig != null ?
+                localAndOutboundAuthenticationConfig.getAuthenticationSteps() : null;
+        if (ArrayUtils.isEmpty(authenticationSteps)) {
+            return ArrayUtils.isEmpty(configuredSteps);
+        }
+        return authenticationSteps == configuredSteps;
+    }
+
+    private static String getSequenceTemplateVersion(String tenantDomain, String applicationName) {
+
+        SequenceTemplateVersionCache versionCache = SequenceTemplateVersionCache.getInstance();
+        SequenceTemplateVersionCacheKey versionKey = new SequenceTemplateVersionCacheKey(applicationName,
+                tenantDomain);
+        SequenceTemplateVersionCacheEntry versionEntry = versionCache.getValueFromCache(versionKey);
+        if (versionEntry == null) {
+            versionEntry = new SequenceTemplateVersionCacheEntry(UUID.randomUUID().toString());
+            versionCache.addToCache(versionKey, versionEntry);
+        }
+        return versionEntry.getVersion();
+    }
+
+    private SequenceConfig copySequence(SequenceConfig template) throws FrameworkException {
+
+        SequenceConfig sequenceConfig = new SequenceConfig();
+        sequenceConfig.setApplicationId(template.getApplicationId());
+        try {
+            sequenceConfig.setApplicationConfig((ApplicationConfig) template.getApplicationConfig().clone());
+        } catch (CloneNotSupportedException e) {
+            throw new FrameworkException("Error while copying the application config of: " +
+                    template.getApplicationId(), e);
+        }
+
+        List<AuthenticatorConfig> requestPathAuthenticators = new ArrayList<>();
+        for (AuthenticatorConfig authenticatorConfig : template.getReqPathAuthenticators()) {
+            requestPathAuthenticators.add(copyAuthenticatorConfig(authenticatorConfig));
+        }
+        sequenceConfig.setReqPathAuthenticators(requestPathAuthenticators);
+
+        for (Map.Entry<Integer, StepConfig> entry : template.getStepMap().entrySet()) {
+            sequenceConfig.getStepMap().put(entry.getKey(), copyStepConfig(entry.getValue()));
+        }
+        return sequenceConfig;
+    }
+
+    private StepConfig copyStepConfig(StepConfig template) {
+
+        StepConfig stepConfig = new StepConfig();
+        stepConfig.setOrder(template.getOrder());
+        stepConfig.setLoginPage(template.getLoginPage());
+        stepConfig.setSubjectAttributeStep(template.isSubjectAttributeStep());
+        stepConfig.setSubjectIdentifierStep(template.isSubjectIdentifierStep());
+        stepConfig.setMultiOption(template.isMultiOption());
+        if (template.getAuthenticatorMappings() != null) {
+            stepConfig.setAuthenticatorMappings(new ArrayList<>(template.getAuthenticatorMappings()));
+        }
+        for (AuthenticatorConfig authenticatorConfig : template.getAuthenticatorList()) {
+            stepConfig.getAuthenticatorList().add(copyAuthenticatorConfig(authenticatorConfig));
+        }
+        return stepConfig;
+    }
+
+    private AuthenticatorConfig copyAuthenticatorConfig(AuthenticatorConfig template) {
+
+        Map<String, String> parameterMap = template.getParameterMap() != null ?
+                new HashMap<>(template.getParameterMap()) : null;
+        AuthenticatorConfig authenticatorConfig = new AuthenticatorConfig(template.getName(), template.isEnabled(),
+                parameterMap);
+        authenticatorConfig.setApplicationAuthenticator(template.getApplicationAuthenticator());
+        authenticatorConfig.getIdpNames().addAll(template.getIdpNames());
+        authenticatorConfig.getIdps().putAll(template.getIdps());
+        return authenticatorConfig;
+    }
+
+    private static String getSequenceTemplateKey(String tenantDomain, String applicationName) {
+
+        return tenantDomain + ":" + applicationName;
+    }
+
+    private static int readSequenceTemplateCacheSize() {
+
+        String value = IdentityUtil.getProperty(SEQUENCE_TEMPLATE_CACHE_SIZE);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + value + " for " + SEQUENCE_TEMPLATE_CACHE_SIZE +
+                        ". Using the default value: " + DEFAULT_SEQUENCE_TEMPLATE_CACHE_SIZE);
+            }
+        }
+        return DEFAULT_SEQUENCE_TEMPLATE_CACHE_SIZE;
+    }
+
+    /**
+     * Sequence built for a service provider, along with the versions it was built from.
+     */
+    private static class SequenceTemplate {
+
+        private final String version;
+        private final int authenticatorsModificationCount;
+        private final SequenceConfig sequenceConfig;
+
+        SequenceTemplate(String version, int authenticatorsModificationCount, SequenceConfig sequenceConfig) {
+
+            this.version = version;
+            this.authenticatorsModificationCount = authenticatorsModificationCount;
+            this.sequenceConfig = sequenceConfig;
+        }
+
+        boolean isValid(String version, int authenticatorsModificationCount) {
+
+            return this.version.equals(version) && this.authenticatorsModificationCount ==
+                    authenticatorsModificationCount;
+        }
+    }
 }
@@ -36,7 +36,6 @@ import java.util.Map;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.script.Bindings;
-import javax.script.Compilable;
 import javax.script.CompiledScript;
 import javax.script.Invocable;
 import javax.script.ScriptContext;
@@ -111,7 +110,7 @@ public class JsGraphBuilder {
                 functionMap.forEach(globalBindings::put);
             }
             Invocable invocable = (Invocable) engine;
-            engine.eval(script);
+            JsGraphBuilderFactory.getCompiledScript(engine, authenticationContext, script).eval();
             invocable.invokeFunction(FrameworkConstants.JSAttributes.JS_FUNC_INITIATE_REQUEST,
                     new JsAuthenticationContext(authenticationContext));
             JsGraphBuilderFactory.persistCurrentContext(authenticationContext, engine);
@@ -128,6 +127,12 @@ public class JsGraphBuilder {
             if (log.isDebugEnabled()) {
                 log.debug("Error in executing the Javascript.", e);
             }
+        } finally {
+            JsGraphBuilderFactory jsGraphBuilderFactory = FrameworkServiceDataHolder.getInstance()
+                    .getJsGraphBuilderFactory();
+            if (jsGraphBuilderFactory != null) {
+                jsGraphBuilderFactory.releaseEngine(engine);
+            }
         }
         return this;
     }
@@ -407,10 +412,10 @@ public class JsGraphBuilder {
                                 .getSubsystemFunctionsMap(JsFunctionRegistry.Subsystem.SEQUENCE_HANDLER);
                         functionMap.forEach(globalBindings::put);
                     }
-                    Compilable compilable = (Compilable) scriptEngine;
                     JsGraphBuilder.contextForJs.set(authenticationContext);
 
-                    CompiledScript compiledScript = compilable.compile(jsFunction.getSource());
+                    CompiledScript compiledScript = JsGraphBuilderFactory.getCompiledScript(scriptEngine,
+                            authenticationContext, jsFunction.getSource());
                     JSObject builderFunction = (JSObject) compiledScript.eval();
                     builderFunction.call(null, new JsAuthenticationContext(authenticationContext));
 
@@ -430,6 +435,7 @@ public class JsGraphBuilder {
                 } finally {
                     contextForJs.remove();
                     dynamicallyBuiltBaseNode.remove();
+                    FrameworkServiceDataHolder.getInstance().getJsGraphBuilderFactory().releaseEngine(scriptEngine);
                 }
 
             } else {
@@ -20,6 +20,8 @@ package org.wso2.carbon.identity.application.authentication.framework.config.mod
 
 import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.JsFunctionRegistry;
@@ -30,10 +32,19 @@ import org.wso2.carbon.identity.application.authentication.framework.exception.F
 import org.wso2.carbon.identity.application.authentication.framework.handler.sequence.impl.SelectAcrFromFunction;
 import org.wso2.carbon.identity.application.authentication.framework.handler.sequence.impl.SelectOneFunction;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
@@ -41,12 +52,26 @@ import javax.script.ScriptException;
 /**
  * Factory to create a Javascript based sequence builder.
  * This factory is there to reuse of Nashorn engine and any related expnsive objects.
+ * Engines are pooled and each engine owned by the pool keeps a bounded cache of the scripts compiled on it, keyed by
+ * tenant, application and script hash. A borrowed engine gets fresh bindings, so no state leaks between requests.
  */
 public class JsGraphBuilderFactory {
 
     private static final String JS_BINDING_CURRENT_CONTEXT = "JS_BINDING_CURRENT_CONTEXT";
+    private static final String ENGINE_POOL_SIZE = "AdaptiveAuth.ScriptEnginePoolSize";
+    private static final String COMPILED_SCRIPT_CACHE_SIZE = "AdaptiveAuth.CompiledScriptCacheSize";
+    private static final int DEFAULT_ENGINE_POOL_SIZE = 10;
+    private static final int DEFAULT_COMPILED_SCRIPT_CACHE_SIZE = 200;
+    private static final Log log = LogFactory.getLog(JsGraphBuilderFactory.class);
+    // Compiled script caches of the engines owned by the pool. Engines created beyond the pool size have no cache,
+    // so that an engine and its compiled scripts are released together when the engine is dropped.
+    private static final Map<ScriptEngine, Map<String, CompiledScript>> compiledScripts = new ConcurrentHashMap<>();
+    private static int compiledScriptCacheSize = DEFAULT_COMPILED_SCRIPT_CACHE_SIZE;
     private JsFunctionRegistry jsFunctionRegistry;
     private NashornScriptEngineFactory factory;
+    private BlockingQueue<ScriptEngine> enginePool;
+    private int enginePoolSize;
+    private final AtomicInteger ownedEngineCount = new AtomicInteger();
 
     private static final Log jsLog = LogFactory
             .getLog(JsGraphBuilder.class.getPackage().getName() + ".JsBasedSequence");
@@ -54,11 +79,31 @@ public class JsGraphBuilderFactory {
     public void init() {
 
         factory = new NashornScriptEngineFactory();
+        enginePoolSize = readPositiveInt(ENGINE_POOL_SIZE, DEFAULT_ENGINE_POOL_SIZE);
+        enginePool = new LinkedBlockingQueue<>(enginePoolSize);
+        compiledScriptCacheSize = readPositiveInt(COMPILED_SCRIPT_CACHE_SIZE, DEFAULT_COMPILED_SCRIPT_CACHE_SIZE);
     }
 
+    /**
+     * Returns a script engine with fresh bindings. The engine is taken from the pool if one is available. It should
+     * be handed back with {@link #releaseEngine(ScriptEngine)} once the script execution is over.
+     *
+     * @param authenticationContext Current authentication context.
+     * @return Script engine.
+     */
     public ScriptEngine createEngine(AuthenticationContext authenticationContext) {
 
-        ScriptEngine engine = factory.getScriptEngine("--no-java");
+        ScriptEngine engine = enginePool != null ? enginePool.poll() : null;
+        if (engine == null) {
+            engine = factory.getScriptEngine("--no-java");
+            if (enginePool != null) {
+                if (ownedEngineCount.incrementAndGet() <= enginePoolSize) {
+                    compiledScripts.put(engine, createCompiledScriptCache());
+                } else {
+                    ownedEngineCount.decrementAndGet();
+                }
+            }
+        }
 
         Bindings bindings = engine.createBindings();
         engine.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
@@ -72,6 +117,109 @@ public class JsGraphBuilderFactory {
         return engine;
     }
 
+    /**
+     * Returns the engine to the pool. The bindings of the engine are discarded, so that the engine does not hold
+     * the objects of the finished request. Engines which are not owned by the pool are dropped, together with their
+     * compiled scripts.
+     *
+     * @param engine Script engine created by {@link #createEngine(AuthenticationContext)}.
+     */
+    public void releaseEngine(ScriptEngine engine) {
+
+        if (engine == null || enginePool == null || !compiledScripts.containsKey(engine)) {
+            return;
+        }
+        // The bindings are replaced again when the engine is borrowed, hence a single new global is enough here.
+        Bindings bindings = engine.createBindings();
+        engine.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
+        engine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        if (!enginePool.offer(engine)) {
+            compiledScripts.remove(engine);
+            ownedEngineCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the compiled form of the given script, compiling it on the given engine on a cache miss. Scripts are
+     * only cached for the engines owned by the pool.
+     *
+     * @param engine                Script engine the script is evaluated on.
+     * @param authenticationContext Current authentication context.
+     * @param script                Script source.
+     * @return Compiled script.
+     * @throws ScriptException If the script cannot be compiled.
+     */
+    public static CompiledScript getCompiledScript(ScriptEngine engine, AuthenticationContext authenticationContext,
+                                                   String script) throws ScriptException {
+
+        String cacheKey = getScriptCacheKeyPrefix(authenticationContext.getTenantDomain(),
+                authenticationContext.getServiceProviderName()) + DigestUtils.sha256Hex(script);
+        Map<String, CompiledScript> engineScripts = compiledScripts.get(engine);
+        if (engineScripts == null) {
+            return ((Compilable) engine).compile(script);
+        }
+        CompiledScript compiledScript = engineScripts.get(cacheKey);
+        if (compiledScript == null) {
+            compiledScript = ((Compilable) engine).compile(script);
+            engineScripts.put(cacheKey, compiledScript);
+        }
+        return compiledScript;
+    }
+
+    /**
+     * Removes the compiled scripts of the given application, from all the engines.
+     *
+     * @param tenantDomain    Tenant domain of the application.
+     * @param applicationName Application name.
+     */
+    public static void clearCompiledScripts(String tenantDomain, String applicationName) {
+
+        String cacheKeyPrefix = getScriptCacheKeyPrefix(tenantDomain, applicationName);
+        for (Map<String, CompiledScript> engineScripts : compiledScripts.values()) {
+            synchronized (engineScripts) {
+                engineScripts.keySet().removeIf(key -> key.startsWith(cacheKeyPrefix));
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the compiled scripts of application: " + applicationName + " in tenant: " +
+                    tenantDomain);
+        }
+    }
+
+    private static Map<String, CompiledScript> createCompiledScriptCache() {
+
+        return Collections.synchronizedMap(new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+
+                return size() > compiledScriptCacheSize;
+            }
+        });
+    }
+
+    private static String getScriptCacheKeyPrefix(String tenantDomain, String applicationName) {
+
+        return tenantDomain + ":" + applicationName + ":";
+    }
+
+    private static int readPositiveInt(String propertyName, int defaultValue) {
+
+        String value = IdentityUtil.getProperty(propertyName);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                int intValue = Integer.parseInt(value.trim());
+                if (intValue > 0) {
+                    return intValue;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + value + " for " + propertyName + ". Using the default value: " +
+                        defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     public static void persistCurrentContext(AuthenticationContext context, ScriptEngine engine) {
 
         Bindings engineBindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
@@ -93,12 +241,13 @@ public class JsGraphBuilderFactory {
         return value;
     }
 
-    private static Object fromJsSerializable(Object value, ScriptEngine engine) throws FrameworkException {
+    private static Object fromJsSerializable(Object value, ScriptEngine engine, AuthenticationContext context)
+            throws FrameworkException {
 
         if (value instanceof SerializableJsFunction) {
             SerializableJsFunction serializableJsFunction = (SerializableJsFunction) value;
             try {
-                Object fn = engine.eval(serializableJsFunction.getSource());
+                Object fn = getCompiledScript(engine, context, serializableJsFunction.getSource()).eval();
                 return fn;
             } catch (ScriptException e) {
                 throw new FrameworkException("Error in resurrecting a Javascript Function : " + serializableJsFunction);
@@ -115,7 +264,7 @@ public class JsGraphBuilderFactory {
         Bindings bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
         if (map != null) {
             for (Map.Entry<String, Object> entry : map.entrySet()) {
-                bindings.put(entry.getKey(), fromJsSerializable(entry.getValue(), engine));
+                bindings.put(entry.getKey(), fromJsSerializable(entry.getValue(), engine, context));
             }
         }
     }
@@ -42,6 +42,7 @@ import org.wso2.carbon.identity.application.mgt.ApplicationConstants;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataHandler;
 import org.wso2.carbon.identity.claim.metadata.mgt.exception.ClaimMetadataException;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.user.api.ClaimManager;
 import org.wso2.carbon.user.api.RealmConfiguration;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -51,6 +52,7 @@ import org.wso2.carbon.user.core.UserRealm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -64,6 +66,7 @@ public class DefaultClaimHandler implements ClaimHandler {
     public static final String SERVICE_PROVIDER_SUBJECT_CLAIM_VALUE =
             FrameworkConstants.SERVICE_PROVIDER_SUBJECT_CLAIM_VALUE;
     private static final Log log = LogFactory.getLog(DefaultClaimHandler.class);
+    private static final String READ_SERVICE_PROVIDER_CLAIMS_ONLY = "Authentication.ReadServiceProviderClaimsOnly";
     private static volatile DefaultClaimHandler instance;
 
     public static DefaultClaimHandler getInstance() {
@@ -386,15 +389,17 @@ public class DefaultClaimHandler implements ClaimHandler {
         // key:value -> sp_dialect:claim_value
         Map<String, String> spRequestedClaims = new HashMap<>();
 
-        // Retrieve all non-null user claim values against local claim uris.
-        allLocalClaims = retrieveAllNunNullUserClaimValues(authenticatedUser, claimManager, appConfig,
-                (org.wso2.carbon.user.core.UserStoreManager) userStore);
-
-        context.setProperty(FrameworkConstants.UNFILTERED_LOCAL_CLAIM_VALUES, allLocalClaims);
-
         // if standard dialect get all claim mappings from standard dialect to carbon dialect
         spToLocalClaimMappings = getStanderDialectToCarbonMapping(spStandardDialect, context, spToLocalClaimMappings,
                 tenantDomain);
+
+        // Retrieve all non-null user claim values against local claim uris, or only the ones of the local claims the
+        // service provider can use when configured so.
+        allLocalClaims = retrieveAllNunNullUserClaimValues(authenticatedUser, claimManager, appConfig,
+                (org.wso2.carbon.user.core.UserStoreManager) userStore,
+                getLocalClaimURIsToRead(appConfig, spToLocalClaimMappings));
+
+        context.setProperty(FrameworkConstants.UNFILTERED_LOCAL_CLAIM_VALUES, allLocalClaims);
         if (StringUtils.isNotBlank(spStandardDialect) && (!StringUtils.equals(spStandardDialect, ApplicationConstants
                 .LOCAL_IDP_DEFAULT_CLAIM_DIALECT))) {
             carbonToStandardClaimMapping = getCarbonToStandardDialectMapping(spStandardDialect, context,
@@ -521,9 +526,101 @@ public class DefaultClaimHandler implements ClaimHandler {
         return spToLocalClaimMappings;
     }
 
+    /**
+     * Returns the local claims to be read from the user store. All the local claims are read, so that
+     * {@link FrameworkConstants#UNFILTERED_LOCAL_CLAIM_VALUES} holds every non-null claim of the user, unless
+     * Authentication.ReadServiceProviderClaimsOnly is enabled.
+     *
+     * @param appConfig              Application config.
+     * @param spToLocalClaimMappings Service provider claim to local claim mappings of the service provider dialect.
+     * @return Local claim URIs, or null if all the local claims should be read.
+     */
+    private Set<String> getLocalClaimURIsToRead(ApplicationConfig appConfig,
+                                                Map<String, String> spToLocalClaimMappings) {
+
+        if (!Boolean.parseBoolean(IdentityUtil.getProperty(READ_SERVICE_PROVIDER_CLAIMS_ONLY))) {
+            return null;
+        }
+        return getRequiredLocalClaimURIs(appConfig, spToLocalClaimMappings);
+    }
+
+    /**
+     * Returns the local claims which can be used for the service provider, i.e. the claims mapped to the claims of
+     * the service provider (which include the requested and mandatory claims), the subject claim and the role claim.
+     *
+     * @param appConfig              Application config.
+     * @param spToLocalClaimMappings Service provider claim to local claim mappings of the service provider dialect.
+     * @return Local claim URIs.
+     */
+    private Set<String> getRequiredLocalClaimURIs(ApplicationConfig appConfig,
+                                                  Map<String, String> spToLocalClaimMappings) {
+
+        Set<String> requiredLocalClaimURIs = new HashSet<>(spToLocalClaimMappings.values());
+        addLocalClaimURIs(requiredLocalClaimURIs, appConfig.getRequestedClaimMappings());
+        addLocalClaimURIs(requiredLocalClaimURIs, appConfig.getMandatoryClaimMappings());
+        requiredLocalClaimURIs.add(FrameworkConstants.LOCAL_ROLE_CLAIM_URI);
+
+        Map<String, String> claimMappings = appConfig.getClaimMappings();
+        for (String spClaimURI : new String[]{appConfig.getSubjectClaimUri(), appConfig.getRoleClaim()}) {
+            if (StringUtils.isBlank(spClaimURI)) {
+                continue;
+            }
+            spClaimURI = spClaimURI.trim();
+            requiredLocalClaimURIs.add(spClaimURI);
+            if (claimMappings != null && claimMappings.get(spClaimURI) != null) {
+                requiredLocalClaimURIs.add(claimMappings.get(spClaimURI));
+            }
+            if (spToLocalClaimMappings.get(spClaimURI) != null) {
+                requiredLocalClaimURIs.add(spToLocalClaimMappings.get(spClaimURI));
+            }
+        }
+        requiredLocalClaimURIs.remove(null);
+        return requiredLocalClaimURIs;
+    }
+
+    private void addLocalClaimURIs(Set<String> localClaimURIs, Map<String, String> spToLocalClaimMappings) {
+
+        if (spToLocalClaimMappings != null) {
+            localClaimURIs.addAll(spToLocalClaimMappings.values());
+        }
+    }
+
+    /**
+     * @param claimManager           Claim manager of the tenant.
+     * @param requiredLocalClaimURIs Local claims to be read, or null to read all the local claims.
+     * @return Local claim URIs of the tenant which should be read.
+     */
+    private List<String> getLocalClaimURIs(ClaimManager claimManager, Set<String> requiredLocalClaimURIs)
+            throws UserStoreException {
+
+        List<String> localClaimURIs = new ArrayList<>();
+        String[] allLocalClaimURIs = null;
+        if (claimManager instanceof org.wso2.carbon.user.core.claim.ClaimManager) {
+            allLocalClaimURIs = ((org.wso2.carbon.user.core.claim.ClaimManager) claimManager).getAllClaimUris();
+        }
+        if (allLocalClaimURIs != null) {
+            for (String claimURI : allLocalClaimURIs) {
+                if (requiredLocalClaimURIs == null || requiredLocalClaimURIs.contains(claimURI)) {
+                    localClaimURIs.add(claimURI);
+                }
+            }
+        } else {
+            org.wso2.carbon.user.api.ClaimMapping[] claimMappings = claimManager
+                    .getAllClaimMappings(ApplicationConstants.LOCAL_IDP_DEFAULT_CLAIM_DIALECT);
+            for (org.wso2.carbon.user.api.ClaimMapping mapping : claimMappings) {
+                String claimURI = mapping.getClaim().getClaimUri();
+                if (requiredLocalClaimURIs == null || requiredLocalClaimURIs.contains(claimURI)) {
+                    localClaimURIs.add(claimURI);
+                }
+            }
+        }
+        return localClaimURIs;
+    }
+
     private Map<String, String> retrieveAllNunNullUserClaimValues(AuthenticatedUser authenticatedUser,
             ClaimManager claimManager, ApplicationConfig appConfig,
-            org.wso2.carbon.user.core.UserStoreManager userStore) throws FrameworkException {
+            org.wso2.carbon.user.core.UserStoreManager userStore, Set<String> requiredLocalClaimURIs)
+            throws FrameworkException {
 
         String tenantDomain = authenticatedUser.getTenantDomain();
         String tenantAwareUserName = authenticatedUser.getUserName();
@@ -531,12 +628,9 @@ public class DefaultClaimHandler implements ClaimHandler {
         Map<String, String> allLocalClaims = new HashMap<>();
         try {
 
-            org.wso2.carbon.user.api.ClaimMapping[] claimMappings = claimManager
-                    .getAllClaimMappings(ApplicationConstants.LOCAL_IDP_DEFAULT_CLAIM_DIALECT);
-            List<String> localClaimURIs = new ArrayList<>();
-            for (org.wso2.carbon.user.api.ClaimMapping mapping : claimMappings) {
-                String claimURI = mapping.getClaim().getClaimUri();
-                localClaimURIs.add(claimURI);
+            List<String> localClaimURIs = getLocalClaimURIs(claimManager, requiredLocalClaimURIs);
+            if (localClaimURIs.isEmpty()) {
+                return new HashMap<>();
             }
             allLocalClaims = userStore.getUserClaimValues(tenantAwareUserName,
                     localClaimURIs.toArray(new String[localClaimURIs.size()]), null);
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.application.authentication.framework.internal;
+
+import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * List of the registered application authenticators, which also indexes the authenticators by name. Every mutator
+ * bumps a modification count and the index is rebuilt lazily when the count has changed, so that modifying the list
+ * directly keeps the index consistent. Sub lists are read only, as they would modify the list behind its back.
+ */
+class AuthenticatorList extends ArrayList<ApplicationAuthenticator> {
+
+    private static final long serialVersionUID = -2203694553411470962L;
+
+    private final AtomicInteger modificationCount = new AtomicInteger();
+    private transient volatile AuthenticatorIndex index;
+
+    /**
+     * Returns the first registered authenticator with the given name.
+     *
+     * @param name       authenticator name
+     * @param ignoreCase whether the name should be matched ignoring the case
+     * @return authenticator or null if there is no authenticator with the name
+     */
+    ApplicationAuthenticator getByName(String name, boolean ignoreCase) {
+
+        if (name == null) {
+            return null;
+        }
+        AuthenticatorIndex currentIndex = getIndex();
+        if (ignoreCase) {
+            return currentIndex.authenticatorsByLowerCaseName.get(name.toLowerCase(Locale.ENGLISH));
+        }
+        return currentIndex.authenticatorsByName.get(name);
+    }
+
+    /**
+     * @return a number which changes whenever an element of the list is added, removed or replaced
+     */
+    int getModificationCount() {
+        return modificationCount.get();
+    }
+
+    @Override
+    public ApplicationAuthenticator set(int index, ApplicationAuthenticator element) {
+
+        ApplicationAuthenticator previous = super.set(index, element);
+        modified();
+        return previous;
+    }
+
+    @Override
+    public boolean add(ApplicationAuthenticator element) {
+
+        boolean added = super.add(element);
+        modified();
+        return added;
+    }
+
+    @Override
+    public void add(int index, ApplicationAuthenticator element) {
+
+        super.add(index, element);
+        modified();
+    }
+
+    @Override
+    public ApplicationAuthenticator remove(int index) {
+
+        ApplicationAuthenticator removed = super.remove(index);
+        modified();
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+
+        boolean removed = super.remove(element);
+        modified();
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+
+        super.clear();
+        modified();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends ApplicationAuthenticator> elements) {
+
+        boolean added = super.addAll(elements);
+        modified();
+        return added;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends ApplicationAuthenticator> elements) {
+
+        boolean added = super.addAll(index, elements);
+        modified();
+        return added;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+
+        super.removeRange(fromIndex, toIndex);
+        modified();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+
+        boolean removed = super.removeAll(elements);
+        modified();
+        return removed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+
+        boolean removed = super.retainAll(elements);
+        modified();
+        return removed;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super ApplicationAuthenticator> filter) {
+
+        boolean removed = super.removeIf(filter);
+        modified();
+        return removed;
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<ApplicationAuthenticator> operator) {
+
+        super.replaceAll(operator);
+        modified();
+    }
+
+    @Override
+    public void sort(Comparator<? super ApplicationAuthenticator> comparator) {
+
+        super.sort(comparator);
+        modified();
+    }
+
+    @Override
+    public List<ApplicationAuthenticator> subList(int fromIndex, int toIndex) {
+
+        return Collections.unmodifiableList(super.subList(fromIndex, toIndex));
+    }
+
+    /**
+     * Called after the elements of the list were modified. The index is dropped after the count is bumped, so an
+     * index built concurrently from the old elements is not kept.
+     */
+    private void modified() {
+
+        modificationCount.incrementAndGet();
+        index = null;
+    }
+
+    private AuthenticatorIndex getIndex() {
+
+        AuthenticatorIndex currentIndex = index;
+        int currentModificationCount = modificationCount.get();
+        if (currentIndex == null || currentIndex.modificationCount != currentModificationCount) {
+            currentIndex = new AuthenticatorIndex(currentModificationCount, this);
+            index = currentIndex;
+        }
+        return currentIndex;
+    }
+
+    private static class AuthenticatorIndex {
+
+        private final int modificationCount;
+        private final Map<String, ApplicationAuthenticator> authenticatorsByName;
+        private final Map<String, ApplicationAuthenticator> authenticatorsByLowerCaseName;
+
+        private AuthenticatorIndex(int modificationCount, Iterable<ApplicationAuthenticator> authenticators) {
+
+            Map<String, ApplicationAuthenticator> byName = new HashMap<>();
+            Map<String, ApplicationAuthenticator> byLowerCaseName = new HashMap<>();
+            for (ApplicationAuthenticator authenticator : authenticators) {
+                String name = authenticator.getName();
+                if (name == null) {
+                    continue;
+                }
+                // The first registered authenticator wins, as in a linear scan of the list.
+                if (!byName.containsKey(name)) {
+                    byName.put(name, authenticator);
+                }
+                String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+                if (!byLowerCaseName.containsKey(lowerCaseName)) {
+                    byLowerCaseName.put(lowerCaseName, authenticator);
+                }
+            }
+            this.modificationCount = modificationCount;
+            this.authenticatorsByName = Collections.unmodifiableMap(byName);
+            this.authenticatorsByLowerCaseName = Collections.unmodifiableMap(byLowerCaseName);
+        }
+    }
+}
@@ -57,16 +57,19 @@ import org.wso2.carbon.identity.application.authentication.framework.inbound.Ide
 import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityServlet;
 import org.wso2.carbon.identity.application.authentication.framework.internal.impl.AuthenticationMethodNameTranslatorImpl;
 import org.wso2.carbon.identity.application.authentication.framework.listener.AuthenticationEndpointTenantActivityListener;
+import org.wso2.carbon.identity.application.authentication.framework.listener.FrameworkApplicationMgtListener;
 import org.wso2.carbon.identity.application.authentication.framework.services.PostAuthenticationMgtService;
 import org.wso2.carbon.identity.application.authentication.framework.servlet.CommonAuthenticationServlet;
 import org.wso2.carbon.identity.application.authentication.framework.servlet.LoginContextServlet;
 import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+import org.wso2.carbon.identity.application.authentication.framework.store.serializer.SessionDataSerializer;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.common.ApplicationAuthenticatorService;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.LocalAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.RequestPathAuthenticatorConfig;
+import org.wso2.carbon.identity.application.mgt.listener.ApplicationMgtListener;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
 import org.wso2.carbon.identity.core.handler.HandlerComparator;
 import org.wso2.carbon.identity.core.util.IdentityCoreInitializedEvent;
@@ -166,6 +169,8 @@ public class FrameworkServiceComponent {
         bundleContext.registerService(ApplicationAuthenticationService.class.getName(), new
                 ApplicationAuthenticationService(), null);
         bundleContext.registerService(JsFunctionRegistry.class, dataHolder.getJsFunctionRegistry(), null);
+        bundleContext.registerService(ApplicationMgtListener.class.getName(), new FrameworkApplicationMgtListener(),
+                null);
         boolean tenantDropdownEnabled = ConfigurationFacade.getInstance().getTenantDropdownEnabled();
 
         if (tenantDropdownEnabled) {
@@ -241,6 +246,8 @@ public class FrameworkServiceComponent {
             log.debug("Application Authentication Framework bundle is deactivated");
         }
 
+        // Flush the session data operations which are still waiting in the persistence queue.
+        SessionDataStore.getInstance().shutdownPersistConsumers();
         FrameworkServiceDataHolder.getInstance().setBundleContext(null);
     }
 
@@ -528,4 +535,27 @@ public class FrameworkServiceComponent {
 
         FrameworkServiceDataHolder.getInstance().setClaimMetadataManagementService(null);
     }
+
+    @Reference(
+            name = "session.data.serializer",
+            service = SessionDataSerializer.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "removeSessionDataSerializer"
+    )
+    protected void addSessionDataSerializer(SessionDataSerializer sessionDataSerializer) {
+
+        FrameworkServiceDataHolder.getInstance().addSessionDataSerializer(sessionDataSerializer);
+        if (log.isDebugEnabled()) {
+            log.debug("Added SessionDataSerializer : " + sessionDataSerializer.getName());
+        }
+    }
+
+    protected void removeSessionDataSerializer(SessionDataSerializer sessionDataSerializer) {
+
+        FrameworkServiceDataHolder.getInstance().removeSessionDataSerializer(sessionDataSerializer);
+        if (log.isDebugEnabled()) {
+            log.debug("Removed SessionDataSerializer : " + sessionDataSerializer.getName());
+        }
+    }
 }
@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.identity.application.authentication.framework.internal;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.osgi.framework.BundleContext;
 import org.wso2.carbon.consent.mgt.core.ConsentManager;
 import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
@@ -34,6 +36,9 @@ import org.wso2.carbon.identity.application.authentication.framework.inbound.Htt
 import org.wso2.carbon.identity.application.authentication.framework.inbound.HttpIdentityResponseFactory;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.IdentityProcessor;
 import org.wso2.carbon.identity.application.authentication.framework.services.PostAuthenticationMgtService;
+import org.wso2.carbon.identity.application.authentication.framework.store.serializer.CompressedSessionDataSerializer;
+import org.wso2.carbon.identity.application.authentication.framework.store.serializer.JavaSessionDataSerializer;
+import org.wso2.carbon.identity.application.authentication.framework.store.serializer.SessionDataSerializer;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
 import org.wso2.carbon.identity.core.handler.HandlerComparator;
 import org.wso2.carbon.registry.core.service.RegistryService;
@@ -41,15 +46,19 @@ import org.wso2.carbon.user.core.service.RealmService;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FrameworkServiceDataHolder {
 
+    private static final Log log = LogFactory.getLog(FrameworkServiceDataHolder.class);
     private static FrameworkServiceDataHolder instance = new FrameworkServiceDataHolder();
 
     private BundleContext bundleContext = null;
     private RealmService realmService = null;
     private RegistryService registryService = null;
-    private List<ApplicationAuthenticator> authenticators = new ArrayList<>();
+    private AuthenticatorList authenticators = new AuthenticatorList();
     private long nanoTimeReference = 0;
     private long unixTimeReference = 0;
     private List<IdentityProcessor> identityProcessors = new ArrayList<IdentityProcessor>();
@@ -65,10 +74,14 @@ public class FrameworkServiceDataHolder {
     private ClaimMetadataManagementService claimMetadataManagementService = null;
     private SSOConsentService ssoConsentService;
     private JsFunctionRegistry jsFunctionRegistry;
+    private Map<Byte, SessionDataSerializer> sessionDataSerializers = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionDataSerializersVersion = new AtomicInteger();
 
     private FrameworkServiceDataHolder() {
         setNanoTimeReference(System.nanoTime());
         setUnixTimeReference(System.currentTimeMillis());
+        addSessionDataSerializer(new JavaSessionDataSerializer());
+        addSessionDataSerializer(new CompressedSessionDataSerializer());
     }
 
     public static FrameworkServiceDataHolder getInstance() {
@@ -110,6 +123,24 @@ public class FrameworkServiceDataHolder {
         return authenticators;
     }
 
+    /**
+     * Returns the registered authenticator with the given name, without scanning the authenticator list.
+     *
+     * @param name       authenticator name
+     * @param ignoreCase whether the name should be matched ignoring the case
+     * @return authenticator or null if there is no authenticator with the name
+     */
+    public ApplicationAuthenticator getAuthenticatorByName(String name, boolean ignoreCase) {
+        return authenticators.getByName(name, ignoreCase);
+    }
+
+    /**
+     * @return a number which changes whenever an authenticator is registered or unregistered
+     */
+    public int getAuthenticatorsModificationCount() {
+        return authenticators.getModificationCount();
+    }
+
     public long getNanoTimeReference() {
         return nanoTimeReference;
     }
@@ -276,4 +307,50 @@ public class FrameworkServiceDataHolder {
     public void setJsFunctionRegistry(JsFunctionRegistry jsFunctionRegistry) {
         this.jsFunctionRegistry = jsFunctionRegistry;
     }
+
+    /**
+     * Get the session data serializers keyed by their format id.
+     * @return Registered session data serializers
+     */
+    public Map<Byte, SessionDataSerializer> getSessionDataSerializers() {
+        return sessionDataSerializers;
+    }
+
+    /**
+     * Get the version of the registered session data serializers. The version changes whenever a serializer is
+     * added or removed, so that the serializer resolved for writes can be cached until then.
+     * @return Version of the registered session data serializers
+     */
+    public int getSessionDataSerializersVersion() {
+        return sessionDataSerializersVersion.get();
+    }
+
+    /**
+     * Add a {@link SessionDataSerializer}. A serializer with the format id of an already registered serializer is
+     * ignored, as replacing the serializer of a format id would make the session data written in that format
+     * unreadable.
+     * @param sessionDataSerializer Session data serializer to be added
+     */
+    public void addSessionDataSerializer(SessionDataSerializer sessionDataSerializer) {
+        SessionDataSerializer existing = sessionDataSerializers.putIfAbsent(sessionDataSerializer.getFormatId(),
+                sessionDataSerializer);
+        if (existing != null) {
+            if (existing != sessionDataSerializer) {
+                log.warn("Session data serializer: " + sessionDataSerializer.getName() + " is not registered, as " +
+                        "the format id: " + sessionDataSerializer.getFormatId() + " is already used by the " +
+                        "session data serializer: " + existing.getName());
+            }
+            return;
+        }
+        sessionDataSerializersVersion.incrementAndGet();
+    }
+
+    /**
+     * Remove a {@link SessionDataSerializer}
+     * @param sessionDataSerializer Session data serializer to be removed
+     */
+    public void removeSessionDataSerializer(SessionDataSerializer sessionDataSerializer) {
+        sessionDataSerializers.remove(sessionDataSerializer.getFormatId(), sessionDataSerializer);
+        sessionDataSerializersVersion.incrementAndGet();
+    }
 }
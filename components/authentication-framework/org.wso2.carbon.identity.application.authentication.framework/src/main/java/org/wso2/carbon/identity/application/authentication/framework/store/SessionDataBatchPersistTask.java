@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Task to persist and remove session data in batches. The task drains up to the configured batch size of operations
+ * from the queue, waiting at most the flush interval for the batch to fill, and writes them in a single transaction.
+ */
+public class SessionDataBatchPersistTask implements Runnable {
+
+    private static final Log log = LogFactory.getLog(SessionDataBatchPersistTask.class);
+    private BlockingDeque<SessionContextDO> sessionContextQueue;
+    private int batchSize;
+    private long flushInterval;
+    private Consumer<List<SessionContextDO>> batchWriter;
+
+    public SessionDataBatchPersistTask(BlockingDeque<SessionContextDO> sessionContextQueue, int batchSize,
+                                       long flushInterval) {
+
+        this(sessionContextQueue, batchSize, flushInterval,
+                batch -> SessionDataStore.getInstance().persistSessionDataBatch(batch));
+    }
+
+    SessionDataBatchPersistTask(BlockingDeque<SessionContextDO> sessionContextQueue, int batchSize,
+                                long flushInterval, Consumer<List<SessionContextDO>> batchWriter) {
+
+        this.sessionContextQueue = sessionContextQueue;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    public void run() {
+
+        log.debug("Session Context batch persist consumer is started");
+
+        List<SessionContextDO> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // Block until there is at least one operation, then wait at most the flush interval for more.
+                batch.add(sessionContextQueue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize) {
+                    if (sessionContextQueue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    SessionContextDO sessionContextDO = sessionContextQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (sessionContextDO == null) {
+                        break;
+                    }
+                    batch.add(sessionContextDO);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flush(batch);
+        }
+        log.debug("Session Context batch persist consumer is stopped");
+    }
+
+    private void flush(List<SessionContextDO> batch) {
+
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Session Data batch persisting Task is started to run for " + batch.size() + " operations");
+        }
+        try {
+            batchWriter.accept(batch);
+        } catch (RuntimeException e) {
+            log.error("Error while persisting a batch of session data operations", e);
+        } finally {
+            batch.clear();
+        }
+    }
+}
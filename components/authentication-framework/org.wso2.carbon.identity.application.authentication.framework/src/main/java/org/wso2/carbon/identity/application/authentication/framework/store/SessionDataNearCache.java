@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, per node cache of the session data read from or written to the SessionDataStore. Each entry keeps the
+ * TIME_CREATED of the STORE operation it was loaded from, so that a reader can confirm the entry is still the latest
+ * operation with a header only query instead of reading the blob again.
+ * <p>
+ * The cache holds the serialized blob of the session data, not the object, so every reader deserializes its own
+ * copy. Changes a reader makes to its copy are not visible to other readers until they are stored through the
+ * SessionDataStore.
+ */
+public class SessionDataNearCache {
+
+    private final Map<String, CachedSessionData> entries;
+
+    public SessionDataNearCache(final int capacity) {
+
+        this.entries = new LinkedHashMap<String, CachedSessionData>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSessionData> eldest) {
+
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached session data of the given key and type.
+     *
+     * @param key  Session data key.
+     * @param type Session data type.
+     * @return Cached session data or null if there is no entry.
+     */
+    public synchronized CachedSessionData get(String key, String type) {
+
+        return entries.get(getCacheKey(key, type));
+    }
+
+    /**
+     * Caches the serialized session data of the given key and type, unless a newer operation of the same key and
+     * type is already cached.
+     *
+     * @param key      Session data key.
+     * @param type     Session data type.
+     * @param blob     Session data blob, as written to the database.
+     * @param nanoTime TIME_CREATED of the STORE operation.
+     * @param tenantId Tenant id of the session data.
+     */
+    public synchronized void put(String key, String type, byte[] blob, long nanoTime, int tenantId) {
+
+        String cacheKey = getCacheKey(key, type);
+        CachedSessionData existing = entries.get(cacheKey);
+        if (existing == null || existing.getNanoTime() <= nanoTime) {
+            entries.put(cacheKey, new CachedSessionData(blob, nanoTime, tenantId));
+        }
+    }
+
+    /**
+     * Removes the cached session data of the given key and type.
+     *
+     * @param key  Session data key.
+     * @param type Session data type.
+     */
+    public synchronized void remove(String key, String type) {
+
+        entries.remove(getCacheKey(key, type));
+    }
+
+    public synchronized int size() {
+
+        return entries.size();
+    }
+
+    private String getCacheKey(String key, String type) {
+
+        return type + ":" + key;
+    }
+
+    /**
+     * Serialized session data of a near cache entry.
+     */
+    public static class CachedSessionData {
+
+        private final byte[] blob;
+        private final long nanoTime;
+        private final int tenantId;
+
+        CachedSessionData(byte[] blob, long nanoTime, int tenantId) {
+
+            this.blob = blob;
+            this.nanoTime = nanoTime;
+            this.tenantId = tenantId;
+        }
+
+        /**
+         * @return Session data blob. The array is shared with the cache and must not be modified.
+         */
+        public byte[] getBlob() {
+
+            return blob;
+        }
+
+        public long getNanoTime() {
+
+            return nanoTime;
+        }
+
+        public int getTenantId() {
+
+            return tenantId;
+        }
+    }
+}
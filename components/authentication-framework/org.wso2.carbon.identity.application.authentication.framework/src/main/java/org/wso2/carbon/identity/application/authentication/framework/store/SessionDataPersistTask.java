@@ -40,7 +40,7 @@ public class SessionDataPersistTask implements Runnable {
 
         log.debug("Session Context persist consumer is started");
 
-        while (true) {
+        while (!Thread.currentThread().isInterrupted()) {
 
             try {
                 SessionContextDO sessionContextDO = sessionContextQueue.take();
@@ -58,10 +58,11 @@ public class SessionDataPersistTask implements Runnable {
                     }
                 }
             } catch (InterruptedException e) {
-                //ignore
-                log.error(e);
+                // The consumer pool is being shut down.
+                Thread.currentThread().interrupt();
             }
 
         }
+        log.debug("Session Context persist consumer is stopped");
     }
 }
@@ -24,6 +24,8 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.store.serializer.JavaSessionDataSerializer;
+import org.wso2.carbon.identity.application.authentication.framework.store.serializer.SessionDataSerializer;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
 import org.wso2.carbon.identity.base.IdentityRuntimeException;
@@ -34,22 +36,23 @@ import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
 import org.wso2.carbon.user.api.Tenant;
 import org.wso2.carbon.user.api.UserStoreException;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInput;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Data will be persisted or stored date will be removed from the store. These two events are considered as STORE operation
@@ -98,6 +101,25 @@ public class SessionDataStore {
             "SELECT * FROM (SELECT OPERATION, SESSION_OBJECT, TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND" +
                     " SESSION_TYPE=? ORDER BY TIME_CREATED DESC) WHERE ROWNUM < 2";
 
+    private static final String SQL_SELECT_OPERATION_HEADER_MYSQL =
+            "SELECT OPERATION, TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND" +
+                    " SESSION_TYPE=? ORDER BY TIME_CREATED DESC LIMIT 1";
+    private static final String SQL_SELECT_OPERATION_HEADER_DB2SQL =
+            "SELECT OPERATION, TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND" +
+                    " SESSION_TYPE=? ORDER BY TIME_CREATED DESC FETCH FIRST 1 ROWS ONLY";
+    private static final String SQL_SELECT_OPERATION_HEADER_MSSQL =
+            "SELECT TOP 1 OPERATION, TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND" +
+                    " SESSION_TYPE=? ORDER BY TIME_CREATED DESC";
+    private static final String SQL_SELECT_OPERATION_HEADER_POSTGRESQL =
+            "SELECT OPERATION, TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND" +
+                    " SESSION_TYPE=? ORDER BY TIME_CREATED DESC LIMIT 1";
+    private static final String SQL_SELECT_OPERATION_HEADER_INFORMIX =
+            "SELECT FIRST 1 OPERATION, TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND" +
+                    " SESSION_TYPE=? ORDER BY TIME_CREATED DESC LIMIT 1";
+    private static final String SQL_SELECT_OPERATION_HEADER_ORACLE =
+            "SELECT * FROM (SELECT OPERATION, TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND" +
+                    " SESSION_TYPE=? ORDER BY TIME_CREATED DESC) WHERE ROWNUM < 2";
+
     private static final String SQL_DELETE_EXPIRED_DATA_TASK_MYSQL =
             "DELETE FROM IDN_AUTH_SESSION_STORE WHERE TIME_CREATED < ? AND TENANT_ID=? LIMIT %d";
     private static final String SQL_DELETE_EXPIRED_DATA_TASK_MSSQL =
@@ -122,8 +144,30 @@ public class SessionDataStore {
     private static final String INFORMIX_DATABASE = "Informix";
 
     private static final int DEFAULT_DELETE_LIMIT = 50000;
+    private static final int DEFAULT_NEAR_CACHE_CAPACITY = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_BATCH_FLUSH_INTERVAL = 50;
+    private static final long DEFAULT_QUEUE_OFFER_TIMEOUT = 100;
+    private static final long DEFAULT_DRAIN_TIMEOUT = 5000;
+    private static final String BATCH_CONFIG = "JDBCPersistenceManager.SessionDataPersist.BatchPersist.";
+    // Header of the blobs written by a non Java serializer: magic bytes, header version and serializer format id.
+    // A Java serialization stream starts with 0xACED, hence these blobs can be told apart from the legacy ones.
+    private static final byte[] BLOB_HEADER_MAGIC = {(byte) 0x57, (byte) 0x53};
+    private static final byte BLOB_HEADER_VERSION = 1;
+    private static final int BLOB_HEADER_LENGTH = 4;
+    private static final int BLOB_READ_BUFFER_SIZE = 4096;
     private static int maxPoolSize = 100;
-    private static BlockingDeque<SessionContextDO> sessionContextQueue = new LinkedBlockingDeque();
+    private static boolean batchPersistEnabled = false;
+    private static int batchSize = DEFAULT_BATCH_SIZE;
+    private static long batchFlushInterval = DEFAULT_BATCH_FLUSH_INTERVAL;
+    private static int queueCapacity = Integer.MAX_VALUE;
+    private static long queueOfferTimeout = DEFAULT_QUEUE_OFFER_TIMEOUT;
+    private static long drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+    private static BlockingDeque<SessionContextDO> sessionContextQueue;
+    private static ExecutorService persistThreadPool;
+    private static final AtomicLong queueFullCount = new AtomicLong();
+    private static final AtomicLong persistedBatchCount = new AtomicLong();
+    private static final AtomicLong persistedEntryCount = new AtomicLong();
     private static volatile SessionDataStore instance;
     private boolean enablePersist;
     private String sqlInsertSTORE;
@@ -131,10 +175,14 @@ public class SessionDataStore {
     private String sqlDeleteSTORETask;
     private String sqlDeleteDELETETask;
     private String sqlSelect;
+    private String sqlSelectOperationHeader;
     private String sqlDeleteExpiredDataTask;
     private int deleteChunkSize = DEFAULT_DELETE_LIMIT;
     private boolean sessionDataCleanupEnabled = true;
     private boolean operationDataCleanupEnabled = false;
+    private String serializerName = JavaSessionDataSerializer.NAME;
+    private volatile ResolvedSerializer resolvedSerializer;
+    private SessionDataNearCache nearCache;
 
     static {
         try {
@@ -148,15 +196,62 @@ public class SessionDataStore {
             }
             log.warn("Session data persistence pool size is not configured. Using default value.");
         }
+        readBatchPersistConfig();
+        sessionContextQueue = new LinkedBlockingDeque<>(queueCapacity);
         if (maxPoolSize > 0) {
             log.info("Thread pool size for session persistent consumer : " + maxPoolSize);
-            ExecutorService threadPool = Executors.newFixedThreadPool(maxPoolSize);
+            persistThreadPool = Executors.newFixedThreadPool(maxPoolSize);
             for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new SessionDataPersistTask(sessionContextQueue));
+                if (batchPersistEnabled) {
+                    persistThreadPool.execute(new SessionDataBatchPersistTask(sessionContextQueue, batchSize,
+                            batchFlushInterval));
+                } else {
+                    persistThreadPool.execute(new SessionDataPersistTask(sessionContextQueue));
+                }
             }
         }
     }
 
+    /**
+     * Reads the "JDBCPersistenceManager.SessionDataPersist.BatchPersist" configuration. Invalid values are ignored and
+     * the defaults are used instead.
+     */
+    private static void readBatchPersistConfig() {
+
+        String batchEnableValue = IdentityUtil.getProperty(BATCH_CONFIG + "Enable");
+        if (StringUtils.isNotBlank(batchEnableValue)) {
+            batchPersistEnabled = Boolean.parseBoolean(batchEnableValue);
+        }
+        try {
+            String batchSizeValue = IdentityUtil.getProperty(BATCH_CONFIG + "BatchSize");
+            if (StringUtils.isNotBlank(batchSizeValue) && Integer.parseInt(batchSizeValue) > 0) {
+                batchSize = Integer.parseInt(batchSizeValue);
+            }
+            String flushIntervalValue = IdentityUtil.getProperty(BATCH_CONFIG + "FlushInterval");
+            if (StringUtils.isNotBlank(flushIntervalValue) && Long.parseLong(flushIntervalValue) > 0) {
+                batchFlushInterval = Long.parseLong(flushIntervalValue);
+            }
+            String queueCapacityValue = IdentityUtil.getProperty(BATCH_CONFIG + "QueueCapacity");
+            if (StringUtils.isNotBlank(queueCapacityValue) && Integer.parseInt(queueCapacityValue) > 0) {
+                queueCapacity = Integer.parseInt(queueCapacityValue);
+            }
+            String offerTimeoutValue = IdentityUtil.getProperty(BATCH_CONFIG + "QueueOfferTimeout");
+            if (StringUtils.isNotBlank(offerTimeoutValue) && Long.parseLong(offerTimeoutValue) >= 0) {
+                queueOfferTimeout = Long.parseLong(offerTimeoutValue);
+            }
+            String drainTimeoutValue = IdentityUtil.getProperty(BATCH_CONFIG + "DrainTimeout");
+            if (StringUtils.isNotBlank(drainTimeoutValue) && Long.parseLong(drainTimeoutValue) >= 0) {
+                drainTimeout = Long.parseLong(drainTimeoutValue);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid session data batch persistence configuration. Using default values.", e);
+        }
+        if (batchPersistEnabled) {
+            log.info(String.format("Session data batch persistence is enabled with batch size: %d, flush interval: " +
+                    "%d ms and queue capacity: %d", batchSize, batchFlushInterval, queueCapacity));
+        }
+    }
+
     private SessionDataStore() {
         String enablePersistVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.Enable");
         enablePersist = true;
@@ -211,6 +306,38 @@ public class SessionDataStore {
         if (!enablePersist) {
             log.info("Session Data Persistence of Authentication framework is not enabled.");
         }
+        String selectOperationHeaderSQL = IdentityUtil
+                .getProperty("JDBCPersistenceManager.SessionDataPersist.SQL.SelectOperationHeader");
+        if (StringUtils.isNotBlank(selectOperationHeaderSQL)) {
+            sqlSelectOperationHeader = selectOperationHeaderSQL;
+        }
+        if (Boolean.parseBoolean(IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.NearCache" +
+                ".Enable"))) {
+            int nearCacheCapacity = DEFAULT_NEAR_CACHE_CAPACITY;
+            String nearCacheCapacityVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist" +
+                    ".NearCache.Capacity");
+            if (StringUtils.isNotBlank(nearCacheCapacityVal)) {
+                try {
+                    int capacity = Integer.parseInt(nearCacheCapacityVal.trim());
+                    if (capacity > 0) {
+                        nearCacheCapacity = capacity;
+                    } else {
+                        log.warn("Invalid session data near cache capacity: " + nearCacheCapacityVal +
+                                ". Using the default capacity: " + DEFAULT_NEAR_CACHE_CAPACITY);
+                    }
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid session data near cache capacity: " + nearCacheCapacityVal +
+                            ". Using the default capacity: " + DEFAULT_NEAR_CACHE_CAPACITY, e);
+                }
+            }
+            nearCache = new SessionDataNearCache(nearCacheCapacity);
+            log.info("Session data near cache is enabled with capacity: " + nearCacheCapacity);
+        }
+        String serializerNameVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.Serializer");
+        if (StringUtils.isNotBlank(serializerNameVal)) {
+            serializerName = serializerNameVal.trim();
+        }
+        getSerializer();
         String isCleanUpEnabledVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.SessionDataCleanUp.Enable");
 
         String isOperationCleanUpEnabledVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.OperationDataCleanUp.Enable");
@@ -256,6 +383,100 @@ public class SessionDataStore {
         if (!enablePersist) {
             return null;
         }
+        if (nearCache == null) {
+            return loadSessionContextData(key, type);
+        }
+        SessionDataNearCache.CachedSessionData cached = nearCache.get(key, type);
+        if (cached != null) {
+            if (isLatestOperation(key, type, cached.getNanoTime())) {
+                SessionContextDO sessionContextDO = readCachedSessionData(key, type, cached);
+                if (sessionContextDO != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Session data of type: " + type + " is served from the near cache.");
+                    }
+                    return sessionContextDO;
+                }
+            }
+            nearCache.remove(key, type);
+        }
+        return loadSessionContextData(key, type);
+    }
+
+    /**
+     * Deserializes a near cache entry, so that the caller gets its own copy of the session data.
+     *
+     * @param key    Session data key.
+     * @param type   Session data type.
+     * @param cached Near cache entry.
+     * @return Session data, or null if the entry cannot be read.
+     */
+    private SessionContextDO readCachedSessionData(String key, String type,
+                                                   SessionDataNearCache.CachedSessionData cached) {
+
+        try {
+            return new SessionContextDO(key, type, getBlobObject(new ByteArrayInputStream(cached.getBlob())),
+                    cached.getNanoTime(), cached.getTenantId());
+        } catch (ClassNotFoundException | IOException | IdentityApplicationManagementException e) {
+            log.error("Error while reading the near cached session data", e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the given near cache entry is still the latest operation of its key and type, by reading only
+     * the operation and the TIME_CREATED of the latest row.
+     *
+     * @param key      Session data key.
+     * @param type     Session data type.
+     * @param nanoTime TIME_CREATED of the STORE operation the near cache entry was loaded from.
+     * @return true if the latest operation is the STORE operation the entry was loaded from.
+     */
+    private boolean isLatestOperation(String key, String type, long nanoTime) {
+
+        Connection connection = null;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection();
+        } catch (IdentityRuntimeException e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            if (StringUtils.isBlank(sqlSelectOperationHeader)) {
+                if (connection.getMetaData().getDriverName().contains(MYSQL_DATABASE)
+                        || connection.getMetaData().getDriverName().contains(H2_DATABASE)) {
+                    sqlSelectOperationHeader = SQL_SELECT_OPERATION_HEADER_MYSQL;
+                } else if (connection.getMetaData().getDatabaseProductName().contains(DB2_DATABASE)) {
+                    sqlSelectOperationHeader = SQL_SELECT_OPERATION_HEADER_DB2SQL;
+                } else if (connection.getMetaData().getDriverName().contains(MS_SQL_DATABASE)
+                        || connection.getMetaData().getDriverName().contains(MICROSOFT_DATABASE)) {
+                    sqlSelectOperationHeader = SQL_SELECT_OPERATION_HEADER_MSSQL;
+                } else if (connection.getMetaData().getDriverName().contains(POSTGRESQL_DATABASE)) {
+                    sqlSelectOperationHeader = SQL_SELECT_OPERATION_HEADER_POSTGRESQL;
+                } else if (connection.getMetaData().getDriverName().contains(INFORMIX_DATABASE)) {
+                    sqlSelectOperationHeader = SQL_SELECT_OPERATION_HEADER_INFORMIX;
+                } else {
+                    sqlSelectOperationHeader = SQL_SELECT_OPERATION_HEADER_ORACLE;
+                }
+            }
+            preparedStatement = connection.prepareStatement(sqlSelectOperationHeader);
+            preparedStatement.setString(1, key);
+            preparedStatement.setString(2, type);
+            resultSet = preparedStatement.executeQuery();
+            if (resultSet.next()) {
+                return OPERATION_STORE.equals(resultSet.getString(1)) && resultSet.getLong(2) == nanoTime;
+            }
+        } catch (SQLException e) {
+            log.error("Error while validating the near cached session data", e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, preparedStatement);
+        }
+        return false;
+    }
+
+    private SessionContextDO loadSessionContextData(String key, String type) {
+
         Connection connection = null;
         try {
             connection = IdentityDatabaseUtil.getDBConnection();
@@ -292,7 +513,16 @@ public class SessionDataStore {
                 String operation = resultSet.getString(1);
                 long nanoTime = resultSet.getLong(3);
                 if ((OPERATION_STORE.equals(operation))) {
-                    return new SessionContextDO(key, type, getBlobObject(resultSet.getBinaryStream(2)), nanoTime);
+                    if (nearCache == null) {
+                        return new SessionContextDO(key, type, getBlobObject(resultSet.getBinaryStream(2)), nanoTime);
+                    }
+                    byte[] blob = readBlob(resultSet.getBinaryStream(2));
+                    SessionContextDO sessionContextDO = new SessionContextDO(key, type,
+                            blob != null ? getBlobObject(new ByteArrayInputStream(blob)) : null, nanoTime);
+                    if (blob != null) {
+                        nearCache.put(key, type, blob, nanoTime, sessionContextDO.getTenantId());
+                    }
+                    return sessionContextDO;
                 }
             }
         } catch (ClassNotFoundException | IOException | SQLException |
@@ -314,9 +544,8 @@ public class SessionDataStore {
             return;
         }
         long nanoTime = FrameworkUtils.getCurrentStandardNano();
-        if (maxPoolSize > 0) {
-            sessionContextQueue.push(new SessionContextDO(key, type, entry, nanoTime, tenantId));
-        } else {
+        SessionContextDO sessionContextDO = new SessionContextDO(key, type, entry, nanoTime, tenantId);
+        if (maxPoolSize <= 0 || !enqueueSessionContext(sessionContextDO)) {
             persistSessionData(key, type, entry, nanoTime, tenantId);
         }
     }
@@ -325,14 +554,109 @@ public class SessionDataStore {
         if (!enablePersist) {
             return;
         }
+        if (nearCache != null) {
+            nearCache.remove(key, type);
+        }
         long nanoTime = FrameworkUtils.getCurrentStandardNano();
-        if (maxPoolSize > 0) {
-            sessionContextQueue.push(new SessionContextDO(key, type, null, nanoTime));
-        } else {
+        SessionContextDO sessionContextDO = new SessionContextDO(key, type, null, nanoTime);
+        if (maxPoolSize <= 0 || !enqueueSessionContext(sessionContextDO)) {
             removeSessionData(key, type, nanoTime);
         }
     }
 
+    /**
+     * Adds the given operation to the persistence queue. If the queue is bounded and stays full for the configured
+     * offer timeout, the caller is expected to persist the operation itself, which throttles the producers down to
+     * the rate the database can handle.
+     *
+     * @param sessionContextDO Operation to be persisted.
+     * @return true if the operation was queued, false if the queue is full.
+     */
+    private boolean enqueueSessionContext(SessionContextDO sessionContextDO) {
+
+        try {
+            if (sessionContextQueue.offerFirst(sessionContextDO, queueOfferTimeout, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long fullCount = queueFullCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Session data persistence queue is full. Persisting in the caller thread. Queue full count: "
+                    + fullCount);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of operations waiting in the persistence queue.
+     *
+     * @return Current queue depth.
+     */
+    public int getPersistQueueSize() {
+
+        return sessionContextQueue.size();
+    }
+
+    /**
+     * Returns the number of times a producer found the persistence queue full and persisted in its own thread.
+     *
+     * @return Queue full count.
+     */
+    public long getPersistQueueFullCount() {
+
+        return queueFullCount.get();
+    }
+
+    /**
+     * Returns the number of batches committed by the batch persistence consumers.
+     *
+     * @return Persisted batch count.
+     */
+    public long getPersistedBatchCount() {
+
+        return persistedBatchCount.get();
+    }
+
+    /**
+     * Returns the number of operations committed by the batch persistence consumers.
+     *
+     * @return Persisted entry count.
+     */
+    public long getPersistedEntryCount() {
+
+        return persistedEntryCount.get();
+    }
+
+    /**
+     * Stops the persistence consumers and writes the operations remaining in the queue to the database, so that
+     * queued session data is not lost on shutdown. The consumers are given the configured
+     * "JDBCPersistenceManager.SessionDataPersist.BatchPersist.DrainTimeout" to write the operations they hold.
+     */
+    public void shutdownPersistConsumers() {
+
+        if (persistThreadPool == null) {
+            return;
+        }
+        persistThreadPool.shutdownNow();
+        try {
+            if (!persistThreadPool.awaitTermination(drainTimeout, TimeUnit.MILLISECONDS)) {
+                log.warn("Session data persistence consumers did not terminate within " + drainTimeout + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<SessionContextDO> remaining = new ArrayList<>();
+        while (sessionContextQueue.drainTo(remaining, batchSize) > 0) {
+            persistSessionDataBatch(remaining);
+            remaining.clear();
+        }
+        log.info(String.format("Session data persistence consumers are stopped. Persisted batches: %d, persisted " +
+                        "batch operations: %d, queue full count: %d", persistedBatchCount.get(),
+                persistedEntryCount.get(), queueFullCount.get()));
+    }
+
     /**
      * Gets the DB specific query for the session data removal, this may be overridden by the configuration
      * "JDBCPersistenceManager.SessionDataPersist.SQL.DeleteExpiredDataTask"
@@ -495,13 +819,16 @@ public class SessionDataStore {
             preparedStatement.setString(1, key);
             preparedStatement.setString(2, type);
             preparedStatement.setString(3, OPERATION_STORE);
-            setBlobObject(preparedStatement, entry, 4);
+            byte[] blob = setBlobObject(preparedStatement, entry, 4);
             preparedStatement.setLong(5, nanoTime);
             preparedStatement.setInt(6, tenantId);
             preparedStatement.executeUpdate();
             if (!connection.getAutoCommit()) {
                 connection.commit();
             }
+            if (nearCache != null && blob != null) {
+                nearCache.put(key, type, blob, nanoTime, tenantId);
+            }
         } catch (SQLException | IOException e) {
             log.error("Error while storing session data", e);
         } finally {
@@ -531,6 +858,9 @@ public class SessionDataStore {
             if (!connection.getAutoCommit()) {
                 connection.commit();
             }
+            if (nearCache != null) {
+                nearCache.remove(key, type);
+            }
         } catch (Exception e) {
             log.error("Error while storing DELETE operation session data", e);
         } finally {
@@ -538,41 +868,220 @@ public class SessionDataStore {
         }
     }
 
-    private void setBlobObject(PreparedStatement prepStmt, Object value, int index)
+    /**
+     * Persists the given STORE and DELETE operations as JDBC batches within a single transaction. If the batch
+     * fails, the transaction is rolled back and the operations are retried one by one, so that a single bad entry
+     * does not discard the whole batch.
+     *
+     * @param sessionContextDOs Operations to be persisted. An operation with a null entry is a DELETE operation.
+     */
+    public void persistSessionDataBatch(List<SessionContextDO> sessionContextDOs) {
+
+        if (!enablePersist || sessionContextDOs == null || sessionContextDOs.isEmpty()) {
+            return;
+        }
+        Connection connection = null;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection();
+        } catch (IdentityRuntimeException e) {
+            log.error(e.getMessage(), e);
+            return;
+        }
+        PreparedStatement storeStatement = null;
+        PreparedStatement deleteStatement = null;
+        byte[][] blobs = new byte[sessionContextDOs.size()][];
+        try {
+            for (int i = 0; i < sessionContextDOs.size(); i++) {
+                SessionContextDO sessionContextDO = sessionContextDOs.get(i);
+                if (sessionContextDO.getEntry() == null) {
+                    if (deleteStatement == null) {
+                        deleteStatement = connection.prepareStatement(sqlInsertDELETE);
+                    }
+                    deleteStatement.setString(1, sessionContextDO.getKey());
+                    deleteStatement.setString(2, sessionContextDO.getType());
+                    deleteStatement.setString(3, OPERATION_DELETE);
+                    deleteStatement.setLong(4, sessionContextDO.getNanoTime());
+                    deleteStatement.addBatch();
+                } else {
+                    if (storeStatement == null) {
+                        storeStatement = connection.prepareStatement(sqlInsertSTORE);
+                    }
+                    storeStatement.setString(1, sessionContextDO.getKey());
+                    storeStatement.setString(2, sessionContextDO.getType());
+                    storeStatement.setString(3, OPERATION_STORE);
+                    blobs[i] = setBlobObject(storeStatement, sessionContextDO.getEntry(), 4);
+                    storeStatement.setLong(5, sessionContextDO.getNanoTime());
+                    storeStatement.setInt(6, sessionContextDO.getTenantId());
+                    storeStatement.addBatch();
+                }
+            }
+            if (storeStatement != null) {
+                storeStatement.executeBatch();
+            }
+            if (deleteStatement != null) {
+                deleteStatement.executeBatch();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            long batchCount = persistedBatchCount.incrementAndGet();
+            long entryCount = persistedEntryCount.addAndGet(sessionContextDOs.size());
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Persisted a batch of %d session data operations. Persisted batches: %d, " +
+                                "persisted batch operations: %d, queue depth: %d, queue full count: %d",
+                        sessionContextDOs.size(), batchCount, entryCount, sessionContextQueue.size(),
+                        queueFullCount.get()));
+            }
+            if (nearCache != null) {
+                for (int i = 0; i < sessionContextDOs.size(); i++) {
+                    SessionContextDO sessionContextDO = sessionContextDOs.get(i);
+                    if (blobs[i] == null) {
+                        nearCache.remove(sessionContextDO.getKey(), sessionContextDO.getType());
+                    } else {
+                        nearCache.put(sessionContextDO.getKey(), sessionContextDO.getType(), blobs[i],
+                                sessionContextDO.getNanoTime(), sessionContextDO.getTenantId());
+                    }
+                }
+            }
+        } catch (SQLException | IOException e) {
+            log.error("Error while storing a batch of " + sessionContextDOs.size() + " session data operations. " +
+                    "Retrying the operations individually.", e);
+            IdentityDatabaseUtil.rollBack(connection);
+            IdentityDatabaseUtil.closeStatement(storeStatement);
+            IdentityDatabaseUtil.closeStatement(deleteStatement);
+            IdentityDatabaseUtil.closeConnection(connection);
+            connection = null;
+            storeStatement = null;
+            deleteStatement = null;
+            for (SessionContextDO sessionContextDO : sessionContextDOs) {
+                if (sessionContextDO.getEntry() == null) {
+                    removeSessionData(sessionContextDO.getKey(), sessionContextDO.getType(),
+                            sessionContextDO.getNanoTime());
+                } else {
+                    persistSessionData(sessionContextDO.getKey(), sessionContextDO.getType(),
+                            sessionContextDO.getEntry(), sessionContextDO.getNanoTime(),
+                            sessionContextDO.getTenantId());
+                }
+            }
+        } finally {
+            IdentityDatabaseUtil.closeStatement(deleteStatement);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, storeStatement);
+        }
+    }
+
+    /**
+     * Sets the serialized value as the blob parameter of the given statement.
+     *
+     * @return The blob written, or null if the value is null.
+     */
+    private byte[] setBlobObject(PreparedStatement prepStmt, Object value, int index)
             throws SQLException, IOException {
         if (value != null) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(value);
-            oos.flush();
-            oos.close();
-            InputStream inputStream = new ByteArrayInputStream(baos.toByteArray());
-            prepStmt.setBinaryStream(index, inputStream, inputStream.available());
+            SessionDataSerializer serializer = getSerializer();
+            byte[] serialized = serializer.serialize(value);
+            byte[] blob = serialized;
+            if (serializer.getFormatId() != JavaSessionDataSerializer.FORMAT_ID) {
+                blob = new byte[BLOB_HEADER_LENGTH + serialized.length];
+                blob[0] = BLOB_HEADER_MAGIC[0];
+                blob[1] = BLOB_HEADER_MAGIC[1];
+                blob[2] = BLOB_HEADER_VERSION;
+                blob[3] = serializer.getFormatId();
+                System.arraycopy(serialized, 0, blob, BLOB_HEADER_LENGTH, serialized.length);
+            }
+            prepStmt.setBinaryStream(index, new ByteArrayInputStream(blob), blob.length);
+            return blob;
         } else {
             prepStmt.setBinaryStream(index, null, 0);
+            return null;
         }
     }
 
+    private byte[] readBlob(InputStream is) throws IOException {
+
+        if (is == null) {
+            return null;
+        }
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BLOB_READ_BUFFER_SIZE];
+        int count;
+        while ((count = is.read(buffer)) != -1) {
+            blob.write(buffer, 0, count);
+        }
+        return blob.toByteArray();
+    }
+
     private Object getBlobObject(InputStream is)
             throws IdentityApplicationManagementException, IOException, ClassNotFoundException {
         if (is != null) {
-            ObjectInput ois = null;
-            try {
-                ois = new ObjectInputStream(is);
-                return ois.readObject();
-            } finally {
-                if (ois != null) {
-                    try {
-                        ois.close();
-                    } catch (IOException e) {
-                        log.error("IOException while trying to close ObjectInputStream.", e);
-                    }
+            InputStream blobStream = new BufferedInputStream(is);
+            blobStream.mark(BLOB_HEADER_LENGTH);
+            byte[] header = new byte[BLOB_HEADER_LENGTH];
+            int read = 0;
+            while (read < BLOB_HEADER_LENGTH) {
+                int count = blobStream.read(header, read, BLOB_HEADER_LENGTH - read);
+                if (count < 0) {
+                    break;
                 }
+                read += count;
             }
+            if (read == BLOB_HEADER_LENGTH && header[0] == BLOB_HEADER_MAGIC[0] && header[1] == BLOB_HEADER_MAGIC[1]) {
+                if (header[2] != BLOB_HEADER_VERSION) {
+                    throw new IOException("Unsupported session data blob header version: " + header[2]);
+                }
+                SessionDataSerializer serializer =
+                        FrameworkServiceDataHolder.getInstance().getSessionDataSerializers().get(header[3]);
+                if (serializer == null) {
+                    throw new IOException("No session data serializer is registered for the format id: " + header[3]);
+                }
+                return serializer.deserialize(blobStream);
+            }
+            // Blob written with Java serialization, without a header.
+            blobStream.reset();
+            SessionDataSerializer javaSerializer = FrameworkServiceDataHolder.getInstance()
+                    .getSessionDataSerializers().get(JavaSessionDataSerializer.FORMAT_ID);
+            if (javaSerializer == null) {
+                javaSerializer = new JavaSessionDataSerializer();
+            }
+            return javaSerializer.deserialize(blobStream);
         }
         return null;
     }
 
+    /**
+     * Returns the configured serializer. Falls back to Java serialization if the configured serializer is not
+     * registered. The serializer is resolved once and only looked up again when the registered serializers change.
+     *
+     * @return Serializer to be used to write session data.
+     */
+    private SessionDataSerializer getSerializer() {
+
+        int version = FrameworkServiceDataHolder.getInstance().getSessionDataSerializersVersion();
+        ResolvedSerializer resolved = resolvedSerializer;
+        if (resolved == null || resolved.version != version) {
+            resolved = new ResolvedSerializer(resolveSerializer(), version);
+            resolvedSerializer = resolved;
+        }
+        return resolved.serializer;
+    }
+
+    private SessionDataSerializer resolveSerializer() {
+
+        SessionDataSerializer javaSerializer = null;
+        for (SessionDataSerializer serializer : FrameworkServiceDataHolder.getInstance().getSessionDataSerializers()
+                .values()) {
+            if (serializerName.equals(serializer.getName())) {
+                return serializer;
+            }
+            if (serializer.getFormatId() == JavaSessionDataSerializer.FORMAT_ID) {
+                javaSerializer = serializer;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Session data serializer: " + serializerName + " is not registered. Using Java serialization.");
+        }
+        return javaSerializer != null ? javaSerializer : new JavaSessionDataSerializer();
+    }
+
     private void deleteSTOREOperationsTask() {
         Connection connection = null;
         PreparedStatement statement = null;
@@ -634,4 +1143,19 @@ public class SessionDataStore {
 
         }
     }
+
+    /**
+     * Serializer resolved for writes, together with the version of the registered serializers it was resolved from.
+     */
+    private static class ResolvedSerializer {
+
+        private final SessionDataSerializer serializer;
+        private final int version;
+
+        ResolvedSerializer(SessionDataSerializer serializer, int version) {
+
+            this.serializer = serializer;
+            this.version = version;
+        }
+    }
 }
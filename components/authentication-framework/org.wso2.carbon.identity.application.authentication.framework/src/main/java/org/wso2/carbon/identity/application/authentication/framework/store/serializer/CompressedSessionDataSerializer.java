@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store.serializer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Session data serializer which compresses the serialized object graph with the deflate algorithm. The session and
+ * authentication context graphs contain many repeated class descriptors and claim URIs, so they compress well.
+ * The serializer trades CPU time on every write for smaller rows, hence Java serialization stays the default.
+ */
+public class CompressedSessionDataSerializer implements SessionDataSerializer {
+
+    public static final String NAME = "Compressed";
+    public static final byte FORMAT_ID = 1;
+    private static final int BUFFER_SIZE = 4096;
+
+    @Override
+    public String getName() {
+
+        return NAME;
+    }
+
+    @Override
+    public byte getFormatId() {
+
+        return FORMAT_ID;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(baos, deflater, BUFFER_SIZE), BUFFER_SIZE))) {
+            oos.writeObject(value);
+        } finally {
+            deflater.end();
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream) throws IOException, ClassNotFoundException {
+
+        Inflater inflater = new Inflater();
+        try (ObjectInputStream ois = new ObjectInputStream(new InflaterInputStream(inputStream, inflater,
+                BUFFER_SIZE))) {
+            return ois.readObject();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store.serializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serializes the session data objects, such as the session context and the authentication context, which are
+ * persisted by the SessionDataStore. Implementations registered as OSGi services can be selected with the
+ * "JDBCPersistenceManager.SessionDataPersist.Serializer" configuration.
+ * <p>
+ * Every serializer is identified by a format id, which is written in the header of the persisted blob. The blob is
+ * always read back with the serializer that wrote it, so the serializer can be changed on a running cluster.
+ */
+public interface SessionDataSerializer {
+
+    /**
+     * Returns the name used to select this serializer in the configuration.
+     *
+     * @return Serializer name.
+     */
+    String getName();
+
+    /**
+     * Returns the id written in the blob header. The id must be unique among the registered serializers.
+     *
+     * @return Format id.
+     */
+    byte getFormatId();
+
+    /**
+     * Serializes the given session data object.
+     *
+     * @param value Session data object.
+     * @return Serialized bytes, without the blob header.
+     * @throws IOException If the object cannot be serialized.
+     */
+    byte[] serialize(Object value) throws IOException;
+
+    /**
+     * Reads a session data object written by {@link #serialize(Object)}.
+     *
+     * @param inputStream Stream positioned right after the blob header.
+     * @return Session data object.
+     * @throws IOException            If the stream cannot be read.
+     * @throws ClassNotFoundException If a class of the serialized object graph cannot be found.
+     */
+    Object deserialize(InputStream inputStream) throws IOException, ClassNotFoundException;
+}
@@ -236,14 +236,7 @@ public class FrameworkUtils {
      */
     public static ApplicationAuthenticator getAppAuthenticatorByName(String name) {
 
-        for (ApplicationAuthenticator authenticator : FrameworkServiceComponent.getAuthenticators()) {
-
-            if (name.equals(authenticator.getName())) {
-                return authenticator;
-            }
-        }
-
-        return null;
+        return FrameworkServiceDataHolder.getInstance().getAuthenticatorByName(name, false);
     }
 
     /**
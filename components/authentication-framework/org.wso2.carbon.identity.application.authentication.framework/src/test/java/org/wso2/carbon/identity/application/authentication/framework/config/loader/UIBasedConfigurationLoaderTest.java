@@ -18,20 +18,62 @@
 
 package org.wso2.carbon.identity.application.authentication.framework.config.loader;
 
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.application.authentication.framework.AbstractFrameworkTest;
+import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceTemplateVersionCache;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceTemplateVersionCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SequenceTemplateVersionCacheKey;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
 import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
 import org.wso2.carbon.identity.application.common.model.AuthenticationStep;
 import org.wso2.carbon.identity.application.common.model.LocalAndOutboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.LocalAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 
 @Test
+@PrepareForTest(SequenceTemplateVersionCache.class)
 public class UIBasedConfigurationLoaderTest extends AbstractFrameworkTest {
 
+    private static final String TENANT_DOMAIN = "test_domain";
+
     private UIBasedConfigurationLoader loader = new UIBasedConfigurationLoader();
+    private Map<SequenceTemplateVersionCacheKey, SequenceTemplateVersionCacheEntry> versions;
+
+    @BeforeMethod
+    public void setUp() {
+
+        versions = new HashMap<>();
+        SequenceTemplateVersionCache versionCache = mock(SequenceTemplateVersionCache.class);
+        when(versionCache.getValueFromCache(any(SequenceTemplateVersionCacheKey.class)))
+                .thenAnswer(invocation -> versions.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> versions.put((SequenceTemplateVersionCacheKey) invocation.getArguments()[0],
+                (SequenceTemplateVersionCacheEntry) invocation.getArguments()[1]))
+                .when(versionCache).addToCache(any(SequenceTemplateVersionCacheKey.class),
+                any(SequenceTemplateVersionCacheEntry.class));
+        doAnswer(invocation -> versions.remove(invocation.getArguments()[0]))
+                .when(versionCache).clearCacheEntry(any(SequenceTemplateVersionCacheKey.class));
+        mockStatic(SequenceTemplateVersionCache.class);
+        when(SequenceTemplateVersionCache.getInstance()).thenReturn(versionCache);
+    }
 
     public void testGetSequence_Deprecated() throws Exception {
         ServiceProvider testSp1 = new ServiceProvider();
@@ -56,4 +98,89 @@ public class UIBasedConfigurationLoaderTest extends AbstractFrameworkTest {
         assertNotNull(sequenceConfig.getStepMap().get(2));
     }
 
-}
\ No newline at end of file
+    public void testSequenceTemplateIsCopiedForEachRequest() throws Exception {
+
+        ServiceProvider serviceProvider = createServiceProvider("templateApp", "BasicAuthenticator");
+
+        SequenceConfig sequenceConfig1 = loader.getSequence(serviceProvider, TENANT_DOMAIN);
+        SequenceConfig sequenceConfig2 = loader.getSequence(serviceProvider, TENANT_DOMAIN);
+
+        assertNotSame(sequenceConfig1, sequenceConfig2);
+        assertNotSame(sequenceConfig1.getStepMap().get(1), sequenceConfig2.getStepMap().get(1));
+        assertEquals(getAuthenticatorName(sequenceConfig2), "BasicAuthenticator");
+    }
+
+    public void testSequenceTemplateIsRebuiltWhenCleared() throws Exception {
+
+        ServiceProvider serviceProvider = createServiceProvider("updatedApp", "BasicAuthenticator");
+        loader.getSequence(serviceProvider, TENANT_DOMAIN);
+
+        // The service provider is changed in place, so only the explicit invalidation can tell the template is stale.
+        serviceProvider.getLocalAndOutBoundAuthenticationConfig().getAuthenticationSteps()[0]
+                .getLocalAuthenticatorConfigs()[0].setName("TOTPAuthenticator");
+        assertEquals(getAuthenticatorName(loader.getSequence(serviceProvider, TENANT_DOMAIN)), "BasicAuthenticator");
+
+        UIBasedConfigurationLoader.clearSequenceTemplates(TENANT_DOMAIN, "updatedApp");
+        assertEquals(getAuthenticatorName(loader.getSequence(serviceProvider, TENANT_DOMAIN)), "TOTPAuthenticator");
+    }
+
+    public void testSequenceTemplateIsRebuiltWhenVersionIsRemovedByAnotherNode() throws Exception {
+
+        ServiceProvider serviceProvider = createServiceProvider("clusteredApp", "BasicAuthenticator");
+        loader.getSequence(serviceProvider, TENANT_DOMAIN);
+
+        serviceProvider.getLocalAndOutBoundAuthenticationConfig().getAuthenticationSteps()[0]
+                .getLocalAuthenticatorConfigs()[0].setName("TOTPAuthenticator");
+        versions.remove(new SequenceTemplateVersionCacheKey("clusteredApp", TENANT_DOMAIN));
+
+        assertEquals(getAuthenticatorName(loader.getSequence(serviceProvider, TENANT_DOMAIN)), "TOTPAuthenticator");
+    }
+
+    public void testSequenceTemplateIsRebuiltWhenAuthenticatorIsRegistered() throws Exception {
+
+        ServiceProvider serviceProvider = createServiceProvider("authenticatorApp", "TemplateTestAuthenticator");
+        assertNull(getAuthenticator(loader.getSequence(serviceProvider, TENANT_DOMAIN)));
+
+        ApplicationAuthenticator authenticator = mock(ApplicationAuthenticator.class);
+        when(authenticator.getName()).thenReturn("TemplateTestAuthenticator");
+        FrameworkServiceDataHolder.getInstance().getAuthenticators().add(authenticator);
+        try {
+            assertSame(getAuthenticator(loader.getSequence(serviceProvider, TENANT_DOMAIN)), authenticator);
+        } finally {
+            FrameworkServiceDataHolder.getInstance().getAuthenticators().remove(authenticator);
+        }
+        assertNull(getAuthenticator(loader.getSequence(serviceProvider, TENANT_DOMAIN)));
+    }
+
+    private ServiceProvider createServiceProvider(String applicationName, String authenticatorName) {
+
+        LocalAuthenticatorConfig localAuthenticatorConfig = new LocalAuthenticatorConfig();
+        localAuthenticatorConfig.setName(authenticatorName);
+        AuthenticationStep step = new AuthenticationStep();
+        step.setStepOrder(1);
+        step.setLocalAuthenticatorConfigs(new LocalAuthenticatorConfig[]{localAuthenticatorConfig});
+
+        LocalAndOutboundAuthenticationConfig localAndOutboundAuthenticationConfig =
+                new LocalAndOutboundAuthenticationConfig();
+        localAndOutboundAuthenticationConfig.setAuthenticationSteps(new AuthenticationStep[]{step});
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setApplicationName(applicationName);
+        serviceProvider.setLocalAndOutBoundAuthenticationConfig(localAndOutboundAuthenticationConfig);
+        return serviceProvider;
+    }
+
+    private AuthenticatorConfig getAuthenticatorConfig(SequenceConfig sequenceConfig) {
+
+        return sequenceConfig.getStepMap().get(1).getAuthenticatorList().get(0);
+    }
+
+    private String getAuthenticatorName(SequenceConfig sequenceConfig) {
+
+        return getAuthenticatorConfig(sequenceConfig).getName();
+    }
+
+    private ApplicationAuthenticator getAuthenticator(SequenceConfig sequenceConfig) {
+
+        return getAuthenticatorConfig(sequenceConfig).getApplicationAuthenticator();
+    }
+}
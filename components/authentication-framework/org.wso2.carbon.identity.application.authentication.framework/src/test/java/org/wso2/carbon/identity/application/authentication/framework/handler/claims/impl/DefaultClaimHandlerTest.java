@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.handler.claims.impl;
+
+import org.mockito.ArgumentCaptor;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ApplicationConfig;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.claim.ClaimManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests which local claims of the user are read by the DefaultClaimHandler.
+ */
+@PrepareForTest(IdentityUtil.class)
+public class DefaultClaimHandlerTest {
+
+    private static final String EMAIL = "http://wso2.org/claims/emailaddress";
+    private static final String COUNTRY = "http://wso2.org/claims/country";
+    private static final String MOBILE = "http://wso2.org/claims/mobile";
+    private static final String ROLE = "http://wso2.org/claims/role";
+    private static final String READ_SERVICE_PROVIDER_CLAIMS_ONLY = "Authentication.ReadServiceProviderClaimsOnly";
+
+    private DefaultClaimHandler claimHandler;
+    private ClaimManager claimManager;
+    private UserStoreManager userStoreManager;
+    private ApplicationConfig appConfig;
+    private AuthenticatedUser authenticatedUser;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        claimHandler = new DefaultClaimHandler();
+        mockStatic(IdentityUtil.class);
+
+        claimManager = mock(ClaimManager.class);
+        when(claimManager.getAllClaimUris()).thenReturn(new String[]{EMAIL, COUNTRY, MOBILE, ROLE});
+
+        Map<String, String> claimValues = new HashMap<>();
+        claimValues.put(EMAIL, "alice@wso2.com");
+        userStoreManager = mock(UserStoreManager.class);
+        when(userStoreManager.getUserClaimValues(anyString(), any(String[].class),
+                (String) isNull())).thenReturn(claimValues);
+
+        appConfig = mock(ApplicationConfig.class);
+        when(appConfig.getClaimMappings()).thenReturn(Collections.singletonMap(EMAIL, EMAIL));
+        when(appConfig.getRequestedClaimMappings()).thenReturn(Collections.singletonMap(EMAIL, EMAIL));
+        when(appConfig.getMandatoryClaimMappings()).thenReturn(Collections.<String, String>emptyMap());
+        when(appConfig.getSubjectClaimUri()).thenReturn(COUNTRY);
+
+        authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName("alice");
+        authenticatedUser.setTenantDomain("carbon.super");
+    }
+
+    @Test
+    public void testAllLocalClaimsAreReadByDefault() throws Exception {
+
+        when(IdentityUtil.getProperty(READ_SERVICE_PROVIDER_CLAIMS_ONLY)).thenReturn(null);
+
+        Map<String, String> localClaims = retrieveLocalClaims();
+
+        assertEquals(getReadClaimURIs(), new HashSet<>(Arrays.asList(EMAIL, COUNTRY, MOBILE, ROLE)));
+        assertEquals(localClaims.get(EMAIL), "alice@wso2.com");
+    }
+
+    @Test
+    public void testOnlyServiceProviderClaimsAreReadWhenEnabled() throws Exception {
+
+        when(IdentityUtil.getProperty(READ_SERVICE_PROVIDER_CLAIMS_ONLY)).thenReturn("true");
+
+        Map<String, String> localClaims = retrieveLocalClaims();
+
+        // The mapped claim, the subject claim and the role claim, but not the mobile claim.
+        assertEquals(getReadClaimURIs(), new HashSet<>(Arrays.asList(EMAIL, COUNTRY, ROLE)));
+        assertEquals(localClaims.get(EMAIL), "alice@wso2.com");
+    }
+
+    private Map<String, String> retrieveLocalClaims() throws Exception {
+
+        Map<String, String> spToLocalClaimMappings = new HashMap<>();
+        Set<String> localClaimURIsToRead = Whitebox.invokeMethod(claimHandler, "getLocalClaimURIsToRead",
+                appConfig, spToLocalClaimMappings);
+        return Whitebox.invokeMethod(claimHandler, "retrieveAllNunNullUserClaimValues",
+                new Class<?>[]{AuthenticatedUser.class, org.wso2.carbon.user.api.ClaimManager.class,
+                        ApplicationConfig.class, UserStoreManager.class, Set.class},
+                authenticatedUser, claimManager, appConfig, userStoreManager, localClaimURIsToRead);
+    }
+
+    private Set<String> getReadClaimURIs() throws Exception {
+
+        ArgumentCaptor<String[]> claimURIs = ArgumentCaptor.forClass(String[].class);
+        verify(userStoreManager).getUserClaimValues(eq("alice"), claimURIs.capture(), (String) isNull());
+        return new HashSet<>(Arrays.asList(claimURIs.getValue()));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.internal;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.ListIterator;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Tests that the name index of the AuthenticatorList follows every modification of the list.
+ */
+public class AuthenticatorListTest {
+
+    private AuthenticatorList authenticators;
+    private ApplicationAuthenticator basic;
+    private ApplicationAuthenticator totp;
+
+    @BeforeMethod
+    public void setUp() {
+
+        authenticators = new AuthenticatorList();
+        basic = createAuthenticator("BasicAuthenticator");
+        totp = createAuthenticator("totp");
+        authenticators.add(basic);
+        authenticators.add(totp);
+    }
+
+    @Test
+    public void testGetByName() {
+
+        assertSame(authenticators.getByName("BasicAuthenticator", false), basic);
+        assertNull(authenticators.getByName("basicauthenticator", false));
+        assertSame(authenticators.getByName("basicauthenticator", true), basic);
+        assertNull(authenticators.getByName(null, true));
+    }
+
+    @Test
+    public void testFirstRegisteredAuthenticatorWins() {
+
+        authenticators.add(createAuthenticator("BasicAuthenticator"));
+
+        assertSame(authenticators.getByName("BasicAuthenticator", false), basic);
+    }
+
+    @Test
+    public void testSet() {
+
+        assertSame(authenticators.getByName("BasicAuthenticator", false), basic);
+        int modificationCount = authenticators.getModificationCount();
+
+        ApplicationAuthenticator replacement = createAuthenticator("BasicAuthenticator");
+        authenticators.set(0, replacement);
+
+        assertNotEquals(authenticators.getModificationCount(), modificationCount);
+        assertSame(authenticators.getByName("BasicAuthenticator", false), replacement);
+    }
+
+    @Test
+    public void testListIteratorSet() {
+
+        assertSame(authenticators.getByName("totp", false), totp);
+
+        ApplicationAuthenticator replacement = createAuthenticator("fido");
+        ListIterator<ApplicationAuthenticator> iterator = authenticators.listIterator(1);
+        iterator.next();
+        iterator.set(replacement);
+
+        assertNull(authenticators.getByName("totp", false));
+        assertSame(authenticators.getByName("fido", false), replacement);
+    }
+
+    @Test
+    public void testReplaceAll() {
+
+        assertSame(authenticators.getByName("totp", false), totp);
+
+        ApplicationAuthenticator replacement = createAuthenticator("fido");
+        authenticators.replaceAll(authenticator -> authenticator == totp ? replacement : authenticator);
+
+        assertNull(authenticators.getByName("totp", false));
+        assertSame(authenticators.getByName("fido", false), replacement);
+    }
+
+    @Test
+    public void testRemove() {
+
+        assertSame(authenticators.getByName("totp", false), totp);
+        authenticators.remove(totp);
+        assertNull(authenticators.getByName("totp", false));
+
+        authenticators.add(totp);
+        assertSame(authenticators.getByName("totp", false), totp);
+        authenticators.remove(authenticators.size() - 1);
+        assertNull(authenticators.getByName("totp", false));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+
+        assertSame(authenticators.getByName("BasicAuthenticator", false), basic);
+
+        Iterator<ApplicationAuthenticator> iterator = authenticators.iterator();
+        iterator.next();
+        iterator.remove();
+
+        assertNull(authenticators.getByName("BasicAuthenticator", false));
+    }
+
+    @Test
+    public void testBulkModifications() {
+
+        ApplicationAuthenticator fido = createAuthenticator("fido");
+        assertNull(authenticators.getByName("fido", false));
+        authenticators.addAll(Collections.singletonList(fido));
+        assertSame(authenticators.getByName("fido", false), fido);
+
+        authenticators.removeIf(authenticator -> authenticator == fido);
+        assertNull(authenticators.getByName("fido", false));
+
+        authenticators.addAll(0, Collections.singletonList(fido));
+        assertSame(authenticators.getByName("fido", false), fido);
+
+        authenticators.removeAll(Collections.singletonList(fido));
+        assertNull(authenticators.getByName("fido", false));
+
+        authenticators.retainAll(Arrays.asList(basic));
+        assertNull(authenticators.getByName("totp", false));
+        assertSame(authenticators.getByName("BasicAuthenticator", false), basic);
+
+        authenticators.clear();
+        assertNull(authenticators.getByName("BasicAuthenticator", false));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSubListIsReadOnly() {
+
+        authenticators.subList(0, 1).set(0, createAuthenticator("fido"));
+    }
+
+    private ApplicationAuthenticator createAuthenticator(String name) {
+
+        ApplicationAuthenticator authenticator = mock(ApplicationAuthenticator.class);
+        when(authenticator.getName()).thenReturn(name);
+        return authenticator;
+    }
+}
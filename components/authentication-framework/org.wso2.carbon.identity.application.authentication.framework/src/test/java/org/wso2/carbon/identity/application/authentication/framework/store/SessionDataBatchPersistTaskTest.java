@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the batching of the session data batch persist consumer.
+ */
+@Test
+public class SessionDataBatchPersistTaskTest {
+
+    private static final long TEST_TIMEOUT = 5000;
+
+    public void testOperationsAreWrittenInBatches() throws Exception {
+
+        BlockingDeque<SessionContextDO> queue = new LinkedBlockingDeque<>();
+        for (int i = 0; i < 5; i++) {
+            queue.add(getSessionContextDO("key" + i));
+        }
+        List<List<SessionContextDO>> batches = new CopyOnWriteArrayList<>();
+        Thread consumer = startConsumer(new SessionDataBatchPersistTask(queue, 2, 50,
+                batch -> batches.add(new ArrayList<>(batch))));
+        waitForOperations(batches, 5);
+        stopConsumer(consumer);
+
+        assertEquals(batches.size(), 3);
+        for (List<SessionContextDO> batch : batches) {
+            assertTrue(batch.size() <= 2, "A batch must not exceed the batch size.");
+        }
+    }
+
+    public void testHeldBatchIsFlushedOnShutdown() throws Exception {
+
+        BlockingDeque<SessionContextDO> queue = new LinkedBlockingDeque<>();
+        List<List<SessionContextDO>> batches = new CopyOnWriteArrayList<>();
+        // The batch is neither full nor due before the consumer is stopped.
+        Thread consumer = startConsumer(new SessionDataBatchPersistTask(queue, 10, TimeUnit.MINUTES.toMillis(10),
+                batch -> batches.add(new ArrayList<>(batch))));
+        queue.add(getSessionContextDO("key"));
+        long deadline = System.currentTimeMillis() + TEST_TIMEOUT;
+        while (!queue.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(batches.isEmpty());
+
+        stopConsumer(consumer);
+
+        assertEquals(batches.size(), 1);
+        assertEquals(batches.get(0).get(0).getKey(), "key");
+    }
+
+    public void testConsumerContinuesAfterFailedBatch() throws Exception {
+
+        BlockingDeque<SessionContextDO> queue = new LinkedBlockingDeque<>();
+        List<List<SessionContextDO>> batches = new CopyOnWriteArrayList<>();
+        Thread consumer = startConsumer(new SessionDataBatchPersistTask(queue, 1, 50, batch -> {
+            if ("failing".equals(batch.get(0).getKey())) {
+                throw new RuntimeException("Simulated batch failure");
+            }
+            batches.add(new ArrayList<>(batch));
+        }));
+        queue.add(getSessionContextDO("failing"));
+        queue.add(getSessionContextDO("key"));
+        waitForOperations(batches, 1);
+        stopConsumer(consumer);
+
+        assertEquals(batches.size(), 1);
+        assertEquals(batches.get(0).get(0).getKey(), "key");
+    }
+
+    private Thread startConsumer(SessionDataBatchPersistTask task) {
+
+        Thread consumer = new Thread(task);
+        consumer.start();
+        return consumer;
+    }
+
+    private void stopConsumer(Thread consumer) throws InterruptedException {
+
+        consumer.interrupt();
+        consumer.join(TEST_TIMEOUT);
+        assertFalse(consumer.isAlive(), "Consumer did not stop when interrupted.");
+    }
+
+    private void waitForOperations(List<List<SessionContextDO>> batches, int count) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TEST_TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            int written = 0;
+            for (List<SessionContextDO> batch : batches) {
+                written += batch.size();
+            }
+            if (written >= count) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private SessionContextDO getSessionContextDO(String key) {
+
+        return new SessionContextDO(key, "AppAuthFrameworkSessionContextCache", "entry", System.nanoTime());
+    }
+}
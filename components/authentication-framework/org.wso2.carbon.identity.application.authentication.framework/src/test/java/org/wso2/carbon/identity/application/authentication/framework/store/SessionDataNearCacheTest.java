@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.store.serializer.JavaSessionDataSerializer;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests the session data near cache of the SessionDataStore.
+ */
+@PrepareForTest({IdentityUtil.class, IdentityDatabaseUtil.class})
+public class SessionDataNearCacheTest {
+
+    private static final String SESSION_DATA_PERSIST = "JDBCPersistenceManager.SessionDataPersist.";
+    private static final String TYPE = "AppAuthFrameworkSessionContextCache";
+    private static final String OPERATION_STORE = "STORE";
+    private static final String OPERATION_DELETE = "DELETE";
+
+    private Connection connection;
+    private PreparedStatement storeStatement;
+    private PreparedStatement deleteStatement;
+    private PreparedStatement selectStatement;
+    private PreparedStatement selectHeaderStatement;
+    private ResultSet selectResultSet;
+    private ResultSet selectHeaderResultSet;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty(anyString())).thenReturn(null);
+        when(IdentityUtil.getProperty(SESSION_DATA_PERSIST + "PoolSize")).thenReturn("0");
+        when(IdentityUtil.getProperty(SESSION_DATA_PERSIST + "SessionDataCleanUp.Enable")).thenReturn("false");
+        when(IdentityUtil.getProperty(SESSION_DATA_PERSIST + "NearCache.Enable")).thenReturn("true");
+
+        connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDriverName()).thenReturn("H2 JDBC Driver");
+        when(connection.getMetaData()).thenReturn(metaData);
+        storeStatement = mock(PreparedStatement.class);
+        deleteStatement = mock(PreparedStatement.class);
+        selectStatement = mock(PreparedStatement.class);
+        selectHeaderStatement = mock(PreparedStatement.class);
+        selectResultSet = mock(ResultSet.class);
+        selectHeaderResultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(contains("SESSION_TYPE, OPERATION, SESSION_OBJECT"))).thenReturn(storeStatement);
+        when(connection.prepareStatement(contains("SESSION_TYPE,OPERATION"))).thenReturn(deleteStatement);
+        when(connection.prepareStatement(startsWith("SELECT OPERATION, SESSION_OBJECT"))).thenReturn(selectStatement);
+        when(connection.prepareStatement(startsWith("SELECT OPERATION, TIME_CREATED")))
+                .thenReturn(selectHeaderStatement);
+        when(selectStatement.executeQuery()).thenReturn(selectResultSet);
+        when(selectHeaderStatement.executeQuery()).thenReturn(selectHeaderResultSet);
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void testMissLoadsFromDatabaseAndCaches() throws Exception {
+
+        HashMap<String, String> sessionData = getSessionData();
+        mockLatestRow(selectResultSet, OPERATION_STORE, 100L);
+        when(selectResultSet.getBinaryStream(2))
+                .thenReturn(new ByteArrayInputStream(new JavaSessionDataSerializer().serialize(sessionData)));
+        mockLatestRow(selectHeaderResultSet, OPERATION_STORE, 100L);
+
+        assertEquals(SessionDataStore.getInstance().getSessionData("miss", TYPE), sessionData);
+        verify(selectHeaderStatement, never()).executeQuery();
+
+        assertEquals(SessionDataStore.getInstance().getSessionData("miss", TYPE), sessionData);
+        verify(selectHeaderStatement, times(1)).executeQuery();
+        verify(selectStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    public void testHitIsServedWithoutReadingTheBlob() throws Exception {
+
+        HashMap<String, String> sessionData = getSessionData();
+        SessionDataStore.getInstance().persistSessionData("hit", TYPE, sessionData, 200L, -1234);
+        mockLatestRow(selectHeaderResultSet, OPERATION_STORE, 200L);
+
+        assertEquals(SessionDataStore.getInstance().getSessionData("hit", TYPE), sessionData);
+        verify(selectStatement, never()).executeQuery();
+    }
+
+    @Test
+    public void testReadersGetIsolatedCopies() throws Exception {
+
+        HashMap<String, String> sessionData = getSessionData();
+        SessionDataStore.getInstance().persistSessionData("isolation", TYPE, sessionData, 300L, -1234);
+        mockLatestRow(selectHeaderResultSet, OPERATION_STORE, 300L);
+
+        @SuppressWarnings("unchecked")
+        HashMap<String, String> firstRead =
+                (HashMap<String, String>) SessionDataStore.getInstance().getSessionData("isolation", TYPE);
+        firstRead.put("changed", "true");
+        sessionData.put("changedAfterPersist", "true");
+        @SuppressWarnings("unchecked")
+        HashMap<String, String> secondRead =
+                (HashMap<String, String>) SessionDataStore.getInstance().getSessionData("isolation", TYPE);
+
+        assertNotSame(secondRead, firstRead);
+        assertNotSame(secondRead, sessionData);
+        assertEquals(secondRead, getSessionData());
+        verify(selectStatement, never()).executeQuery();
+    }
+
+    @Test
+    public void testNewerOperationInvalidatesTheEntry() throws Exception {
+
+        SessionDataStore.getInstance().persistSessionData("stale", TYPE, getSessionData(), 400L, -1234);
+        // Another node has removed the session data since.
+        mockLatestRow(selectHeaderResultSet, OPERATION_DELETE, 500L);
+        mockLatestRow(selectResultSet, OPERATION_DELETE, 500L);
+
+        assertNull(SessionDataStore.getInstance().getSessionData("stale", TYPE));
+        verify(selectStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    public void testClearRemovesTheEntry() throws Exception {
+
+        SessionDataStore.getInstance().persistSessionData("cleared", TYPE, getSessionData(), 600L, -1234);
+        SessionDataStore.getInstance().clearSessionData("cleared", TYPE);
+        when(selectResultSet.next()).thenReturn(false);
+
+        assertNull(SessionDataStore.getInstance().getSessionData("cleared", TYPE));
+        verify(selectHeaderStatement, never()).executeQuery();
+        verify(selectStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    public void testOlderOperationDoesNotReplaceNewerEntry() {
+
+        SessionDataNearCache nearCache = new SessionDataNearCache(10);
+        byte[] newer = {1};
+        nearCache.put("key", TYPE, newer, 2L, -1234);
+        nearCache.put("key", TYPE, new byte[]{0}, 1L, -1234);
+
+        assertEquals(nearCache.get("key", TYPE).getBlob(), newer);
+        assertEquals(nearCache.get("key", TYPE).getNanoTime(), 2L);
+    }
+
+    @Test
+    public void testCapacityIsBounded() {
+
+        SessionDataNearCache nearCache = new SessionDataNearCache(2);
+        for (int i = 0; i < 5; i++) {
+            nearCache.put("key" + i, TYPE, new byte[]{(byte) i}, i, -1234);
+        }
+
+        assertEquals(nearCache.size(), 2);
+        assertNull(nearCache.get("key0", TYPE));
+    }
+
+    private void mockLatestRow(ResultSet resultSet, String operation, long timeCreated) throws Exception {
+
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString(1)).thenReturn(operation);
+        when(resultSet.getLong(2)).thenReturn(timeCreated);
+        when(resultSet.getLong(3)).thenReturn(timeCreated);
+    }
+
+    private HashMap<String, String> getSessionData() {
+
+        HashMap<String, String> sessionData = new HashMap<>();
+        sessionData.put("http://wso2.org/claims/username", "admin");
+        sessionData.put("http://wso2.org/claims/emailaddress", "admin@wso2.com");
+        return sessionData;
+    }
+}
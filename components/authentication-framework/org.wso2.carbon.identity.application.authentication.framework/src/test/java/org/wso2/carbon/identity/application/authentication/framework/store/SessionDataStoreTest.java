@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests the batched writes of the SessionDataStore.
+ */
+@PrepareForTest({IdentityUtil.class, IdentityDatabaseUtil.class})
+public class SessionDataStoreTest {
+
+    private static final String SESSION_DATA_PERSIST = "JDBCPersistenceManager.SessionDataPersist.";
+    private static final String TYPE = "AppAuthFrameworkSessionContextCache";
+
+    private Connection connection;
+    private PreparedStatement storeStatement;
+    private PreparedStatement deleteStatement;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty(anyString())).thenReturn(null);
+        // Operations are persisted in the caller thread, without consumers.
+        when(IdentityUtil.getProperty(SESSION_DATA_PERSIST + "PoolSize")).thenReturn("0");
+        when(IdentityUtil.getProperty(SESSION_DATA_PERSIST + "SessionDataCleanUp.Enable")).thenReturn("false");
+
+        connection = mock(Connection.class);
+        storeStatement = mock(PreparedStatement.class);
+        deleteStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(contains("SESSION_OBJECT"))).thenReturn(storeStatement);
+        when(connection.prepareStatement(contains("SESSION_TYPE,OPERATION"))).thenReturn(deleteStatement);
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void testPersistSessionDataBatch() throws Exception {
+
+        long batchCount = SessionDataStore.getInstance().getPersistedBatchCount();
+        long entryCount = SessionDataStore.getInstance().getPersistedEntryCount();
+
+        SessionDataStore.getInstance().persistSessionDataBatch(getOperations());
+
+        verify(storeStatement, times(2)).addBatch();
+        verify(deleteStatement, times(1)).addBatch();
+        verify(storeStatement).executeBatch();
+        verify(deleteStatement).executeBatch();
+        verify(connection).commit();
+        verify(storeStatement, never()).executeUpdate();
+        assertEquals(SessionDataStore.getInstance().getPersistedBatchCount(), batchCount + 1);
+        assertEquals(SessionDataStore.getInstance().getPersistedEntryCount(), entryCount + 3);
+    }
+
+    @Test
+    public void testFailedBatchIsRetriedPerOperation() throws Exception {
+
+        when(storeStatement.executeBatch()).thenThrow(new SQLException("Simulated batch failure"));
+        long batchCount = SessionDataStore.getInstance().getPersistedBatchCount();
+
+        SessionDataStore.getInstance().persistSessionDataBatch(getOperations());
+
+        verifyStatic();
+        IdentityDatabaseUtil.rollBack(connection);
+        verify(storeStatement, times(2)).executeUpdate();
+        verify(deleteStatement, times(1)).executeUpdate();
+        assertEquals(SessionDataStore.getInstance().getPersistedBatchCount(), batchCount);
+    }
+
+    private List<SessionContextDO> getOperations() {
+
+        return Arrays.asList(
+                new SessionContextDO("key1", TYPE, "entry1", 1L, -1),
+                new SessionContextDO("key2", TYPE, "entry2", 2L, -1),
+                new SessionContextDO("key3", TYPE, null, 3L));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store.serializer;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the session data serializers.
+ */
+@Test
+public class SessionDataSerializerTest {
+
+    @DataProvider(name = "serializers")
+    public Object[][] getSerializers() {
+
+        return new Object[][]{
+                {new JavaSessionDataSerializer()},
+                {new CompressedSessionDataSerializer()}
+        };
+    }
+
+    @Test(dataProvider = "serializers")
+    public void testRoundTrip(SessionDataSerializer serializer) throws Exception {
+
+        HashMap<String, String> value = getSessionData();
+        byte[] serialized = serializer.serialize(value);
+        Object deserialized = serializer.deserialize(new ByteArrayInputStream(serialized));
+        assertEquals(deserialized, value);
+    }
+
+    public void testCompressedSerializerReducesSize() throws Exception {
+
+        HashMap<String, String> value = getSessionData();
+        byte[] javaSerialized = new JavaSessionDataSerializer().serialize(value);
+        byte[] compressed = new CompressedSessionDataSerializer().serialize(value);
+        assertTrue(compressed.length < javaSerialized.length);
+    }
+
+    public void testFormatIdsAreUnique() {
+
+        assertNotEquals(new JavaSessionDataSerializer().getFormatId(),
+                new CompressedSessionDataSerializer().getFormatId());
+    }
+
+    public void testDuplicateFormatIdDoesNotReplaceRegisteredSerializer() {
+
+        FrameworkServiceDataHolder dataHolder = FrameworkServiceDataHolder.getInstance();
+        SessionDataSerializer registered = dataHolder.getSessionDataSerializers()
+                .get(JavaSessionDataSerializer.FORMAT_ID);
+        int version = dataHolder.getSessionDataSerializersVersion();
+        SessionDataSerializer duplicate = new DuplicateFormatIdSerializer();
+
+        dataHolder.addSessionDataSerializer(duplicate);
+        assertSame(dataHolder.getSessionDataSerializers().get(JavaSessionDataSerializer.FORMAT_ID), registered);
+        assertEquals(dataHolder.getSessionDataSerializersVersion(), version);
+
+        dataHolder.removeSessionDataSerializer(duplicate);
+        assertSame(dataHolder.getSessionDataSerializers().get(JavaSessionDataSerializer.FORMAT_ID), registered);
+    }
+
+    private HashMap<String, String> getSessionData() {
+
+        HashMap<String, String> value = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            value.put("http://wso2.org/claims/claim" + i, "value" + i);
+        }
+        return value;
+    }
+
+    private static class DuplicateFormatIdSerializer implements SessionDataSerializer {
+
+        @Override
+        public String getName() {
+
+            return "Duplicate";
+        }
+
+        @Override
+        public byte getFormatId() {
+
+            return JavaSessionDataSerializer.FORMAT_ID;
+        }
+
+        @Override
+        public byte[] serialize(Object value) throws IOException {
+
+            return new byte[0];
+        }
+
+        @Override
+        public Object deserialize(InputStream inputStream) throws IOException {
+
+            return null;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class to manipulate thrift session info in database.
@@ -39,6 +40,7 @@ public class DBThriftSessionDAO implements ThriftSessionDAO {
     public static final String ERROR_WHEN_EXECUTING_THE_SQL = "Error when executing the SQL :";
     public static final String THE_PERSISTENCE_STORE = "the persistence store.";
     public static final String THRIFT_SESSION_WITH_GIVEN_SESSION_ID_ALREADY_EXISTS = "Thrift session with given Session Id already exists.";
+    public static final String THRIFT_SESSION_WITH_GIVEN_SESSION_ID_DOES_NOT_EXIST = "Thrift session with given Session Id does not exist.";
     private static Log log = LogFactory.getLog(DBThriftSessionDAO.class);
 
     @Override
@@ -189,45 +191,83 @@ public class DBThriftSessionDAO implements ThriftSessionDAO {
             throws IdentityException {
         Connection connection = null;
         PreparedStatement prepStmt = null;
+        int count;
 
-        if (isSessionExisting(sessionId)) {
-            try {
-                connection = ThriftAuthenticationDatabaseUtil.getDBConnection();
-                prepStmt = connection.prepareStatement(ThriftAuthenticationConstants.UPDATE_LAST_MODIFIED_TIME_SQL);
+        try {
+            connection = ThriftAuthenticationDatabaseUtil.getDBConnection();
+            prepStmt = connection.prepareStatement(ThriftAuthenticationConstants.UPDATE_LAST_MODIFIED_TIME_SQL);
 
-                prepStmt.setLong(1, lastAccessTime);
-                prepStmt.setString(2, sessionId);
+            prepStmt.setLong(1, lastAccessTime);
+            prepStmt.setString(2, sessionId);
 
-                int count = prepStmt.executeUpdate();
-                if (log.isDebugEnabled()) {
-                    log.debug("No. of records updated for updating Thrift Session : " + count);
-                }
-                connection.commit();
-
-            } catch (AuthenticationException e) {
-                String errorMsg = ERROR_WHEN_GETTING_AN_IDENTITY_PERSISTENCE_STORE_INSTANCE;
-                log.error(errorMsg, e);
-                throw IdentityException.error(errorMsg, e);
-            } catch (SQLException e) {
-                log.error(ERROR_WHEN_EXECUTING_THE_SQL + " " + ThriftAuthenticationConstants.UPDATE_LAST_MODIFIED_TIME_SQL);
-                log.error(e.getMessage(), e);
-                throw IdentityException.error("Error updating the Thrift Session.");
-            } finally {
-                ThriftAuthenticationDatabaseUtil.closeAllConnections(connection, null, prepStmt);
+            count = prepStmt.executeUpdate();
+            if (log.isDebugEnabled()) {
+                log.debug("No. of records updated for updating Thrift Session : " + count);
             }
-        } else {
-            String errorMessage = THRIFT_SESSION_WITH_GIVEN_SESSION_ID_ALREADY_EXISTS;
+            connection.commit();
+
+        } catch (AuthenticationException e) {
+            String errorMsg = ERROR_WHEN_GETTING_AN_IDENTITY_PERSISTENCE_STORE_INSTANCE;
+            log.error(errorMsg, e);
+            throw IdentityException.error(errorMsg, e);
+        } catch (SQLException e) {
+            log.error(ERROR_WHEN_EXECUTING_THE_SQL + " " + ThriftAuthenticationConstants.UPDATE_LAST_MODIFIED_TIME_SQL);
+            log.error(e.getMessage(), e);
+            throw IdentityException.error("Error updating the Thrift Session.");
+        } finally {
+            ThriftAuthenticationDatabaseUtil.closeAllConnections(connection, null, prepStmt);
+        }
+
+        if (count == 0) {
+            String errorMessage = THRIFT_SESSION_WITH_GIVEN_SESSION_ID_DOES_NOT_EXIST;
             log.error(errorMessage);
             throw IdentityException.error(errorMessage);
         }
     }
 
+    @Override
+    public void updateLastAccessTimes(Map<String, Long> lastAccessTimes) throws IdentityException {
+        if (lastAccessTimes.isEmpty()) {
+            return;
+        }
+        Connection connection = null;
+        PreparedStatement prepStmt = null;
+
+        try {
+            connection = ThriftAuthenticationDatabaseUtil.getDBConnection();
+            prepStmt = connection.prepareStatement(ThriftAuthenticationConstants.UPDATE_LAST_MODIFIED_TIME_SQL);
+
+            for (Map.Entry<String, Long> entry : lastAccessTimes.entrySet()) {
+                prepStmt.setLong(1, entry.getValue());
+                prepStmt.setString(2, entry.getKey());
+                prepStmt.addBatch();
+            }
+            prepStmt.executeBatch();
+            connection.commit();
+            if (log.isDebugEnabled()) {
+                log.debug("Updated the last access time of " + lastAccessTimes.size() + " Thrift Sessions");
+            }
+
+        } catch (AuthenticationException e) {
+            String errorMsg = ERROR_WHEN_GETTING_AN_IDENTITY_PERSISTENCE_STORE_INSTANCE;
+            log.error(errorMsg, e);
+            throw IdentityException.error(errorMsg, e);
+        } catch (SQLException e) {
+            ThriftAuthenticationDatabaseUtil.rollBack(connection);
+            log.error(ERROR_WHEN_EXECUTING_THE_SQL + " " + ThriftAuthenticationConstants.UPDATE_LAST_MODIFIED_TIME_SQL);
+            log.error(e.getMessage(), e);
+            throw IdentityException.error("Error updating the Thrift Sessions.");
+        } finally {
+            ThriftAuthenticationDatabaseUtil.closeAllConnections(connection, null, prepStmt);
+        }
+    }
+
     @Override
     public ThriftSession getSession(String sessionId) throws IdentityException {
         Connection connection = null;
         PreparedStatement prepStmt = null;
         ResultSet rSet = null;
-        ThriftSession thriftSession = new ThriftSession();
+        ThriftSession thriftSession = null;
         try {
             connection = ThriftAuthenticationDatabaseUtil.getDBConnection();
             prepStmt = connection.prepareStatement(ThriftAuthenticationConstants.GET_THRIFT_SESSION_SQL);
@@ -236,6 +276,7 @@ public class DBThriftSessionDAO implements ThriftSessionDAO {
 
             while (rSet.next()) {
                 if (rSet.getString(1) != null && rSet.getString(1).length() > 0) {
+                    thriftSession = new ThriftSession();
                     thriftSession.setSessionId(rSet.getString(1));
                     thriftSession.setUserName(rSet.getString(2));
                     thriftSession.setCreatedAt(rSet.getLong(3));
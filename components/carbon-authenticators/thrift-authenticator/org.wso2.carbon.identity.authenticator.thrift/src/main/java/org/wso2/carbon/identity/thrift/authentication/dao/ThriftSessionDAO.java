@@ -19,6 +19,7 @@ import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.utils.ThriftSession;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface to manipulate thrift session info in database.
@@ -36,6 +37,42 @@ public interface ThriftSessionDAO {
     void updateLastAccessTime(String sessionId, long lastAccessTime)
             throws IdentityException;
 
+    /**
+     * Update the last access times of the given sessions at once. The default implementation updates the sessions
+     * one by one with {@link #updateLastAccessTime(String, long)}, implementations backed by a database should
+     * override it to write them in a batch. A session which fails to update does not stop the rest from being
+     * updated, the failure is reported once all the sessions are tried.
+     *
+     * @param lastAccessTimes last access times keyed by the session id
+     * @throws IdentityException if the last access time of any of the sessions could not be updated
+     */
+    default void updateLastAccessTimes(Map<String, Long> lastAccessTimes) throws IdentityException {
+        IdentityException firstError = null;
+        int failedCount = 0;
+        for (Map.Entry<String, Long> entry : lastAccessTimes.entrySet()) {
+            try {
+                updateLastAccessTime(entry.getKey(), entry.getValue());
+            } catch (IdentityException e) {
+                failedCount++;
+                if (firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+        if (firstError != null) {
+            throw IdentityException.error("Error while updating the last access time of " + failedCount + " of " +
+                    lastAccessTimes.size() + " thrift sessions", firstError);
+        }
+    }
+
+    /**
+     * Implementations should return null if there is no session with the given id. An empty session, without a
+     * session id, which the earlier implementations returned in that case, is treated the same way.
+     *
+     * @param sessionId
+     * @return the session, or null if there is no session with the given id
+     * @throws IdentityException
+     */
     ThriftSession getSession(String sessionId) throws IdentityException;
 
     ThriftSessionDAO getInstance();
@@ -66,6 +66,8 @@ public class ThriftAuthenticationServiceComponent {
 
     private TCPThriftAuthenticationService TCPThriftAuthenticationService;
 
+    private ThriftAuthenticatorServiceImpl thriftAuthenticatorServiceImpl;
+
     public static int readPortOffset() {
         return CarbonUtils.getPortFromServerConfig(ThriftAuthenticationConstants.CARBON_CONFIG_PORT_OFFSET_NODE) + 1;
     }
@@ -91,8 +93,25 @@ public class ThriftAuthenticationServiceComponent {
                 log.error("Error in loading ThriftSessionTimeout hence using the default: 30min, ", throwable);
                 thriftSessionTimeout = 60000L * 30;
             }
+            // configure the interval in ms to write the last access times of the sessions in a batch
+            long lastAccessTimeFlushInterval;
+            OMElement lastAccessTimeFlushIntervalElement = ThriftAuthenticationConfigParser.getInstance()
+                    .getConfigElement(ThriftAuthenticationConstants.LAST_ACCESS_TIME_FLUSH_INTERVAL);
+            if (lastAccessTimeFlushIntervalElement != null) {
+                try {
+                    lastAccessTimeFlushInterval = Long.parseLong(lastAccessTimeFlushIntervalElement.getText().trim());
+                } catch (NumberFormatException e) {
+                    log.error("Error in loading " + ThriftAuthenticationConstants.LAST_ACCESS_TIME_FLUSH_INTERVAL +
+                            " hence using the default: " +
+                            ThriftAuthenticationConstants.DEFAULT_LAST_ACCESS_TIME_FLUSH_INTERVAL + "ms", e);
+                    lastAccessTimeFlushInterval = ThriftAuthenticationConstants.DEFAULT_LAST_ACCESS_TIME_FLUSH_INTERVAL;
+                }
+            } else {
+                lastAccessTimeFlushInterval = ThriftAuthenticationConstants.DEFAULT_LAST_ACCESS_TIME_FLUSH_INTERVAL;
+            }
             // get an instance of this to register as an osgi service
-            ThriftAuthenticatorServiceImpl thriftAuthenticatorServiceImpl = new ThriftAuthenticatorServiceImpl(getRealmServiceInstance(), thriftSessionDAO, thriftSessionTimeout);
+            thriftAuthenticatorServiceImpl = new ThriftAuthenticatorServiceImpl(getRealmServiceInstance(),
+                    thriftSessionDAO, thriftSessionTimeout, lastAccessTimeFlushInterval);
             // register as an osgi service
             thriftAuthenticationService = compCtx.getBundleContext().registerService(ThriftAuthenticatorService.class.getName(), thriftAuthenticatorServiceImpl, null);
             // register AuthenticatorServiceImpl as a thrift service.
@@ -110,6 +129,9 @@ public class ThriftAuthenticationServiceComponent {
         if (TCPThriftAuthenticationService != null) {
             TCPThriftAuthenticationService.stop();
         }
+        if (thriftAuthenticatorServiceImpl != null) {
+            thriftAuthenticatorServiceImpl.shutdown();
+        }
         compCtx.getBundleContext().ungetService(thriftAuthenticationService.getReference());
     }
 
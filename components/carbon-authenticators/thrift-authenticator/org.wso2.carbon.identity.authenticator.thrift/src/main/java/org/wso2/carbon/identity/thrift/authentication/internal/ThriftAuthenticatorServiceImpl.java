@@ -34,10 +34,15 @@ import org.wso2.carbon.utils.ServerConstants;
 import org.wso2.carbon.utils.ThriftSession;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is a utility class that performs authentication related functionality
@@ -52,11 +57,54 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
     private Map<String, ThriftSession> authenticatedSessions =
             new ConcurrentHashMap<String, ThriftSession>();
     private ThriftSessionDAO thriftSessionDAO;
+    private volatile boolean sessionsPopulated;
+    // last access times which are not written to the session store yet, keyed by the session id
+    private ConcurrentMap<String, Long> pendingLastAccessTimes = new ConcurrentHashMap<String, Long>();
+    private ScheduledExecutorService lastAccessTimeFlusher;
 
     public ThriftAuthenticatorServiceImpl(RealmService realmService, ThriftSessionDAO thriftSessionDAO, long thriftSessionTimeOut) {
+        this(realmService, thriftSessionDAO, thriftSessionTimeOut, 0);
+    }
+
+    /**
+     * @param realmService
+     * @param thriftSessionDAO
+     * @param thriftSessionTimeOut         session timeout in milli seconds
+     * @param lastAccessTimeFlushInterval interval in milli seconds at which the last access times of the sessions are
+     *                                    written to the session store in a batch. If not positive, the last access
+     *                                    time is written on each access.
+     */
+    public ThriftAuthenticatorServiceImpl(RealmService realmService, ThriftSessionDAO thriftSessionDAO,
+                                          long thriftSessionTimeOut, long lastAccessTimeFlushInterval) {
         this.realmService = realmService;
         setThriftSessionTimeOut(thriftSessionTimeOut);
         this.thriftSessionDAO = thriftSessionDAO.getInstance();
+        if (lastAccessTimeFlushInterval > 0) {
+            lastAccessTimeFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ThriftSessionLastAccessTimeFlusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            lastAccessTimeFlusher.scheduleWithFixedDelay(() -> {
+                try {
+                    flushLastAccessTimes();
+                    removeExpiredSessionsFromCache();
+                } catch (Throwable e) {
+                    //an uncaught error would cancel the periodic task silently
+                    log.error("Error while flushing the last access times of thrift sessions", e);
+                }
+            }, lastAccessTimeFlushInterval, lastAccessTimeFlushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops flushing the last access times periodically and writes the pending ones to the session store.
+     */
+    public void shutdown() {
+        if (lastAccessTimeFlusher != null) {
+            lastAccessTimeFlusher.shutdownNow();
+            flushLastAccessTimes();
+        }
     }
 
     private void addThriftSession(ThriftSession thriftSession) throws IdentityException {
@@ -70,6 +118,7 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
     private void removeThriftSession(String thriftSessionId) throws IdentityException {
         //remove from cache
         authenticatedSessions.remove(thriftSessionId);
+        pendingLastAccessTimes.remove(thriftSessionId);
         //remove from db
         ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
         sessionDAO.removeSession(thriftSessionId);
@@ -167,10 +216,11 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
         if (sessionId == null) {
             return false;
         }
-        //if cache empty, try to populate from db
-        if (authenticatedSessions.isEmpty()) {
+        //populate the cache from db on first use
+        if (!sessionsPopulated) {
             try {
                 populateSessionsFromDB();
+                sessionsPopulated = true;
             } catch (IdentityException e) {
                 String error = "Error while populating thrift sessions from cache";
                 log.error(error, e);
@@ -179,82 +229,102 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
                 log.error(error, e);
             }
         }
-        //if cache not empty, check if session id existing and valid, if so, update last access time and return it.
-        if (!authenticatedSessions.isEmpty()) {
-            ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
-            if (authenticatedSessions.containsKey(sessionId)) {
-                ThriftSession thriftSessionInCache = authenticatedSessions.get(sessionId);
-                if (isSessionValid(thriftSessionInCache)) {
-                    //update the last access time in cache and d
-                    long lastAccessTime = System.currentTimeMillis();
-                    (authenticatedSessions.get(sessionId)).setLastAccess(lastAccessTime);
-                    try {
-                        //if carbon context in the thrift session is not initialized, should do that now.
-                        onSuccessLogin(thriftSessionInCache);
-                        //put the thrift session filled with carbon context info
-                        authenticatedSessions.put(sessionId, thriftSessionInCache);
-                        sessionDAO.updateLastAccessTime(sessionId, lastAccessTime);
-                    } catch (IdentityException e) {
-                        String error = "Error while updating last access time in DB";
-                        log.error(error, e);
-                    } catch (Exception e) {
-                        String error = "Error in calling on success admin login for the thrift session.";
-                        log.error(error, e);
-                    }
-                    return true;
-                } else {
-                    //if not valid in cache, check if valid in db
-                    try {
-                        ThriftSession thriftSession = sessionDAO.getSession(sessionId);
-                        if (isSessionValid(thriftSession)) {
-                            //update cache and return true
-                            thriftSession.setLastAccess(System.currentTimeMillis());
-                            onSuccessLogin(thriftSession);
-                            authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
-                            sessionDAO.updateLastAccessTime(sessionId, thriftSession.getLastAccess());
-                            return true;
-                        } else {
-                            //remove from cache and db and return false
-                            removeThriftSession(sessionId);
-                            return false;
-                        }
-                    } catch (IdentityException e) {
-                        String error = "Error while obtaining thrift session from database.";
-                        log.error(error, e);
-                    } catch (Exception e) {
-                        String error = "Error in calling on success admin login for the thrift session.";
-                        log.error(error, e);
-                    }
+        //check if session id existing and valid in cache, if so, update last access time and return it.
+        ThriftSession thriftSessionInCache = authenticatedSessions.get(sessionId);
+        if (thriftSessionInCache != null && isSessionValid(thriftSessionInCache)) {
+            //update the last access time in cache and db
+            long lastAccessTime = System.currentTimeMillis();
+            thriftSessionInCache.setLastAccess(lastAccessTime);
+            try {
+                //if carbon context in the thrift session is not initialized, should do that now.
+                onSuccessLogin(thriftSessionInCache);
+                //put the thrift session filled with carbon context info
+                authenticatedSessions.put(sessionId, thriftSessionInCache);
+                updateLastAccessTime(sessionId, lastAccessTime);
+            } catch (IdentityException e) {
+                String error = "Error while updating last access time in DB";
+                log.error(error, e);
+            } catch (Exception e) {
+                String error = "Error in calling on success admin login for the thrift session.";
+                log.error(error, e);
+            }
+            return true;
+        }
+        //if not found or not valid in cache, check in db as well, as the session may have been used in another node
+        ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
+        try {
+            ThriftSession thriftSession = sessionDAO.getSession(sessionId);
+            if (thriftSession == null || thriftSession.getSessionId() == null) {
+                if (thriftSessionInCache != null) {
+                    authenticatedSessions.remove(sessionId);
+                    pendingLastAccessTimes.remove(sessionId);
                 }
+                return false;
+            }
+            if (isSessionValid(thriftSession)) {
+                //update cache and return true
+                thriftSession.setLastAccess(System.currentTimeMillis());
+                onSuccessLogin(thriftSession);
+                authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
+                updateLastAccessTime(sessionId, thriftSession.getLastAccess());
+                return true;
             } else {
-                //if session id not found, check in db as well, if exist in db, populate cache
-                try {
-                    if (sessionDAO.isSessionExisting(sessionId)) {
-                        ThriftSession thriftSession = sessionDAO.getSession(sessionId);
-                        if (isSessionValid(thriftSession)) {
-                            thriftSession.setLastAccess(System.currentTimeMillis());
-                            onSuccessLogin(thriftSession);
-                            authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
-                            sessionDAO.updateLastAccessTime(sessionId, thriftSession.getLastAccess());
-                            return true;
-                        } else {
-                            sessionDAO.removeSession(sessionId);
-                            return false;
-                        }
-                    }
-                } catch (IdentityException e) {
-                    String error = "Error while obtaining thrift session from database.";
-                    log.error(error, e);
-                } catch (Exception e) {
-                    String error = "Error in calling on success admin login for the thrift session obtained from DB.";
-                    log.error(error, e);
-                }
+                //remove from cache and db and return false
+                removeThriftSession(sessionId);
+                return false;
             }
+        } catch (IdentityException e) {
+            String error = "Error while obtaining thrift session from database.";
+            log.error(error, e);
+        } catch (Exception e) {
+            String error = "Error in calling on success admin login for the thrift session obtained from DB.";
+            log.error(error, e);
         }
 
         return false;
     }
 
+    private void updateLastAccessTime(String sessionId, long lastAccessTime) throws IdentityException {
+        if (lastAccessTimeFlusher == null) {
+            this.thriftSessionDAO.getInstance().updateLastAccessTime(sessionId, lastAccessTime);
+        } else {
+            //only the latest access time of a session is written in the next flush
+            pendingLastAccessTimes.put(sessionId, lastAccessTime);
+        }
+    }
+
+    private void flushLastAccessTimes() {
+        if (pendingLastAccessTimes.isEmpty()) {
+            return;
+        }
+        Map<String, Long> lastAccessTimes = new HashMap<String, Long>();
+        for (String sessionId : pendingLastAccessTimes.keySet()) {
+            Long lastAccessTime = pendingLastAccessTimes.remove(sessionId);
+            if (lastAccessTime != null) {
+                lastAccessTimes.put(sessionId, lastAccessTime);
+            }
+        }
+        try {
+            this.thriftSessionDAO.getInstance().updateLastAccessTimes(lastAccessTimes);
+        } catch (IdentityException e) {
+            log.error("Error while updating last access time of " + lastAccessTimes.size() +
+                    " thrift sessions in DB. Those will be retried in the next flush", e);
+            //keep the access times for the next flush, unless the sessions were accessed again meanwhile
+            for (Map.Entry<String, Long> entry : lastAccessTimes.entrySet()) {
+                pendingLastAccessTimes.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void removeExpiredSessionsFromCache() {
+        //expired sessions are only evicted from the cache, those are validated against db on the next access.
+        for (Map.Entry<String, ThriftSession> entry : authenticatedSessions.entrySet()) {
+            if (!isSessionValid(entry.getValue())) {
+                authenticatedSessions.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     public ThriftSession getSessionInfo(String sessionId) {
         return authenticatedSessions.get(sessionId);
     }
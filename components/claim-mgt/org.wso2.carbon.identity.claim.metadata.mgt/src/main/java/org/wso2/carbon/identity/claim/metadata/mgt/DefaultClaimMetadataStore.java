@@ -43,18 +43,29 @@ import org.wso2.carbon.user.core.claim.inmemory.ClaimConfig;
 import org.wso2.carbon.user.core.listener.ClaimManagerListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Default implementation of {@link org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataStore} interface.
+ * <p>
+ * Claim lookups are served from per tenant indexes built from the cached claim lists. An index is rebuilt when the
+ * claim list it was built from is replaced in the cache, i.e. when the claims of the tenant are changed.
  */
 public class DefaultClaimMetadataStore implements ClaimMetadataStore {
 
     private static final Log log = LogFactory.getLog(DefaultClaimMetadataStore.class);
 
+    private static final Map<Integer, LocalClaimIndex> localClaimIndexes = new ConcurrentHashMap<>();
+    private static final Map<Integer, ExternalClaimIndex> externalClaimIndexes = new ConcurrentHashMap<>();
+
     private ClaimDialectDAO claimDialectDAO = new CacheBackedClaimDialectDAO();
     private CacheBackedLocalClaimDAO localClaimDAO = new CacheBackedLocalClaimDAO(new LocalClaimDAO());
     private CacheBackedExternalClaimDAO externalClaimDAO = new CacheBackedExternalClaimDAO(new ExternalClaimDAO());
@@ -269,44 +280,22 @@ public class DefaultClaimMetadataStore implements ClaimMetadataStore {
         }
 
         try {
-            // Add listener
-
-            List<LocalClaim> localClaimList = this.localClaimDAO.getLocalClaims(tenantId);
-
-            // Add listener
+            LocalClaimIndex localClaimIndex = getLocalClaimIndex();
 
-            for (LocalClaim localClaim : localClaimList) {
-                if (localClaim.getClaimURI().equalsIgnoreCase(claimURI)) {
-                    return getMappedAttribute(domainName, localClaim, tenantId);
-                }
+            LocalClaim localClaim = localClaimIndex.getLocalClaim(claimURI);
+            if (localClaim != null) {
+                return getMappedAttribute(domainName, localClaim, localClaimIndex, tenantId);
             }
 
-
             // For backward compatibility
-            List<ClaimDialect> claimDialects = claimDialectDAO.getClaimDialects(tenantId);
-
-            for (ClaimDialect claimDialect : claimDialects) {
-                if (ClaimConstants.LOCAL_CLAIM_DIALECT_URI.equalsIgnoreCase(claimDialect.getClaimDialectURI())) {
-                    continue;
-                }
-
-                List<ExternalClaim> externalClaims = externalClaimDAO.getExternalClaims(claimDialect
-                        .getClaimDialectURI(), tenantId);
-
-                for (ExternalClaim externalClaim : externalClaims) {
-                    if (externalClaim.getClaimURI().equalsIgnoreCase(claimURI)) {
-
-                        for (LocalClaim localClaim : localClaimList) {
-                            if (localClaim.getClaimURI().equalsIgnoreCase(externalClaim.getMappedLocalClaim())) {
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Picking mapped attribute for external claim : " + externalClaim
-                                            .getClaimURI() + " using mapped local claim : " + localClaim.getClaimURI());
-                                }
-                                return getMappedAttribute(domainName, localClaim, tenantId);
-                            }
-                        }
-
+            for (String mappedLocalClaimURI : getExternalClaimIndex().getMappedLocalClaims(claimURI)) {
+                localClaim = localClaimIndex.getLocalClaim(mappedLocalClaimURI);
+                if (localClaim != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Picking mapped attribute for external claim : " + claimURI +
+                                " using mapped local claim : " + localClaim.getClaimURI());
                     }
+                    return getMappedAttribute(domainName, localClaim, localClaimIndex, tenantId);
                 }
             }
 
@@ -322,10 +311,10 @@ public class DefaultClaimMetadataStore implements ClaimMetadataStore {
         }
     }
 
-    private String getMappedAttribute(String domainName, LocalClaim localClaim, int tenantId) throws
-            UserStoreException {
+    private String getMappedAttribute(String domainName, LocalClaim localClaim, LocalClaimIndex localClaimIndex,
+                                      int tenantId) throws UserStoreException {
 
-        String mappedAttribute = localClaim.getMappedAttribute(domainName);
+        String mappedAttribute = localClaimIndex.getMappedAttribute(domainName, localClaim);
 
         if (StringUtils.isNotBlank(mappedAttribute)) {
             if (log.isDebugEnabled()) {
@@ -352,7 +341,7 @@ public class DefaultClaimMetadataStore implements ClaimMetadataStore {
                 .getTenantUserRealm(tenantId);
         String primaryDomainName = realm.getRealmConfiguration().getUserStoreProperty
                 (UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME);
-        mappedAttribute = localClaim.getMappedAttribute(primaryDomainName);
+        mappedAttribute = localClaimIndex.getMappedAttribute(primaryDomainName, localClaim);
 
         if (StringUtils.isNotBlank(mappedAttribute)) {
             if (log.isDebugEnabled()) {
@@ -381,85 +370,31 @@ public class DefaultClaimMetadataStore implements ClaimMetadataStore {
     @Override
     @Deprecated
     public Claim getClaim(String claimURI) throws UserStoreException {
-        try {
-            List<LocalClaim> localClaims = localClaimDAO.getLocalClaims(this.tenantId);
-
-            for (LocalClaim localClaim : localClaims) {
-                if (localClaim.getClaimURI().equalsIgnoreCase(claimURI)) {
-                    ClaimMapping claimMapping = ClaimMetadataUtils.convertLocalClaimToClaimMapping(localClaim, this
-                            .tenantId);
-                    return claimMapping.getClaim();
-                }
-            }
-
-            // For backward compatibility
-            List<ClaimDialect> claimDialects = claimDialectDAO.getClaimDialects(tenantId);
-
-            for (ClaimDialect claimDialect : claimDialects) {
-                if (ClaimConstants.LOCAL_CLAIM_DIALECT_URI.equalsIgnoreCase(claimDialect.getClaimDialectURI())) {
-                    continue;
-                }
-
-                List<ExternalClaim> externalClaims = externalClaimDAO.getExternalClaims(claimDialect
-                        .getClaimDialectURI(), tenantId);
-
-                for (ExternalClaim externalClaim : externalClaims) {
-                    if (externalClaim.getClaimURI().equalsIgnoreCase(claimURI)) {
-
-                        for (LocalClaim localClaim : localClaims) {
-                            ClaimMapping claimMapping = ClaimMetadataUtils.convertLocalClaimToClaimMapping
-                                    (localClaim, this.tenantId);
-                            return claimMapping.getClaim();
-                        }
-
-                    }
-                }
-            }
 
+        ClaimMapping claimMapping = getClaimMapping(claimURI);
+        if (claimMapping == null) {
             log.error("Returning NULL for getClaim() for claim URI : " + claimURI);
             return null;
-        } catch (ClaimMetadataException e) {
-            throw new UserStoreException(e.getMessage(), e);
         }
+        return claimMapping.getClaim();
     }
 
     @Override
     @Deprecated
     public ClaimMapping getClaimMapping(String claimURI) throws UserStoreException {
         try {
-            List<LocalClaim> localClaims = localClaimDAO.getLocalClaims(this.tenantId);
+            LocalClaimIndex localClaimIndex = getLocalClaimIndex();
 
-            for (LocalClaim localClaim : localClaims) {
-                if (localClaim.getClaimURI().equalsIgnoreCase(claimURI)) {
-                    ClaimMapping claimMapping = ClaimMetadataUtils.convertLocalClaimToClaimMapping(localClaim, this
-                            .tenantId);
-                    return claimMapping;
-                }
+            LocalClaim localClaim = localClaimIndex.getLocalClaim(claimURI);
+            if (localClaim != null) {
+                return ClaimMetadataUtils.convertLocalClaimToClaimMapping(localClaim, this.tenantId);
             }
 
             // For backward compatibility
-            List<ClaimDialect> claimDialects = claimDialectDAO.getClaimDialects(tenantId);
-
-            for (ClaimDialect claimDialect : claimDialects) {
-                if (ClaimConstants.LOCAL_CLAIM_DIALECT_URI.equalsIgnoreCase(claimDialect.getClaimDialectURI())) {
-                    continue;
-                }
-
-                List<ExternalClaim> externalClaims = externalClaimDAO.getExternalClaims(claimDialect
-                        .getClaimDialectURI(), tenantId);
-
-                for (ExternalClaim externalClaim : externalClaims) {
-                    if (externalClaim.getClaimURI().equalsIgnoreCase(claimURI)) {
-
-                        for (LocalClaim localClaim : localClaims) {
-                            if (localClaim.getClaimURI().equalsIgnoreCase(externalClaim.getMappedLocalClaim())) {
-                                ClaimMapping claimMapping = ClaimMetadataUtils.convertLocalClaimToClaimMapping
-                                        (localClaim, this.tenantId);
-                                return claimMapping;
-                            }
-                        }
-
-                    }
+            for (String mappedLocalClaimURI : getExternalClaimIndex().getMappedLocalClaims(claimURI)) {
+                localClaim = localClaimIndex.getLocalClaim(mappedLocalClaimURI);
+                if (localClaim != null) {
+                    return ClaimMetadataUtils.convertLocalClaimToClaimMapping(localClaim, this.tenantId);
                 }
             }
 
@@ -585,4 +520,148 @@ public class DefaultClaimMetadataStore implements ClaimMetadataStore {
             throw new UserStoreException(e.getMessage(), e);
         }
     }
+
+    private LocalClaimIndex getLocalClaimIndex() throws ClaimMetadataException {
+
+        List<LocalClaim> localClaims = localClaimDAO.getLocalClaims(tenantId);
+        LocalClaimIndex localClaimIndex = localClaimIndexes.get(tenantId);
+        if (localClaimIndex == null || !localClaimIndex.isBuiltFrom(localClaims)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Building local claim index for tenant: " + tenantId);
+            }
+            localClaimIndex = new LocalClaimIndex(localClaims);
+            localClaimIndexes.put(tenantId, localClaimIndex);
+        }
+        return localClaimIndex;
+    }
+
+    private ExternalClaimIndex getExternalClaimIndex() throws ClaimMetadataException {
+
+        Map<String, List<ExternalClaim>> externalClaims = new LinkedHashMap<>();
+        for (ClaimDialect claimDialect : claimDialectDAO.getClaimDialects(tenantId)) {
+            if (ClaimConstants.LOCAL_CLAIM_DIALECT_URI.equalsIgnoreCase(claimDialect.getClaimDialectURI())) {
+                continue;
+            }
+            externalClaims.put(claimDialect.getClaimDialectURI(),
+                    externalClaimDAO.getExternalClaims(claimDialect.getClaimDialectURI(), tenantId));
+        }
+
+        ExternalClaimIndex externalClaimIndex = externalClaimIndexes.get(tenantId);
+        if (externalClaimIndex == null || !externalClaimIndex.isBuiltFrom(externalClaims)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Building external claim index for tenant: " + tenantId);
+            }
+            externalClaimIndex = new ExternalClaimIndex(externalClaims);
+            externalClaimIndexes.put(tenantId, externalClaimIndex);
+        }
+        return externalClaimIndex;
+    }
+
+    private static String toIndexKey(String claimURI) {
+
+        return claimURI.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Immutable index of the local claims of a tenant, by claim URI ignoring the case.
+     */
+    private static class LocalClaimIndex {
+
+        private final List<LocalClaim> localClaims;
+        private final Map<String, LocalClaim> localClaimsByURI;
+        private final Map<String, Map<String, String>> mappedAttributesByURI;
+
+        LocalClaimIndex(List<LocalClaim> localClaims) {
+
+            Map<String, LocalClaim> localClaimsByURI = new HashMap<>();
+            Map<String, Map<String, String>> mappedAttributesByURI = new HashMap<>();
+            for (LocalClaim localClaim : localClaims) {
+                String key = toIndexKey(localClaim.getClaimURI());
+                if (localClaimsByURI.containsKey(key)) {
+                    continue;
+                }
+                localClaimsByURI.put(key, localClaim);
+
+                Map<String, String> mappedAttributes = new HashMap<>();
+                for (AttributeMapping attributeMapping : localClaim.getMappedAttributes()) {
+                    if (!mappedAttributes.containsKey(attributeMapping.getUserStoreDomain())) {
+                        mappedAttributes.put(attributeMapping.getUserStoreDomain(), attributeMapping
+                                .getAttributeName());
+                    }
+                }
+                mappedAttributesByURI.put(key, mappedAttributes);
+            }
+            this.localClaims = localClaims;
+            this.localClaimsByURI = Collections.unmodifiableMap(localClaimsByURI);
+            this.mappedAttributesByURI = Collections.unmodifiableMap(mappedAttributesByURI);
+        }
+
+        boolean isBuiltFrom(List<LocalClaim> localClaims) {
+
+            return this.localClaims == localClaims;
+        }
+
+        LocalClaim getLocalClaim(String claimURI) {
+
+            return localClaimsByURI.get(toIndexKey(claimURI));
+        }
+
+        String getMappedAttribute(String domainName, LocalClaim localClaim) {
+
+            Map<String, String> mappedAttributes = mappedAttributesByURI.get(toIndexKey(localClaim.getClaimURI()));
+            if (mappedAttributes == null || domainName == null) {
+                return null;
+            }
+            return mappedAttributes.get(domainName.toUpperCase());
+        }
+    }
+
+    /**
+     * Immutable index of the external claims of a tenant, from the external claim URI ignoring the case to the
+     * mapped local claim URIs, in the order of the claim dialects.
+     */
+    private static class ExternalClaimIndex {
+
+        private final Map<String, List<ExternalClaim>> externalClaims;
+        private final Map<String, List<String>> mappedLocalClaimsByURI;
+
+        ExternalClaimIndex(Map<String, List<ExternalClaim>> externalClaims) {
+
+            Map<String, List<String>> mappedLocalClaimsByURI = new HashMap<>();
+            for (List<ExternalClaim> dialectExternalClaims : externalClaims.values()) {
+                for (ExternalClaim externalClaim : dialectExternalClaims) {
+                    String key = toIndexKey(externalClaim.getClaimURI());
+                    List<String> mappedLocalClaims = mappedLocalClaimsByURI.get(key);
+                    if (mappedLocalClaims == null) {
+                        mappedLocalClaims = new ArrayList<>(1);
+                        mappedLocalClaimsByURI.put(key, mappedLocalClaims);
+                    }
+                    if (externalClaim.getMappedLocalClaim() != null) {
+                        mappedLocalClaims.add(externalClaim.getMappedLocalClaim());
+                    }
+                }
+            }
+            this.externalClaims = externalClaims;
+            this.mappedLocalClaimsByURI = Collections.unmodifiableMap(mappedLocalClaimsByURI);
+        }
+
+        boolean isBuiltFrom(Map<String, List<ExternalClaim>> externalClaims) {
+
+            if (this.externalClaims.size() != externalClaims.size()) {
+                return false;
+            }
+            for (Map.Entry<String, List<ExternalClaim>> entry : externalClaims.entrySet()) {
+                if (this.externalClaims.get(entry.getKey()) != entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        List<String> getMappedLocalClaims(String claimURI) {
+
+            List<String> mappedLocalClaims = mappedLocalClaimsByURI.get(toIndexKey(claimURI));
+            return mappedLocalClaims != null ? mappedLocalClaims : Collections.<String>emptyList();
+        }
+    }
 }
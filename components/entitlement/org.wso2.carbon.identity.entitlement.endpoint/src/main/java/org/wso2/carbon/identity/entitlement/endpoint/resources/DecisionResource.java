@@ -34,6 +34,8 @@ import org.wso2.carbon.identity.entitlement.endpoint.exception.RequestParseExcep
 import org.wso2.carbon.identity.entitlement.endpoint.resources.models.AllEntitlementsRequestModel;
 import org.wso2.carbon.identity.entitlement.endpoint.resources.models.AllEntitlementsResponseModel;
 import org.wso2.carbon.identity.entitlement.endpoint.resources.models.DecisionRequestModel;
+import org.wso2.carbon.identity.entitlement.endpoint.resources.models.DecisionsRequestModel;
+import org.wso2.carbon.identity.entitlement.endpoint.resources.models.DecisionsResponseModel;
 import org.wso2.carbon.identity.entitlement.endpoint.resources.models.EntitledAttributesRequestModel;
 import org.wso2.carbon.identity.entitlement.endpoint.resources.models.EntitledAttributesResponseModel;
 import org.wso2.carbon.identity.entitlement.endpoint.resources.models.HomeResponseModel;
@@ -43,6 +45,8 @@ import org.wso2.carbon.identity.entitlement.endpoint.util.JSONResponseWriter;
 import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
 import org.wso2.carbon.identity.entitlement.policy.search.PolicySearch;
 
+import java.util.Arrays;
+import java.util.List;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
@@ -133,6 +137,48 @@ public class DecisionResource extends AbstractResource {
 
     }
 
+    /**
+     * API endpoint for evaluating a batch of XACML XML requests in a single call
+     *
+     * @return DecisionsResponseModel with the XML results in the order of the requests
+     */
+    @POST
+    @Path("decisions")
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    @Consumes({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    @ApiOperation(value = "Get responses by evaluating a batch of XML XACML requests",
+            response = DecisionsResponseModel.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Decisions response", response = DecisionsResponseModel.class),
+            @ApiResponse(code = 40010, message = EntitlementEndpointConstants.ERROR_UNAUTHORIZED_MESSAGE,
+                    response = ExceptionBean.class),
+            @ApiResponse(code = 40020, message = EntitlementEndpointConstants.ERROR_REQUEST_PARSE_MESSAGE,
+                    response = ExceptionBean.class),
+            @ApiResponse(code = 40010, message = EntitlementEndpointConstants.ERROR_RESPONSE_READ_MESSAGE,
+                    response = ExceptionBean.class)
+    })
+    public DecisionsResponseModel getDecisions(@ApiParam(value = "Request Media Type", required = true)
+                                               @HeaderParam(EntitlementEndpointConstants.ACCEPT_HEADER) String format,
+                                               @ApiParam(value = "Authentication Type", required = true)
+                                               @HeaderParam(EntitlementEndpointConstants.AUTHENTICATION_TYPE_HEADER) String authMechanism,
+                                               @ApiParam(value = "Add HTTP Basic Authorization", required = true)
+                                               @HeaderParam(EntitlementEndpointConstants.AUTHORIZATION_HEADER) String authorization,
+                                               @ApiParam(value = "Response Media Type", required = true)
+                                               @HeaderParam(EntitlementEndpointConstants.CONTENT_TYPE_HEADER) String contentType,
+                                               @ApiParam(value = "Decisions Request Model", required = true)
+                                                       DecisionsRequestModel request) throws Exception {
+
+        if (request == null || request.getRequests() == null) {
+            throw new RequestParseException();
+        }
+        EntitlementEngine entitlementEngine = EntitlementEngine.getInstance();
+
+        List<String> responses = entitlementEngine.evaluate(Arrays.asList(request.getRequests()));
+        DecisionsResponseModel response = new DecisionsResponseModel();
+        response.setResponses(responses.toArray(new String[responses.size()]));
+        return response;
+    }
+
     /**
      * API endpoint for evaluating policy by attributes as queries
      *
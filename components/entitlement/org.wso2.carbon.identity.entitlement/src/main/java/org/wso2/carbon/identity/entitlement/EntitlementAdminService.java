@@ -20,6 +20,7 @@ package org.wso2.carbon.identity.entitlement;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.entitlement.dto.AttributeFinderLatencyDTO;
 import org.wso2.carbon.identity.entitlement.dto.PDPDataHolder;
 import org.wso2.carbon.identity.entitlement.dto.PIPFinderDataHolder;
 import org.wso2.carbon.identity.entitlement.dto.PolicyFinderDataHolder;
@@ -28,6 +29,7 @@ import org.wso2.carbon.identity.entitlement.pap.EntitlementAdminEngine;
 import org.wso2.carbon.identity.entitlement.pap.store.PAPPolicyFinder;
 import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
 import org.wso2.carbon.identity.entitlement.pip.AbstractPIPAttributeFinder;
+import org.wso2.carbon.identity.entitlement.pip.AttributeFinderLatencyStats;
 import org.wso2.carbon.identity.entitlement.pip.CarbonAttributeFinder;
 import org.wso2.carbon.identity.entitlement.pip.CarbonResourceFinder;
 import org.wso2.carbon.identity.entitlement.pip.PIPAttributeFinder;
@@ -40,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Entitlement PDP related admin services are exposed
@@ -488,6 +491,40 @@ public class EntitlementAdminService {
         return holder;
     }
 
+    /**
+     * Returns the lookup latencies of the PIP attribute finders of the tenant, recorded since the attribute finders
+     * were initialized
+     *
+     * @return latencies of each attribute finder module
+     * @throws EntitlementException throws, if the Carbon attribute finder is not initialized
+     */
+    public AttributeFinderLatencyDTO[] getAttributeFinderLatencies() throws EntitlementException {
+
+        CarbonAttributeFinder finder = EntitlementEngine.getInstance().getCarbonAttributeFinder();
+        if (finder == null) {
+            throw new EntitlementException("Can not read attribute finder latencies - Carbon Attribute Finder "
+                    + "is not initialized");
+        }
+
+        List<AttributeFinderLatencyDTO> latencies = new ArrayList<AttributeFinderLatencyDTO>();
+        for (Map.Entry<String, AttributeFinderLatencyStats> entry :
+                finder.getAttributeFinderLatencyStats().entrySet()) {
+            AttributeFinderLatencyStats stats = entry.getValue();
+            AttributeFinderLatencyDTO latency = new AttributeFinderLatencyDTO();
+            latency.setModuleName(entry.getKey());
+            long count = stats.getCount();
+            latency.setLookupCount(count);
+            if (count > 0) {
+                latency.setAverageMillis(TimeUnit.NANOSECONDS.toMillis(stats.getTotalNanos() / count));
+            }
+            latency.setMaxMillis(TimeUnit.NANOSECONDS.toMillis(stats.getMaxNanos()));
+            latency.setBucketUpperBoundsMillis(stats.getBucketUpperBoundsMillis());
+            latency.setBucketCounts(stats.getBucketCounts());
+            latencies.add(latency);
+        }
+        return latencies.toArray(new AttributeFinderLatencyDTO[latencies.size()]);
+    }
+
     /**
      * @param finder
      * @return
@@ -25,6 +25,9 @@ import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
 import org.wso2.carbon.identity.entitlement.policy.search.PolicySearch;
 import org.wso2.carbon.identity.entitlement.wsxacml.XACMLHandler;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Entitlement Service class which exposes the PDP
  */
@@ -54,6 +57,29 @@ public class EntitlementService implements XACMLHandler {
         }
     }
 
+    /**
+     * Evaluates the given XACML requests in a single call and returns the Responses that the EntitlementEngine
+     * will hand back to the PEP, in the order of the requests
+     *
+     * @param requests XACML requests as String Objects
+     * @return XACML responses as String Objects
+     * @throws EntitlementException throws
+     */
+    public String[] getDecisions(String[] requests) throws EntitlementException {
+
+        if (requests == null) {
+            throw new EntitlementException("Invalid input data - XACML requests can not be null");
+        }
+        try {
+            EntitlementEngine entitlementEngine = EntitlementEngine.getInstance();
+            List<String> responses = entitlementEngine.evaluate(Arrays.asList(requests));
+            return responses.toArray(new String[responses.size()]);
+        } catch (Exception e) {
+            log.error("Error occurred while evaluating XACML requests", e);
+            throw new EntitlementException("Error occurred while evaluating XACML requests");
+        }
+    }
+
     /**
      * Evaluates the given XACML request and returns the Response that the EntitlementEngine will
      * hand back to the PEP. Here PEP does not need construct the XACML request before sending it to the
@@ -259,6 +259,14 @@ public class PDPConstants {
 
     public static final String MULTIPLE_DECISION_PROFILE_ENABLE = "PDP.Multiple.Decision.Profile.Enable";
 
+    public static final String BULK_EVALUATION_THREAD_POOL_SIZE = "PDP.BulkEvaluation.ThreadPoolSize";
+
+    public static final String BULK_EVALUATION_QUEUE_SIZE = "PDP.BulkEvaluation.QueueSize";
+
+    public static final int DEFAULT_BULK_EVALUATION_THREAD_POOL_SIZE = 10;
+
+    public static final int DEFAULT_BULK_EVALUATION_QUEUE_SIZE = 100;
+
     public static final String FILESYSTEM_POLICY_PATH = "PAP.Policy.Add.Start.Policy.File.Path";
 
     public static final String START_UP_POLICY_ADDING = "PAP.Policy.Add.Start.Enable";
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.dto;
+
+import java.util.Arrays;
+
+/**
+ * encapsulates the lookup latencies of a PIP attribute finder
+ */
+public class AttributeFinderLatencyDTO {
+
+    private String moduleName;
+
+    private long lookupCount;
+
+    private long averageMillis;
+
+    private long maxMillis;
+
+    private long[] bucketUpperBoundsMillis = new long[0];
+
+    private long[] bucketCounts = new long[0];
+
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    public void setModuleName(String moduleName) {
+        this.moduleName = moduleName;
+    }
+
+    public long getLookupCount() {
+        return lookupCount;
+    }
+
+    public void setLookupCount(long lookupCount) {
+        this.lookupCount = lookupCount;
+    }
+
+    public long getAverageMillis() {
+        return averageMillis;
+    }
+
+    public void setAverageMillis(long averageMillis) {
+        this.averageMillis = averageMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public void setMaxMillis(long maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+    public long[] getBucketUpperBoundsMillis() {
+        return Arrays.copyOf(bucketUpperBoundsMillis, bucketUpperBoundsMillis.length);
+    }
+
+    public void setBucketUpperBoundsMillis(long[] bucketUpperBoundsMillis) {
+        this.bucketUpperBoundsMillis = Arrays.copyOf(bucketUpperBoundsMillis, bucketUpperBoundsMillis.length);
+    }
+
+    public long[] getBucketCounts() {
+        return Arrays.copyOf(bucketCounts, bucketCounts.length);
+    }
+
+    public void setBucketCounts(long[] bucketCounts) {
+        this.bucketCounts = Arrays.copyOf(bucketCounts, bucketCounts.length);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.pdp;
+
+import org.wso2.balana.attr.AttributeValue;
+import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.Attribute;
+import org.wso2.balana.ctx.xacml3.RequestCtx;
+import org.wso2.balana.xacml3.Attributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds decision cache keys from parsed XACML 3.0 requests. Categories, attributes and attribute values are sorted,
+ * so that requests which differ only in white spaces, namespace prefixes or the order of the attributes are mapped
+ * to the same key. Requests which can not be canonicalized safely, i.e. requests with multiple decision profile
+ * elements, request defaults, attribute references or XML content, are not supported.
+ */
+public class DecisionCacheKeyBuilder {
+
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    private DecisionCacheKeyBuilder() {
+
+    }
+
+    /**
+     * Builds the cache key of the request
+     *
+     * @param requestCtx parsed XACML request
+     * @return SHA-256 hash of the canonical form of the request as a hex string, or null if the request can not be
+     * canonicalized
+     */
+    public static String buildKey(AbstractRequestCtx requestCtx) {
+
+        if (!(requestCtx instanceof RequestCtx)) {
+            return null;
+        }
+        RequestCtx request = (RequestCtx) requestCtx;
+        Set<Attributes> attributesSet = request.getAttributesSet();
+        if (attributesSet == null || request.getMultiRequests() != null || request.getDefaults() != null) {
+            return null;
+        }
+
+        List<String> categories = new ArrayList<String>(attributesSet.size());
+        for (Attributes attributes : attributesSet) {
+            if (attributes.getContent() != null || attributes.getId() != null) {
+                return null;
+            }
+            List<String> attributeList = new ArrayList<String>();
+            for (Attribute attribute : attributes.getAttributes()) {
+                List<String> values = new ArrayList<String>();
+                for (AttributeValue value : attribute.getValues()) {
+                    StringBuilder valueBuilder = new StringBuilder();
+                    append(valueBuilder, String.valueOf(value.getType()));
+                    append(valueBuilder, value.encode());
+                    values.add(valueBuilder.toString());
+                }
+                Collections.sort(values);
+
+                StringBuilder attributeBuilder = new StringBuilder();
+                append(attributeBuilder, String.valueOf(attribute.getId()));
+                append(attributeBuilder, String.valueOf(attribute.getType()));
+                append(attributeBuilder, attribute.getIssuer());
+                attributeBuilder.append(attribute.isIncludeInResult() ? 'T' : 'F');
+                for (String value : values) {
+                    append(attributeBuilder, value);
+                }
+                attributeList.add(attributeBuilder.toString());
+            }
+            Collections.sort(attributeList);
+
+            StringBuilder categoryBuilder = new StringBuilder();
+            append(categoryBuilder, String.valueOf(attributes.getCategory()));
+            for (String attribute : attributeList) {
+                append(categoryBuilder, attribute);
+            }
+            categories.add(categoryBuilder.toString());
+        }
+        Collections.sort(categories);
+
+        StringBuilder requestBuilder = new StringBuilder();
+        requestBuilder.append(request.getXacmlVersion());
+        requestBuilder.append(request.isReturnPolicyIdList() ? 'T' : 'F');
+        requestBuilder.append(request.isCombinedDecision() ? 'T' : 'F');
+        for (String category : categories) {
+            append(requestBuilder, category);
+        }
+        return hash(requestBuilder.toString());
+    }
+
+    /**
+     * Appends the value with its length as a prefix, so that the concatenation of the values is unambiguous.
+     */
+    private static void append(StringBuilder builder, String value) {
+
+        if (value == null) {
+            builder.append('-');
+            return;
+        }
+        builder.append(value.length()).append(':').append(value);
+    }
+
+    private static String hash(String value) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX_CHARS[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX_CHARS[digest[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available in every JVM. Fall back to the canonical form itself.
+            return value;
+        }
+    }
+}
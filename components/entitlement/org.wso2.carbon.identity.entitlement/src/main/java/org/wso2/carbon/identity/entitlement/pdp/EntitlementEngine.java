@@ -25,8 +25,11 @@ import org.wso2.balana.PDP;
 import org.wso2.balana.PDPConfig;
 import org.wso2.balana.ParsingException;
 import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.AbstractResult;
 import org.wso2.balana.ctx.RequestCtxFactory;
 import org.wso2.balana.ctx.ResponseCtx;
+import org.wso2.balana.ctx.Status;
+import org.wso2.balana.ctx.xacml3.Result;
 import org.wso2.balana.finder.AttributeFinder;
 import org.wso2.balana.finder.AttributeFinderModule;
 import org.wso2.balana.finder.PolicyFinder;
@@ -36,6 +39,7 @@ import org.wso2.balana.finder.ResourceFinderModule;
 import org.wso2.balana.finder.impl.CurrentEnvModule;
 import org.wso2.balana.finder.impl.SelectorModule;
 import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.entitlement.EntitlementException;
@@ -63,11 +67,23 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -88,12 +104,17 @@ public class EntitlementEngine {
     private List<ResourceFinderModule> resourceModules = new ArrayList<ResourceFinderModule>();
     private static EntitlementEngineCache entitlementEngines = EntitlementEngineCache.getInstance();
     private static EntitlementEngine entitlementEngine;
+    private static volatile ExecutorService bulkEvaluationExecutor;
 
     private DecisionCache decisionCache = null;
     private PolicyCache policyCache = null;
 
     private SimpleDecisionCache simpleDecisionCache = null;
 
+    private final AtomicLong decisionCacheHitCount = new AtomicLong();
+    private final AtomicLong decisionCacheMissCount = new AtomicLong();
+    private static final String RESPONSE_CTX_CACHE_KEY_PREFIX = "ctx:";
+
     private static Log log = LogFactory.getLog(EntitlementEngine.class);
 
 
@@ -268,26 +289,32 @@ public class EntitlementEngine {
             log.debug("XACML Request : " + xacmlRequest);
         }
 
-        String xacmlResponse;
+        Map<PIPExtension, Properties> extensions = EntitlementServiceComponent.getEntitlementConfig()
+                .getExtensions();
+        boolean hasExtensions = extensions != null && !extensions.isEmpty();
+
+        AbstractRequestCtx requestCtx = null;
+        String cacheKey = xacmlRequest;
+        String xacmlResponse = getCachedResponse(xacmlRequest);
+        if (xacmlResponse == null) {
+            requestCtx = getRequestCtx(xacmlRequest, hasExtensions);
+            cacheKey = getCacheKey(xacmlRequest, requestCtx);
+            xacmlResponse = getCachedResponse(xacmlRequest, cacheKey);
+        }
 
-        if ((xacmlResponse = (String) getFromCache(xacmlRequest, false)) != null) {
+        if (xacmlResponse != null) {
             if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
                 log.debug("XACML Response : " + xacmlResponse);
             }
             return xacmlResponse;
         }
 
-        Map<PIPExtension, Properties> extensions = EntitlementServiceComponent.getEntitlementConfig()
-                .getExtensions();
-
-        if (extensions != null && !extensions.isEmpty()) {
-            PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
-            Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
-            AbstractRequestCtx requestCtx = RequestCtxFactory.getFactory().
-                    getRequestCtx(xacmlRequestElement);
-            Set<PIPExtension> pipExtensions = extensions.keySet();
-            for (PIPExtension pipExtension : pipExtensions) {
-                pipExtension.update(requestCtx);
+        if (requestCtx != null) {
+            if (hasExtensions) {
+                Set<PIPExtension> pipExtensions = extensions.keySet();
+                for (PIPExtension pipExtension : pipExtensions) {
+                    pipExtension.update(requestCtx);
+                }
             }
             ResponseCtx responseCtx = pdp.evaluate(requestCtx);
             xacmlResponse = responseCtx.encode();
@@ -295,7 +322,7 @@ public class EntitlementEngine {
             xacmlResponse = pdp.evaluate(xacmlRequest);
         }
 
-        addToCache(xacmlRequest, xacmlResponse, false);
+        addToCache(xacmlRequest, cacheKey, xacmlResponse);
 
         if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
             log.debug("XACML Response : " + xacmlResponse);
@@ -305,6 +332,197 @@ public class EntitlementEngine {
 
     }
 
+    /**
+     * Evaluates the given XACML requests and returns the responses in the order of the requests. Identical requests
+     * are evaluated only once. The unique requests are evaluated in parallel on the bulk evaluation thread pool,
+     * where requests found in the decision cache are answered without evaluation.
+     *
+     * @param xacmlRequests XACML requests as Strings
+     * @return XACML responses as Strings, in the order of the requests. A request which fails to evaluate gets an
+     * Indeterminate response.
+     * @throws org.wso2.carbon.identity.entitlement.EntitlementException throws, if the requests are invalid
+     */
+    public List<String> evaluate(List<String> xacmlRequests) throws EntitlementException {
+
+        String[] xacmlResponses = new String[xacmlRequests.size()];
+        Map<String, List<Integer>> requestPositions = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < xacmlRequests.size(); i++) {
+            String xacmlRequest = xacmlRequests.get(i);
+            if (xacmlRequest == null) {
+                throw new EntitlementException("Invalid XACML request at position " + i);
+            }
+            List<Integer> positions = requestPositions.get(xacmlRequest);
+            if (positions == null) {
+                positions = new ArrayList<Integer>();
+                requestPositions.put(xacmlRequest, positions);
+            }
+            positions.add(i);
+        }
+
+        // decision cache is looked up by each evaluation, using the canonical key of the parsed request
+        List<String> pendingRequests = new ArrayList<String>(requestPositions.keySet());
+
+        if (log.isDebugEnabled()) {
+            log.debug("Bulk evaluation of " + xacmlRequests.size() + " XACML requests. Unique requests : " +
+                      requestPositions.size());
+        }
+
+        List<String> pendingResponses = evaluatePendingRequests(pendingRequests);
+        for (int i = 0; i < pendingRequests.size(); i++) {
+            for (int position : requestPositions.get(pendingRequests.get(i))) {
+                xacmlResponses[position] = pendingResponses.get(i);
+            }
+        }
+        return Arrays.asList(xacmlResponses);
+    }
+
+    private List<String> evaluatePendingRequests(List<String> xacmlRequests) throws EntitlementException {
+
+        List<String> xacmlResponses = new ArrayList<String>(xacmlRequests.size());
+        ExecutorService executor = getBulkEvaluationExecutor();
+        if (executor == null || xacmlRequests.size() < 2) {
+            for (String xacmlRequest : xacmlRequests) {
+                xacmlResponses.add(evaluateInBulk(xacmlRequest));
+            }
+            return xacmlResponses;
+        }
+
+        CarbonContext carbonContext = CarbonContext.getThreadLocalCarbonContext();
+        final String tenantDomain = carbonContext.getTenantDomain();
+        final String username = carbonContext.getUsername();
+        List<Future<String>> futures = new ArrayList<Future<String>>(xacmlRequests.size());
+        for (final String xacmlRequest : xacmlRequests) {
+            futures.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+
+                    PrivilegedCarbonContext.startTenantFlow();
+                    try {
+                        PrivilegedCarbonContext privilegedCarbonContext =
+                                PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                        privilegedCarbonContext.setTenantId(tenantId);
+                        privilegedCarbonContext.setTenantDomain(tenantDomain);
+                        privilegedCarbonContext.setUsername(username);
+                        return evaluateInBulk(xacmlRequest);
+                    } finally {
+                        PrivilegedCarbonContext.endTenantFlow();
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<String> future : futures) {
+                try {
+                    xacmlResponses.add(future.get());
+                } catch (ExecutionException e) {
+                    log.error("Error occurred while evaluating XACML request in bulk", e.getCause());
+                    xacmlResponses.add(getIndeterminateResponse());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Future<String> future : futures) {
+                future.cancel(true);
+            }
+            throw new EntitlementException("Interrupted while evaluating XACML requests", e);
+        }
+        return xacmlResponses;
+    }
+
+    /**
+     * Evaluates a single request of a bulk evaluation. A request which can not be evaluated results in an
+     * Indeterminate response for that request, so that it does not fail the rest of the requests.
+     *
+     * @param xacmlRequest XACML request as String
+     * @return XACML response as String
+     */
+    private String evaluateInBulk(String xacmlRequest) {
+
+        try {
+            return evaluate(xacmlRequest);
+        } catch (EntitlementException | ParsingException | RuntimeException e) {
+            log.error("Error occurred while evaluating XACML request in bulk", e);
+            return getIndeterminateResponse();
+        }
+    }
+
+    private static String getIndeterminateResponse() {
+
+        List<String> codes = new ArrayList<String>();
+        codes.add(Status.STATUS_PROCESSING_ERROR);
+        Status status = new Status(codes, "Error occurred while evaluating the request");
+        return new ResponseCtx(new Result(AbstractResult.DECISION_INDETERMINATE, status)).encode();
+    }
+
+    /**
+     * Returns the thread pool shared by all the tenants for bulk evaluations. When the queue of the pool is full,
+     * requests are evaluated by the calling thread. Returns null if the pool is disabled.
+     *
+     * @return bulk evaluation thread pool
+     */
+    private static ExecutorService getBulkEvaluationExecutor() {
+
+        if (bulkEvaluationExecutor == null) {
+            synchronized (lock) {
+                if (bulkEvaluationExecutor == null) {
+                    Properties properties = EntitlementServiceComponent.getEntitlementConfig().getEngineProperties();
+                    int poolSize = getIntProperty(properties, PDPConstants.BULK_EVALUATION_THREAD_POOL_SIZE,
+                            PDPConstants.DEFAULT_BULK_EVALUATION_THREAD_POOL_SIZE);
+                    int queueSize = getIntProperty(properties, PDPConstants.BULK_EVALUATION_QUEUE_SIZE,
+                            PDPConstants.DEFAULT_BULK_EVALUATION_QUEUE_SIZE);
+                    if (poolSize <= 0) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Parallel bulk evaluation is disabled");
+                        }
+                        return null;
+                    }
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(Math.max(queueSize, 1)), new ThreadFactory() {
+                                private final AtomicInteger threadCount = new AtomicInteger();
+
+                                @Override
+                                public Thread newThread(Runnable runnable) {
+                                    Thread thread = new Thread(runnable,
+                                            "EntitlementBulkEvaluator-" + threadCount.incrementAndGet());
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            }, new ThreadPoolExecutor.CallerRunsPolicy());
+                    executor.allowCoreThreadTimeOut(true);
+                    bulkEvaluationExecutor = executor;
+                }
+            }
+        }
+        return bulkEvaluationExecutor;
+    }
+
+    /**
+     * Shuts down the bulk evaluation thread pool
+     */
+    public static void shutdownBulkEvaluationExecutor() {
+
+        synchronized (lock) {
+            if (bulkEvaluationExecutor != null) {
+                bulkEvaluationExecutor.shutdown();
+                bulkEvaluationExecutor = null;
+            }
+        }
+    }
+
+    private static int getIntProperty(Properties properties, String name, int defaultValue) {
+
+        String value = properties.getProperty(name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value : " + value + " for the property : " + name + ". Using the default value : "
+                         + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Evaluates the given XACML request and returns the ResponseCtx Response that the EntitlementEngine will
      * hand back to the PEP. PEP needs construct the XACML request before sending it to the
@@ -326,10 +544,22 @@ public class EntitlementEngine {
             log.debug("XACML Request : " + xacmlRequest);
         }
 
-        String xacmlResponse;
         ResponseCtx responseCtx;
 
-        if ((xacmlResponse = (String) getFromCache(xacmlRequest, false)) != null) {
+        Map<PIPExtension, Properties> extensions = EntitlementServiceComponent.getEntitlementConfig()
+                .getExtensions();
+        boolean hasExtensions = extensions != null && !extensions.isEmpty();
+
+        AbstractRequestCtx requestCtx = null;
+        String cacheKey = xacmlRequest;
+        String xacmlResponse = getCachedResponse(xacmlRequest);
+        if (xacmlResponse == null) {
+            requestCtx = getRequestCtx(xacmlRequest, hasExtensions);
+            cacheKey = getCacheKey(xacmlRequest, requestCtx);
+            xacmlResponse = getCachedResponse(xacmlRequest, cacheKey);
+        }
+
+        if (xacmlResponse != null) {
             if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
                 log.debug("XACML Response : " + xacmlResponse);
             }
@@ -343,17 +573,12 @@ public class EntitlementEngine {
 
         }
 
-        Map<PIPExtension, Properties> extensions = EntitlementServiceComponent.getEntitlementConfig()
-                .getExtensions();
-
-        if (extensions != null && !extensions.isEmpty()) {
-            PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
-            Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
-            AbstractRequestCtx requestCtx = RequestCtxFactory.getFactory().
-                    getRequestCtx(xacmlRequestElement);
-            Set<PIPExtension> pipExtensions = extensions.keySet();
-            for (PIPExtension pipExtension : pipExtensions) {
-                pipExtension.update(requestCtx);
+        if (requestCtx != null) {
+            if (hasExtensions) {
+                Set<PIPExtension> pipExtensions = extensions.keySet();
+                for (PIPExtension pipExtension : pipExtensions) {
+                    pipExtension.update(requestCtx);
+                }
             }
             responseCtx = pdp.evaluate(requestCtx);
         } else {
@@ -362,7 +587,7 @@ public class EntitlementEngine {
 
         xacmlResponse = responseCtx.encode();
 
-        addToCache(xacmlRequest, xacmlResponse, false);
+        addToCache(xacmlRequest, cacheKey, xacmlResponse);
 
         if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
             log.debug("XACML Response : " + xacmlResponse);
@@ -398,7 +623,11 @@ public class EntitlementEngine {
 
         ResponseCtx xacmlResponse;
 
-        if ((xacmlResponse = (ResponseCtx) getFromCache(xacmlRequest, false)) != null) {
+        String cacheKey = DecisionCacheKeyBuilder.buildKey(requestCtx);
+        // responses of this method are cached as objects, hence the keys are kept apart from the string responses
+        cacheKey = cacheKey != null ? RESPONSE_CTX_CACHE_KEY_PREFIX + cacheKey : xacmlRequest;
+
+        if ((xacmlResponse = (ResponseCtx) getFromCache(cacheKey, false)) != null) {
             if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
                 log.debug("XACML Response : " + xacmlResponse);
             }
@@ -407,7 +636,7 @@ public class EntitlementEngine {
 
         xacmlResponse = pdp.evaluate(requestCtx);
 
-        addToCache(xacmlRequest, xacmlResponse, false);
+        addToCache(cacheKey, xacmlResponse, false);
 
         if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
             log.debug("XACML Response : " + xacmlResponse);
@@ -505,6 +734,119 @@ public class EntitlementEngine {
         return carbonPolicyFinder;
     }
 
+    /**
+     * Parses the XACML request, so that the parsed request can be used to build the decision cache key and to
+     * evaluate the request
+     *
+     * @param xacmlRequest  XACML request as String
+     * @param hasExtensions whether PIP extensions are registered. Parsing errors are thrown only if there are
+     *                      extensions, otherwise they are reported by the PDP in the response
+     * @return parsed request, or null if the request can not be parsed
+     * @throws EntitlementException if the request can not be parsed and there are PIP extensions
+     * @throws ParsingException     if the request can not be parsed and there are PIP extensions
+     */
+    private AbstractRequestCtx getRequestCtx(String xacmlRequest, boolean hasExtensions) throws EntitlementException,
+            ParsingException {
+
+        try {
+            PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
+            Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
+            return RequestCtxFactory.getFactory().getRequestCtx(xacmlRequestElement);
+        } catch (EntitlementException | ParsingException e) {
+            if (hasExtensions) {
+                throw e;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Error while parsing the XACML request. Request is passed to the PDP as it is", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns the decision cache key of the request. The canonical form of the parsed request is used when
+     * possible, so that semantically identical requests share the cached decision
+     *
+     * @param xacmlRequest XACML request as String
+     * @param requestCtx   parsed request, can be null
+     * @return decision cache key
+     */
+    private String getCacheKey(String xacmlRequest, AbstractRequestCtx requestCtx) {
+
+        if (!pdpDecisionCacheEnable || requestCtx == null) {
+            return xacmlRequest;
+        }
+        String cacheKey = DecisionCacheKeyBuilder.buildKey(requestCtx);
+        return cacheKey != null ? cacheKey : xacmlRequest;
+    }
+
+    /**
+     * Looks up the decision of the request by the request string, so that a repeated request is answered without
+     * parsing it. A miss is not counted, as the request is looked up again by its canonical key.
+     *
+     * @param xacmlRequest XACML request as String
+     * @return cached XACML response, or null
+     */
+    private String getCachedResponse(String xacmlRequest) {
+
+        return (String) getFromCache(xacmlRequest, false, false);
+    }
+
+    /**
+     * Looks up the decision of the request by its canonical key, after the lookup by the request string missed
+     *
+     * @param xacmlRequest XACML request as String
+     * @param cacheKey     decision cache key of the request
+     * @return cached XACML response, or null
+     */
+    private String getCachedResponse(String xacmlRequest, String cacheKey) {
+
+        if (cacheKey.equals(xacmlRequest)) {
+            if (pdpDecisionCacheEnable) {
+                decisionCacheMissCount.incrementAndGet();
+            }
+            return null;
+        }
+        String xacmlResponse = (String) getFromCache(cacheKey, false, true);
+        if (xacmlResponse != null) {
+            addToCache(xacmlRequest, xacmlResponse, false);
+        }
+        return xacmlResponse;
+    }
+
+    /**
+     * Caches the decision by the canonical key and by the request string
+     *
+     * @param xacmlRequest  XACML request as String
+     * @param cacheKey      decision cache key of the request
+     * @param xacmlResponse XACML response as String
+     */
+    private void addToCache(String xacmlRequest, String cacheKey, String xacmlResponse) {
+
+        addToCache(cacheKey, xacmlResponse, false);
+        if (!cacheKey.equals(xacmlRequest)) {
+            addToCache(xacmlRequest, xacmlResponse, false);
+        }
+    }
+
+    /**
+     * Returns the number of decision cache hits of this tenant
+     *
+     * @return decision cache hit count
+     */
+    public long getDecisionCacheHitCount() {
+        return decisionCacheHitCount.get();
+    }
+
+    /**
+     * Returns the number of decision cache misses of this tenant
+     *
+     * @return decision cache miss count
+     */
+    public long getDecisionCacheMissCount() {
+        return decisionCacheMissCount.get();
+    }
+
     /**
      * get entry from decision caching
      *
@@ -514,6 +856,19 @@ public class EntitlementEngine {
      */
     private Object getFromCache(String request, boolean simpleCache) {
 
+        return getFromCache(request, simpleCache, true);
+    }
+
+    /**
+     * get entry from decision caching
+     *
+     * @param request     XACML request as String
+     * @param simpleCache whether using simple cache or not
+     * @param countMiss   whether a miss is counted in the decision cache statistics
+     * @return XACML response as String
+     */
+    private Object getFromCache(String request, boolean simpleCache, boolean countMiss) {
+
         if (pdpDecisionCacheEnable) {
 
             String tenantRequest = tenantId + "+" + request;
@@ -540,6 +895,15 @@ public class EntitlementEngine {
             } else {
                 decision = decisionCache.getFromCache(tenantRequest);
             }
+            if (decision != null) {
+                decisionCacheHitCount.incrementAndGet();
+            } else if (countMiss) {
+                decisionCacheMissCount.incrementAndGet();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Decision cache " + (decision != null ? "hit" : "miss") + " for tenant : " + tenantId +
+                          ". Hits : " + decisionCacheHitCount.get() + ", misses : " + decisionCacheMissCount.get());
+            }
             return decision;
         }
 
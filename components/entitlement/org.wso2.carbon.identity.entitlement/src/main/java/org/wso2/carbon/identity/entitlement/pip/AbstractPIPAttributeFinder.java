@@ -32,8 +32,10 @@ import org.wso2.carbon.identity.entitlement.cache.PIPAbstractAttributeCache;
 import org.wso2.carbon.identity.entitlement.internal.EntitlementServiceComponent;
 
 import java.net.URI;
+import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * Abstract implementation of the PIPAttributeFinder.
@@ -44,6 +46,14 @@ public abstract class AbstractPIPAttributeFinder implements PIPAttributeFinder {
     protected int tenantId;
     private PIPAbstractAttributeCache abstractAttributeFinderCache = null;
     private boolean isAbstractAttributeCachingEnabled = false;
+    private static AttributeFetchCoalescer<Set<String>> attributeFetchCoalescer =
+            new AttributeFetchCoalescer<Set<String>>() {
+                @Override
+                protected Set<String> copyForWaiter(Set<String> attributeValues) {
+                    // callers and the attribute caches may modify the returned set
+                    return attributeValues == null ? null : new HashSet<String>(attributeValues);
+                }
+            };
 
     /**
      * This is the overloaded simplify version of the getAttributeValues() method. Any one who extends the
@@ -153,8 +163,8 @@ public abstract class AbstractPIPAttributeFinder implements PIPAttributeFinder {
             if (log.isDebugEnabled()) {
                 log.debug("Carbon Attribute Cache Miss");
             }
-            attributeValues = getAttributeValues(subjectId, resourceId, actionId, environmentId,
-                                                 attributeId.toString(), issuer);
+            attributeValues = fetchAttributeValues(subjectId, resourceId, actionId, environmentId,
+                                                   attributeId.toString(), issuer);
             if (isAbstractAttributeCachingEnabled && key != null) {
                 if (attributeValues != null && !attributeValues.isEmpty()) {
                     abstractAttributeFinderCache.addToCache(tenantId, key, attributeValues);
@@ -170,6 +180,43 @@ public abstract class AbstractPIPAttributeFinder implements PIPAttributeFinder {
 
     }
 
+    /**
+     * Retrieves the attribute values through the attribute fetch coalescer, so that concurrent lookups of the same
+     * attribute share a single call to the attribute source
+     */
+    private Set<String> fetchAttributeValues(final String subject, final String resource, final String action,
+                                             final String environment, final String attributeId,
+                                             final String issuer) throws Exception {
+
+        String fetchKey = CarbonContext.getThreadLocalCarbonContext().getTenantId() + getClass().getName() +
+                          getFetchKey(subject, resource, action, environment, attributeId, issuer);
+        return attributeFetchCoalescer.fetch(fetchKey, new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() throws Exception {
+                return getAttributeValues(subject, resource, action, environment, attributeId, issuer);
+            }
+        });
+    }
+
+    /**
+     * Returns the key used to coalesce concurrent lookups of the same attribute. Attribute finders whose values do
+     * not depend on all the given parameters can override this to coalesce more lookups.
+     *
+     * @param subject     Name of the subject the returned attributes should apply to.
+     * @param resource    The name of the resource the subject is trying to access.
+     * @param action      The name of the action the subject is trying to execute on resource
+     * @param environment The name of the environment the subject is trying to access the resource
+     * @param attributeId The unique id of the required attribute.
+     * @param issuer      The attribute issuer.
+     * @return key identifying the lookup
+     */
+    protected String getFetchKey(String subject, String resource, String action, String environment,
+                                 String attributeId, String issuer) {
+
+        return "[" + subject + "][" + resource + "][" + action + "][" + environment + "][" + attributeId + "][" +
+               issuer + "]";
+    }
+
     @Override
     public boolean overrideDefaultCache() {
 
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.pip;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Coalesces concurrent fetches of the same attribute values. The first thread which requests a key loads the value,
+ * while the other threads which request the same key at the same time wait for that result instead of hitting the
+ * attribute source again. Completed results are not retained, caching is left to the attribute caches. Waiting
+ * threads get the result through {@link #copyForWaiter(Object)}, so that mutable results are not shared between
+ * the callers.
+ *
+ * @param <V> type of the fetched value
+ */
+public class AttributeFetchCoalescer<V> {
+
+    private static final Log log = LogFactory.getLog(AttributeFetchCoalescer.class);
+
+    private final ConcurrentMap<String, FutureTask<V>> inFlightFetches = new ConcurrentHashMap<String, FutureTask<V>>();
+
+    /**
+     * Returns the value of the key, loading it with the given loader unless a fetch of the same key is already in
+     * progress.
+     *
+     * @param key    key identifying the fetch, must include everything the loaded value depends on
+     * @param loader loader of the value, executed in the calling thread
+     * @return loaded value
+     * @throws Exception if the loader fails
+     */
+    public V fetch(String key, Callable<V> loader) throws Exception {
+
+        FutureTask<V> fetch = new FutureTask<V>(loader);
+        FutureTask<V> inFlightFetch = inFlightFetches.putIfAbsent(key, fetch);
+        try {
+            if (inFlightFetch == null) {
+                try {
+                    fetch.run();
+                } finally {
+                    inFlightFetches.remove(key, fetch);
+                }
+                return fetch.get();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Waiting for the in progress fetch of the attribute key : " + key);
+            }
+            return copyForWaiter(inFlightFetch.get());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new EntitlementException("Error while fetching attribute values", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EntitlementException("Interrupted while waiting for attribute values", e);
+        }
+    }
+
+    /**
+     * Returns the value handed to a thread which waited for the fetch of another thread. The loaded value itself is
+     * returned to the thread which loaded it. Coalescers of mutable values should return a copy.
+     *
+     * @param value loaded value, can be null
+     * @return value for the waiting thread
+     */
+    protected V copyForWaiter(V value) {
+        return value;
+    }
+}
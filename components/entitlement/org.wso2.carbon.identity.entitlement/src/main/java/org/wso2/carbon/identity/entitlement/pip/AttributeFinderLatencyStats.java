@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.pip;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram of the lookups of a PIP attribute finder. Latencies are counted in fixed millisecond buckets,
+ * along with the total and the maximum latency.
+ */
+public class AttributeFinderLatencyStats {
+
+    private static final long[] BUCKET_UPPER_BOUNDS_MILLIS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 5000};
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MILLIS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records the latency of a lookup
+     *
+     * @param nanos latency in nano seconds
+     */
+    public void record(long nanos) {
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BUCKET_UPPER_BOUNDS_MILLIS.length && millis > BUCKET_UPPER_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        bucketCounts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the upper bounds of the buckets in milli seconds. The last bucket, which has no upper bound, is not
+     * included.
+     *
+     * @return bucket upper bounds
+     */
+    public long[] getBucketUpperBoundsMillis() {
+        return BUCKET_UPPER_BOUNDS_MILLIS.clone();
+    }
+
+    /**
+     * Returns the number of lookups in each bucket. The last element is the number of lookups which took longer
+     * than the last upper bound.
+     *
+     * @return bucket counts
+     */
+    public long[] getBucketCounts() {
+
+        long[] counts = new long[bucketCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("count=").append(getCount());
+        if (getCount() > 0) {
+            builder.append(", avgMillis=").append(TimeUnit.NANOSECONDS.toMillis(getTotalNanos() / getCount()));
+        }
+        builder.append(", maxMillis=").append(TimeUnit.NANOSECONDS.toMillis(getMaxNanos()));
+        long[] counts = getBucketCounts();
+        for (int i = 0; i < counts.length; i++) {
+            builder.append(", ");
+            if (i < BUCKET_UPPER_BOUNDS_MILLIS.length) {
+                builder.append("<=").append(BUCKET_UPPER_BOUNDS_MILLIS[i]).append("ms=");
+            } else {
+                builder.append(">").append(BUCKET_UPPER_BOUNDS_MILLIS[i - 1]).append("ms=");
+            }
+            builder.append(counts[i]);
+        }
+        return builder.toString();
+    }
+}
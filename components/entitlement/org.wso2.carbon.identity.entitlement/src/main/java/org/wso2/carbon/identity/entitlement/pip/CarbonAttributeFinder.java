@@ -44,12 +44,16 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * CarbonAttributeFinder registers with sun-xacml engine as an AttributeFinderModule and delegate
@@ -63,6 +67,8 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
     private Map<String, List<PIPAttributeFinder>> attrFinders = new HashMap<String, List<PIPAttributeFinder>>();
     private static Log log = LogFactory.getLog(CarbonAttributeFinder.class);
     private PIPAttributeCache attributeFinderCache = null;
+    private ConcurrentMap<String, AttributeFinderLatencyStats> attributeFinderLatencyStats =
+            new ConcurrentHashMap<String, AttributeFinderLatencyStats>();
     protected int tenantId;
 
     public CarbonAttributeFinder(int tenantId) {
@@ -188,8 +194,13 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
                 }
 
                 if (attrs == null) {
-                    attrs = pipAttributeFinder.getAttributeValues(attributeType, attributeId, category,
-                                                                  issuer, context);
+                    long startTime = System.nanoTime();
+                    try {
+                        attrs = pipAttributeFinder.getAttributeValues(attributeType, attributeId, category,
+                                                                      issuer, context);
+                    } finally {
+                        recordLatency(pipAttributeFinder, System.nanoTime() - startTime);
+                    }
                     if (attributeFinderCache != null && key != null
                         && !pipAttributeFinder.overrideDefaultCache()) {
                         attributeFinderCache.addToCache(tenantId, key, attrs);
@@ -278,6 +289,33 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
     }
 
 
+    /**
+     * Returns the latency statistics of the lookups of each PIP attribute finder for this tenant
+     *
+     * @return latency statistics keyed by the module name of the attribute finder
+     */
+    public Map<String, AttributeFinderLatencyStats> getAttributeFinderLatencyStats() {
+        return Collections.unmodifiableMap(attributeFinderLatencyStats);
+    }
+
+    private void recordLatency(PIPAttributeFinder pipAttributeFinder, long nanos) {
+
+        String moduleName = pipAttributeFinder.getModuleName();
+        if (moduleName == null) {
+            moduleName = pipAttributeFinder.getClass().getName();
+        }
+        AttributeFinderLatencyStats stats = attributeFinderLatencyStats.get(moduleName);
+        if (stats == null) {
+            attributeFinderLatencyStats.putIfAbsent(moduleName, new AttributeFinderLatencyStats());
+            stats = attributeFinderLatencyStats.get(moduleName);
+        }
+        stats.record(nanos);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("PIP attribute handler %1$s took %2$d ms. Latencies of the handler : %3$s",
+                                    moduleName, TimeUnit.NANOSECONDS.toMillis(nanos), stats));
+        }
+    }
+
     /**
      * Clears attribute cache
      */
@@ -23,16 +23,21 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.identity.entitlement.EntitlementLRUCache;
 import org.wso2.carbon.user.api.ClaimManager;
 import org.wso2.carbon.user.api.ClaimMapping;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * DefaultAttributeFinder talks to the underlying user store to read user attributes.
@@ -42,7 +47,18 @@ import java.util.StringTokenizer;
 public class DefaultAttributeFinder extends AbstractPIPAttributeFinder {
 
     private static Log log = LogFactory.getLog(DefaultAttributeFinder.class);
+    private static final String PREFETCH_CLAIMS = "PrefetchClaims";
+    private static final String PREFETCH_CACHING_INTERVAL = "PrefetchCachingInterval";
+    private static final long DEFAULT_PREFETCH_CACHING_INTERVAL = 1000;
+    private static final int MAX_PREFETCHED_SUBJECTS = 1000;
     private Set<String> supportedAttrs = new HashSet<String>();
+    private boolean prefetchClaims = false;
+    private long prefetchCachingInterval = DEFAULT_PREFETCH_CACHING_INTERVAL;
+    private Set<String> requestedClaims = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private Map<String, PrefetchedClaims> prefetchedClaims = Collections.synchronizedMap(
+            new EntitlementLRUCache<String, PrefetchedClaims>(MAX_PREFETCHED_SUBJECTS));
+    private AttributeFetchCoalescer<PrefetchedClaims> prefetchCoalescer =
+            new AttributeFetchCoalescer<PrefetchedClaims>();
 
     /**
      * Loads all the claims defined under http://wso2.org/claims dialect.
@@ -50,6 +66,18 @@ public class DefaultAttributeFinder extends AbstractPIPAttributeFinder {
      * @throws Exception
      */
     public void init(Properties properties) throws Exception {
+        if (properties != null) {
+            prefetchClaims = Boolean.parseBoolean(properties.getProperty(PREFETCH_CLAIMS));
+            String interval = properties.getProperty(PREFETCH_CACHING_INTERVAL);
+            if (StringUtils.isNotBlank(interval)) {
+                try {
+                    prefetchCachingInterval = Long.parseLong(interval.trim());
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid value: " + interval + " for " + PREFETCH_CACHING_INTERVAL +
+                             ". Using the default value: " + DEFAULT_PREFETCH_CACHING_INTERVAL);
+                }
+            }
+        }
         if (log.isDebugEnabled()) {
             log.debug("DefaultAttributeFinder is initialized successfully");
         }
@@ -95,17 +123,10 @@ public class DefaultAttributeFinder extends AbstractPIPAttributeFinder {
             }
         } else {
             String claimValue = null;
-            try {
-                claimValue = CarbonContext.getThreadLocalCarbonContext().getUserRealm().
-                        getUserStoreManager().getUserClaimValue(subjectId, attributeId, null);
-            } catch (UserStoreException e) {
-                if(e.getMessage().startsWith(IdentityCoreConstants.USER_NOT_FOUND)){
-                    if(log.isDebugEnabled()){
-                        log.debug("User: " + subjectId + " not found in user store");
-                    }
-                } else {
-                    throw e;
-                }
+            if (prefetchClaims) {
+                claimValue = getPrefetchedClaimValue(subjectId, attributeId);
+            } else {
+                claimValue = getUserClaimValue(subjectId, attributeId);
             }
             if (claimValue == null && log.isDebugEnabled()) {
                 log.debug(String.format("Request attribute %1$s not found", attributeId));
@@ -133,6 +154,100 @@ public class DefaultAttributeFinder extends AbstractPIPAttributeFinder {
         return values;
     }
 
+    /**
+     * Returns the value of the given claim from the claims prefetched for the subject. All the claims requested so
+     * far from this attribute finder are loaded for the subject in a single user store call, so that the other
+     * attributes a policy set needs for the same subject are served without going to the user store again.
+     *
+     * @param subjectId   tenant aware user name of the subject
+     * @param attributeId claim URI
+     * @return claim value or null if the user does not have the claim
+     * @throws Exception if the claims cannot be loaded from the user store
+     */
+    private String getPrefetchedClaimValue(final String subjectId, String attributeId) throws Exception {
+
+        requestedClaims.add(attributeId);
+        String key = CarbonContext.getThreadLocalCarbonContext().getTenantId() + ":" + subjectId;
+        PrefetchedClaims claims = prefetchedClaims.get(key);
+        // A coalesced load may have been started before this claim was requested, hence retry once.
+        for (int i = 0; i < 2 && (claims == null || !claims.isValidFor(attributeId)); i++) {
+            claims = prefetchCoalescer.fetch(key, new Callable<PrefetchedClaims>() {
+                @Override
+                public PrefetchedClaims call() throws Exception {
+                    return loadClaims(subjectId);
+                }
+            });
+        }
+        if (claims == null || !claims.isValidFor(attributeId)) {
+            // The claim was requested while the loads were already in progress, read it on its own.
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Claim %1$s of user %2$s is read without prefetching", attributeId,
+                                        subjectId));
+            }
+            return getUserClaimValue(subjectId, attributeId);
+        }
+        return claims.values.get(attributeId);
+    }
+
+    private String getUserClaimValue(String subjectId, String attributeId) throws UserStoreException {
+
+        try {
+            return CarbonContext.getThreadLocalCarbonContext().getUserRealm().
+                    getUserStoreManager().getUserClaimValue(subjectId, attributeId, null);
+        } catch (UserStoreException e) {
+            if (e.getMessage().startsWith(IdentityCoreConstants.USER_NOT_FOUND)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("User: " + subjectId + " not found in user store");
+                }
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private PrefetchedClaims loadClaims(String subjectId) throws Exception {
+
+        String key = CarbonContext.getThreadLocalCarbonContext().getTenantId() + ":" + subjectId;
+        Set<String> claimUris = new HashSet<String>(requestedClaims);
+        Map<String, String> claimValues = null;
+        try {
+            claimValues = CarbonContext.getThreadLocalCarbonContext().getUserRealm().getUserStoreManager()
+                    .getUserClaimValues(subjectId, claimUris.toArray(new String[claimUris.size()]), null);
+        } catch (UserStoreException e) {
+            if (e.getMessage().startsWith(IdentityCoreConstants.USER_NOT_FOUND)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("User: " + subjectId + " not found in user store");
+                }
+            } else {
+                throw e;
+            }
+        }
+        if (claimValues == null) {
+            claimValues = Collections.emptyMap();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Prefetched %1$d claims of user %2$s", claimUris.size(), subjectId));
+        }
+        PrefetchedClaims claims = new PrefetchedClaims(claimUris, claimValues,
+                                                       System.currentTimeMillis() + prefetchCachingInterval);
+        prefetchedClaims.put(key, claims);
+        return claims;
+    }
+
+    @Override
+    protected String getFetchKey(String subject, String resource, String action, String environment,
+                                 String attributeId, String issuer) {
+
+        // User store attributes only depend on the subject.
+        return "[" + subject + "][" + attributeId + "]";
+    }
+
+    @Override
+    public void clearCache() {
+        super.clearCache();
+        prefetchedClaims.clear();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -151,4 +266,24 @@ public class DefaultAttributeFinder extends AbstractPIPAttributeFinder {
         }
         return supportedAttrs;
     }
+
+    /**
+     * Claims of a subject loaded in a single user store call.
+     */
+    private static class PrefetchedClaims {
+
+        private final Set<String> claimUris;
+        private final Map<String, String> values;
+        private final long expiryTime;
+
+        private PrefetchedClaims(Set<String> claimUris, Map<String, String> values, long expiryTime) {
+            this.claimUris = claimUris;
+            this.values = values;
+            this.expiryTime = expiryTime;
+        }
+
+        private boolean isValidFor(String claimUri) {
+            return claimUris.contains(claimUri) && System.currentTimeMillis() < expiryTime;
+        }
+    }
 }
@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.policy.collection;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.util.AXIOMUtil;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.balana.AbstractPolicy;
+import org.wso2.balana.AbstractTarget;
+import org.wso2.balana.Balana;
+import org.wso2.balana.MatchResult;
+import org.wso2.balana.Policy;
+import org.wso2.balana.PolicyReference;
+import org.wso2.balana.PolicySet;
+import org.wso2.balana.VersionConstraints;
+import org.wso2.balana.attr.AttributeValue;
+import org.wso2.balana.combine.PolicyCombiningAlgorithm;
+import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.Attribute;
+import org.wso2.balana.ctx.EvaluationCtx;
+import org.wso2.balana.xacml3.Attributes;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.internal.EntitlementServiceComponent;
+import org.wso2.carbon.identity.entitlement.pip.PIPAttributeFinder;
+
+import javax.xml.namespace.QName;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Policy collection which indexes the top level policies by the literal attribute values of their targets, so that
+ * only the policies which can possibly match a request are evaluated. A policy is indexed when one of the
+ * <code>AnyOf</code> elements of its target requires, in each of its <code>AllOf</code> elements, a string or anyURI
+ * equality match on an attribute which is supplied by the request and is not required to be present. All other
+ * policies are evaluated for every request. The evaluation order and the combining behaviour are the same as in {@link SimplePolicyCollection}.
+ */
+public class IndexedPolicyCollection implements PolicyCollection {
+
+    private static final Log log = LogFactory.getLog(IndexedPolicyCollection.class);
+
+    private static final String INDEXED_CATEGORIES = "indexedCategories";
+    private static final String DEFAULT_INDEXED_CATEGORIES =
+            "urn:oasis:names:tc:xacml:3.0:attribute-category:resource " +
+            "urn:oasis:names:tc:xacml:3.0:attribute-category:action";
+    private static final String MATCH_ID = "MatchId";
+    private static final String MUST_BE_PRESENT = "MustBePresent";
+    private static final Set<String> INDEXED_MATCH_FUNCTIONS = new HashSet<String>();
+    private static final Set<String> INDEXED_DATA_TYPES = new HashSet<String>();
+
+    static {
+        INDEXED_MATCH_FUNCTIONS.add("urn:oasis:names:tc:xacml:1.0:function:string-equal");
+        INDEXED_MATCH_FUNCTIONS.add("urn:oasis:names:tc:xacml:1.0:function:anyURI-equal");
+        INDEXED_DATA_TYPES.add(PDPConstants.STRING_DATA_TYPE);
+        INDEXED_DATA_TYPES.add("http://www.w3.org/2001/XMLSchema#anyURI");
+    }
+
+    /**
+     * the actual collection of policies, in evaluation order
+     */
+    private LinkedHashMap<URI, AbstractPolicy> policyCollection = new LinkedHashMap<URI, AbstractPolicy>();
+    /**
+     * index keys extracted from the target of each policy. An empty set means the policy is not indexed
+     */
+    private Map<URI, Set<String>> policyIndexKeys = new HashMap<URI, Set<String>>();
+    /**
+     * index built from the current collection. Set to null whenever the collection changes and rebuilt on the
+     * next evaluation
+     */
+    private volatile PolicyIndex policyIndex;
+    private Set<String> indexedCategories = new HashSet<String>();
+    private PolicyCombiningAlgorithm combiningAlg;
+    private URI parentId;
+
+    @Override
+    public void init(Properties properties) throws Exception {
+
+        String parentIdProperty = properties.getProperty("parentId");
+        if (parentIdProperty != null) {
+            parentId = new URI(parentIdProperty);
+        }
+        String categories = properties.getProperty(INDEXED_CATEGORIES, DEFAULT_INDEXED_CATEGORIES);
+        // categories are separated by white spaces, as the extension builder splits property values on commas
+        for (String category : categories.split("\\s+")) {
+            if (StringUtils.isNotBlank(category)) {
+                indexedCategories.add(category.trim());
+            }
+        }
+    }
+
+    @Override
+    public boolean addPolicy(AbstractPolicy policy) {
+        return addPolicy(policy.getId(), policy);
+    }
+
+    @Override
+    public AbstractPolicy getEffectivePolicy(EvaluationCtx context) throws EntitlementException {
+
+        ArrayList<AbstractPolicy> list = new ArrayList<AbstractPolicy>();
+
+        for (AbstractPolicy policy : getPolicyIndex().getCandidates(context)) {
+
+            MatchResult match = policy.match(context);
+            int result = match.getResult();
+
+            if (result == MatchResult.INDETERMINATE) {
+                log.error(match.getStatus().getMessage());
+                throw new EntitlementException(match.getStatus().getMessage());
+            }
+
+            if (result == MatchResult.MATCH) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Matching XACML policy found " + policy.getId().toString());
+                }
+
+                if ((combiningAlg == null) && (list.size() > 0)) {
+                    log.error("Too many applicable top-level policies");
+                    throw new EntitlementException("Too many applicable top-level policies");
+                }
+
+                list.add(policy);
+            }
+        }
+
+        switch (list.size()) {
+            case 0:
+                if (log.isDebugEnabled()) {
+                    log.debug("No matching XACML policy found");
+                }
+                return null;
+            case 1:
+                return list.get(0);
+            default:
+                return new PolicySet(parentId, combiningAlg, null, list);
+        }
+    }
+
+    @Override
+    public AbstractPolicy getPolicy(URI policyId) {
+        return policyCollection.get(policyId);
+    }
+
+    @Override
+    public AbstractPolicy getPolicy(URI identifier, int type, VersionConstraints constraints) {
+
+        AbstractPolicy policy = policyCollection.get(identifier);
+
+        if (policy != null) {
+            if (type == PolicyReference.POLICY_REFERENCE) {
+                if (policy instanceof Policy) {
+                    return policy;
+                }
+            } else {
+                if (policy instanceof PolicySet) {
+                    return policy;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private synchronized boolean addPolicy(URI identifier, AbstractPolicy policy) {
+
+        policyIndexKeys.remove(identifier);
+        policyIndex = null;
+        return policyCollection.put(identifier, policy) != null;
+    }
+
+    @Override
+    public void setPolicyCombiningAlgorithm(PolicyCombiningAlgorithm algorithm) {
+        this.combiningAlg = algorithm;
+    }
+
+    @Override
+    public synchronized boolean deletePolicy(String policyId) {
+
+        try {
+            URI identifier = new URI(policyId);
+            policyIndexKeys.remove(identifier);
+            policyIndex = null;
+            return this.policyCollection.remove(identifier) != null;
+        } catch (URISyntaxException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a copy of the policies, as changes made to the map directly would not be reflected in the index.
+     */
+    @Override
+    public synchronized LinkedHashMap getPolicyMap() {
+        return new LinkedHashMap<URI, AbstractPolicy>(this.policyCollection);
+    }
+
+    @Override
+    public synchronized void setPolicyMap(LinkedHashMap policyMap) {
+
+        this.policyCollection = new LinkedHashMap<URI, AbstractPolicy>(policyMap);
+        policyIndexKeys.clear();
+        policyIndex = null;
+    }
+
+    private PolicyIndex getPolicyIndex() {
+
+        PolicyIndex index = policyIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (policyIndex == null) {
+                policyIndex = buildPolicyIndex();
+            }
+            return policyIndex;
+        }
+    }
+
+    private PolicyIndex buildPolicyIndex() {
+
+        Set<String> pipAttributes = getPIPSupportedAttributes();
+        AbstractPolicy[] policies = new AbstractPolicy[policyCollection.size()];
+        Map<String, BitSet> keyIndex = new HashMap<String, BitSet>();
+        BitSet unindexed = new BitSet(policies.length);
+
+        int position = 0;
+        for (Map.Entry<URI, AbstractPolicy> entry : policyCollection.entrySet()) {
+            policies[position] = entry.getValue();
+            Set<String> keys = policyIndexKeys.get(entry.getKey());
+            if (keys == null) {
+                keys = extractIndexKeys(entry.getValue(), pipAttributes);
+                policyIndexKeys.put(entry.getKey(), keys);
+            }
+            if (keys.isEmpty()) {
+                unindexed.set(position);
+            } else {
+                for (String key : keys) {
+                    BitSet positions = keyIndex.get(key);
+                    if (positions == null) {
+                        positions = new BitSet(policies.length);
+                        keyIndex.put(key, positions);
+                    }
+                    positions.set(position);
+                }
+            }
+            position++;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Policy index is built for " + policies.length + " policies with " + keyIndex.size() +
+                      " index keys. " + unindexed.cardinality() + " policies are evaluated for every request");
+        }
+        return new PolicyIndex(policies, keyIndex, unindexed);
+    }
+
+    /**
+     * Extracts the index keys of the policy. A request can only match the policy if it carries an attribute with one
+     * of the returned keys. An empty set is returned when no such guarantee can be derived from the target.
+     */
+    private Set<String> extractIndexKeys(AbstractPolicy policy, Set<String> pipAttributes) {
+
+        try {
+            AbstractTarget target = policy.getTarget();
+            if (target == null) {
+                return Collections.emptySet();
+            }
+            OMElement targetElement = AXIOMUtil.stringToOM(target.encode());
+            Iterator anyOfIterator = targetElement.getChildrenWithLocalName(PDPConstants.ANY_OF);
+            while (anyOfIterator.hasNext()) {
+                Set<String> keys = extractAnyOfKeys((OMElement) anyOfIterator.next(), pipAttributes);
+                if (!keys.isEmpty()) {
+                    return keys;
+                }
+            }
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Target of the policy " + policy.getId() + " can not be indexed", e);
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    private Set<String> extractAnyOfKeys(OMElement anyOf, Set<String> pipAttributes) {
+
+        Set<String> keys = new HashSet<String>();
+        Iterator allOfIterator = anyOf.getChildrenWithLocalName(PDPConstants.ALL_OF);
+        while (allOfIterator.hasNext()) {
+            String key = null;
+            Iterator matchIterator = ((OMElement) allOfIterator.next())
+                    .getChildrenWithLocalName(PDPConstants.MATCH_ELEMENT);
+            while (key == null && matchIterator.hasNext()) {
+                key = getMatchKey((OMElement) matchIterator.next(), pipAttributes);
+            }
+            if (key == null) {
+                // this AllOf can match without any indexed attribute, so the AnyOf can not be used
+                return Collections.emptySet();
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private String getMatchKey(OMElement match, Set<String> pipAttributes) {
+
+        if (!INDEXED_MATCH_FUNCTIONS.contains(match.getAttributeValue(new QName(MATCH_ID)))) {
+            return null;
+        }
+        Iterator values = match.getChildrenWithLocalName(PDPConstants.ATTRIBUTE_VALUE);
+        Iterator designators = match.getChildrenWithLocalName(PDPConstants.ATTRIBUTE_DESIGNATOR);
+        if (!values.hasNext() || !designators.hasNext()) {
+            return null;
+        }
+        OMElement value = (OMElement) values.next();
+        OMElement designator = (OMElement) designators.next();
+        String category = designator.getAttributeValue(new QName(PDPConstants.CATEGORY));
+        String attributeId = designator.getAttributeValue(new QName(PDPConstants.ATTRIBUTE_ID));
+        String dataType = designator.getAttributeValue(new QName(PDPConstants.DATA_TYPE));
+        if (!indexedCategories.contains(category) || !INDEXED_DATA_TYPES.contains(dataType) ||
+            attributeId == null || pipAttributes.contains(attributeId)) {
+            return null;
+        }
+        // a missing attribute which must be present makes the policy Indeterminate instead of NotApplicable, hence
+        // such policies must still be evaluated when the request does not carry the attribute
+        if (Boolean.parseBoolean(designator.getAttributeValue(new QName(MUST_BE_PRESENT)))) {
+            return null;
+        }
+        try {
+            // encode the value the same way as the request attribute values, so that both sides match
+            AttributeValue attributeValue = Balana.getInstance().getAttributeFactory()
+                    .createValue(new URI(dataType), value.getText());
+            return buildKey(category, attributeId, dataType, attributeValue.encode());
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Attribute value of " + attributeId + " can not be indexed", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Attributes which can be resolved by a PIP attribute finder may be missing in the request, hence policies can
+     * not be indexed on them.
+     */
+    private Set<String> getPIPSupportedAttributes() {
+
+        Set<String> attributes = new HashSet<String>();
+        Map<PIPAttributeFinder, Properties> designators =
+                EntitlementServiceComponent.getEntitlementConfig().getDesignators();
+        if (designators != null) {
+            for (PIPAttributeFinder finder : designators.keySet()) {
+                Set<String> supportedAttributes = finder.getSupportedAttributes();
+                if (supportedAttributes != null) {
+                    attributes.addAll(supportedAttributes);
+                }
+            }
+        }
+        return attributes;
+    }
+
+    private static String buildKey(String category, String attributeId, String dataType, String value) {
+        return category + "|" + attributeId + "|" + dataType + "|" + value;
+    }
+
+    /**
+     * Immutable view of the collection used to select the candidate policies of a request.
+     */
+    private static class PolicyIndex {
+
+        private final AbstractPolicy[] policies;
+        private final Map<String, BitSet> keyIndex;
+        private final BitSet unindexed;
+
+        PolicyIndex(AbstractPolicy[] policies, Map<String, BitSet> keyIndex, BitSet unindexed) {
+
+            this.policies = policies;
+            this.keyIndex = keyIndex;
+            this.unindexed = unindexed;
+        }
+
+        /**
+         * Returns the policies which may match the request, in the order of the collection.
+         */
+        List<AbstractPolicy> getCandidates(EvaluationCtx context) {
+
+            Set<Attributes> attributesSet = null;
+            AbstractRequestCtx requestCtx = context.getRequestCtx();
+            if (requestCtx != null) {
+                attributesSet = requestCtx.getAttributesSet();
+            }
+
+            BitSet candidates;
+            if (attributesSet == null || keyIndex.isEmpty()) {
+                candidates = new BitSet(policies.length);
+                candidates.set(0, policies.length);
+            } else {
+                candidates = (BitSet) unindexed.clone();
+                for (Attributes attributes : attributesSet) {
+                    String category = attributes.getCategory().toString();
+                    for (Attribute attribute : attributes.getAttributes()) {
+                        String attributeId = attribute.getId().toString();
+                        for (AttributeValue value : attribute.getValues()) {
+                            BitSet positions = keyIndex.get(buildKey(category, attributeId,
+                                    value.getType().toString(), value.encode()));
+                            if (positions != null) {
+                                candidates.or(positions);
+                            }
+                        }
+                    }
+                }
+            }
+
+            List<AbstractPolicy> list = new ArrayList<AbstractPolicy>(candidates.cardinality());
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                list.add(policies[i]);
+            }
+            return list;
+        }
+    }
+}
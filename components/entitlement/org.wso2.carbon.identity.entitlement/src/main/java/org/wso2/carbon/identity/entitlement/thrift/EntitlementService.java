@@ -25,6 +25,8 @@ public class EntitlementService {
 
         public String getDecisionByAttributes(String subject, String resource, String action, List<String> environment, String sessionID) throws EntitlementException, org.apache.thrift.TException;
 
+        public List<String> getDecisions(List<String> requests, String sessionId) throws EntitlementException, org.apache.thrift.TException;
+
     }
 
     public interface AsyncIface {
@@ -33,6 +35,8 @@ public class EntitlementService {
 
         public void getDecisionByAttributes(String subject, String resource, String action, List<String> environment, String sessionID, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.getDecisionByAttributes_call> resultHandler) throws org.apache.thrift.TException;
 
+        public void getDecisions(List<String> requests, String sessionId, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.getDecisions_call> resultHandler) throws org.apache.thrift.TException;
+
     }
 
     public static class Client extends org.apache.thrift.TServiceClient implements Iface {
@@ -95,6 +99,30 @@ public class EntitlementService {
             throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "getDecisionByAttributes failed: unknown result");
         }
 
+        public List<String> getDecisions(List<String> requests, String sessionId) throws EntitlementException, org.apache.thrift.TException {
+            send_getDecisions(requests, sessionId);
+            return recv_getDecisions();
+        }
+
+        public void send_getDecisions(List<String> requests, String sessionId) throws org.apache.thrift.TException {
+            getDecisions_args args = new getDecisions_args();
+            args.setRequests(requests);
+            args.setSessionId(sessionId);
+            sendBase("getDecisions", args);
+        }
+
+        public List<String> recv_getDecisions() throws EntitlementException, org.apache.thrift.TException {
+            getDecisions_result result = new getDecisions_result();
+            receiveBase(result, "getDecisions");
+            if (result.isSetSuccess()) {
+                return result.success;
+            }
+            if (result.e != null) {
+                throw result.e;
+            }
+            throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "getDecisions failed: unknown result");
+        }
+
         public static class Factory implements org.apache.thrift.TServiceClientFactory<Client> {
             public Factory() {
             }
@@ -129,6 +157,13 @@ public class EntitlementService {
             ___manager.call(method_call);
         }
 
+        public void getDecisions(List<String> requests, String sessionId, org.apache.thrift.async.AsyncMethodCallback<getDecisions_call> resultHandler) throws org.apache.thrift.TException {
+            checkReady();
+            getDecisions_call method_call = new getDecisions_call(requests, sessionId, resultHandler, this, ___protocolFactory, ___transport);
+            this.___currentMethod = method_call;
+            ___manager.call(method_call);
+        }
+
         public static class Factory implements org.apache.thrift.async.TAsyncClientFactory<AsyncClient> {
             private org.apache.thrift.async.TAsyncClientManager clientManager;
             private org.apache.thrift.protocol.TProtocolFactory protocolFactory;
@@ -210,6 +245,35 @@ public class EntitlementService {
             }
         }
 
+        public static class getDecisions_call extends org.apache.thrift.async.TAsyncMethodCall {
+            private List<String> requests;
+            private String sessionId;
+
+            public getDecisions_call(List<String> requests, String sessionId, org.apache.thrift.async.AsyncMethodCallback<getDecisions_call> resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
+                super(client, protocolFactory, transport, resultHandler, false);
+                this.requests = requests;
+                this.sessionId = sessionId;
+            }
+
+            public void write_args(org.apache.thrift.protocol.TProtocol prot) throws org.apache.thrift.TException {
+                prot.writeMessageBegin(new org.apache.thrift.protocol.TMessage("getDecisions", org.apache.thrift.protocol.TMessageType.CALL, 0));
+                getDecisions_args args = new getDecisions_args();
+                args.setRequests(requests);
+                args.setSessionId(sessionId);
+                args.write(prot);
+                prot.writeMessageEnd();
+            }
+
+            public List<String> getResult() throws EntitlementException, org.apache.thrift.TException {
+                if (getState() != org.apache.thrift.async.TAsyncMethodCall.State.RESPONSE_READ) {
+                    throw new IllegalStateException("Method call not finished!");
+                }
+                org.apache.thrift.transport.TMemoryInputTransport memoryTransport = new org.apache.thrift.transport.TMemoryInputTransport(getFrameBuffer().array());
+                org.apache.thrift.protocol.TProtocol prot = client.getProtocolFactory().getProtocol(memoryTransport);
+                return (new Client(prot)).recv_getDecisions();
+            }
+        }
+
     }
 
     public static class Processor<I extends Iface> extends org.apache.thrift.TBaseProcessor implements org.apache.thrift.TProcessor {
@@ -226,6 +290,7 @@ public class EntitlementService {
         private static <I extends Iface> Map<String, org.apache.thrift.ProcessFunction<I, ? extends org.apache.thrift.TBase>> getProcessMap(Map<String, org.apache.thrift.ProcessFunction<I, ? extends org.apache.thrift.TBase>> processMap) {
             processMap.put("getDecision", new getDecision());
             processMap.put("getDecisionByAttributes", new getDecisionByAttributes());
+            processMap.put("getDecisions", new getDecisions());
             return processMap;
         }
 
@@ -273,6 +338,28 @@ public class EntitlementService {
             }
         }
 
+        private static class getDecisions<I extends Iface> extends org.apache.thrift.ProcessFunction<I, getDecisions_args> {
+            public getDecisions() {
+                super("getDecisions");
+            }
+
+            protected getDecisions_args getEmptyArgsInstance() {
+                return new getDecisions_args();
+            }
+
+            protected getDecisions_result getResult(I iface, getDecisions_args args) throws org.apache.thrift.TException {
+                getDecisions_result result = new getDecisions_result();
+                try {
+                    result.success = iface.getDecisions(args.requests, args.sessionId);
+                } catch (EntitlementException e) {
+                    result.e = e;
+                } finally {
+                    PrivilegedCarbonContext.destroyCurrentContext();
+                }
+                return result;
+            }
+        }
+
     }
 
     public static class getDecision_args implements org.apache.thrift.TBase<getDecision_args, getDecision_args._Fields>, java.io.Serializable, Cloneable {
@@ -2148,4 +2235,854 @@ public class EntitlementService {
 
     }
 
+    public static class getDecisions_args implements org.apache.thrift.TBase<getDecisions_args, getDecisions_args._Fields>, java.io.Serializable, Cloneable {
+        public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+        static {
+            Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+            tmpMap.put(_Fields.REQUESTS, new org.apache.thrift.meta_data.FieldMetaData("requests", org.apache.thrift.TFieldRequirementType.REQUIRED,
+                    new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST,
+                            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
+            tmpMap.put(_Fields.SESSION_ID, new org.apache.thrift.meta_data.FieldMetaData("sessionId", org.apache.thrift.TFieldRequirementType.REQUIRED,
+                    new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+            metaDataMap = Collections.unmodifiableMap(tmpMap);
+            org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(getDecisions_args.class, metaDataMap);
+        }
+        private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("getDecisions_args");
+        private static final org.apache.thrift.protocol.TField REQUESTS_FIELD_DESC = new org.apache.thrift.protocol.TField("requests", org.apache.thrift.protocol.TType.LIST, (short) 1);
+        private static final org.apache.thrift.protocol.TField SESSION_ID_FIELD_DESC = new org.apache.thrift.protocol.TField("sessionId", org.apache.thrift.protocol.TType.STRING, (short) 2);
+        public List<String> requests; // required
+
+        // isset id assignments
+        public String sessionId; // required
+
+        public getDecisions_args() {
+        }
+
+        public getDecisions_args(
+                List<String> requests,
+                String sessionId) {
+            this();
+            this.requests = requests;
+            this.sessionId = sessionId;
+        }
+
+        /**
+         * Performs a deep copy on <i>other</i>.
+         */
+        public getDecisions_args(getDecisions_args other) {
+            if (other.isSetRequests()) {
+                List<String> __this__requests = new ArrayList<String>();
+                for (String other_element : other.requests) {
+                    __this__requests.add(other_element);
+                }
+                this.requests = __this__requests;
+            }
+            if (other.isSetSessionId()) {
+                this.sessionId = other.sessionId;
+            }
+        }
+
+        public getDecisions_args deepCopy() {
+            return new getDecisions_args(this);
+        }
+
+        @Override
+        public void clear() {
+            this.requests = null;
+            this.sessionId = null;
+        }
+
+        public int getRequestsSize() {
+            return (this.requests == null) ? 0 : this.requests.size();
+        }
+
+        public java.util.Iterator<String> getRequestsIterator() {
+            return (this.requests == null) ? null : this.requests.iterator();
+        }
+
+        public void addToRequests(String elem) {
+            if (this.requests == null) {
+                this.requests = new ArrayList<String>();
+            }
+            this.requests.add(elem);
+        }
+
+        public List<String> getRequests() {
+            return this.requests;
+        }
+
+        public getDecisions_args setRequests(List<String> requests) {
+            this.requests = requests;
+            return this;
+        }
+
+        public void unsetRequests() {
+            this.requests = null;
+        }
+
+        /**
+         * Returns true if field requests is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetRequests() {
+            return this.requests != null;
+        }
+
+        public void setRequestsIsSet(boolean value) {
+            if (!value) {
+                this.requests = null;
+            }
+        }
+
+        public String getSessionId() {
+            return this.sessionId;
+        }
+
+        public getDecisions_args setSessionId(String sessionId) {
+            this.sessionId = sessionId;
+            return this;
+        }
+
+        public void unsetSessionId() {
+            this.sessionId = null;
+        }
+
+        /**
+         * Returns true if field sessionId is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetSessionId() {
+            return this.sessionId != null;
+        }
+
+        public void setSessionIdIsSet(boolean value) {
+            if (!value) {
+                this.sessionId = null;
+            }
+        }
+
+        public void setFieldValue(_Fields field, Object value) {
+            switch (field) {
+                case REQUESTS:
+                    if (value == null) {
+                        unsetRequests();
+                    } else {
+                        setRequests((List<String>) value);
+                    }
+                    break;
+
+                case SESSION_ID:
+                    if (value == null) {
+                        unsetSessionId();
+                    } else {
+                        setSessionId((String) value);
+                    }
+                    break;
+
+            }
+        }
+
+        public Object getFieldValue(_Fields field) {
+            switch (field) {
+                case REQUESTS:
+                    return getRequests();
+
+                case SESSION_ID:
+                    return getSessionId();
+
+            }
+            throw new IllegalStateException();
+        }
+
+        /**
+         * Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSet(_Fields field) {
+            if (field == null) {
+                throw new IllegalArgumentException();
+            }
+
+            switch (field) {
+                case REQUESTS:
+                    return isSetRequests();
+                case SESSION_ID:
+                    return isSetSessionId();
+            }
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            if (that == null)
+                return false;
+            if (that instanceof getDecisions_args)
+                return this.equals((getDecisions_args) that);
+            return false;
+        }
+
+        public boolean equals(getDecisions_args that) {
+            if (that == null)
+                return false;
+
+            boolean this_present_requests = true && this.isSetRequests();
+            boolean that_present_requests = true && that.isSetRequests();
+            if (this_present_requests || that_present_requests) {
+                if (!(this_present_requests && that_present_requests))
+                    return false;
+                if (!this.requests.equals(that.requests))
+                    return false;
+            }
+
+            boolean this_present_sessionId = true && this.isSetSessionId();
+            boolean that_present_sessionId = true && that.isSetSessionId();
+            if (this_present_sessionId || that_present_sessionId) {
+                if (!(this_present_sessionId && that_present_sessionId))
+                    return false;
+                if (!this.sessionId.equals(that.sessionId))
+                    return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        public int compareTo(getDecisions_args other) {
+            if (!getClass().equals(other.getClass())) {
+                return getClass().getName().compareTo(other.getClass().getName());
+            }
+
+            int lastComparison = 0;
+            getDecisions_args typedOther = (getDecisions_args) other;
+
+            lastComparison = Boolean.valueOf(isSetRequests()).compareTo(typedOther.isSetRequests());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetRequests()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.requests, typedOther.requests);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            lastComparison = Boolean.valueOf(isSetSessionId()).compareTo(typedOther.isSetSessionId());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetSessionId()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.sessionId, typedOther.sessionId);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            return 0;
+        }
+
+        public _Fields fieldForId(int fieldId) {
+            return _Fields.findByThriftId(fieldId);
+        }
+
+        public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+            org.apache.thrift.protocol.TField field;
+            iprot.readStructBegin();
+            while (true) {
+                field = iprot.readFieldBegin();
+                if (field.type == org.apache.thrift.protocol.TType.STOP) {
+                    break;
+                }
+                switch (field.id) {
+                    case 1: // REQUESTS
+                        if (field.type == org.apache.thrift.protocol.TType.LIST) {
+                            {
+                                org.apache.thrift.protocol.TList _list0 = iprot.readListBegin();
+                                this.requests = new ArrayList<String>(_list0.size);
+                                for (int _i1 = 0; _i1 < _list0.size; ++_i1) {
+                                    String _elem2; // required
+                                    _elem2 = iprot.readString();
+                                    this.requests.add(_elem2);
+                                }
+                                iprot.readListEnd();
+                            }
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    case 2: // SESSION_ID
+                        if (field.type == org.apache.thrift.protocol.TType.STRING) {
+                            this.sessionId = iprot.readString();
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    default:
+                        org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                }
+                iprot.readFieldEnd();
+            }
+            iprot.readStructEnd();
+
+            // check for required fields of primitive type, which can't be checked in the validate method
+            validate();
+        }
+
+        public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+            validate();
+
+            oprot.writeStructBegin(STRUCT_DESC);
+            if (this.requests != null) {
+                oprot.writeFieldBegin(REQUESTS_FIELD_DESC);
+                {
+                    oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, this.requests.size()));
+                    for (String _iter3 : this.requests) {
+                        oprot.writeString(_iter3);
+                    }
+                    oprot.writeListEnd();
+                }
+                oprot.writeFieldEnd();
+            }
+            if (this.sessionId != null) {
+                oprot.writeFieldBegin(SESSION_ID_FIELD_DESC);
+                oprot.writeString(this.sessionId);
+                oprot.writeFieldEnd();
+            }
+            oprot.writeFieldStop();
+            oprot.writeStructEnd();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("getDecisions_args(");
+            boolean first = true;
+
+            sb.append("requests:");
+            if (this.requests == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.requests);
+            }
+            first = false;
+            if (!first) sb.append(", ");
+            sb.append("sessionId:");
+            if (this.sessionId == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.sessionId);
+            }
+            first = false;
+            sb.append(")");
+            return sb.toString();
+        }
+
+        public void validate() throws org.apache.thrift.TException {
+            // check for required fields
+            if (requests == null) {
+                throw new org.apache.thrift.protocol.TProtocolException("Required field 'requests' was not present! Struct: " + toString());
+            }
+            if (sessionId == null) {
+                throw new org.apache.thrift.protocol.TProtocolException("Required field 'sessionId' was not present! Struct: " + toString());
+            }
+        }
+
+        private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+            try {
+                write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+            } catch (org.apache.thrift.TException te) {
+                throw new java.io.IOException(te);
+            }
+        }
+
+        private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+            try {
+                read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+            } catch (org.apache.thrift.TException te) {
+                throw new java.io.IOException(te);
+            }
+        }
+
+        /**
+         * The set of fields this struct contains, along with convenience methods for finding and manipulating them.
+         */
+        public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+            REQUESTS((short) 1, "requests"),
+            SESSION_ID((short) 2, "sessionId");
+
+            private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+            static {
+                for (_Fields field : EnumSet.allOf(_Fields.class)) {
+                    byName.put(field.getFieldName(), field);
+                }
+            }
+            private final short _thriftId;
+            private final String _fieldName;
+
+            _Fields(short thriftId, String fieldName) {
+                _thriftId = thriftId;
+                _fieldName = fieldName;
+            }
+
+            /**
+             * Find the _Fields constant that matches fieldId, or null if its not found.
+             */
+            public static _Fields findByThriftId(int fieldId) {
+                switch (fieldId) {
+                    case 1: // REQUESTS
+                        return REQUESTS;
+                    case 2: // SESSION_ID
+                        return SESSION_ID;
+                    default:
+                        return null;
+                }
+            }
+
+            /**
+             * Find the _Fields constant that matches fieldId, throwing an exception
+             * if it is not found.
+             */
+            public static _Fields findByThriftIdOrThrow(int fieldId) {
+                _Fields fields = findByThriftId(fieldId);
+                if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+                return fields;
+            }
+
+            /**
+             * Find the _Fields constant that matches name, or null if its not found.
+             */
+            public static _Fields findByName(String name) {
+                return byName.get(name);
+            }
+
+            public short getThriftFieldId() {
+                return _thriftId;
+            }
+
+            public String getFieldName() {
+                return _fieldName;
+            }
+        }
+
+    }
+
+    public static class getDecisions_result implements org.apache.thrift.TBase<getDecisions_result, getDecisions_result._Fields>, java.io.Serializable, Cloneable {
+        public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+        static {
+            Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+            tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT,
+                    new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST,
+                            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
+            tmpMap.put(_Fields.E, new org.apache.thrift.meta_data.FieldMetaData("e", org.apache.thrift.TFieldRequirementType.DEFAULT,
+                    new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRUCT)));
+            metaDataMap = Collections.unmodifiableMap(tmpMap);
+            org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(getDecisions_result.class, metaDataMap);
+        }
+        private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("getDecisions_result");
+        private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.LIST, (short) 0);
+        private static final org.apache.thrift.protocol.TField E_FIELD_DESC = new org.apache.thrift.protocol.TField("e", org.apache.thrift.protocol.TType.STRUCT, (short) 1);
+        public List<String> success; // required
+
+        // isset id assignments
+        public EntitlementException e; // required
+
+        public getDecisions_result() {
+        }
+
+        public getDecisions_result(
+                List<String> success,
+                EntitlementException e) {
+            this();
+            this.success = success;
+            this.e = e;
+        }
+
+        /**
+         * Performs a deep copy on <i>other</i>.
+         */
+        public getDecisions_result(getDecisions_result other) {
+            if (other.isSetSuccess()) {
+                List<String> __this__success = new ArrayList<String>();
+                for (String other_element : other.success) {
+                    __this__success.add(other_element);
+                }
+                this.success = __this__success;
+            }
+            if (other.isSetE()) {
+                this.e = new EntitlementException(other.e);
+            }
+        }
+
+        public getDecisions_result deepCopy() {
+            return new getDecisions_result(this);
+        }
+
+        @Override
+        public void clear() {
+            this.success = null;
+            this.e = null;
+        }
+
+        public int getSuccessSize() {
+            return (this.success == null) ? 0 : this.success.size();
+        }
+
+        public java.util.Iterator<String> getSuccessIterator() {
+            return (this.success == null) ? null : this.success.iterator();
+        }
+
+        public void addToSuccess(String elem) {
+            if (this.success == null) {
+                this.success = new ArrayList<String>();
+            }
+            this.success.add(elem);
+        }
+
+        public List<String> getSuccess() {
+            return this.success;
+        }
+
+        public getDecisions_result setSuccess(List<String> success) {
+            this.success = success;
+            return this;
+        }
+
+        public void unsetSuccess() {
+            this.success = null;
+        }
+
+        /**
+         * Returns true if field success is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetSuccess() {
+            return this.success != null;
+        }
+
+        public void setSuccessIsSet(boolean value) {
+            if (!value) {
+                this.success = null;
+            }
+        }
+
+        public EntitlementException getE() {
+            return this.e;
+        }
+
+        public getDecisions_result setE(EntitlementException e) {
+            this.e = e;
+            return this;
+        }
+
+        public void unsetE() {
+            this.e = null;
+        }
+
+        /**
+         * Returns true if field e is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetE() {
+            return this.e != null;
+        }
+
+        public void setEIsSet(boolean value) {
+            if (!value) {
+                this.e = null;
+            }
+        }
+
+        public void setFieldValue(_Fields field, Object value) {
+            switch (field) {
+                case SUCCESS:
+                    if (value == null) {
+                        unsetSuccess();
+                    } else {
+                        setSuccess((List<String>) value);
+                    }
+                    break;
+
+                case E:
+                    if (value == null) {
+                        unsetE();
+                    } else {
+                        setE((EntitlementException) value);
+                    }
+                    break;
+
+            }
+        }
+
+        public Object getFieldValue(_Fields field) {
+            switch (field) {
+                case SUCCESS:
+                    return getSuccess();
+
+                case E:
+                    return getE();
+
+            }
+            throw new IllegalStateException();
+        }
+
+        /**
+         * Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSet(_Fields field) {
+            if (field == null) {
+                throw new IllegalArgumentException();
+            }
+
+            switch (field) {
+                case SUCCESS:
+                    return isSetSuccess();
+                case E:
+                    return isSetE();
+            }
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            if (that == null)
+                return false;
+            if (that instanceof getDecisions_result)
+                return this.equals((getDecisions_result) that);
+            return false;
+        }
+
+        public boolean equals(getDecisions_result that) {
+            if (that == null)
+                return false;
+
+            boolean this_present_success = true && this.isSetSuccess();
+            boolean that_present_success = true && that.isSetSuccess();
+            if (this_present_success || that_present_success) {
+                if (!(this_present_success && that_present_success))
+                    return false;
+                if (!this.success.equals(that.success))
+                    return false;
+            }
+
+            boolean this_present_e = true && this.isSetE();
+            boolean that_present_e = true && that.isSetE();
+            if (this_present_e || that_present_e) {
+                if (!(this_present_e && that_present_e))
+                    return false;
+                if (!this.e.equals(that.e))
+                    return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        public int compareTo(getDecisions_result other) {
+            if (!getClass().equals(other.getClass())) {
+                return getClass().getName().compareTo(other.getClass().getName());
+            }
+
+            int lastComparison = 0;
+            getDecisions_result typedOther = (getDecisions_result) other;
+
+            lastComparison = Boolean.valueOf(isSetSuccess()).compareTo(typedOther.isSetSuccess());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetSuccess()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.success, typedOther.success);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            lastComparison = Boolean.valueOf(isSetE()).compareTo(typedOther.isSetE());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetE()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.e, typedOther.e);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            return 0;
+        }
+
+        public _Fields fieldForId(int fieldId) {
+            return _Fields.findByThriftId(fieldId);
+        }
+
+        public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+            org.apache.thrift.protocol.TField field;
+            iprot.readStructBegin();
+            while (true) {
+                field = iprot.readFieldBegin();
+                if (field.type == org.apache.thrift.protocol.TType.STOP) {
+                    break;
+                }
+                switch (field.id) {
+                    case 0: // SUCCESS
+                        if (field.type == org.apache.thrift.protocol.TType.LIST) {
+                            {
+                                org.apache.thrift.protocol.TList _list4 = iprot.readListBegin();
+                                this.success = new ArrayList<String>(_list4.size);
+                                for (int _i5 = 0; _i5 < _list4.size; ++_i5) {
+                                    String _elem6; // required
+                                    _elem6 = iprot.readString();
+                                    this.success.add(_elem6);
+                                }
+                                iprot.readListEnd();
+                            }
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    case 1: // E
+                        if (field.type == org.apache.thrift.protocol.TType.STRUCT) {
+                            this.e = new EntitlementException();
+                            this.e.read(iprot);
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    default:
+                        org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                }
+                iprot.readFieldEnd();
+            }
+            iprot.readStructEnd();
+
+            // check for required fields of primitive type, which can't be checked in the validate method
+            validate();
+        }
+
+        public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+            oprot.writeStructBegin(STRUCT_DESC);
+
+            if (this.isSetSuccess()) {
+                oprot.writeFieldBegin(SUCCESS_FIELD_DESC);
+                {
+                    oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, this.success.size()));
+                    for (String _iter7 : this.success) {
+                        oprot.writeString(_iter7);
+                    }
+                    oprot.writeListEnd();
+                }
+                oprot.writeFieldEnd();
+            } else if (this.isSetE()) {
+                oprot.writeFieldBegin(E_FIELD_DESC);
+                this.e.write(oprot);
+                oprot.writeFieldEnd();
+            }
+            oprot.writeFieldStop();
+            oprot.writeStructEnd();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("getDecisions_result(");
+            boolean first = true;
+
+            sb.append("success:");
+            if (this.success == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.success);
+            }
+            first = false;
+            if (!first) sb.append(", ");
+            sb.append("e:");
+            if (this.e == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.e);
+            }
+            first = false;
+            sb.append(")");
+            return sb.toString();
+        }
+
+        public void validate() throws org.apache.thrift.TException {
+            // check for required fields
+        }
+
+        private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+            try {
+                write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+            } catch (org.apache.thrift.TException te) {
+                throw new java.io.IOException(te);
+            }
+        }
+
+        private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+            try {
+                read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+            } catch (org.apache.thrift.TException te) {
+                throw new java.io.IOException(te);
+            }
+        }
+
+        /**
+         * The set of fields this struct contains, along with convenience methods for finding and manipulating them.
+         */
+        public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+            SUCCESS((short) 0, "success"),
+            E((short) 1, "e");
+
+            private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+            static {
+                for (_Fields field : EnumSet.allOf(_Fields.class)) {
+                    byName.put(field.getFieldName(), field);
+                }
+            }
+            private final short _thriftId;
+            private final String _fieldName;
+
+            _Fields(short thriftId, String fieldName) {
+                _thriftId = thriftId;
+                _fieldName = fieldName;
+            }
+
+            /**
+             * Find the _Fields constant that matches fieldId, or null if its not found.
+             */
+            public static _Fields findByThriftId(int fieldId) {
+                switch (fieldId) {
+                    case 0: // SUCCESS
+                        return SUCCESS;
+                    case 1: // E
+                        return E;
+                    default:
+                        return null;
+                }
+            }
+
+            /**
+             * Find the _Fields constant that matches fieldId, throwing an exception
+             * if it is not found.
+             */
+            public static _Fields findByThriftIdOrThrow(int fieldId) {
+                _Fields fields = findByThriftId(fieldId);
+                if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+                return fields;
+            }
+
+            /**
+             * Find the _Fields constant that matches name, or null if its not found.
+             */
+            public static _Fields findByName(String name) {
+                return byName.get(name);
+            }
+
+            public short getThriftFieldId() {
+                return _thriftId;
+            }
+
+            public String getFieldName() {
+                return _fieldName;
+            }
+        }
+
+    }
 }
@@ -24,6 +24,7 @@ import org.wso2.carbon.identity.entitlement.dto.AttributeDTO;
 import org.wso2.carbon.identity.entitlement.dto.EntitledResultSetDTO;
 import org.wso2.carbon.identity.thrift.authentication.ThriftAuthenticatorService;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -124,6 +125,50 @@ public class ThriftEntitlementServiceImpl implements EntitlementService.Iface {
     }
 
 
+    /**
+     * Thrift based service method that wraps the bulk decision evaluation in EntitlementService
+     *
+     * @param requests  : XACML requests
+     * @param sessionId : a sessionId obtained by authenticating to thrift based authentication
+     *                  service.
+     * @return XACML responses in the order of the requests
+     * @throws EntitlementException
+     * @throws TException
+     */
+    public List<String> getDecisions(List<String> requests, String sessionId) throws EntitlementException,
+            TException {
+        try {
+            if (thriftAuthenticatorService != null && entitlementService != null) {
+                /* Authenticate session from thrift based authentication service. */
+                if (thriftAuthenticatorService.isAuthenticated(sessionId)) {
+                    try {
+                        return Arrays.asList(entitlementService.getDecisions(
+                                requests.toArray(new String[requests.size()])));
+                    } catch (Exception e) {
+                        String error = "Error while evaluating XACML decisions from thrift service";
+                        log.error(error, e);
+                        throw new EntitlementException(error);
+                    }
+                } else {
+                    String authErrorMsg = "User is not authenticated. Please login first.";
+                    log.error(authErrorMsg);
+                    throw new EntitlementException(authErrorMsg);
+                }
+
+            } else {
+                String initErrorMsg = "Thrift Authenticator service or Entitlement "
+                        + "service is not initialized.";
+                log.error(initErrorMsg);
+                throw new EntitlementException(initErrorMsg);
+            }
+        } catch (Exception e) {
+            String errorMsg = "Error occurred when invoking the Thrift based Entitlement Service.";
+            log.error(errorMsg, e);
+            throw new EntitlementException(errorMsg);
+        }
+    }
+
+
     public EntitledResultSetDTO getEntitledAttributes(String subjectName, String resourceName,
                                                       String subjectId, String action, boolean enableChildSearch,
                                                       String sessionID) throws EntitlementException, TException {
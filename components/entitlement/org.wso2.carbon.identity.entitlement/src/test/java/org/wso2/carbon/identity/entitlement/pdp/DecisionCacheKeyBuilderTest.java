@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.pdp;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.balana.ctx.RequestCtxFactory;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests the canonical decision cache keys of the DecisionCacheKeyBuilder.
+ */
+public class DecisionCacheKeyBuilderTest {
+
+    private static final String REQUEST = "<Request xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\" " +
+            "CombinedDecision=\"false\" ReturnPolicyIdList=\"false\">" +
+            "<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category:action\">" +
+            "<Attribute AttributeId=\"urn:oasis:names:tc:xacml:1.0:action:action-id\" IncludeInResult=\"false\">" +
+            "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">read</AttributeValue>" +
+            "</Attribute></Attributes>" +
+            "<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category:resource\">" +
+            "<Attribute AttributeId=\"urn:oasis:names:tc:xacml:1.0:resource:resource-id\" IncludeInResult=\"false\">" +
+            "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">foo</AttributeValue>" +
+            "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">bar</AttributeValue>" +
+            "</Attribute>" +
+            "<Attribute AttributeId=\"http://wso2.org/claims/role\" IncludeInResult=\"false\">" +
+            "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">admin</AttributeValue>" +
+            "</Attribute></Attributes></Request>";
+
+    @DataProvider(name = "equivalentRequests")
+    public Object[][] getEquivalentRequests() {
+
+        return new Object[][]{
+                // white spaces between the elements
+                {REQUEST.replace("><", ">\n    <")},
+                // order of the categories
+                {"<Request xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\" " +
+                        "CombinedDecision=\"false\" ReturnPolicyIdList=\"false\">" +
+                        "<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category:resource\">" +
+                        "<Attribute AttributeId=\"urn:oasis:names:tc:xacml:1.0:resource:resource-id\" " +
+                        "IncludeInResult=\"false\">" +
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">foo</AttributeValue>" +
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">bar</AttributeValue>" +
+                        "</Attribute>" +
+                        "<Attribute AttributeId=\"http://wso2.org/claims/role\" IncludeInResult=\"false\">" +
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">admin</AttributeValue>" +
+                        "</Attribute></Attributes>" +
+                        "<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category:action\">" +
+                        "<Attribute AttributeId=\"urn:oasis:names:tc:xacml:1.0:action:action-id\" " +
+                        "IncludeInResult=\"false\">" +
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">read</AttributeValue>" +
+                        "</Attribute></Attributes></Request>"},
+                // order of the attributes and of the attribute values
+                {"<Request xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\" " +
+                        "CombinedDecision=\"false\" ReturnPolicyIdList=\"false\">" +
+                        "<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category:action\">" +
+                        "<Attribute AttributeId=\"urn:oasis:names:tc:xacml:1.0:action:action-id\" " +
+                        "IncludeInResult=\"false\">" +
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">read</AttributeValue>" +
+                        "</Attribute></Attributes>" +
+                        "<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category:resource\">" +
+                        "<Attribute AttributeId=\"http://wso2.org/claims/role\" IncludeInResult=\"false\">" +
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">admin</AttributeValue>" +
+                        "</Attribute>" +
+                        "<Attribute AttributeId=\"urn:oasis:names:tc:xacml:1.0:resource:resource-id\" " +
+                        "IncludeInResult=\"false\">" +
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">bar</AttributeValue>" +
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">foo</AttributeValue>" +
+                        "</Attribute></Attributes></Request>"},
+                // namespace prefix
+                {REQUEST.replace("<Request xmlns=", "<xacml:Request xmlns:xacml=")
+                        .replace("</Request>", "</xacml:Request>")
+                        .replace("<Attributes ", "<xacml:Attributes ")
+                        .replace("</Attributes>", "</xacml:Attributes>")
+                        .replace("<Attribute ", "<xacml:Attribute ")
+                        .replace("</Attribute>", "</xacml:Attribute>")
+                        .replace("<AttributeValue ", "<xacml:AttributeValue ")
+                        .replace("</AttributeValue>", "</xacml:AttributeValue>")},
+        };
+    }
+
+    @Test(dataProvider = "equivalentRequests")
+    public void testEquivalentRequestsHaveSameKey(String request) throws Exception {
+
+        String key = buildKey(REQUEST);
+        assertNotNull(key);
+        assertEquals(buildKey(request), key);
+    }
+
+    @DataProvider(name = "differentRequests")
+    public Object[][] getDifferentRequests() {
+
+        return new Object[][]{
+                // attribute value
+                {REQUEST.replace(">read<", ">write<")},
+                // value moved to another attribute
+                {REQUEST.replace(">admin<", ">foo<").replace(">foo</AttributeValue><AttributeValue",
+                        ">admin</AttributeValue><AttributeValue")},
+                // attribute moved to another category
+                {REQUEST.replace("urn:oasis:names:tc:xacml:3.0:attribute-category:action",
+                        "urn:oasis:names:tc:xacml:1.0:subject-category:access-subject")},
+                // missing attribute value
+                {REQUEST.replace("<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">bar" +
+                        "</AttributeValue>", "")},
+                // data type
+                {REQUEST.replace("<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">read",
+                        "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#anyURI\">read")},
+                // issuer
+                {REQUEST.replace("AttributeId=\"http://wso2.org/claims/role\"",
+                        "AttributeId=\"http://wso2.org/claims/role\" Issuer=\"idp\"")},
+                // included in the result
+                {REQUEST.replace("AttributeId=\"http://wso2.org/claims/role\" IncludeInResult=\"false\"",
+                        "AttributeId=\"http://wso2.org/claims/role\" IncludeInResult=\"true\"")},
+                // policy identifiers returned
+                {REQUEST.replace("ReturnPolicyIdList=\"false\"", "ReturnPolicyIdList=\"true\"")},
+        };
+    }
+
+    @Test(dataProvider = "differentRequests")
+    public void testDifferentRequestsHaveDifferentKeys(String request) throws Exception {
+
+        String key = buildKey(request);
+        assertNotNull(key);
+        assertNotEquals(key, buildKey(REQUEST));
+    }
+
+    @Test
+    public void testMultipleDecisionRequestIsNotSupported() throws Exception {
+
+        String request = REQUEST.replace("<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category" +
+                ":action\">", "<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category:action\" " +
+                "xml:id=\"action\">").replace("</Request>", "<MultiRequests><RequestReference>" +
+                "<AttributesReference ReferenceId=\"action\"/></RequestReference></MultiRequests></Request>");
+
+        assertNull(buildKey(request));
+    }
+
+    private String buildKey(String request) throws Exception {
+
+        return DecisionCacheKeyBuilder.buildKey(RequestCtxFactory.getFactory().getRequestCtx(request));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.pip;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the AttributeFetchCoalescer.
+ */
+public class AttributeFetchCoalescerTest {
+
+    private static final String KEY = "-1234[alice][http://wso2.org/claims/role]";
+
+    @Test
+    public void testConcurrentFetchesShareOneLoad() throws Exception {
+
+        AttributeFetchCoalescer<Set<String>> coalescer = new CopyingCoalescer();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoad = new CountDownLatch(1);
+        final Callable<Set<String>> loader = new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() throws Exception {
+                loads.incrementAndGet();
+                loadStarted.countDown();
+                releaseLoad.await(10, TimeUnit.SECONDS);
+                return new HashSet<String>(Collections.singleton("admin"));
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Set<String>> loaded = executor.submit(fetch(coalescer, loader));
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            WaitingFetch waitingFetch = new WaitingFetch(coalescer, loader);
+            Thread waiter = new Thread(waitingFetch);
+            waiter.start();
+            awaitWaiting(waiter);
+            releaseLoad.countDown();
+            waiter.join(10000);
+
+            assertEquals(loads.get(), 1);
+            Set<String> loadedValues = loaded.get(10, TimeUnit.SECONDS);
+            assertEquals(waitingFetch.values, loadedValues);
+            assertNotSame(waitingFetch.values, loadedValues);
+
+            // the waiting thread owns its copy
+            waitingFetch.values.add("everyone");
+            assertEquals(loadedValues, Collections.singleton("admin"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompletedFetchIsNotRetained() throws Exception {
+
+        AttributeFetchCoalescer<Set<String>> coalescer = new CopyingCoalescer();
+        final AtomicInteger loads = new AtomicInteger();
+        Callable<Set<String>> loader = new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() {
+                loads.incrementAndGet();
+                return Collections.singleton("admin");
+            }
+        };
+
+        coalescer.fetch(KEY, loader);
+        coalescer.fetch(KEY, loader);
+
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testLoaderFailureIsThrown() throws Exception {
+
+        AttributeFetchCoalescer<Set<String>> coalescer = new CopyingCoalescer();
+        final Exception failure = new Exception("user store is not available");
+        Callable<Set<String>> failingLoader = new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() throws Exception {
+                throw failure;
+            }
+        };
+
+        try {
+            coalescer.fetch(KEY, failingLoader);
+            fail("The failure of the loader should be thrown");
+        } catch (Exception e) {
+            assertEquals(e, failure);
+        }
+
+        // a failed fetch does not block the next fetch of the key
+        assertEquals(coalescer.fetch(KEY, new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() {
+                return Collections.singleton("admin");
+            }
+        }), Collections.singleton("admin"));
+    }
+
+    private static Callable<Set<String>> fetch(final AttributeFetchCoalescer<Set<String>> coalescer,
+                                               final Callable<Set<String>> loader) {
+
+        return new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() throws Exception {
+                return coalescer.fetch(KEY, loader);
+            }
+        };
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(thread.getState(), Thread.State.WAITING);
+    }
+
+    private static class CopyingCoalescer extends AttributeFetchCoalescer<Set<String>> {
+
+        @Override
+        protected Set<String> copyForWaiter(Set<String> value) {
+            return new HashSet<String>(value);
+        }
+    }
+
+    private static class WaitingFetch implements Runnable {
+
+        private final AttributeFetchCoalescer<Set<String>> coalescer;
+        private final Callable<Set<String>> loader;
+        private volatile Set<String> values;
+
+        private WaitingFetch(AttributeFetchCoalescer<Set<String>> coalescer, Callable<Set<String>> loader) {
+            this.coalescer = coalescer;
+            this.loader = loader;
+        }
+
+        @Override
+        public void run() {
+            try {
+                values = coalescer.fetch(KEY, loader);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.pip;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.api.UserRealm;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.aryEq;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the claim prefetching of the DefaultAttributeFinder.
+ */
+@PrepareForTest(CarbonContext.class)
+public class DefaultAttributeFinderTest {
+
+    private static final String EMAIL = "http://wso2.org/claims/emailaddress";
+    private static final String COUNTRY = "http://wso2.org/claims/country";
+
+    private UserStoreManager userStoreManager;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        userStoreManager = mock(UserStoreManager.class);
+        UserRealm userRealm = mock(UserRealm.class);
+        when(userRealm.getUserStoreManager()).thenReturn(userStoreManager);
+        when(userRealm.getRealmConfiguration()).thenReturn(mock(RealmConfiguration.class));
+        CarbonContext carbonContext = mock(CarbonContext.class);
+        when(carbonContext.getTenantId()).thenReturn(-1234);
+        when(carbonContext.getUserRealm()).thenReturn(userRealm);
+        mockStatic(CarbonContext.class);
+        when(CarbonContext.getThreadLocalCarbonContext()).thenReturn(carbonContext);
+    }
+
+    @Test
+    public void testPrefetchedClaimsAreReused() throws Exception {
+
+        Map<String, String> claims = new HashMap<String, String>();
+        claims.put(EMAIL, "alice@wso2.com");
+        when(userStoreManager.getUserClaimValues(eq("alice"), any(String[].class), anyString())).thenReturn(claims);
+        DefaultAttributeFinder finder = getFinder("60000");
+
+        assertEquals(finder.getAttributeValues("alice", null, null, null, EMAIL, null),
+                Collections.singleton("alice@wso2.com"));
+        assertEquals(finder.getAttributeValues("alice", null, null, null, EMAIL, null),
+                Collections.singleton("alice@wso2.com"));
+
+        verify(userStoreManager, times(1)).getUserClaimValues(eq("alice"), aryEq(new String[]{EMAIL}),
+                (String) isNull());
+        verify(userStoreManager, never()).getUserClaimValue(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testNewClaimIsPrefetchedWithRequestedClaims() throws Exception {
+
+        Map<String, String> claims = new HashMap<String, String>();
+        claims.put(EMAIL, "alice@wso2.com");
+        claims.put(COUNTRY, "Sri Lanka");
+        when(userStoreManager.getUserClaimValues(eq("alice"), any(String[].class), anyString())).thenReturn(claims);
+        DefaultAttributeFinder finder = getFinder("60000");
+
+        finder.getAttributeValues("alice", null, null, null, EMAIL, null);
+        assertEquals(finder.getAttributeValues("alice", null, null, null, COUNTRY, null),
+                Collections.singleton("Sri Lanka"));
+        // the email claim is served from the second load
+        finder.getAttributeValues("alice", null, null, null, EMAIL, null);
+
+        verify(userStoreManager, times(2)).getUserClaimValues(eq("alice"), any(String[].class),
+                (String) isNull());
+    }
+
+    @Test
+    public void testFallbackToClaimValueWhenPrefetchIsNotUsable() throws Exception {
+
+        when(userStoreManager.getUserClaimValues(eq("alice"), any(String[].class), anyString()))
+                .thenReturn(Collections.<String, String>emptyMap());
+        when(userStoreManager.getUserClaimValue("alice", EMAIL, null)).thenReturn("alice@wso2.com");
+        // prefetched claims expire at once, hence the retried load is not usable either
+        DefaultAttributeFinder finder = getFinder("0");
+
+        assertEquals(finder.getAttributeValues("alice", null, null, null, EMAIL, null),
+                Collections.singleton("alice@wso2.com"));
+
+        verify(userStoreManager, times(2)).getUserClaimValues(eq("alice"), any(String[].class),
+                (String) isNull());
+        verify(userStoreManager, times(1)).getUserClaimValue("alice", EMAIL, null);
+    }
+
+    @Test
+    public void testPrefetchedSubjectsAreBounded() throws Exception {
+
+        when(userStoreManager.getUserClaimValues(anyString(), any(String[].class), anyString()))
+                .thenReturn(Collections.singletonMap(EMAIL, "user@wso2.com"));
+        DefaultAttributeFinder finder = getFinder("60000");
+
+        for (int i = 0; i < 999; i++) {
+            finder.getAttributeValues("user" + i, null, null, null, EMAIL, null);
+        }
+        // user0 becomes the most recently used subject, user1 the least recently used one
+        finder.getAttributeValues("user0", null, null, null, EMAIL, null);
+        finder.getAttributeValues("user999", null, null, null, EMAIL, null);
+        finder.getAttributeValues("user0", null, null, null, EMAIL, null);
+        finder.getAttributeValues("user1", null, null, null, EMAIL, null);
+
+        verify(userStoreManager, times(1)).getUserClaimValues(eq("user0"), any(String[].class),
+                (String) isNull());
+        verify(userStoreManager, times(2)).getUserClaimValues(eq("user1"), any(String[].class),
+                (String) isNull());
+    }
+
+    @Test
+    public void testPrefetchOfUnknownUser() throws Exception {
+
+        when(userStoreManager.getUserClaimValues(eq("bob"), any(String[].class), anyString()))
+                .thenThrow(new UserStoreException(IdentityCoreConstants.USER_NOT_FOUND + ": bob"));
+        DefaultAttributeFinder finder = getFinder("60000");
+
+        assertTrue(finder.getAttributeValues("bob", null, null, null, EMAIL, null).isEmpty());
+    }
+
+    private DefaultAttributeFinder getFinder(String prefetchCachingInterval) throws Exception {
+
+        Properties properties = new Properties();
+        properties.setProperty("PrefetchClaims", "true");
+        properties.setProperty("PrefetchCachingInterval", prefetchCachingInterval);
+        DefaultAttributeFinder finder = new DefaultAttributeFinder();
+        finder.init(properties);
+        return finder;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.policy.collection;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.wso2.balana.AbstractPolicy;
+import org.wso2.balana.Balana;
+import org.wso2.balana.Policy;
+import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.EvaluationCtx;
+import org.wso2.balana.ctx.EvaluationCtxFactory;
+import org.wso2.balana.ctx.RequestCtxFactory;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Properties;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests the target index of the IndexedPolicyCollection.
+ */
+public class IndexedPolicyCollectionTest {
+
+    private static final String RESOURCE_CATEGORY = "urn:oasis:names:tc:xacml:3.0:attribute-category:resource";
+    private static final String RESOURCE_ID = "urn:oasis:names:tc:xacml:1.0:resource:resource-id";
+
+    private IndexedPolicyCollection policyCollection;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        policyCollection = new IndexedPolicyCollection();
+        policyCollection.init(new Properties());
+    }
+
+    @Test
+    public void testOnlyMatchingIndexedPolicyIsEvaluated() throws Exception {
+
+        AbstractPolicy fooPolicy = spy(getPolicy("fooPolicy", "foo", false));
+        AbstractPolicy barPolicy = spy(getPolicy("barPolicy", "bar", false));
+        policyCollection.addPolicy(fooPolicy);
+        policyCollection.addPolicy(barPolicy);
+
+        assertEquals(policyCollection.getEffectivePolicy(getEvaluationCtx("foo")).getId(), fooPolicy.getId());
+        verify(barPolicy, never()).match(any(EvaluationCtx.class));
+    }
+
+    @Test
+    public void testNoCandidateReturnsNull() throws Exception {
+
+        policyCollection.addPolicy(getPolicy("fooPolicy", "foo", false));
+
+        assertNull(policyCollection.getEffectivePolicy(getEvaluationCtx("baz")));
+    }
+
+    @Test(expectedExceptions = EntitlementException.class)
+    public void testMustBePresentPolicyIsNotIndexed() throws Exception {
+
+        // The policy is Indeterminate for a request without the attribute, hence it must still be evaluated.
+        policyCollection.addPolicy(getPolicy("fooPolicy", "foo", true));
+
+        policyCollection.getEffectivePolicy(getEvaluationCtxWithoutResource());
+    }
+
+    @Test
+    public void testIndexIsRebuiltOnDelete() throws Exception {
+
+        AbstractPolicy fooPolicy = getPolicy("fooPolicy", "foo", false);
+        policyCollection.addPolicy(fooPolicy);
+        assertEquals(policyCollection.getEffectivePolicy(getEvaluationCtx("foo")).getId(), fooPolicy.getId());
+
+        policyCollection.deletePolicy(fooPolicy.getId().toString());
+
+        assertNull(policyCollection.getEffectivePolicy(getEvaluationCtx("foo")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPolicyMapChangesDoNotBypassTheIndex() throws Exception {
+
+        AbstractPolicy fooPolicy = getPolicy("fooPolicy", "foo", false);
+        policyCollection.addPolicy(fooPolicy);
+        assertEquals(policyCollection.getEffectivePolicy(getEvaluationCtx("foo")).getId(), fooPolicy.getId());
+
+        LinkedHashMap<URI, AbstractPolicy> policyMap = policyCollection.getPolicyMap();
+        policyMap.clear();
+        assertEquals(policyCollection.getEffectivePolicy(getEvaluationCtx("foo")).getId(), fooPolicy.getId());
+
+        AbstractPolicy barPolicy = getPolicy("barPolicy", "bar", false);
+        policyMap.put(barPolicy.getId(), barPolicy);
+        policyCollection.setPolicyMap(policyMap);
+        assertNull(policyCollection.getEffectivePolicy(getEvaluationCtx("foo")));
+        assertEquals(policyCollection.getEffectivePolicy(getEvaluationCtx("bar")).getId(), barPolicy.getId());
+    }
+
+    private AbstractPolicy getPolicy(String policyId, String resource, boolean mustBePresent) throws Exception {
+
+        String policy = "<Policy xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\" PolicyId=\"" + policyId +
+                "\" RuleCombiningAlgId=\"urn:oasis:names:tc:xacml:3.0:rule-combining-algorithm:deny-overrides\" " +
+                "Version=\"1.0\"><Target><AnyOf><AllOf>" +
+                "<Match MatchId=\"urn:oasis:names:tc:xacml:1.0:function:string-equal\">" +
+                "<AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">" + resource +
+                "</AttributeValue><AttributeDesignator AttributeId=\"" + RESOURCE_ID + "\" Category=\"" +
+                RESOURCE_CATEGORY + "\" DataType=\"http://www.w3.org/2001/XMLSchema#string\" MustBePresent=\"" +
+                mustBePresent + "\"/></Match></AllOf></AnyOf></Target>" +
+                "<Rule Effect=\"Permit\" RuleId=\"permit\"/></Policy>";
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        Document document = documentBuilderFactory.newDocumentBuilder()
+                .parse(new ByteArrayInputStream(policy.getBytes(StandardCharsets.UTF_8)));
+        return Policy.getInstance(document.getDocumentElement());
+    }
+
+    private EvaluationCtx getEvaluationCtx(String resource) throws Exception {
+
+        return getEvaluationCtx("<Attributes Category=\"" + RESOURCE_CATEGORY + "\"><Attribute AttributeId=\"" +
+                RESOURCE_ID + "\" IncludeInResult=\"false\"><AttributeValue " +
+                "DataType=\"http://www.w3.org/2001/XMLSchema#string\">" + resource +
+                "</AttributeValue></Attribute></Attributes>");
+    }
+
+    private EvaluationCtx getEvaluationCtxWithoutResource() throws Exception {
+
+        return getEvaluationCtx("<Attributes Category=\"urn:oasis:names:tc:xacml:3.0:attribute-category:action\">" +
+                "<Attribute AttributeId=\"urn:oasis:names:tc:xacml:1.0:action:action-id\" " +
+                "IncludeInResult=\"false\"><AttributeValue DataType=\"http://www.w3.org/2001/XMLSchema#string\">" +
+                "read</AttributeValue></Attribute></Attributes>");
+    }
+
+    private EvaluationCtx getEvaluationCtx(String attributes) throws Exception {
+
+        String request = "<Request xmlns=\"urn:oasis:names:tc:xacml:3.0:core:schema:wd-17\" " +
+                "CombinedDecision=\"false\" ReturnPolicyIdList=\"false\">" + attributes + "</Request>";
+        AbstractRequestCtx requestCtx = RequestCtxFactory.getFactory().getRequestCtx(request);
+        return EvaluationCtxFactory.getFactory().getEvaluationCtx(requestCtx, Balana.getInstance().getPdpConfig());
+    }
+}
@@ -23,18 +23,25 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.bean.context.MessageContext;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Collections.sort;
 
 /**
  * HandlerManager class can be used to get the correct handlers just before execute it either
- * list or first priority one
+ * list or first priority one. The sorted handlers used to pick the first priority handler are kept per set of handlers
+ * in the given list, hence they are rebuilt only when the handlers registered in the list change.
  */
 public class HandlerManager {
 
     private static Log log = LogFactory.getLog(AbstractIdentityMessageHandler.class);
     private static HandlerManager handlerManager = new HandlerManager();
+    private static final int MAX_HANDLER_CHAINS = 100;
+
+    private final Map<HandlerChainKey, HandlerChain<?>> handlerChains = new ConcurrentHashMap<>();
 
     private HandlerManager(){
 
@@ -62,22 +69,10 @@ public class HandlerManager {
         if(identityHandlers == null || identityHandlers.isEmpty()){
             return null ;
         }
-        T identityHandler = null;
-
-        sort(identityHandlers, new HandlerComparator());
+        List<T> handlerChain = getSortedHandlers(identityHandlers, isEnableHandlersOnly);
+        T identityHandler = handlerChain.isEmpty() ? null : handlerChain.get(0);
 
-        for (T identityHandlerTmp : identityHandlers) {
-            if (isEnableHandlersOnly) {
-                if (identityHandlerTmp.isEnabled()) {
-                    identityHandler = identityHandlerTmp;
-                    break;
-                }
-            } else {
-                identityHandler = identityHandlerTmp;
-                break;
-            }
-        }
-        if(log.isDebugEnabled()){
+        if (log.isDebugEnabled() && identityHandler != null) {
             log.debug("Get first priority handler : " + identityHandler.getName() + "(" +
                     identityHandler.getClass().getName() + ")");
         }
@@ -85,7 +80,7 @@ public class HandlerManager {
     }
 
     /**
-     * Sort and filter enabled handlers.
+     * Sort and filter enabled handlers. The given list is sorted in place.
      *
      * @param identityHandlers
      * @param isEnableHandlersOnly
@@ -130,24 +125,14 @@ public class HandlerManager {
         }
         T1 identityMessageHandler = null;
 
-        sort(identityMessageHandlers, new MessageHandlerComparator(messageContext));
-
-        for (T1 identityHandlerTmp : identityMessageHandlers) {
-            if (isEnableHandlersOnly) {
-                if (identityHandlerTmp.isEnabled(messageContext)) {
-                    if (identityHandlerTmp.canHandle(messageContext)) {
-                        identityMessageHandler = identityHandlerTmp;
-                        break;
-                    }
-                }
-            } else {
-                if (identityHandlerTmp.canHandle(messageContext)) {
-                    identityMessageHandler = identityHandlerTmp;
-                    break;
-                }
+        for (T1 identityHandlerTmp : getSortedHandlers(identityMessageHandlers, isEnableHandlersOnly,
+                messageContext)) {
+            if (identityHandlerTmp.canHandle(messageContext)) {
+                identityMessageHandler = identityHandlerTmp;
+                break;
             }
         }
-        if(log.isDebugEnabled()){
+        if (log.isDebugEnabled() && identityMessageHandler != null) {
             log.debug("Get first priority handler : " + identityMessageHandler.getName() + "(" +
                     identityMessageHandler.getClass().getName() + ")");
         }
@@ -156,7 +141,7 @@ public class HandlerManager {
 
 
     /**
-     * Sort and filter enabled handlers.
+     * Sort and filter enabled handlers. The given list is sorted in place.
      *
      * @param identityMessageHandlers
      * @param isEnableHandlersOnly
@@ -185,5 +170,257 @@ public class HandlerManager {
         return identityMessageHandlerList;
     }
 
+    /**
+     * Returns the sorted, and optionally filtered, handlers without modifying the given list. Unless a handler
+     * decides its priority or state at runtime, the returned list is a pre-sorted chain shared between invocations.
+     */
+    private <T extends IdentityHandler> List<T> getSortedHandlers(List<T> identityHandlers,
+                                                                 boolean isEnableHandlersOnly) {
 
+        HandlerChain<T> handlerChain = getHandlerChain(identityHandlers);
+        if (handlerChain != null) {
+            return handlerChain.getHandlers(isEnableHandlersOnly);
+        }
+
+        // Some handlers decide their priority or state at runtime, hence they are sorted and filtered per call.
+        List<T> identityHandlerList = new ArrayList<>(identityHandlers);
+        sort(identityHandlerList, new HandlerComparator());
+        if (isEnableHandlersOnly) {
+            List<T> enabledHandlers = new ArrayList<>();
+            for (T identityHandler : identityHandlerList) {
+                if (identityHandler.isEnabled()) {
+                    enabledHandlers.add(identityHandler);
+                }
+            }
+            identityHandlerList = enabledHandlers;
+        }
+        return identityHandlerList;
+    }
+
+    /**
+     * Returns the sorted, and optionally filtered, message handlers without modifying the given list. Unless a
+     * handler decides its priority or state based on the message context, the returned list is a pre-sorted chain
+     * shared between invocations.
+     */
+    private <T extends IdentityMessageHandler> List<T> getSortedHandlers(List<T> identityMessageHandlers,
+                                                                        boolean isEnableHandlersOnly,
+                                                                        MessageContext messageContext) {
+
+        HandlerChain<T> handlerChain = getMessageHandlerChain(identityMessageHandlers, messageContext);
+        if (handlerChain != null) {
+            return handlerChain.getHandlers(isEnableHandlersOnly);
+        }
+
+        // Some handlers depend on the message context, hence they are sorted and filtered for each message.
+        List<T> identityMessageHandlerList = new ArrayList<>(identityMessageHandlers);
+        sort(identityMessageHandlerList, new MessageHandlerComparator(messageContext));
+        if (isEnableHandlersOnly) {
+            List<T> enabledHandlers = new ArrayList<>();
+            for (T identityMessageHandler : identityMessageHandlerList) {
+                if (identityMessageHandler.isEnabled(messageContext)) {
+                    enabledHandlers.add(identityMessageHandler);
+                }
+            }
+            identityMessageHandlerList = enabledHandlers;
+        }
+        return identityMessageHandlerList;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends IdentityHandler> HandlerChain<T> getHandlerChain(List<T> identityHandlers) {
+
+        Object[] handlers = identityHandlers.toArray();
+        HandlerChainKey key = new HandlerChainKey(handlers, false);
+        HandlerChain<T> handlerChain = (HandlerChain<T>) handlerChains.get(key);
+        if (handlerChain != null) {
+            return handlerChain.isContextDependent() ? null : handlerChain;
+        }
+
+        // The handler registrations have changed since the chain was built, or this is the first invocation.
+        for (Object handler : handlers) {
+            if (isDynamic((IdentityHandler) handler)) {
+                putHandlerChain(key, new HandlerChain<T>());
+                return null;
+            }
+        }
+
+        List<T> sortedHandlers = new ArrayList<>(handlers.length);
+        for (Object handler : handlers) {
+            sortedHandlers.add((T) handler);
+        }
+        sort(sortedHandlers, new HandlerComparator());
+        List<T> enabledHandlers = new ArrayList<>(sortedHandlers.size());
+        for (T identityHandler : sortedHandlers) {
+            if (identityHandler.isEnabled()) {
+                enabledHandlers.add(identityHandler);
+            }
+        }
+        handlerChain = new HandlerChain<>(sortedHandlers, enabledHandlers);
+        putHandlerChain(key, handlerChain);
+        return handlerChain;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends IdentityMessageHandler> HandlerChain<T> getMessageHandlerChain(
+            List<T> identityMessageHandlers, MessageContext messageContext) {
+
+        Object[] handlers = identityMessageHandlers.toArray();
+        HandlerChainKey key = new HandlerChainKey(handlers, true);
+        HandlerChain<T> handlerChain = (HandlerChain<T>) handlerChains.get(key);
+        if (handlerChain != null) {
+            return handlerChain.isContextDependent() ? null : handlerChain;
+        }
+
+        for (Object handler : handlers) {
+            if (isContextDependent((IdentityMessageHandler) handler)) {
+                putHandlerChain(key, new HandlerChain<T>());
+                return null;
+            }
+        }
+
+        List<T> sortedHandlers = new ArrayList<>(handlers.length);
+        for (Object handler : handlers) {
+            sortedHandlers.add((T) handler);
+        }
+        sort(sortedHandlers, new MessageHandlerComparator(messageContext));
+        List<T> enabledHandlers = new ArrayList<>(sortedHandlers.size());
+        for (T identityMessageHandler : sortedHandlers) {
+            if (identityMessageHandler.isEnabled(messageContext)) {
+                enabledHandlers.add(identityMessageHandler);
+            }
+        }
+        handlerChain = new HandlerChain<>(sortedHandlers, enabledHandlers);
+        putHandlerChain(key, handlerChain);
+        return handlerChain;
+    }
+
+    private void putHandlerChain(HandlerChainKey key, HandlerChain<?> handlerChain) {
+
+        // The chains of the handler sets replaced by registration changes are not used again, hence all the chains
+        // are dropped once the limit is reached, and the chains in use are rebuilt on their next invocation.
+        if (handlerChains.size() >= MAX_HANDLER_CHAINS) {
+            handlerChains.clear();
+        }
+        handlerChains.put(key, handlerChain);
+    }
+
+    /**
+     * Check whether the priority or the state of the handler may change at runtime. The handlers extending
+     * {@link AbstractIdentityHandler} read them only from the identity configuration.
+     *
+     * @param identityHandler
+     * @return true if the handler overrides the priority or the state evaluation
+     */
+    private boolean isDynamic(IdentityHandler identityHandler) {
+
+        try {
+            Class<?> handlerClass = identityHandler.getClass();
+            return handlerClass.getMethod("getPriority").getDeclaringClass() != AbstractIdentityHandler.class ||
+                    handlerClass.getMethod("isEnabled").getDeclaringClass() != AbstractIdentityHandler.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Check whether the priority or the state of the handler is decided based on the message context. The handlers
+     * extending {@link AbstractIdentityMessageHandler} read them only from the identity configuration.
+     *
+     * @param identityMessageHandler
+     * @return true if the handler overrides the priority or the state evaluation
+     */
+    private boolean isContextDependent(IdentityMessageHandler identityMessageHandler) {
+
+        try {
+            Class<?> handlerClass = identityMessageHandler.getClass();
+            return handlerClass.getMethod("getPriority", MessageContext.class).getDeclaringClass() !=
+                    AbstractIdentityMessageHandler.class ||
+                    handlerClass.getMethod("isEnabled", MessageContext.class).getDeclaringClass() !=
+                            AbstractIdentityMessageHandler.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Handlers of a handler list, in the order of the list. Two keys are equal when they hold the same handler
+     * instances in the same order, regardless of the list holding them.
+     */
+    private static class HandlerChainKey {
+
+        private final Object[] handlers;
+        private final boolean messageHandlers;
+        private final int hashCode;
+
+        HandlerChainKey(Object[] handlers, boolean messageHandlers) {
+
+            this.handlers = handlers;
+            this.messageHandlers = messageHandlers;
+            int hash = messageHandlers ? 1 : 0;
+            for (Object handler : handlers) {
+                hash = 31 * hash + System.identityHashCode(handler);
+            }
+            this.hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof HandlerChainKey)) {
+                return false;
+            }
+            HandlerChainKey that = (HandlerChainKey) o;
+            if (hashCode != that.hashCode || messageHandlers != that.messageHandlers ||
+                    handlers.length != that.handlers.length) {
+                return false;
+            }
+            for (int i = 0; i < handlers.length; i++) {
+                if (handlers[i] != that.handlers[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hashCode;
+        }
+    }
+
+    /**
+     * Sorted handlers of a set of handlers. A chain without sorted handlers marks a set of handlers which are sorted
+     * per invocation.
+     */
+    private static class HandlerChain<T> {
+
+        private final List<T> sortedHandlers;
+        private final List<T> enabledHandlers;
+
+        HandlerChain() {
+
+            this.sortedHandlers = null;
+            this.enabledHandlers = null;
+        }
+
+        HandlerChain(List<T> sortedHandlers, List<T> enabledHandlers) {
+
+            this.sortedHandlers = Collections.unmodifiableList(sortedHandlers);
+            this.enabledHandlers = Collections.unmodifiableList(enabledHandlers);
+        }
+
+        boolean isContextDependent() {
+
+            return sortedHandlers == null;
+        }
+
+        List<T> getHandlers(boolean isEnableHandlersOnly) {
+
+            return isEnableHandlersOnly ? enabledHandlers : sortedHandlers;
+        }
+    }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.handler;
+
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.bean.context.MessageContext;
+import org.wso2.carbon.identity.core.model.IdentityEventListenerConfig;
+import org.wso2.carbon.identity.core.model.IdentityEventListenerConfigKey;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Test cases for sorting and picking the handlers of a handler list. The test handlers extend the abstract handlers,
+ * hence their priority and state are read from the event listener configuration.
+ */
+public class HandlerManagerTest {
+
+    private Map<IdentityEventListenerConfigKey, IdentityEventListenerConfig> eventListenerConfiguration;
+    private Object originalEventListenerConfiguration;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        originalEventListenerConfiguration = Whitebox.getInternalState(IdentityUtil.class,
+                "eventListenerConfiguration");
+        eventListenerConfiguration = new HashMap<>();
+        Whitebox.setInternalState(IdentityUtil.class, "eventListenerConfiguration", eventListenerConfiguration);
+        configure(AbstractIdentityHandler.class, FirstHandler.class, 10, false);
+        configure(AbstractIdentityHandler.class, SecondHandler.class, 20, true);
+        configure(AbstractIdentityHandler.class, ThirdHandler.class, 30, true);
+        configure(AbstractIdentityMessageHandler.class, FirstMessageHandler.class, 10, true);
+        configure(AbstractIdentityMessageHandler.class, SecondMessageHandler.class, 20, true);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        Whitebox.setInternalState(IdentityUtil.class, "eventListenerConfiguration",
+                originalEventListenerConfiguration);
+    }
+
+    @Test
+    public void testSortHandlers() throws Exception {
+        IdentityHandler first = new FirstHandler();
+        IdentityHandler second = new SecondHandler();
+        IdentityHandler third = new ThirdHandler();
+        List<IdentityHandler> handlers = new ArrayList<>(Arrays.asList(third, first, second));
+
+        List<IdentityHandler> sortedHandlers = HandlerManager.getInstance().sortHandlers(handlers, false);
+        assertSame(sortedHandlers, handlers, "Handler list should be sorted in place");
+        assertEquals(handlers, Arrays.asList(first, second, third));
+
+        List<IdentityHandler> enabledHandlers = HandlerManager.getInstance().sortHandlers(handlers, true);
+        assertEquals(enabledHandlers, Arrays.asList(second, third));
+        enabledHandlers.remove(second);
+        assertEquals(handlers, Arrays.asList(first, second, third), "Handler list should not be modified");
+    }
+
+    @Test
+    public void testGetFirstPriorityHandler() throws Exception {
+        IdentityHandler first = new FirstHandler();
+        IdentityHandler second = new SecondHandler();
+        List<IdentityHandler> handlers = new ArrayList<>(Arrays.asList(second, first));
+
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, false), first);
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true), second);
+        assertEquals(handlers, Arrays.asList(second, first), "Handler list should not be modified");
+
+        IdentityHandler registered = new ThirdHandler();
+        configure(AbstractIdentityHandler.class, ThirdHandler.class, 5, true);
+        handlers.add(registered);
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true), registered,
+                "Handler chain should be rebuilt when a handler is registered");
+
+        handlers.remove(registered);
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true), second,
+                "Handler chain should be rebuilt when a handler is unregistered");
+    }
+
+    @Test
+    public void testGetFirstPriorityHandlerOfNewListWithSameHandlers() throws Exception {
+        IdentityHandler first = new FirstHandler();
+        IdentityHandler second = new SecondHandler();
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(
+                new ArrayList<>(Arrays.asList(second, first)), true), second);
+
+        // The chain built for the handlers is used for any list holding them, hence the changed configuration is
+        // not read again.
+        configure(AbstractIdentityHandler.class, FirstHandler.class, 10, true);
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(
+                new ArrayList<>(Arrays.asList(second, first)), true), second,
+                "Handler chain should be shared by the lists holding the same handlers");
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(
+                new ArrayList<>(Arrays.asList(first, second)), true), first,
+                "Handler chain should be built for the handlers in a different order");
+    }
+
+    @Test
+    public void testGetFirstPriorityHandlerWithDynamicState() throws Exception {
+        DynamicStateHandler first = new DynamicStateHandler();
+        IdentityHandler second = new SecondHandler();
+        List<IdentityHandler> handlers = new ArrayList<>(Arrays.asList(second, first));
+
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true), first);
+        first.enabled = false;
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true), second,
+                "State of a handler overriding isEnabled should be evaluated on each call");
+        assertEquals(handlers, Arrays.asList(second, first), "Handler list should not be modified");
+    }
+
+    @Test
+    public void testGetFirstPriorityHandlerWithoutEnabledHandlers() throws Exception {
+        List<IdentityHandler> handlers = new ArrayList<IdentityHandler>(Arrays.asList(new FirstHandler()));
+        assertNull(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true));
+    }
+
+    @Test
+    public void testGetFirstPriorityMessageHandler() throws Exception {
+        TestMessageContext messageContext = new TestMessageContext();
+        IdentityMessageHandler first = new FirstMessageHandler();
+        IdentityMessageHandler second = new SecondMessageHandler();
+        List<IdentityMessageHandler> handlers = new ArrayList<>(Arrays.asList(second, first));
+
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true, messageContext), first);
+        assertEquals(handlers, Arrays.asList(second, first), "Handler list should not be modified");
+
+        messageContext.handledBy = SecondMessageHandler.class;
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true, messageContext), second,
+                "Handlers which cannot handle the message should be skipped");
+    }
+
+    @Test
+    public void testGetFirstPriorityMessageHandlerWithContextDependentPriority() throws Exception {
+        TestMessageContext messageContext = new TestMessageContext();
+        IdentityMessageHandler first = new FirstMessageHandler();
+        IdentityMessageHandler contextDependent = new ContextDependentMessageHandler();
+        List<IdentityMessageHandler> handlers = new ArrayList<>(Arrays.asList(first, contextDependent));
+
+        messageContext.handledBy = null;
+        messageContext.priority = 5;
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true, messageContext),
+                contextDependent);
+        messageContext.priority = 15;
+        assertSame(HandlerManager.getInstance().getFirstPriorityHandler(handlers, true, messageContext), first,
+                "Priority of a handler overriding getPriority should be evaluated for each message");
+    }
+
+    private void configure(Class<?> type, Class<?> handlerClass, int order, boolean enabled) {
+        IdentityEventListenerConfigKey key = new IdentityEventListenerConfigKey(type.getName(),
+                handlerClass.getName());
+        eventListenerConfiguration.put(key, new IdentityEventListenerConfig(String.valueOf(enabled), order, key,
+                null));
+    }
+
+    private static class FirstHandler extends AbstractIdentityHandler {
+    }
+
+    private static class SecondHandler extends AbstractIdentityHandler {
+    }
+
+    private static class ThirdHandler extends AbstractIdentityHandler {
+    }
+
+    private static class DynamicStateHandler extends AbstractIdentityHandler {
+
+        private boolean enabled = true;
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public int getPriority() {
+            return 10;
+        }
+    }
+
+    private static class TestMessageContext extends MessageContext<String, String> {
+
+        private Class<?> handledBy;
+        private int priority;
+    }
+
+    private static class TestMessageHandler extends AbstractIdentityMessageHandler {
+
+        @Override
+        public boolean canHandle(MessageContext messageContext) {
+            Class<?> handledBy = ((TestMessageContext) messageContext).handledBy;
+            return handledBy == null || handledBy == getClass();
+        }
+    }
+
+    private static class FirstMessageHandler extends TestMessageHandler {
+    }
+
+    private static class SecondMessageHandler extends TestMessageHandler {
+    }
+
+    private static class ContextDependentMessageHandler extends TestMessageHandler {
+
+        @Override
+        public int getPriority(MessageContext messageContext) {
+            return ((TestMessageContext) messageContext).priority;
+        }
+    }
+}
@@ -23,33 +23,52 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.event.bean.IdentityEventMessageContext;
 import org.wso2.carbon.identity.event.event.Event;
 import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
-import org.wso2.carbon.identity.event.internal.IdentityEventServiceDataHolder;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * This has a queue inside. All publishers add events to this queue and this event distribution task is responsible
- * for distributing these events to Notification sending modules
+ * Distributes events to the event handlers which handle them asynchronously. Each handler has its own bounded event
+ * queue and worker threads, so that a slow handler does not delay the others. The thread pool size is the total
+ * number of worker threads, which is split evenly across the handlers that received events, with at least one
+ * thread per handler. When the queue of a handler is full, the configured overflow policy decides whether the
+ * publisher blocks, the event is dropped or the handler is run in the publisher thread.
  */
-public class EventDistributionTask implements Runnable {
+public class EventDistributionTask {
 
     private static final Log log = LogFactory.getLog(EventDistributionTask.class);
 
-    /**
-     * Queue used to add events by publishers.
-     */
-    private BlockingDeque<Event> eventQueue;
+    public static final String OVERFLOW_POLICY_BLOCK = "block";
+    public static final String OVERFLOW_POLICY_DROP = "drop";
+    public static final String OVERFLOW_POLICY_CALLER_RUNS = "caller";
+    public static final String DEFAULT_OVERFLOW_POLICY = OVERFLOW_POLICY_BLOCK;
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+
     /**
      * Registered message sending modules.
      */
     private List<AbstractEventHandler> notificationSendingModules;
     /**
-     * Condition to break event distribution task
+     * Executors of the handlers, keyed by the handler name.
      */
-    private volatile boolean running;
+    private Map<String, ThreadPoolExecutor> handlerExecutors = new ConcurrentHashMap<>();
+    /**
+     * Execution statistics of the handlers, keyed by the handler name.
+     */
+    private ConcurrentMap<String, EventHandlerStats> handlerStats = new ConcurrentHashMap<>();
+    private int threadPoolSize;
+    private int queueSize;
+    private String overflowPolicy;
+    private volatile boolean running = true;
 
     /**
      * Overridden constructor to initiate notification sending modules and thread pool size
@@ -58,52 +77,228 @@ public class EventDistributionTask implements Runnable {
      * @param threadPoolSize             Size of thread pool for notification sending components
      */
     public EventDistributionTask(List<AbstractEventHandler> notificationSendingModules, int threadPoolSize) {
+        this(notificationSendingModules, threadPoolSize, DEFAULT_QUEUE_SIZE, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    /**
+     * Initiates the task with bounded event queues for the handlers
+     *
+     * @param notificationSendingModules List of notification sending modules registered
+     * @param threadPoolSize             Total number of threads, split across the handlers
+     * @param queueSize                  Maximum number of events waiting in the queue of a handler
+     * @param overflowPolicy             Action taken when the queue of a handler is full. One of block, drop or caller
+     */
+    public EventDistributionTask(List<AbstractEventHandler> notificationSendingModules, int threadPoolSize,
+                                 int queueSize, String overflowPolicy) {
         this.notificationSendingModules = notificationSendingModules;
-        this.eventQueue = new LinkedBlockingDeque<Event>();
-        IdentityEventServiceDataHolder.getInstance().setThreadPool(Executors.newFixedThreadPool(threadPoolSize));
+        this.threadPoolSize = threadPoolSize;
+        this.queueSize = queueSize;
+        this.overflowPolicy = overflowPolicy;
     }
 
+    /**
+     * Distributes the event to all the enabled notification sending modules
+     *
+     * @param publisherEvent event to be distributed
+     */
     public void addEventToQueue(Event publisherEvent) {
-        this.eventQueue.add(publisherEvent);
+
+        IdentityEventMessageContext eventContext = new IdentityEventMessageContext(publisherEvent);
+        for (AbstractEventHandler module : notificationSendingModules) {
+            addEventToQueue(module, publisherEvent, eventContext);
+        }
+    }
+
+    /**
+     * Adds the event to the queue of the given handler
+     *
+     * @param module         handler which should handle the event
+     * @param publisherEvent event to be handled
+     */
+    public void addEventToQueue(AbstractEventHandler module, Event publisherEvent) {
+        addEventToQueue(module, publisherEvent, new IdentityEventMessageContext(publisherEvent));
+    }
+
+    private void addEventToQueue(final AbstractEventHandler module, final Event event,
+                                 IdentityEventMessageContext eventContext) {
+
+        // If the module is subscribed to the event, module will be executed.
+        if (!running || !module.isEnabled(eventContext)) {
+            return;
+        }
+        final String handlerName = getHandlerName(module);
+        // Create a runnable and submit to the executor of the handler for sending message.
+        Runnable msgSender = new Runnable() {
+            @Override
+            public void run() {
+                if (log.isDebugEnabled()) {
+                    log.debug("Executing " + handlerName + " on event" + event.getEventName());
+                }
+                long startTime = System.nanoTime();
+                boolean failed = false;
+                try {
+                    module.handleEvent(event);
+                } catch (IdentityEventException | RuntimeException e) {
+                    failed = true;
+                    log.error("Error while invoking notification sending module " + handlerName, e);
+                } finally {
+                    getHandlerStats(handlerName).recordInvocation(System.nanoTime() - startTime, failed);
+                }
+            }
+        };
+        getHandlerExecutor(handlerName).execute(msgSender);
+    }
+
+    /**
+     * Returns the number of events waiting in the queue of the given handler
+     *
+     * @param handlerName name of the handler
+     * @return number of queued events
+     */
+    public int getQueueDepth(String handlerName) {
+
+        ThreadPoolExecutor executor = handlerExecutors.get(handlerName);
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * Returns the execution statistics of the given handler
+     *
+     * @param handlerName name of the handler
+     * @return execution statistics of the handler
+     */
+    public EventHandlerStats getHandlerStats(String handlerName) {
+
+        EventHandlerStats stats = handlerStats.get(handlerName);
+        if (stats == null) {
+            stats = new EventHandlerStats();
+            EventHandlerStats existingStats = handlerStats.putIfAbsent(handlerName, stats);
+            if (existingStats != null) {
+                stats = existingStats;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the execution statistics of all the handlers
+     *
+     * @return execution statistics keyed by the handler name
+     */
+    public Map<String, EventHandlerStats> getHandlerStats() {
+        return Collections.unmodifiableMap(handlerStats);
     }
 
-    @Override
-    public void run() {
-        running = true;
-        // Run forever until stop the bundle. Will stop in eventQueue.take()
-        while (running) {
-            try {
-                final Event event = eventQueue.take();
-                IdentityEventMessageContext eventContext = new IdentityEventMessageContext(event);
-                for (final AbstractEventHandler module : notificationSendingModules) {
-                    // If the module is subscribed to the event, module will be executed.
-                    if (module.isEnabled(eventContext)) {
-                        // Create a runnable and submit to the thread pool for sending message.
-                        Runnable msgSender = new Runnable() {
-                            @Override
-                            public void run() {
-                                if (log.isDebugEnabled()) {
-                                    log.debug("Executing " + module.getName() + " on event" + event.
-                                            getEventName());
-                                }
-                                try {
-                                    module.handleEvent(event);
-                                } catch (IdentityEventException e) {
-                                    log.error("Error while invoking notification sending module " + module.
-                                            getName(), e);
-                                }
-                            }
-                        };
-                        IdentityEventServiceDataHolder.getInstance().getThreadPool().submit(msgSender);
+    /**
+     * Returns the name used to identify the given handler in the queues and the statistics
+     *
+     * @param module handler
+     * @return name of the handler
+     */
+    public static String getHandlerName(AbstractEventHandler module) {
+
+        String name = module.getName();
+        return name != null ? name : module.getClass().getName();
+    }
+
+    /**
+     * Returns the maximum number of threads of the executor of the given handler
+     *
+     * @param handlerName name of the handler
+     * @return number of threads, or 0 if the handler has not received any event
+     */
+    public int getHandlerThreadPoolSize(String handlerName) {
+
+        ThreadPoolExecutor executor = handlerExecutors.get(handlerName);
+        return executor == null ? 0 : executor.getMaximumPoolSize();
+    }
+
+    private ThreadPoolExecutor getHandlerExecutor(String handlerName) {
+
+        ThreadPoolExecutor executor = handlerExecutors.get(handlerName);
+        if (executor == null) {
+            synchronized (handlerExecutors) {
+                executor = handlerExecutors.get(handlerName);
+                if (executor == null) {
+                    int handlerPoolSize = getHandlerPoolSize(handlerExecutors.size() + 1);
+                    executor = new ThreadPoolExecutor(handlerPoolSize, handlerPoolSize, 60L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(queueSize), new HandlerThreadFactory(handlerName),
+                            getOverflowHandler(handlerName));
+                    executor.allowCoreThreadTimeOut(true);
+                    // The threads are split across the handlers, hence the existing executors give up threads.
+                    for (ThreadPoolExecutor handlerExecutor : handlerExecutors.values()) {
+                        handlerExecutor.setCorePoolSize(handlerPoolSize);
+                        handlerExecutor.setMaximumPoolSize(handlerPoolSize);
+                    }
+                    handlerExecutors.put(handlerName, executor);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Created the executor of " + handlerName + ". Threads per handler : " +
+                                handlerPoolSize);
                     }
                 }
-            } catch (InterruptedException e) {
-                log.error("Error while picking up event from event queue", e);
             }
         }
+        return executor;
+    }
+
+    private int getHandlerPoolSize(int handlerCount) {
+        return Math.max(1, threadPoolSize / handlerCount);
+    }
+
+    private RejectedExecutionHandler getOverflowHandler(final String handlerName) {
+
+        if (OVERFLOW_POLICY_CALLER_RUNS.equalsIgnoreCase(overflowPolicy)) {
+            // Only when configured explicitly, as the handler is then run in the publisher thread.
+            return new ThreadPoolExecutor.CallerRunsPolicy();
+        } else if (OVERFLOW_POLICY_DROP.equalsIgnoreCase(overflowPolicy)) {
+            return new RejectedExecutionHandler() {
+                @Override
+                public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                    getHandlerStats(handlerName).recordDropped();
+                    log.warn("Event queue of " + handlerName + " is full. Dropping the event");
+                }
+            };
+        }
+        return new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                if (executor.isShutdown()) {
+                    log.warn("Event handler " + handlerName + " is shut down. Ignoring the event");
+                    return;
+                }
+                try {
+                    executor.getQueue().put(task);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Interrupted while waiting to add an event to the queue of " + handlerName);
+                }
+            }
+        };
+    }
+
+    /**
+     * Names the worker threads after the handler, so that they can be identified in thread dumps.
+     */
+    private static class HandlerThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private HandlerThreadFactory(String handlerName) {
+            this.namePrefix = "IdentityEventHandler-" + handlerName + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+        }
     }
 
     public void shutdown() {
+
         this.running = false;
+        for (ThreadPoolExecutor executor : handlerExecutors.values()) {
+            executor.shutdown();
+        }
     }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution statistics of an event handler.
+ */
+public class EventHandlerStats {
+
+    private final AtomicLong invocationCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong totalTimeNanos = new AtomicLong();
+    private final AtomicLong maxTimeNanos = new AtomicLong();
+
+    /**
+     * Records an invocation of the handler
+     *
+     * @param timeNanos time taken by the handler in nano seconds
+     * @param failed    whether the handler failed to handle the event
+     */
+    public void recordInvocation(long timeNanos, boolean failed) {
+
+        invocationCount.incrementAndGet();
+        if (failed) {
+            failureCount.incrementAndGet();
+        }
+        totalTimeNanos.addAndGet(timeNanos);
+        long max = maxTimeNanos.get();
+        while (timeNanos > max && !maxTimeNanos.compareAndSet(max, timeNanos)) {
+            max = maxTimeNanos.get();
+        }
+    }
+
+    /**
+     * Records an event which was dropped since the event queue of the handler was full
+     */
+    public void recordDropped() {
+        droppedCount.incrementAndGet();
+    }
+
+    public long getInvocationCount() {
+        return invocationCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getTotalTimeNanos() {
+        return totalTimeNanos.get();
+    }
+
+    public long getMaxTimeNanos() {
+        return maxTimeNanos.get();
+    }
+
+    public long getAverageTimeNanos() {
+
+        long count = invocationCount.get();
+        return count == 0 ? 0 : totalTimeNanos.get() / count;
+    }
+
+    @Override
+    public String toString() {
+        return "invocations=" + getInvocationCount() + ", failures=" + getFailureCount() + ", dropped=" +
+               getDroppedCount() + ", averageTimeNanos=" + getAverageTimeNanos() + ", maxTimeNanos=" +
+               getMaxTimeNanos();
+    }
+}
@@ -61,6 +61,14 @@ public class IdentityEventConfigBuilder {
      * Thread pool size for message sending task
      */
     private String threadPoolSize;
+    /**
+     * Size of the event queue of an asynchronous handler
+     */
+    private String handlerQueueSize;
+    /**
+     * Action taken when the event queue of an asynchronous handler is full
+     */
+    private String handlerQueueOverflowPolicy;
 
     private static IdentityEventConfigBuilder notificationMgtConfigBuilder = new IdentityEventConfigBuilder();
 
@@ -95,6 +103,8 @@ public class IdentityEventConfigBuilder {
      */
     private void setThreadPoolSize() {
         threadPoolSize = (String) notificationMgtConfigProperties.remove("threadPool.size");
+        handlerQueueSize = (String) notificationMgtConfigProperties.remove("handlerQueue.size");
+        handlerQueueOverflowPolicy = (String) notificationMgtConfigProperties.remove("handlerQueue.overflowPolicy");
     }
 
     /**
@@ -221,6 +231,14 @@ public class IdentityEventConfigBuilder {
         return threadPoolSize;
     }
 
+    public String getHandlerQueueSize() {
+        return handlerQueueSize;
+    }
+
+    public String getHandlerQueueOverflowPolicy() {
+        return handlerQueueOverflowPolicy;
+    }
+
     /**
      * There can be sensitive information like passwords in configuration file. If they are encrypted using secure
      * vault, this method will resolve them and replace with original values.
@@ -23,23 +23,12 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.event.services.IdentityEventService;
 import org.wso2.carbon.idp.mgt.IdpManager;
 
-import java.util.concurrent.ExecutorService;
-
 public class IdentityEventServiceDataHolder {
 
     private static IdentityEventServiceDataHolder instance = new IdentityEventServiceDataHolder();
     private static Log log = LogFactory.getLog(IdentityEventServiceDataHolder.class);
     private IdpManager idpManager;
     private IdentityEventService eventMgtService;
-    private ExecutorService threadPool;
-
-    public ExecutorService getThreadPool() {
-        return threadPool;
-    }
-
-    public void setThreadPool(ExecutorService threadPool) {
-        this.threadPool = threadPool;
-    }
 
     public IdpManager getIdpManager() {
         return idpManager;
@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.wso2.carbon.identity.event.EventDistributionTask;
+import org.wso2.carbon.identity.event.EventHandlerStats;
 import org.wso2.carbon.identity.event.IdentityEventException;
 import org.wso2.carbon.identity.event.bean.IdentityEventMessageContext;
 import org.wso2.carbon.identity.event.event.Event;
@@ -29,6 +30,7 @@ import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
 import org.wso2.carbon.identity.event.internal.IdentityEventServiceComponent;
 
 import java.util.List;
+import java.util.Map;
 
 public class IdentityEventServiceImpl implements IdentityEventService {
 
@@ -36,12 +38,28 @@ public class IdentityEventServiceImpl implements IdentityEventService {
     private EventDistributionTask eventDistributionTask;
 
     public IdentityEventServiceImpl(List<AbstractEventHandler> handlerList, int threadPoolSize) {
-        this.eventDistributionTask = new EventDistributionTask(handlerList, threadPoolSize);
+        this(handlerList, threadPoolSize, EventDistributionTask.DEFAULT_QUEUE_SIZE,
+                EventDistributionTask.DEFAULT_OVERFLOW_POLICY);
+    }
+
+    /**
+     * Initiates the event service
+     *
+     * @param handlerList    registered event handlers
+     * @param threadPoolSize total number of threads of the asynchronous handlers
+     * @param queueSize      maximum number of events waiting in the queue of an asynchronous handler
+     * @param overflowPolicy action taken when the queue of a handler is full. One of block, drop or caller
+     */
+    public IdentityEventServiceImpl(List<AbstractEventHandler> handlerList, int threadPoolSize, int queueSize,
+                                    String overflowPolicy) {
+
+        this.eventDistributionTask = new EventDistributionTask(handlerList, threadPoolSize, queueSize,
+                overflowPolicy);
         if (log.isDebugEnabled()) {
             log.debug("Starting event distribution task from Notification Management component");
         }
-        new Thread(eventDistributionTask).start();
     }
+
     @Override
     public void handleEvent(Event event) throws IdentityEventException {
 
@@ -51,11 +69,48 @@ public class IdentityEventServiceImpl implements IdentityEventService {
 
             if (handler.canHandle(eventContext)) {
                 if (handler.isAssociationAsync(event.getEventName())) {
-                    eventDistributionTask.addEventToQueue(event);
+                    eventDistributionTask.addEventToQueue(handler, event);
                 } else {
-                    handler.handleEvent(event);
+                    executeSynchronousHandler(handler, event);
                 }
             }
         }
     }
+
+    /**
+     * Returns the execution statistics of the event handlers
+     *
+     * @return execution statistics keyed by the handler name
+     */
+    public Map<String, EventHandlerStats> getHandlerStats() {
+        return eventDistributionTask.getHandlerStats();
+    }
+
+    /**
+     * Returns the number of events waiting in the queue of the given asynchronous handler
+     *
+     * @param handlerName name of the handler
+     * @return number of queued events
+     */
+    public int getQueueDepth(String handlerName) {
+        return eventDistributionTask.getQueueDepth(handlerName);
+    }
+
+    public void shutdown() {
+
+        eventDistributionTask.shutdown();
+    }
+
+    private void executeSynchronousHandler(AbstractEventHandler handler, Event event) throws IdentityEventException {
+
+        long startTime = System.nanoTime();
+        boolean failed = true;
+        try {
+            handler.handleEvent(event);
+            failed = false;
+        } finally {
+            eventDistributionTask.getHandlerStats(EventDistributionTask.getHandlerName(handler))
+                    .recordInvocation(System.nanoTime() - startTime, failed);
+        }
+    }
 }
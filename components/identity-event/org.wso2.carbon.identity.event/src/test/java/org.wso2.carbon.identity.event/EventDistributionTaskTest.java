@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.event;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.bean.context.MessageContext;
+import org.wso2.carbon.identity.event.event.Event;
+import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventDistributionTaskTest {
+
+    @Test
+    public void testDropWhenQueueIsFull() throws Exception {
+
+        BlockingEventHandler handler = new BlockingEventHandler();
+        EventDistributionTask eventDistributionTask = new EventDistributionTask(
+                Collections.<AbstractEventHandler>singletonList(handler), 1, 1,
+                EventDistributionTask.OVERFLOW_POLICY_DROP);
+        try {
+            eventDistributionTask.addEventToQueue(handler, new Event("event1"));
+            Assert.assertTrue(handler.started.await(10, TimeUnit.SECONDS));
+            eventDistributionTask.addEventToQueue(handler, new Event("event2"));
+            eventDistributionTask.addEventToQueue(handler, new Event("event3"));
+
+            String handlerName = EventDistributionTask.getHandlerName(handler);
+            Assert.assertEquals(eventDistributionTask.getQueueDepth(handlerName), 1);
+            Assert.assertEquals(eventDistributionTask.getHandlerStats(handlerName).getDroppedCount(), 1);
+        } finally {
+            handler.release.countDown();
+            eventDistributionTask.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallerRunsWhenQueueIsFull() throws Exception {
+
+        BlockingEventHandler handler = new BlockingEventHandler();
+        EventDistributionTask eventDistributionTask = new EventDistributionTask(
+                Collections.<AbstractEventHandler>singletonList(handler), 1, 1,
+                EventDistributionTask.OVERFLOW_POLICY_CALLER_RUNS);
+        try {
+            eventDistributionTask.addEventToQueue(handler, new Event("event1"));
+            Assert.assertTrue(handler.started.await(10, TimeUnit.SECONDS));
+            eventDistributionTask.addEventToQueue(handler, new Event("event2"));
+            // The queue is full, hence the event is handled in this thread.
+            eventDistributionTask.addEventToQueue(handler, new Event("event3"));
+
+            String handlerName = EventDistributionTask.getHandlerName(handler);
+            Assert.assertEquals(eventDistributionTask.getHandlerStats(handlerName).getInvocationCount(), 1);
+            Assert.assertEquals(eventDistributionTask.getHandlerStats(handlerName).getDroppedCount(), 0);
+        } finally {
+            handler.release.countDown();
+            eventDistributionTask.shutdown();
+        }
+    }
+
+    @Test
+    public void testBlockWhenQueueIsFull() throws Exception {
+
+        final BlockingEventHandler handler = new BlockingEventHandler();
+        final EventDistributionTask eventDistributionTask = new EventDistributionTask(
+                Collections.<AbstractEventHandler>singletonList(handler), 1, 1,
+                EventDistributionTask.DEFAULT_OVERFLOW_POLICY);
+        try {
+            eventDistributionTask.addEventToQueue(handler, new Event("event1"));
+            Assert.assertTrue(handler.started.await(10, TimeUnit.SECONDS));
+            eventDistributionTask.addEventToQueue(handler, new Event("event2"));
+
+            // The queue is full, hence the publisher waits until the queue has space.
+            Thread publisher = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    eventDistributionTask.addEventToQueue(handler, new Event("event3"));
+                }
+            });
+            publisher.start();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (publisher.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(publisher.getState(), Thread.State.WAITING);
+
+            handler.release.countDown();
+            publisher.join(10000);
+            Assert.assertFalse(publisher.isAlive());
+
+            String handlerName = EventDistributionTask.getHandlerName(handler);
+            EventHandlerStats stats = eventDistributionTask.getHandlerStats(handlerName);
+            deadline = System.currentTimeMillis() + 10000;
+            while (stats.getInvocationCount() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(stats.getInvocationCount(), 3);
+            Assert.assertEquals(stats.getDroppedCount(), 0);
+        } finally {
+            handler.release.countDown();
+            eventDistributionTask.shutdown();
+        }
+    }
+
+    @Test
+    public void testThreadsAreSplitAcrossHandlers() throws Exception {
+
+        BlockingEventHandler firstHandler = new BlockingEventHandler("firstHandler");
+        BlockingEventHandler secondHandler = new BlockingEventHandler("secondHandler");
+        EventDistributionTask eventDistributionTask = new EventDistributionTask(
+                Arrays.<AbstractEventHandler>asList(firstHandler, secondHandler), 4, 10,
+                EventDistributionTask.DEFAULT_OVERFLOW_POLICY);
+        firstHandler.release.countDown();
+        secondHandler.release.countDown();
+        try {
+            eventDistributionTask.addEventToQueue(firstHandler, new Event("event1"));
+            Assert.assertEquals(eventDistributionTask.getHandlerThreadPoolSize("firstHandler"), 4);
+            Assert.assertEquals(eventDistributionTask.getHandlerThreadPoolSize("secondHandler"), 0);
+
+            eventDistributionTask.addEventToQueue(secondHandler, new Event("event1"));
+            Assert.assertEquals(eventDistributionTask.getHandlerThreadPoolSize("firstHandler"), 2);
+            Assert.assertEquals(eventDistributionTask.getHandlerThreadPoolSize("secondHandler"), 2);
+
+            Assert.assertTrue(firstHandler.started.await(10, TimeUnit.SECONDS));
+            Assert.assertTrue(firstHandler.threadName.startsWith("IdentityEventHandler-firstHandler-"));
+        } finally {
+            eventDistributionTask.shutdown();
+        }
+    }
+
+    private static class BlockingEventHandler extends AbstractEventHandler {
+
+        private final String name;
+        private CountDownLatch started = new CountDownLatch(1);
+        private CountDownLatch release = new CountDownLatch(1);
+        private volatile String threadName;
+
+        private BlockingEventHandler() {
+            this("blockingEventHandler");
+        }
+
+        private BlockingEventHandler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isEnabled(MessageContext messageContext) {
+            return true;
+        }
+
+        @Override
+        public void handleEvent(Event event) throws IdentityEventException {
+
+            if (!"event1".equals(event.getEventName())) {
+                return;
+            }
+            threadName = Thread.currentThread().getName();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
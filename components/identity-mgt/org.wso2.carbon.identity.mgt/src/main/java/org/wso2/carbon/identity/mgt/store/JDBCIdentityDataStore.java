@@ -35,7 +35,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * //TODO remove method when user is deleted
@@ -70,103 +72,89 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         userIdentityDTO.setTenantId(tenantId);
         super.store(userIdentityDTO, userStoreManager);
 
-        Map<String, String> data = userIdentityDTO.getUserDataMap();
-
-        for (Map.Entry<String, String> entry : data.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            boolean isUserExists = false;
-            try {
-                isUserExists = isExistingUserDataValue(userName, tenantId, key);
-            } catch (SQLException e) {
-                throw IdentityException.error("Error occurred while checking if user existing", e);
-            }
-            try {
-                if (isUserExists) {
-                    updateUserDataValue(userName, tenantId, key, value);
-                } else {
-                    addUserDataValue(userName, tenantId, key, value);
-                }
-            } catch (SQLException e) {
-                throw IdentityException.error("Error occurred while persisting user data", e);
-            }
+        try {
+            storeUserDataValues(userName, tenantId, userIdentityDTO.getUserDataMap());
+        } catch (SQLException e) {
+            throw IdentityException.error("Error occurred while persisting user data", e);
         }
     }
 
-    private boolean isExistingUserDataValue(String userName, int tenantId, String key) throws SQLException {
+    /**
+     * Stores the given user data in a single transaction. The existing data keys of the user are read with one
+     * query, and the new values are inserted and the existing values are updated as batches.
+     */
+    private void storeUserDataValues(String userName, int tenantId, Map<String, String> data) throws SQLException {
 
         Connection connection = IdentityDatabaseUtil.getDBConnection();
-        PreparedStatement prepStmt = null;
-        ResultSet results;
+        PreparedStatement insertStmt = null;
+        PreparedStatement updateStmt = null;
         boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId);
         try {
-            String query;
-            if (isUsernameCaseSensitive) {
-                query = SQLQuery.CHECK_EXIST_USER_DATA;
-            } else {
-                query = SQLQuery.CHECK_EXIST_USER_DATA_CASE_INSENSITIVE;
+            Set<String> existingKeys = getExistingUserDataKeys(connection, userName, tenantId,
+                    isUsernameCaseSensitive);
+
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                String key = entry.getKey();
+                String value = entry.getValue();
+                if (existingKeys.contains(key)) {
+                    if (updateStmt == null) {
+                        updateStmt = connection.prepareStatement(isUsernameCaseSensitive ? SQLQuery.UPDATE_USER_DATA
+                                : SQLQuery.UPDATE_USER_DATA_CASE_INSENSITIVE);
+                    }
+                    updateStmt.setString(1, value);
+                    updateStmt.setInt(2, tenantId);
+                    updateStmt.setString(3, userName);
+                    updateStmt.setString(4, key);
+                    updateStmt.addBatch();
+                } else {
+                    if (insertStmt == null) {
+                        insertStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
+                    }
+                    insertStmt.setInt(1, tenantId);
+                    insertStmt.setString(2, userName);
+                    insertStmt.setString(3, key);
+                    insertStmt.setString(4, value);
+                    insertStmt.addBatch();
+                }
             }
-            prepStmt = connection.prepareStatement(query);
-            prepStmt.setInt(1, tenantId);
-            prepStmt.setString(2, userName);
-            prepStmt.setString(3, key);
-            results = prepStmt.executeQuery();
-            if (results.next()) {
-                return true;
+
+            if (updateStmt != null) {
+                updateStmt.executeBatch();
+            }
+            if (insertStmt != null) {
+                insertStmt.executeBatch();
             }
             connection.commit();
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw e;
         } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
+            IdentityDatabaseUtil.closeStatement(insertStmt);
+            IdentityDatabaseUtil.closeStatement(updateStmt);
             IdentityDatabaseUtil.closeConnection(connection);
         }
-        return false;
     }
 
+    private Set<String> getExistingUserDataKeys(Connection connection, String userName, int tenantId,
+                                                boolean isUsernameCaseSensitive) throws SQLException {
 
-    private void addUserDataValue(String userName, int tenantId, String key, String value) throws SQLException {
-
-        Connection connection = IdentityDatabaseUtil.getDBConnection();
         PreparedStatement prepStmt = null;
-
+        ResultSet results = null;
+        Set<String> existingKeys = new HashSet<>();
         try {
-            prepStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
+            prepStmt = connection.prepareStatement(isUsernameCaseSensitive ? SQLQuery.LOAD_USER_DATA_KEYS :
+                    SQLQuery.LOAD_USER_DATA_KEYS_CASE_INSENSITIVE);
             prepStmt.setInt(1, tenantId);
             prepStmt.setString(2, userName);
-            prepStmt.setString(3, key);
-            prepStmt.setString(4, value);
-            prepStmt.execute();
-            connection.commit();
-        } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeConnection(connection);
-        }
-    }
-
-
-    private void updateUserDataValue(String userName, int tenantId, String key, String value) throws SQLException {
-
-        Connection connection = IdentityDatabaseUtil.getDBConnection();
-        PreparedStatement prepStmt = null;
-        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId);
-        try {
-            String query;
-            if (isUsernameCaseSensitive) {
-                query = SQLQuery.UPDATE_USER_DATA;
-            } else {
-                query = SQLQuery.UPDATE_USER_DATA_CASE_INSENSITIVE;
+            results = prepStmt.executeQuery();
+            while (results.next()) {
+                existingKeys.add(results.getString(1));
             }
-            prepStmt = connection.prepareStatement(query);
-            prepStmt.setString(1, value);
-            prepStmt.setInt(2, tenantId);
-            prepStmt.setString(3, userName);
-            prepStmt.setString(4, key);
-            prepStmt.executeUpdate();
-            connection.commit();
         } finally {
+            IdentityDatabaseUtil.closeResultSet(results);
             IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeConnection(connection);
         }
-
+        return existingKeys;
     }
 
     @Override
@@ -266,10 +254,10 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
      * The primary key is tenantId, userName, DatKey combination
      */
     private static class SQLQuery {
-        public static final String CHECK_EXIST_USER_DATA = "SELECT DATA_VALUE FROM IDN_IDENTITY_USER_DATA WHERE " +
-                "TENANT_ID = ? AND USER_NAME = ? AND DATA_KEY = ?";
-        public static final String CHECK_EXIST_USER_DATA_CASE_INSENSITIVE = "SELECT DATA_VALUE FROM " +
-                "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND LOWER(USER_NAME) = LOWER(?) AND DATA_KEY = ?";
+        public static final String LOAD_USER_DATA_KEYS = "SELECT DATA_KEY FROM IDN_IDENTITY_USER_DATA WHERE " +
+                "TENANT_ID = ? AND USER_NAME = ?";
+        public static final String LOAD_USER_DATA_KEYS_CASE_INSENSITIVE = "SELECT DATA_KEY FROM " +
+                "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND LOWER(USER_NAME) = LOWER(?)";
 
         public static final String STORE_USER_DATA = "INSERT INTO IDN_IDENTITY_USER_DATA (TENANT_ID, USER_NAME, " +
                 "DATA_KEY, DATA_VALUE) VALUES (?,?,?,?)";
@@ -45,6 +45,9 @@ import org.wso2.carbon.identity.application.common.util.IdentityApplicationManag
 import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPCache;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPCacheEntry;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPCacheKey;
 import org.wso2.carbon.idp.mgt.dao.CacheBackedIdPMgtDAO;
 import org.wso2.carbon.idp.mgt.dao.FileBasedIdPMgtDAO;
 import org.wso2.carbon.idp.mgt.dao.IdPManagementDAO;
@@ -108,6 +111,39 @@ public class IdentityProviderManager implements IdpManager {
     public IdentityProvider getResidentIdP(String tenantDomain)
             throws IdentityProviderManagementException {
 
+        if (StringUtils.isBlank(tenantDomain)) {
+            return buildResidentIdP(tenantDomain);
+        }
+        return getResidentIdPCacheEntry(tenantDomain).getResidentIdP();
+    }
+
+    /**
+     * Retrieves the cached resident Identity Provider of the tenant, resolving and caching it if it is not cached.
+     * The entry is cleared whenever the resident Identity Provider of the tenant is added or updated.
+     *
+     * @param tenantDomain Tenant domain whose resident IdP is requested
+     * @return <code>ResidentIdPCacheEntry</code> of the tenant
+     * @throws IdentityProviderManagementException Error when resolving the Resident Identity Provider
+     */
+    private ResidentIdPCacheEntry getResidentIdPCacheEntry(String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        ResidentIdPCache residentIdPCache = ResidentIdPCache.getInstance();
+        ResidentIdPCacheKey cacheKey = new ResidentIdPCacheKey(tenantDomain);
+        ResidentIdPCacheEntry entry = residentIdPCache.getValueFromCache(cacheKey);
+        if (entry == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cache entry not found for Resident Identity Provider of tenant " + tenantDomain +
+                        ". Resolving the Resident Identity Provider");
+            }
+            entry = new ResidentIdPCacheEntry(buildResidentIdP(tenantDomain));
+            residentIdPCache.addToCache(cacheKey, entry);
+        }
+        return entry;
+    }
+
+    private IdentityProvider buildResidentIdP(String tenantDomain) throws IdentityProviderManagementException {
+
         String tenantContext = "";
 
         if (!MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain)) {
@@ -1964,7 +2000,22 @@ public class IdentityProviderManager implements IdpManager {
             throw new IdentityProviderManagementException("Error receiving Metadata object");
         }
 
-        IdentityProvider residentIdentityProvider = this.getResidentIdP(tenantDomain);
+        if (StringUtils.isBlank(tenantDomain)) {
+            return renderResidentIDPMetadata(buildResidentIdP(tenantDomain));
+        }
+
+        // Rendering the metadata is costly, hence it is kept with the cached resident IdP of the tenant.
+        ResidentIdPCacheEntry entry = getResidentIdPCacheEntry(tenantDomain);
+        if (!entry.isMetadataRendered()) {
+            entry.setMetadata(renderResidentIDPMetadata(entry.getResidentIdP()));
+            ResidentIdPCache.getInstance().addToCache(new ResidentIdPCacheKey(tenantDomain), entry);
+        }
+        return entry.getMetadata();
+    }
+
+    private String renderResidentIDPMetadata(IdentityProvider residentIdentityProvider)
+            throws IdentityProviderManagementException {
+
         FederatedAuthenticatorConfig[] federatedAuthenticatorConfigs = residentIdentityProvider.getFederatedAuthenticatorConfigs();
         FederatedAuthenticatorConfig samlFederatedAuthenticatorConfig = null;
         for (int i = 0; i < federatedAuthenticatorConfigs.length; i++) {
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.idp.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheEntry;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IdPListCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = 5172836740914426831L;
+
+    private ArrayList<IdentityProvider> identityProviders;
+
+    public IdPListCacheEntry(List<IdentityProvider> identityProviders) {
+        this.identityProviders = copyOf(identityProviders);
+    }
+
+    /**
+     * @return a copy of the cached list and of its Identity Providers, as the callers may modify them
+     */
+    public List<IdentityProvider> getIdentityProviders() {
+        return copyOf(identityProviders);
+    }
+
+    private static ArrayList<IdentityProvider> copyOf(List<IdentityProvider> identityProviders) {
+
+        ArrayList<IdentityProvider> copy = new ArrayList<>(identityProviders.size());
+        for (IdentityProvider identityProvider : identityProviders) {
+            copy.add(IdentityProviderCopier.copyOf(identityProvider));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.idp.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.model.ApplicationPermission;
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.IdentityProviderProperty;
+import org.wso2.carbon.identity.application.common.model.JustInTimeProvisioningConfig;
+import org.wso2.carbon.identity.application.common.model.LocalRole;
+import org.wso2.carbon.identity.application.common.model.PermissionsAndRoleConfig;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.model.ProvisioningConnectorConfig;
+import org.wso2.carbon.identity.application.common.model.RoleMapping;
+
+/**
+ * Field by field copies of the Identity Providers kept in the caches, so that callers can modify what they get from a
+ * cache entry without touching the cached state. The Identity Providers are assumed to be assembled from the base
+ * model classes only, which is what the copy reproduces.
+ */
+final class IdentityProviderCopier {
+
+    private IdentityProviderCopier() {
+
+    }
+
+    static IdentityProvider copyOf(IdentityProvider identityProvider) {
+
+        if (identityProvider == null) {
+            return null;
+        }
+        IdentityProvider copy = new IdentityProvider();
+        copy.setId(identityProvider.getId());
+        copy.setIdentityProviderName(identityProvider.getIdentityProviderName());
+        copy.setIdentityProviderDescription(identityProvider.getIdentityProviderDescription());
+        copy.setAlias(identityProvider.getAlias());
+        copy.setPrimary(identityProvider.isPrimary());
+        copy.setFederationHub(identityProvider.isFederationHub());
+        copy.setHomeRealmId(identityProvider.getHomeRealmId());
+        copy.setProvisioningRole(identityProvider.getProvisioningRole());
+        copy.setDisplayName(identityProvider.getDisplayName());
+        copy.setEnable(identityProvider.isEnable());
+        copy.setCertificate(identityProvider.getCertificate());
+        copy.setFederatedAuthenticatorConfigs(copyOf(identityProvider.getFederatedAuthenticatorConfigs()));
+        copy.setDefaultAuthenticatorConfig(copyOf(identityProvider.getDefaultAuthenticatorConfig()));
+        copy.setProvisioningConnectorConfigs(copyOf(identityProvider.getProvisioningConnectorConfigs()));
+        copy.setDefaultProvisioningConnectorConfig(copyOf(identityProvider.getDefaultProvisioningConnectorConfig()));
+        copy.setClaimConfig(copyOf(identityProvider.getClaimConfig()));
+        copy.setPermissionAndRoleConfig(copyOf(identityProvider.getPermissionAndRoleConfig()));
+        copy.setJustInTimeProvisioningConfig(copyOf(identityProvider.getJustInTimeProvisioningConfig()));
+        copy.setIdpProperties(copyOf(identityProvider.getIdpProperties()));
+        return copy;
+    }
+
+    private static FederatedAuthenticatorConfig[] copyOf(FederatedAuthenticatorConfig[] configs) {
+
+        if (configs == null) {
+            return null;
+        }
+        FederatedAuthenticatorConfig[] copy = new FederatedAuthenticatorConfig[configs.length];
+        for (int i = 0; i < configs.length; i++) {
+            copy[i] = copyOf(configs[i]);
+        }
+        return copy;
+    }
+
+    private static FederatedAuthenticatorConfig copyOf(FederatedAuthenticatorConfig config) {
+
+        if (config == null) {
+            return null;
+        }
+        FederatedAuthenticatorConfig copy = new FederatedAuthenticatorConfig();
+        copy.setName(config.getName());
+        copy.setDisplayName(config.getDisplayName());
+        copy.setEnabled(config.isEnabled());
+        copy.setProperties(copyOf(config.getProperties()));
+        return copy;
+    }
+
+    private static ProvisioningConnectorConfig[] copyOf(ProvisioningConnectorConfig[] configs) {
+
+        if (configs == null) {
+            return null;
+        }
+        ProvisioningConnectorConfig[] copy = new ProvisioningConnectorConfig[configs.length];
+        for (int i = 0; i < configs.length; i++) {
+            copy[i] = copyOf(configs[i]);
+        }
+        return copy;
+    }
+
+    private static ProvisioningConnectorConfig copyOf(ProvisioningConnectorConfig config) {
+
+        if (config == null) {
+            return null;
+        }
+        ProvisioningConnectorConfig copy = new ProvisioningConnectorConfig();
+        copy.setName(config.getName());
+        copy.setEnabled(config.isEnabled());
+        copy.setBlocking(config.isBlocking());
+        copy.setRulesEnabled(config.isRulesEnabled());
+        copy.setProvisioningProperties(copyOf(config.getProvisioningProperties()));
+        return copy;
+    }
+
+    private static Property[] copyOf(Property[] properties) {
+
+        if (properties == null) {
+            return null;
+        }
+        Property[] copy = new Property[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            Property property = properties[i];
+            if (property == null) {
+                continue;
+            }
+            copy[i] = new Property();
+            copy[i].setName(property.getName());
+            copy[i].setValue(property.getValue());
+            copy[i].setConfidential(property.isConfidential());
+            copy[i].setDefaultValue(property.getDefaultValue());
+            copy[i].setDisplayName(property.getDisplayName());
+            copy[i].setRequired(property.isRequired());
+            copy[i].setDescription(property.getDescription());
+            copy[i].setType(property.getType());
+            copy[i].setDisplayOrder(property.getDisplayOrder());
+            copy[i].setAdvanced(property.isAdvanced());
+        }
+        return copy;
+    }
+
+    private static ClaimConfig copyOf(ClaimConfig claimConfig) {
+
+        if (claimConfig == null) {
+            return null;
+        }
+        ClaimConfig copy = new ClaimConfig();
+        copy.setRoleClaimURI(claimConfig.getRoleClaimURI());
+        copy.setUserClaimURI(claimConfig.getUserClaimURI());
+        copy.setLocalClaimDialect(claimConfig.isLocalClaimDialect());
+        copy.setAlwaysSendMappedLocalSubjectId(claimConfig.isAlwaysSendMappedLocalSubjectId());
+        Claim[] idpClaims = claimConfig.getIdpClaims();
+        if (idpClaims != null) {
+            Claim[] idpClaimsCopy = new Claim[idpClaims.length];
+            for (int i = 0; i < idpClaims.length; i++) {
+                idpClaimsCopy[i] = copyOf(idpClaims[i]);
+            }
+            copy.setIdpClaims(idpClaimsCopy);
+        }
+        ClaimMapping[] claimMappings = claimConfig.getClaimMappings();
+        if (claimMappings != null) {
+            ClaimMapping[] claimMappingsCopy = new ClaimMapping[claimMappings.length];
+            for (int i = 0; i < claimMappings.length; i++) {
+                ClaimMapping claimMapping = claimMappings[i];
+                if (claimMapping == null) {
+                    continue;
+                }
+                claimMappingsCopy[i] = new ClaimMapping();
+                claimMappingsCopy[i].setLocalClaim(copyOf(claimMapping.getLocalClaim()));
+                claimMappingsCopy[i].setRemoteClaim(copyOf(claimMapping.getRemoteClaim()));
+                claimMappingsCopy[i].setDefaultValue(claimMapping.getDefaultValue());
+                claimMappingsCopy[i].setRequested(claimMapping.isRequested());
+                claimMappingsCopy[i].setMandatory(claimMapping.isMandatory());
+            }
+            copy.setClaimMappings(claimMappingsCopy);
+        }
+        return copy;
+    }
+
+    private static Claim copyOf(Claim claim) {
+
+        if (claim == null) {
+            return null;
+        }
+        Claim copy = new Claim();
+        copy.setClaimUri(claim.getClaimUri());
+        copy.setClaimId(claim.getClaimId());
+        return copy;
+    }
+
+    private static PermissionsAndRoleConfig copyOf(PermissionsAndRoleConfig permissionAndRoleConfig) {
+
+        if (permissionAndRoleConfig == null) {
+            return null;
+        }
+        PermissionsAndRoleConfig copy = new PermissionsAndRoleConfig();
+        ApplicationPermission[] permissions = permissionAndRoleConfig.getPermissions();
+        if (permissions != null) {
+            ApplicationPermission[] permissionsCopy = new ApplicationPermission[permissions.length];
+            for (int i = 0; i < permissions.length; i++) {
+                if (permissions[i] != null) {
+                    permissionsCopy[i] = new ApplicationPermission();
+                    permissionsCopy[i].setValue(permissions[i].getValue());
+                }
+            }
+            copy.setPermissions(permissionsCopy);
+        }
+        RoleMapping[] roleMappings = permissionAndRoleConfig.getRoleMappings();
+        if (roleMappings != null) {
+            RoleMapping[] roleMappingsCopy = new RoleMapping[roleMappings.length];
+            for (int i = 0; i < roleMappings.length; i++) {
+                RoleMapping roleMapping = roleMappings[i];
+                if (roleMapping == null) {
+                    continue;
+                }
+                LocalRole localRole = roleMapping.getLocalRole();
+                roleMappingsCopy[i] = new RoleMapping(localRole == null ? null :
+                        new LocalRole(localRole.getUserStoreId(), localRole.getLocalRoleName()),
+                        roleMapping.getRemoteRole());
+            }
+            copy.setRoleMappings(roleMappingsCopy);
+        }
+        String[] idpRoles = permissionAndRoleConfig.getIdpRoles();
+        if (idpRoles != null) {
+            copy.setIdpRoles(idpRoles.clone());
+        }
+        return copy;
+    }
+
+    private static JustInTimeProvisioningConfig copyOf(JustInTimeProvisioningConfig justInTimeProvisioningConfig) {
+
+        if (justInTimeProvisioningConfig == null) {
+            return null;
+        }
+        JustInTimeProvisioningConfig copy = new JustInTimeProvisioningConfig();
+        copy.setUserStoreClaimUri(justInTimeProvisioningConfig.getUserStoreClaimUri());
+        copy.setProvisioningUserStore(justInTimeProvisioningConfig.getProvisioningUserStore());
+        copy.setProvisioningEnabled(justInTimeProvisioningConfig.isProvisioningEnabled());
+        copy.setDumbMode(justInTimeProvisioningConfig.isDumbMode());
+        return copy;
+    }
+
+    private static IdentityProviderProperty[] copyOf(IdentityProviderProperty[] idpProperties) {
+
+        if (idpProperties == null) {
+            return null;
+        }
+        IdentityProviderProperty[] copy = new IdentityProviderProperty[idpProperties.length];
+        for (int i = 0; i < idpProperties.length; i++) {
+            IdentityProviderProperty idpProperty = idpProperties[i];
+            if (idpProperty == null) {
+                continue;
+            }
+            copy[i] = new IdentityProviderProperty();
+            copy[i].setName(idpProperty.getName());
+            copy[i].setValue(idpProperty.getValue());
+            copy[i].setDisplayName(idpProperty.getDisplayName());
+        }
+        return copy;
+    }
+}
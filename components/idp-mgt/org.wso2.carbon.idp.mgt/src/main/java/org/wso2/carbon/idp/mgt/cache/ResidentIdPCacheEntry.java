@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.idp.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheEntry;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+
+/**
+ * Cache entry holding the fully resolved resident Identity Provider of a tenant, together with its SAML metadata
+ * once it has been rendered.
+ * <p>
+ * The entry keeps its own snapshot of the Identity Provider and hands out copies of it made by
+ * {@link IdentityProviderCopier}, so that callers can modify what they get without touching the cached state.
+ */
+public class ResidentIdPCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -4982120374826613870L;
+
+    private IdentityProvider residentIdP;
+    private String metadata;
+    private boolean metadataRendered;
+
+    public ResidentIdPCacheEntry(IdentityProvider residentIdP) {
+        this.residentIdP = IdentityProviderCopier.copyOf(residentIdP);
+    }
+
+    /**
+     * @return a copy of the cached resident Identity Provider, as the callers may modify it
+     */
+    public IdentityProvider getResidentIdP() {
+        return IdentityProviderCopier.copyOf(residentIdP);
+    }
+
+    public String getMetadata() {
+        return metadata;
+    }
+
+    public boolean isMetadataRendered() {
+        return metadataRendered;
+    }
+
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+        this.metadataRendered = true;
+    }
+}
@@ -20,6 +20,7 @@ package org.wso2.carbon.idp.mgt.dao;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
@@ -29,7 +30,13 @@ import org.wso2.carbon.idp.mgt.cache.IdPCacheByHRI;
 import org.wso2.carbon.idp.mgt.cache.IdPCacheByName;
 import org.wso2.carbon.idp.mgt.cache.IdPCacheEntry;
 import org.wso2.carbon.idp.mgt.cache.IdPHomeRealmIdCacheKey;
+import org.wso2.carbon.idp.mgt.cache.IdPListCache;
+import org.wso2.carbon.idp.mgt.cache.IdPListCacheEntry;
+import org.wso2.carbon.idp.mgt.cache.IdPListCacheKey;
 import org.wso2.carbon.idp.mgt.cache.IdPNameCacheKey;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPCache;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPCacheKey;
+import org.wso2.carbon.idp.mgt.util.IdPManagementConstants;
 import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
 
 import java.sql.Connection;
@@ -46,6 +53,8 @@ public class CacheBackedIdPMgtDAO {
     private IdPCacheByName idPCacheByName = null;
     private IdPCacheByHRI idPCacheByHRI = null;
     private IdPCacheByAuthProperty idPCacheByAuthProperty = null;
+    private IdPListCache idPListCache = null;
+    private ResidentIdPCache residentIdPCache = null;
 
     /**
      * @param idPMgtDAO
@@ -55,6 +64,8 @@ public class CacheBackedIdPMgtDAO {
         idPCacheByName = IdPCacheByName.getInstance();
         idPCacheByHRI = IdPCacheByHRI.getInstance();
         idPCacheByAuthProperty = IdPCacheByAuthProperty.getInstance();
+        idPListCache = IdPListCache.getInstance();
+        residentIdPCache = ResidentIdPCache.getInstance();
     }
 
     /**
@@ -67,7 +78,57 @@ public class CacheBackedIdPMgtDAO {
     public List<IdentityProvider> getIdPs(Connection dbConnection, int tenantId,
                                           String tenantDomain) throws IdentityProviderManagementException {
 
-        return idPMgtDAO.getIdPs(dbConnection, tenantId, tenantDomain);
+        // A given connection may see changes which are not committed yet, hence the cache is not used.
+        if (dbConnection != null) {
+            return idPMgtDAO.getIdPs(dbConnection, tenantId, tenantDomain);
+        }
+
+        IdPListCacheKey cacheKey = new IdPListCacheKey(tenantDomain);
+        IdPListCacheEntry entry = idPListCache.getValueFromCache(cacheKey);
+        if (entry != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cache entry found for Identity Provider list of tenant " + tenantDomain);
+            }
+            return entry.getIdentityProviders();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Cache entry not found for Identity Provider list of tenant " + tenantDomain +
+                    ". Fetching entry from DB");
+        }
+        List<IdentityProvider> identityProviders = idPMgtDAO.getIdPs(null, tenantId, tenantDomain);
+        idPListCache.addToCache(cacheKey, new IdPListCacheEntry(identityProviders));
+        return identityProviders;
+    }
+
+    /**
+     * Clear the cached Identity Provider lists which include the given Identity Provider. Shared Identity Providers of
+     * the super tenant are listed for every tenant.
+     *
+     * @param idPName
+     * @param tenantDomain
+     */
+    private void clearIdPListCache(String idPName, String tenantDomain) {
+
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain) && idPName != null &&
+                idPName.startsWith(IdPManagementConstants.SHARED_IDP_PREFIX)) {
+            idPListCache.clear();
+        } else {
+            idPListCache.clearCacheEntry(new IdPListCacheKey(tenantDomain));
+        }
+    }
+
+    /**
+     * Clear the resolved resident Identity Provider of the tenant if the given Identity Provider is the resident one.
+     *
+     * @param idPName
+     * @param tenantDomain
+     */
+    private void clearResidentIdPCache(String idPName, String tenantDomain) {
+
+        if (IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME.equals(idPName)) {
+            residentIdPCache.clearCacheEntry(new ResidentIdPCacheKey(tenantDomain));
+        }
     }
 
     /**
@@ -294,6 +355,8 @@ public class CacheBackedIdPMgtDAO {
             throws IdentityProviderManagementException {
 
         idPMgtDAO.addIdP(identityProvider, tenantId);
+        clearIdPListCache(identityProvider.getIdentityProviderName(), tenantDomain);
+        clearResidentIdPCache(identityProvider.getIdentityProviderName(), tenantDomain);
 
         identityProvider = idPMgtDAO.getIdPByName(null, identityProvider.getIdentityProviderName(),
                 tenantId, tenantDomain);
@@ -339,6 +402,10 @@ public class CacheBackedIdPMgtDAO {
         }
 
         idPMgtDAO.updateIdP(newIdentityProvider, currentIdentityProvider, tenantId);
+        clearIdPListCache(currentIdentityProvider.getIdentityProviderName(), tenantDomain);
+        clearIdPListCache(newIdentityProvider.getIdentityProviderName(), tenantDomain);
+        clearResidentIdPCache(currentIdentityProvider.getIdentityProviderName(), tenantDomain);
+        clearResidentIdPCache(newIdentityProvider.getIdentityProviderName(), tenantDomain);
 
         IdentityProvider identityProvider = idPMgtDAO.getIdPByName(null,
                 newIdentityProvider.getIdentityProviderName(), tenantId, tenantDomain);
@@ -375,6 +442,8 @@ public class CacheBackedIdPMgtDAO {
         }
 
         idPMgtDAO.deleteIdP(idPName, tenantId, tenantDomain);
+        clearIdPListCache(idPName, tenantDomain);
+        clearResidentIdPCache(idPName, tenantDomain);
 
         if(log.isDebugEnabled()) {
             log.debug("Removing entry for Identity Provider " + idPName + " from caches.");
@@ -402,6 +471,8 @@ public class CacheBackedIdPMgtDAO {
         }
 
         idPMgtDAO.forceDeleteIdP(idPName, tenantId, tenantDomain);
+        clearIdPListCache(idPName, tenantDomain);
+        clearResidentIdPCache(idPName, tenantDomain);
 
         // Remove cache entries related to the force deleted idps.
         IdentityProvider identityProvider = this.getIdPByName(null, idPName, tenantId, tenantDomain);
@@ -54,6 +54,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -127,16 +128,25 @@ public class IdPManagementDAO {
 
                 identityProvider.setDisplayName(rs.getString("DISPLAY_NAME"));
 
+                identityProvider.setId(rs.getString("ID"));
                 if (!IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME
                         .equals(identityProvider.getIdentityProviderName())) {
                     idps.add(identityProvider);
                 }
-                identityProvider.setId(rs.getString("ID"));
-                List<IdentityProviderProperty> propertyList = getIdentityPropertiesByIdpId(dbConnection,
-                        Integer.parseInt(identityProvider.getId()));
+
+            }
+
+            // Properties of all the listed Identity Providers are retrieved at once instead of per Identity Provider.
+            Map<Integer, List<IdentityProviderProperty>> idpProperties = getIdentityPropertiesOfIdPs(dbConnection,
+                    tenantId);
+            for (IdentityProvider identityProvider : idps) {
+                List<IdentityProviderProperty> propertyList = idpProperties.get(Integer.parseInt(identityProvider
+                        .getId()));
+                if (propertyList == null) {
+                    propertyList = Collections.emptyList();
+                }
                 identityProvider
                         .setIdpProperties(propertyList.toArray(new IdentityProviderProperty[propertyList.size()]));
-
             }
             dbConnection.commit();
             return idps;
@@ -153,6 +163,45 @@ public class IdPManagementDAO {
         }
     }
 
+    /**
+     * Get Identity properties of the Identity Providers listed for a tenant
+     *
+     * @param dbConnection database connection
+     * @param tenantId     Tenant Id
+     * @return Identity provider properties by IDP Id
+     */
+    private Map<Integer, List<IdentityProviderProperty>> getIdentityPropertiesOfIdPs(Connection dbConnection,
+                                                                                     int tenantId)
+            throws SQLException {
+
+        String sqlStmt = IdPManagementConstants.SQLQueries.GET_IDP_METADATA_OF_IDPS_SQL;
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        Map<Integer, List<IdentityProviderProperty>> idpProperties = new HashMap<>();
+        try {
+            prepStmt = dbConnection.prepareStatement(sqlStmt);
+            prepStmt.setInt(1, tenantId);
+            prepStmt.setInt(2, MultitenantConstants.SUPER_TENANT_ID);
+            rs = prepStmt.executeQuery();
+            while (rs.next()) {
+                int idpId = rs.getInt("IDP_ID");
+                List<IdentityProviderProperty> propertyList = idpProperties.get(idpId);
+                if (propertyList == null) {
+                    propertyList = new ArrayList<>();
+                    idpProperties.put(idpId, propertyList);
+                }
+                IdentityProviderProperty property = new IdentityProviderProperty();
+                property.setName(rs.getString("NAME"));
+                property.setValue(rs.getString("VALUE"));
+                property.setDisplayName(rs.getString("DISPLAY_NAME"));
+                propertyList.add(property);
+            }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+        }
+        return idpProperties;
+    }
+
     /**
      * Get Identity properties map
      *
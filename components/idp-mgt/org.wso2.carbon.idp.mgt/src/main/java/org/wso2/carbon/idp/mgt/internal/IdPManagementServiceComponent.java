@@ -41,6 +41,7 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
 import org.wso2.carbon.idp.mgt.IdpManager;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPCache;
 import org.wso2.carbon.idp.mgt.dao.CacheBackedIdPMgtDAO;
 import org.wso2.carbon.idp.mgt.dao.IdPManagementDAO;
 import org.wso2.carbon.idp.mgt.listener.IDPMgtAuditLogger;
@@ -119,6 +120,8 @@ public class IdPManagementServiceComponent {
         }
         try {
             IdpMgtServiceComponentHolder.getInstance().addMetadataConverter(converter);
+            // Rendered resident IdP metadata depends on the available converters.
+            ResidentIdPCache.getInstance().clear();
         } catch (Throwable e) {
             log.error("Failed to get a reference to the Metadata Converter in idp-mgt bundle", e);
         }
@@ -129,6 +132,7 @@ public class IdPManagementServiceComponent {
             log.debug("org.wso2.carbon.idp.mgt.util.MetadataConverter unset in idp-mgt");
         }
         IdpMgtServiceComponentHolder.getInstance().removeMetadataConverter(metadataConverter);
+        ResidentIdPCache.getInstance().clear();
     }
 
     /**
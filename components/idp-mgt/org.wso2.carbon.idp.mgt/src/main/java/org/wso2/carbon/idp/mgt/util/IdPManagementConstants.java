@@ -246,6 +246,9 @@ public class IdPManagementConstants {
 
         public static final String GET_IDP_METADATA_BY_IDP_ID = "SELECT ID, NAME, VALUE, DISPLAY_NAME FROM " +
                 "IDP_METADATA WHERE IDP_ID = ?";
+        public static final String GET_IDP_METADATA_OF_IDPS_SQL = "SELECT IDP_METADATA.IDP_ID, IDP_METADATA.NAME, " +
+                "IDP_METADATA.VALUE, IDP_METADATA.DISPLAY_NAME FROM IDP_METADATA, IDP WHERE IDP_METADATA.IDP_ID = " +
+                "IDP.ID AND (IDP.TENANT_ID = ? OR (IDP.TENANT_ID = ? AND IDP.NAME LIKE '" + SHARED_IDP_PREFIX + "%'))";
         public static final String ADD_IDP_METADATA = "INSERT INTO IDP_METADATA (IDP_ID, NAME, VALUE, DISPLAY_NAME, " +
                 "TENANT_ID) VALUES (?, ?, ?, ?, ?)";
         public static final String DELETE_IDP_METADATA = "DELETE FROM IDP_METADATA WHERE IDP_ID = ?";
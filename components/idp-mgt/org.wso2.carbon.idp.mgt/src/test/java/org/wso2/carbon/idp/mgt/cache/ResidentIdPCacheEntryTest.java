@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.idp.mgt.cache;
+
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests that the resident Identity Provider handed out by the cache entry is a complete copy of the cached one. Every
+ * field of the Identity Provider and of the model objects it holds is populated through reflection, so that a field
+ * added to the model later and not copied fails the test.
+ */
+public class ResidentIdPCacheEntryTest {
+
+    private static final String MODEL_PACKAGE = IdentityProvider.class.getPackage().getName();
+
+    @Test
+    public void testEveryFieldIsCopied() throws Exception {
+
+        IdentityProvider residentIdP = populate(new IdentityProvider());
+        ResidentIdPCacheEntry entry = new ResidentIdPCacheEntry(residentIdP);
+
+        assertCopy(residentIdP, entry.getResidentIdP(), "residentIdP");
+    }
+
+    @Test
+    public void testCachedIdPIsNotModifiedByCallers() throws Exception {
+
+        IdentityProvider residentIdP = populate(new IdentityProvider());
+        ResidentIdPCacheEntry entry = new ResidentIdPCacheEntry(residentIdP);
+
+        residentIdP.setHomeRealmId("changed-before-read");
+        IdentityProvider copy = entry.getResidentIdP();
+        copy.getFederatedAuthenticatorConfigs()[0].getProperties()[0].setValue("changed-after-read");
+        copy.getClaimConfig().getIdpClaims()[0].setClaimUri("changed-after-read");
+
+        IdentityProvider cached = entry.getResidentIdP();
+        assertEquals(cached.getHomeRealmId(), "homeRealmId");
+        assertEquals(cached.getFederatedAuthenticatorConfigs()[0].getProperties()[0].getValue(), "value");
+        assertEquals(cached.getClaimConfig().getIdpClaims()[0].getClaimUri(), "claimUri");
+    }
+
+    @Test
+    public void testNullIdPIsCopied() throws Exception {
+
+        assertNull(new ResidentIdPCacheEntry(null).getResidentIdP());
+    }
+
+    private static <T> T populate(T object) throws Exception {
+
+        for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                field.set(object, sampleValue(field.getType(), field.getName()));
+            }
+        }
+        return object;
+    }
+
+    private static Object sampleValue(Class<?> type, String fieldName) throws Exception {
+
+        if (type == String.class) {
+            return fieldName;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return true;
+        }
+        if (type == int.class || type == Integer.class) {
+            return fieldName.length();
+        }
+        if (type.isArray()) {
+            Object array = Array.newInstance(type.getComponentType(), 1);
+            Array.set(array, 0, sampleValue(type.getComponentType(), fieldName));
+            return array;
+        }
+        if (type.getPackage() != null && MODEL_PACKAGE.equals(type.getPackage().getName())) {
+            return populate(Whitebox.newInstance(type));
+        }
+        fail("No sample value for the field: " + fieldName + " of type: " + type.getName());
+        return null;
+    }
+
+    private static void assertCopy(Object original, Object copy, String path) throws Exception {
+
+        if (original == null) {
+            assertNull(copy, path);
+            return;
+        }
+        assertNotNull(copy, path + " is not copied");
+        Class<?> type = original.getClass();
+        if (type == String.class || type == Boolean.class || type == Integer.class) {
+            assertEquals(copy, original, path + " is not copied");
+            return;
+        }
+        assertNotSame(copy, original, path + " is shared with the cached Identity Provider");
+        assertEquals(copy.getClass(), type, path);
+        if (type.isArray()) {
+            assertEquals(Array.getLength(copy), Array.getLength(original), path);
+            for (int i = 0; i < Array.getLength(original); i++) {
+                assertCopy(Array.get(original, i), Array.get(copy, i), path + "[" + i + "]");
+            }
+            return;
+        }
+        for (Class<?> fieldType = type; fieldType != Object.class; fieldType = fieldType.getSuperclass()) {
+            for (Field field : fieldType.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                assertCopy(field.get(original), field.get(copy), path + "." + field.getName());
+            }
+        }
+    }
+}
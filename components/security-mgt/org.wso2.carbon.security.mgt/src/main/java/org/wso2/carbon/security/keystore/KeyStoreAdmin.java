@@ -43,6 +43,7 @@ import org.wso2.carbon.security.keystore.service.KeyStoreData;
 import org.wso2.carbon.security.keystore.service.PaginatedCertData;
 import org.wso2.carbon.security.keystore.service.PaginatedKeyStoreData;
 import org.wso2.carbon.security.util.KeyStoreMgtUtil;
+import org.wso2.carbon.security.util.ServerCrypto;
 import org.wso2.carbon.utils.CarbonUtils;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
@@ -337,6 +338,7 @@ public class KeyStoreAdmin {
                         " is already in use and can't be deleted");
             }
             registry.delete(path);
+            ServerCrypto.clearKeyStoreIndexes();
         } catch (RegistryException e) {
             String msg = "Error when deleting a keyStore";
             log.error(msg, e);
@@ -908,5 +910,6 @@ public class KeyStoreAdmin {
             KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
             keyStoreManager.updateKeyStore(name, keyStore);
         }
+        ServerCrypto.clearKeyStoreIndexes();
     }
 }
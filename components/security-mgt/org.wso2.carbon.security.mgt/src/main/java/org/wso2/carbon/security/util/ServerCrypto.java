@@ -20,6 +20,7 @@ package org.wso2.carbon.security.util;
 
 import org.apache.axiom.om.impl.dom.jaxp.DocumentBuilderFactoryImpl;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ws.security.WSSecurityException;
@@ -28,6 +29,7 @@ import org.apache.ws.security.components.crypto.Crypto;
 import org.apache.ws.security.components.crypto.X509NameTokenizer;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.core.util.KeyStoreManager;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.security.SecurityServiceHolder;
 
@@ -36,6 +38,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.Key;
@@ -58,11 +61,18 @@ import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPublicKey;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ServerCrypto implementation to support a collection of keystores holding different trusted certs
@@ -81,7 +91,18 @@ public class ServerCrypto implements Crypto {
     public static final String PROP_ID_TENANT_ID = "org.wso2.stratos.tenant.id";
     public static final String PROP_ID_XKMS_SERVICE_URL = "org.wso2.carbon.security.crypto.xkms.url";
     private static final String SKI_OID = "2.5.29.14";
+    private static final String CERT_PATH_VALIDATION_CACHE_SIZE = "ServerCrypto.CertPathValidationCacheSize";
+    private static final String CERT_PATH_VALIDATION_CACHE_TIMEOUT = "ServerCrypto.CertPathValidationCacheTimeout";
+    private static final int DEFAULT_CERT_PATH_VALIDATION_CACHE_SIZE = 1000;
+    private static final int DEFAULT_CERT_PATH_VALIDATION_CACHE_TIMEOUT = 300;
     private static Log log = LogFactory.getLog(ServerCrypto.class);
+    private static final int certPathValidationCacheSize = readCacheConfig(CERT_PATH_VALIDATION_CACHE_SIZE,
+            DEFAULT_CERT_PATH_VALIDATION_CACHE_SIZE);
+    private static final long certPathValidationCacheTimeout = TimeUnit.SECONDS.toMillis(
+            readCacheConfig(CERT_PATH_VALIDATION_CACHE_TIMEOUT, DEFAULT_CERT_PATH_VALIDATION_CACHE_TIMEOUT));
+    // Key stores are compared by identity, hence the indexes of a reloaded key store are built afresh.
+    private static final Map<KeyStore, KeyStoreIndex> keyStoreIndexes = new WeakHashMap<>();
+    private static final AtomicLong keyStoreModificationCount = new AtomicLong();
     private static CertificateFactory certFact = null;
     private Properties properties = null;
     private KeyStore keystore = null;
@@ -446,30 +467,10 @@ public class ServerCrypto implements Crypto {
      * @see org.apache.ws.security.components.crypto.Crypto#getAliasForX509Cert(byte[])
      */
     public String getAliasForX509Cert(byte[] skiBytes) throws WSSecurityException {
-        try {
-
-            Certificate cert;
-            for (Enumeration e = keystore.aliases(); e.hasMoreElements(); ) {
-                String alias = (String) e.nextElement();
-                Certificate[] certs = this.getCertificates(alias);
-                if (certs == null || certs.length == 0) {
-                    return null;
-                } else {
-                    cert = certs[0];
-                }
-                byte[] data = getSKIBytesFromCert((X509Certificate) cert);
-                if (data.length != skiBytes.length) {
-                    continue;
-                }
-                if (Arrays.equals(data, skiBytes)) {
-                    return alias;
-                }
-            }
-
-        } catch (KeyStoreException e) {
-            throw new WSSecurityException(WSSecurityException.FAILURE, "keystore");
+        if (this.keystore == null || skiBytes == null) {
+            return null;
         }
-        return null;
+        return getKeyStoreIndex(this.keystore).getAliasForSKI(skiBytes);
     }
 
     @Override
@@ -485,6 +486,10 @@ public class ServerCrypto implements Crypto {
      * @see org.apache.ws.security.components.crypto.Crypto#getSKIBytesFromCert(java.security.cert.X509Certificate)
      */
     public byte[] getSKIBytesFromCert(X509Certificate cert) throws WSSecurityException {
+        return readSKIBytes(cert);
+    }
+
+    private static byte[] readSKIBytes(X509Certificate cert) throws WSSecurityException {
         /*
          * Gets the DER-encoded OCTET string for the extension value (extnValue)
          * identified by the passed-in oid String. The oid string is represented
@@ -530,39 +535,10 @@ public class ServerCrypto implements Crypto {
      * @see org.apache.ws.security.components.crypto.Crypto#getAliasForX509CertThumb(byte[])
      */
     public String getAliasForX509CertThumb(byte[] thumb) throws WSSecurityException {
-        Certificate cert;
-        MessageDigest sha;
-        try {
-            sha = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e1) {
-            throw new WSSecurityException(0, "noSHA1availabe");
+        if (this.keystore == null || thumb == null) {
+            return null;
         }
-        try {
-            for (Enumeration e = keystore.aliases(); e.hasMoreElements(); ) {
-                String alias = (String) e.nextElement();
-                Certificate[] certs = this.getCertificates(alias);
-                if (certs == null || certs.length == 0) {
-                    return null;
-                } else {
-                    cert = certs[0];
-                }
-                sha.reset();
-                try {
-                    sha.update(cert.getEncoded());
-                } catch (CertificateEncodingException e1) {
-                    throw new WSSecurityException(WSSecurityException.SECURITY_TOKEN_UNAVAILABLE,
-                            "encodeError");
-                }
-                byte[] data = sha.digest();
-
-                if (Arrays.equals(data, thumb)) {
-                    return alias;
-                }
-            }
-        } catch (KeyStoreException e) {
-            throw new WSSecurityException(WSSecurityException.FAILURE, "keystore");
-        }
-        return null;
+        return getKeyStoreIndex(this.keystore).getAliasForThumb(thumb);
     }
 
     @Override
@@ -627,77 +603,74 @@ public class ServerCrypto implements Crypto {
      */
     public String[] getAliasesForDN(String subjectDN) throws WSSecurityException {
 
-        // Store the aliases found
-        List aliases = new Vector();
-        Certificate cert;
-
+        if (this.keystore == null) {
+            return new String[0];
+        }
         // The DN to search the keystore for
-        Vector subjectRDN = splitAndTrim(subjectDN);
-
-        // Look at every certificate in the keystore
-        try {
-            for (Enumeration e = keystore.aliases(); e.hasMoreElements(); ) {
-                String alias = (String) e.nextElement();
+        List<String> aliases = getKeyStoreIndex(this.keystore).getAliasesForDN(splitAndTrim(subjectDN));
+        return aliases.toArray(new String[aliases.size()]);
+    }
 
-                Certificate[] certs = this.getCertificates(alias);
-                if (certs == null || certs.length == 0) {
-                    return new String[0];
-                } else {
-                    cert = certs[0];
-                }
+    private String getAliasForX509Cert(String issuer, BigInteger serialNumber,
+                                       boolean useSerialNumber, KeyStore ks) throws WSSecurityException {
+        if (!useSerialNumber || serialNumber == null || ks == null) {
+            return null;
+        }
+        return getKeyStoreIndex(ks).getAliasForIssuerSerial(splitAndTrim(issuer), serialNumber);
+    }
 
-                Vector foundRDN = splitAndTrim(((X509Certificate) cert).getSubjectDN()
-                        .getName());
+    /**
+     * Clears the certificate indexes and the validated certificate paths of all the key stores. This should be called
+     * whenever a key store or a trust store is modified.
+     */
+    public static void clearKeyStoreIndexes() {
 
-                if (subjectRDN.equals(foundRDN)) {
-                    aliases.add(alias);
-                }
-            }
-        } catch (KeyStoreException e) {
-            throw new WSSecurityException(WSSecurityException.FAILURE, "keystore");
+        synchronized (keyStoreIndexes) {
+            keyStoreModificationCount.incrementAndGet();
+            keyStoreIndexes.clear();
         }
+    }
 
-        // Convert the vector into an array
-        String[] result = new String[aliases.size()];
-        for (int i = 0; i < aliases.size(); i++) {
-            result[i] = (String) aliases.get(i);
+    private static KeyStoreIndex getKeyStoreIndex(KeyStore ks) throws WSSecurityException {
+
+        KeyStoreIndex index;
+        synchronized (keyStoreIndexes) {
+            index = keyStoreIndexes.get(ks);
+        }
+        if (index != null) {
+            return index;
         }
-        return result;
 
+        long modificationCount = keyStoreModificationCount.get();
+        index = new KeyStoreIndex(ks);
+        synchronized (keyStoreIndexes) {
+            // Do not publish the index if the key store was modified while it was being built.
+            if (modificationCount == keyStoreModificationCount.get()) {
+                KeyStoreIndex existingIndex = keyStoreIndexes.get(ks);
+                if (existingIndex != null) {
+                    return existingIndex;
+                }
+                keyStoreIndexes.put(ks, index);
+            }
+        }
+        return index;
     }
 
-    private String getAliasForX509Cert(String issuer, BigInteger serialNumber,
-                                       boolean useSerialNumber, KeyStore ks) throws WSSecurityException {
-        Vector issuerRDN = splitAndTrim(issuer);
-        X509Certificate x509cert;
-        Vector certRDN;
-        Certificate cert;
-        try {
-            for (Enumeration e = ks.aliases(); e.hasMoreElements(); ) {
-                String alias = (String) e.nextElement();
-                Certificate[] certs = this.getCertificates(alias);
-
-                if (certs == null || certs.length == 0) {
-                    return null;
-                } else {
-                    cert = certs[0];
-                }
+    private static int readCacheConfig(String property, int defaultValue) {
 
-                x509cert = (X509Certificate) cert;
-                if (useSerialNumber && x509cert.getSerialNumber().compareTo(serialNumber) == 0) {
-                    certRDN = splitAndTrim(x509cert.getIssuerDN().getName());
-                    if (certRDN.equals(issuerRDN)) {
-                        return alias;
-                    }
-                }
+        String value = IdentityUtil.getProperty(property);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + value + " for " + property + ". Using the default value: " +
+                        defaultValue);
             }
-        } catch (KeyStoreException e) {
-            throw new WSSecurityException(WSSecurityException.FAILURE, "keystore");
         }
-        return null;
+        return defaultValue;
     }
 
-    private Vector splitAndTrim(String inString) {
+    private static Vector splitAndTrim(String inString) {
         X509NameTokenizer nmTokens = new X509NameTokenizer(inString);
         Vector vr = new Vector();
 
@@ -710,6 +683,16 @@ public class ServerCrypto implements Crypto {
 
     private boolean validateCertPath(KeyStore ks, Certificate[] certs) throws WSSecurityException {
 
+        KeyStoreIndex index = null;
+        ByteBuffer fingerprint = null;
+        if (ks != null && certPathValidationCacheSize > 0) {
+            index = getKeyStoreIndex(ks);
+            fingerprint = getFingerprint(certs);
+            if (fingerprint != null && index.isValidatedCertPath(fingerprint)) {
+                return true;
+            }
+        }
+
         try {
 
             // Generate cert path
@@ -737,6 +720,157 @@ public class ServerCrypto implements Crypto {
             throw new WSSecurityException(WSSecurityException.FAILURE, "certpath",
                     new Object[]{ex.getMessage()}, ex);
         }
+
+        if (fingerprint != null) {
+            index.addValidatedCertPath(fingerprint, getValidationExpiryTime(certs));
+        }
         return true;
     }
+
+    /**
+     * Returns a SHA-256 digest over the encoded certificates of the path, or null if a certificate cannot be encoded.
+     */
+    private ByteBuffer getFingerprint(Certificate[] certs) {
+
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (Certificate cert : certs) {
+                sha.update(cert.getEncoded());
+            }
+            return ByteBuffer.wrap(sha.digest());
+        } catch (NoSuchAlgorithmException | CertificateEncodingException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to compute the fingerprint of the certificate path. The validation result will " +
+                        "not be cached", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A validated path is trusted until the cache timeout elapses, or until a certificate of the path expires.
+     */
+    private long getValidationExpiryTime(Certificate[] certs) {
+
+        long expiryTime = System.currentTimeMillis() + certPathValidationCacheTimeout;
+        for (Certificate cert : certs) {
+            if (cert instanceof X509Certificate) {
+                expiryTime = Math.min(expiryTime, ((X509Certificate) cert).getNotAfter().getTime());
+            }
+        }
+        return expiryTime;
+    }
+
+    /**
+     * Indexes of the certificates in a key store by thumbprint, subject key identifier, issuer and serial number and
+     * subject DN, along with the certificate paths recently validated against the key store. The indexes keep the
+     * first alias in the order of the key store aliases, as the lookups did when they enumerated the key store.
+     */
+    private static class KeyStoreIndex {
+
+        private final Map<ByteBuffer, String> thumbAliases = new HashMap<>();
+        private final Map<ByteBuffer, String> skiAliases = new HashMap<>();
+        private final Map<List<Object>, String> issuerSerialAliases = new HashMap<>();
+        private final Map<Vector, List<String>> subjectDNAliases = new HashMap<>();
+        private final Map<ByteBuffer, Long> validatedCertPaths;
+
+        KeyStoreIndex(KeyStore ks) throws WSSecurityException {
+
+            MessageDigest sha;
+            try {
+                sha = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new WSSecurityException(0, "noSHA1availabe");
+            }
+
+            try {
+                for (Enumeration e = ks.aliases(); e.hasMoreElements(); ) {
+                    String alias = (String) e.nextElement();
+                    Certificate[] certs = ks.getCertificateChain(alias);
+                    Certificate cert = (certs == null || certs.length == 0) ? ks.getCertificate(alias) : certs[0];
+                    if (!(cert instanceof X509Certificate)) {
+                        continue;
+                    }
+                    X509Certificate x509cert = (X509Certificate) cert;
+
+                    sha.reset();
+                    try {
+                        sha.update(x509cert.getEncoded());
+                    } catch (CertificateEncodingException e1) {
+                        throw new WSSecurityException(WSSecurityException.SECURITY_TOKEN_UNAVAILABLE,
+                                "encodeError");
+                    }
+                    putIfAbsent(thumbAliases, ByteBuffer.wrap(sha.digest()), alias);
+
+                    try {
+                        putIfAbsent(skiAliases, ByteBuffer.wrap(readSKIBytes(x509cert)), alias);
+                    } catch (WSSecurityException e1) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Unable to read the subject key identifier of the certificate: " + alias, e1);
+                        }
+                    }
+
+                    putIfAbsent(issuerSerialAliases, Arrays.<Object>asList(x509cert.getSerialNumber(),
+                            splitAndTrim(x509cert.getIssuerDN().getName())), alias);
+
+                    Vector subjectRDN = splitAndTrim(x509cert.getSubjectDN().getName());
+                    List<String> aliases = subjectDNAliases.get(subjectRDN);
+                    if (aliases == null) {
+                        aliases = new ArrayList<>();
+                        subjectDNAliases.put(subjectRDN, aliases);
+                    }
+                    aliases.add(alias);
+                }
+            } catch (KeyStoreException e) {
+                throw new WSSecurityException(WSSecurityException.FAILURE, "keystore");
+            }
+
+            validatedCertPaths = Collections.synchronizedMap(new LinkedHashMap<ByteBuffer, Long>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Long> eldest) {
+                    return size() > certPathValidationCacheSize;
+                }
+            });
+        }
+
+        String getAliasForThumb(byte[] thumb) {
+            return thumbAliases.get(ByteBuffer.wrap(thumb));
+        }
+
+        String getAliasForSKI(byte[] skiBytes) {
+            return skiAliases.get(ByteBuffer.wrap(skiBytes));
+        }
+
+        String getAliasForIssuerSerial(Vector issuerRDN, BigInteger serialNumber) {
+            return issuerSerialAliases.get(Arrays.<Object>asList(serialNumber, issuerRDN));
+        }
+
+        List<String> getAliasesForDN(Vector subjectRDN) {
+            List<String> aliases = subjectDNAliases.get(subjectRDN);
+            return aliases == null ? Collections.<String>emptyList() : aliases;
+        }
+
+        boolean isValidatedCertPath(ByteBuffer fingerprint) {
+
+            Long expiryTime = validatedCertPaths.get(fingerprint);
+            if (expiryTime == null) {
+                return false;
+            }
+            if (expiryTime < System.currentTimeMillis()) {
+                validatedCertPaths.remove(fingerprint);
+                return false;
+            }
+            return true;
+        }
+
+        void addValidatedCertPath(ByteBuffer fingerprint, long expiryTime) {
+            validatedCertPaths.put(fingerprint, expiryTime);
+        }
+
+        private <K> void putIfAbsent(Map<K, String> aliases, K key, String alias) {
+            if (!aliases.containsKey(key)) {
+                aliases.put(key, alias);
+            }
+        }
+    }
 }
@@ -380,6 +380,21 @@ public class UserAdmin {
         return getUserAdminProxy().getUsersOfRole(roleName, filter, limit);
     }
 
+    /**
+     * Lists a page of the members of a role which match the filter, sorted by name.
+     *
+     * @param roleName Name of the role.
+     * @param filter   Filter of the user names. Null matches all the members.
+     * @param offset   Number of matching members to skip.
+     * @param limit    Maximum number of members to return.
+     * @return Members of the page, followed by the list limit exceeded flag.
+     * @throws UserAdminException If the members could not be listed.
+     */
+    public FlaggedName[] getPaginatedUsersOfRole(String roleName, String filter, int offset, int limit)
+            throws UserAdminException {
+        return getUserAdminProxy().getPaginatedUsersOfRole(roleName, filter, offset, limit);
+    }
+
     /*
      * (non-Javadoc)
      * 
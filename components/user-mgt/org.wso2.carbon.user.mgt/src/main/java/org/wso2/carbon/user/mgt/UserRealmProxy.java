@@ -63,8 +63,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -241,35 +244,9 @@ public class UserRealmProxy {
                 return o1.getItemName().toLowerCase().compareTo(o2.getItemName().toLowerCase());
             }
         });
-        String exceededDomains = "";
-        boolean isPrimaryExceeding = false;
         try {
-            Map<String, Integer> maxUserListCount = ((AbstractUserStoreManager) realm.getUserStoreManager()).
-                    getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST);
-            String[] domains = userCount.keySet().toArray(new String[userCount.keySet().size()]);
-            for (int i = 0; i < domains.length; i++) {
-                if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equalsIgnoreCase(domains[i])) {
-                    if (userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).intValue() ==
-                            maxUserListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).intValue()) {
-                        isPrimaryExceeding = true;
-                    }
-                    continue;
-                }
-                if (userCount.get(domains[i]).equals(maxUserListCount.get(domains[i].toUpperCase()))) {
-                    exceededDomains += domains[i];
-                    if (i != domains.length - 1) {
-                        exceededDomains += ":";
-                    }
-                }
-            }
-            FlaggedName flaggedName = new FlaggedName();
-            if (isPrimaryExceeding) {
-                flaggedName.setItemName("true");
-            } else {
-                flaggedName.setItemName(FALSE);
-            }
-            flaggedName.setItemDisplayName(exceededDomains);
-            flaggedNames[flaggedNames.length - 1] = flaggedName;
+            flaggedNames[flaggedNames.length - 1] = getListLimitExceededFlag(userCount,
+                    UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST);
         } catch (UserStoreException e) {
             log.error(e.getMessage(), e);
             throw new UserAdminException(e.getMessage(), e);
@@ -338,27 +315,6 @@ public class UserRealmProxy {
                 flaggedNames.add(fName);
             }
 
-            String exceededDomains = "";
-            boolean isPrimaryExceeding = false;
-            Map<String, Integer> maxUserListCount = ((AbstractUserStoreManager) realm.
-                    getUserStoreManager()).getMaxListCount(UserCoreConstants.
-                    RealmConfig.PROPERTY_MAX_ROLE_LIST);
-            String[] domains = userCount.keySet().toArray(new String[userCount.keySet().size()]);
-            for (int i = 0; i < domains.length; i++) {
-                if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equals(domains[i])) {
-                    if (userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).
-                            equals(maxUserListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME))) {
-                        isPrimaryExceeding = true;
-                    }
-                    continue;
-                }
-                if (userCount.get(domains[i]).equals(maxUserListCount.get(domains[i].toUpperCase()))) {
-                    exceededDomains += domains[i];
-                    if (i != domains.length - 1) {
-                        exceededDomains += ":";
-                    }
-                }
-            }
             FlaggedName[] roleNames =
                     flaggedNames.toArray(new FlaggedName[flaggedNames.size() + 1]);
             Arrays.sort(roleNames, new Comparator<FlaggedName>() {
@@ -370,14 +326,8 @@ public class UserRealmProxy {
                     return o1.getItemName().toLowerCase().compareTo(o2.getItemName().toLowerCase());
                 }
             });
-            FlaggedName flaggedName = new FlaggedName();
-            if (isPrimaryExceeding) {
-                flaggedName.setItemName("true");
-            } else {
-                flaggedName.setItemName(FALSE);
-            }
-            flaggedName.setItemDisplayName(exceededDomains);
-            roleNames[roleNames.length - 1] = flaggedName;
+            roleNames[roleNames.length - 1] = getListLimitExceededFlag(userCount,
+                    UserCoreConstants.RealmConfig.PROPERTY_MAX_ROLE_LIST);
             return roleNames;
 
         } catch (UserStoreException e) {
@@ -477,26 +427,6 @@ public class UserRealmProxy {
                 fName.setEditable(true);
                 flaggedNames.add(fName);
             }
-            String exceededDomains = "";
-            boolean isPrimaryExceeding = false;
-            Map<String, Integer> maxUserListCount = ((AbstractUserStoreManager) realm.getUserStoreManager()).
-                    getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_ROLE_LIST);
-            String[] domains = userCount.keySet().toArray(new String[userCount.keySet().size()]);
-            for (int i = 0; i < domains.length; i++) {
-                if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equals(domains[i])) {
-                    if (userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).
-                            equals(maxUserListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME))) {
-                        isPrimaryExceeding = true;
-                    }
-                    continue;
-                }
-                if (userCount.get(domains[i]).equals(maxUserListCount.get(domains[i].toUpperCase()))) {
-                    exceededDomains += domains[i];
-                    if (i != domains.length - 1) {
-                        exceededDomains += ":";
-                    }
-                }
-            }
             FlaggedName[] roleNames = flaggedNames.toArray(new FlaggedName[flaggedNames.size() + 1]);
             Arrays.sort(roleNames, new Comparator<FlaggedName>() {
                 @Override
@@ -507,14 +437,8 @@ public class UserRealmProxy {
                     return o1.getItemName().toLowerCase().compareTo(o2.getItemName().toLowerCase());
                 }
             });
-            FlaggedName flaggedName = new FlaggedName();
-            if (isPrimaryExceeding) {
-                flaggedName.setItemName("true");
-            } else {
-                flaggedName.setItemName(FALSE);
-            }
-            flaggedName.setItemDisplayName(exceededDomains);
-            roleNames[roleNames.length - 1] = flaggedName;
+            roleNames[roleNames.length - 1] = getListLimitExceededFlag(userCount,
+                    UserCoreConstants.RealmConfig.PROPERTY_MAX_ROLE_LIST);
             return roleNames;
 
         } catch (UserStoreException e) {
@@ -1075,108 +999,41 @@ public class UserRealmProxy {
             }
 
             UserStoreManager usMan = realm.getUserStoreManager();
+            // The user store API has no filtered or paged role membership call, hence the whole membership is still
+            // loaded here and the filter and limit are applied on it.
             String[] usersOfRole = usMan.getUserListOfRole(roleName);
-            Arrays.sort(usersOfRole);
-            Map<String, Integer> userCount = new HashMap<String, Integer>();
+            String countDomain = domain != null ? domain : UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
+            Boolean editable = null;
             if (limit == 0) {
                 filter = filter.replace("*", ".*");
                 Pattern pattern = Pattern.compile(filter, Pattern.CASE_INSENSITIVE);
-                List<FlaggedName> flaggedNames = new ArrayList<FlaggedName>();
-                for (String anUsersOfRole : usersOfRole) {
-                    //check if display name is present in the user name
-                    int combinerIndex = anUsersOfRole.indexOf("|");
-                    Matcher matcher;
-                    if (combinerIndex > 0) {
-                        matcher = pattern.matcher(anUsersOfRole.substring(combinerIndex + 1));
-                    } else {
-                        matcher = pattern.matcher(anUsersOfRole);
-                    }
-                    if (!matcher.matches()) {
-                        continue;
-                    }
-
-                    FlaggedName fName = new FlaggedName();
-                    fName.setSelected(true);
-                    if (combinerIndex > 0) { //if display name is appended
-                        fName.setItemName(anUsersOfRole.substring(0, combinerIndex));
-                        fName.setItemDisplayName(anUsersOfRole.substring(combinerIndex + 1));
-                    } else {
-                        //if only user name is present
-                        fName.setItemName(anUsersOfRole);
-                        fName.setItemDisplayName(anUsersOfRole);
-                    }
-                    if (domain != null && !(UserCoreConstants.INTERNAL_DOMAIN.equalsIgnoreCase(domain)
-                                            || UserMgtConstants.APPLICATION_DOMAIN.equalsIgnoreCase(domain))) {
-                        if (usMan.getSecondaryUserStoreManager(domain) != null &&
-                                (usMan.getSecondaryUserStoreManager(domain).isReadOnly() ||
-                                        FALSE.equals(usMan.getSecondaryUserStoreManager(domain).getRealmConfiguration().
-                                                getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED)))) {
-                            fName.setEditable(false);
-                        } else {
-                            fName.setEditable(true);
-                        }
-                    } else {
-                        if (usMan.isReadOnly() || (usMan.getSecondaryUserStoreManager(domain) != null &&
-                                FALSE.equals(usMan.getRealmConfiguration().
-                                        getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED)))) {
-                            fName.setEditable(false);
-                        } else {
-                            fName.setEditable(true);
-                        }
-                    }
-                    if (domain != null) {
-                        if (userCount.containsKey(domain)) {
-                            userCount.put(domain, userCount.get(domain) + 1);
-                        } else {
-                            userCount.put(domain, 1);
-                        }
-                    } else {
-                        if (userCount.containsKey(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME)) {
-                            userCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME,
-                                    userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME) + 1);
-                        } else {
-                            userCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME, 1);
-                        }
-                    }
-                    flaggedNames.add(fName);
-                }
-                String exceededDomains = "";
-                boolean isPrimaryExceeding = false;
-                Map<String, Integer> maxUserListCount = ((AbstractUserStoreManager) realm.getUserStoreManager()).
-                        getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST);
-                String[] domains = userCount.keySet().toArray(new String[userCount.keySet().size()]);
-                for (int i = 0; i < domains.length; i++) {
-                    if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equals(domains[i])) {
-                        if (userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).
-                                equals(maxUserListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME))) {
-                            isPrimaryExceeding = true;
-                        }
-                        continue;
-                    }
-                    if (userCount.get(domains[i]).equals(maxUserListCount.get(domains[i].toUpperCase()))) {
-                        exceededDomains += domains[i];
-                        if (i != domains.length - 1) {
-                            exceededDomains += ":";
-                        }
-                    }
-                }
-                FlaggedName flaggedName = new FlaggedName();
-                if (isPrimaryExceeding) {
-                    flaggedName.setItemName("true");
-                } else {
-                    flaggedName.setItemName(FALSE);
-                }
-                flaggedName.setItemDisplayName(exceededDomains);
-                flaggedNames.add(flaggedName);
+                // At most the maximum user list count of the domain is kept and sorted, instead of the whole
+                // membership. Reaching the count is reported in the list limit exceeded flag.
+                List<String> matchingUsersOfRole = getSortedMembersOfRole(usersOfRole, pattern, 0,
+                        getMaxUserListCount(usMan, countDomain));
+                List<FlaggedName> flaggedNames = getMembersOfRoleFlaggedNames(matchingUsersOfRole, usMan, domain);
+                flaggedNames.add(getListLimitExceededFlag(
+                        getEntityCount(countDomain, matchingUsersOfRole.size()),
+                        UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST));
                 return flaggedNames.toArray(new FlaggedName[flaggedNames.size()]);
             }
 
             String[] userNames = usMan.listUsers(filter, limit);
+
+            // Look up the listed users in the membership, instead of sorting the whole membership.
+            Set<String> listedUserNames = new HashSet<String>(Arrays.asList(userNames));
+            Set<String> selectedUserNames = new HashSet<String>();
+            for (String anUsersOfRole : usersOfRole) {
+                if (listedUserNames.contains(anUsersOfRole)) {
+                    selectedUserNames.add(anUsersOfRole);
+                }
+            }
+
             FlaggedName[] flaggedNames = new FlaggedName[userNames.length + 1];
             for (int i = 0; i < userNames.length; i++) {
                 FlaggedName fName = new FlaggedName();
                 fName.setItemName(userNames[i]);
-                if (Arrays.binarySearch(usersOfRole, userNames[i]) > -1) {
+                if (selectedUserNames.contains(userNames[i])) {
                     fName.setSelected(true);
                 }
                 //check if display name is present in the user name
@@ -1188,74 +1045,216 @@ public class UserRealmProxy {
                     //if only user name is present
                     fName.setItemName(userNames[i]);
                 }
-                if (domain != null && !(UserCoreConstants.INTERNAL_DOMAIN.equalsIgnoreCase(domain) ||
-                                        UserMgtConstants.APPLICATION_DOMAIN.equalsIgnoreCase(domain))) {
-                    if (usMan.getSecondaryUserStoreManager(domain) != null &&
-                            (usMan.getSecondaryUserStoreManager(domain).isReadOnly() ||
-                                    FALSE.equals(usMan.getSecondaryUserStoreManager(domain).getRealmConfiguration().
-                                            getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED)))) {
-                        fName.setEditable(false);
-                    } else {
-                        fName.setEditable(true);
-                    }
-                } else {
-                    if (usMan.isReadOnly() || (usMan.getSecondaryUserStoreManager(domain) != null &&
-                            FALSE.equals(usMan.getRealmConfiguration().
-                                    getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED)))) {
-                        fName.setEditable(false);
-                    } else {
-                        fName.setEditable(true);
-                    }
-                }
-                if (domain != null) {
-                    if (userCount.containsKey(domain)) {
-                        userCount.put(domain, userCount.get(domain) + 1);
-                    } else {
-                        userCount.put(domain, 1);
-                    }
-                } else {
-                    if (userCount.containsKey(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME)) {
-                        userCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME,
-                                userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME) + 1);
-                    } else {
-                        userCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME, 1);
-                    }
+                if (editable == null) {
+                    editable = isRoleMembershipEditable(usMan, domain);
                 }
+                fName.setEditable(editable);
                 flaggedNames[i] = fName;
             }
-            String exceededDomains = "";
-            boolean isPrimaryExceeding = false;
-            Map<String, Integer> maxUserListCount = ((AbstractUserStoreManager) realm.getUserStoreManager()).
-                    getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST);
-            String[] domains = userCount.keySet().toArray(new String[userCount.keySet().size()]);
-            for (int i = 0; i < domains.length; i++) {
-                if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equals(domains[i])) {
-                    if (userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).
-                            equals(maxUserListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME))) {
-                        isPrimaryExceeding = true;
-                    }
+            flaggedNames[flaggedNames.length - 1] = getListLimitExceededFlag(
+                    getEntityCount(countDomain, userNames.length),
+                    UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST);
+            return flaggedNames;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            throw new UserAdminException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lists a page of the members of a role which match the filter, sorted by name. While the membership is scanned
+     * only offset + limit members are kept, and the page is capped at the maximum user list count of the domain of
+     * the role.
+     *
+     * @param roleName Name of the role.
+     * @param filter   Filter of the user names, where * matches any characters. Null matches all the members.
+     * @param offset   Number of matching members to skip.
+     * @param limit    Maximum number of members to return.
+     * @return Members of the page, followed by the list limit exceeded flag.
+     * @throws UserAdminException If the offset or the limit is invalid, or the members could not be listed.
+     */
+    public FlaggedName[] getPaginatedUsersOfRole(String roleName, String filter, int offset, int limit)
+            throws UserAdminException {
+
+        if (offset < 0 || limit <= 0) {
+            throw new UserAdminException("Invalid offset: " + offset + " or limit: " + limit +
+                    " to list the users of role: " + roleName);
+        }
+        try {
+            int index = roleName != null ? roleName.indexOf("/") : -1;
+            String domain = index > 0 ? roleName.substring(0, index) : null;
+
+            if (filter == null) {
+                filter = "*";
+            }
+            if (domain != null && !filter.toLowerCase().startsWith(domain.toLowerCase()) &&
+                    !(UserCoreConstants.INTERNAL_DOMAIN.equalsIgnoreCase(domain)
+                            || UserMgtConstants.APPLICATION_DOMAIN.equalsIgnoreCase(domain))) {
+                filter = domain + "/" + filter;
+            }
+            Pattern pattern = Pattern.compile(filter.replace("*", ".*"), Pattern.CASE_INSENSITIVE);
+
+            UserStoreManager usMan = realm.getUserStoreManager();
+            String countDomain = domain != null ? domain : UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
+            int pageSize = Math.min(limit, getMaxUserListCount(usMan, countDomain));
+            List<String> page = getSortedMembersOfRole(usMan.getUserListOfRole(roleName), pattern, offset,
+                    pageSize);
+
+            List<FlaggedName> flaggedNames = getMembersOfRoleFlaggedNames(page, usMan, domain);
+            flaggedNames.add(getListLimitExceededFlag(getEntityCount(countDomain, page.size()),
+                    UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST));
+            return flaggedNames.toArray(new FlaggedName[flaggedNames.size()]);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            throw new UserAdminException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Selects the members of a role which match the pattern and fall in the given page of the sorted members. Only
+     * offset + limit members are held while scanning, in a heap which has the greatest of them on top.
+     */
+    private List<String> getSortedMembersOfRole(String[] usersOfRole, Pattern pattern, int offset, int limit) {
+
+        int maxKept = offset > Integer.MAX_VALUE - limit ? Integer.MAX_VALUE : offset + limit;
+        PriorityQueue<String> keptUsersOfRole = new PriorityQueue<String>(11, Collections.<String>reverseOrder());
+        if (usersOfRole != null) {
+            for (String anUsersOfRole : usersOfRole) {
+                //check if display name is present in the user name
+                int combinerIndex = anUsersOfRole.indexOf("|");
+                Matcher matcher;
+                if (combinerIndex > 0) {
+                    matcher = pattern.matcher(anUsersOfRole.substring(combinerIndex + 1));
+                } else {
+                    matcher = pattern.matcher(anUsersOfRole);
+                }
+                if (!matcher.matches()) {
                     continue;
                 }
-                if (userCount.get(domains[i]).equals(maxUserListCount.get(domains[i].toUpperCase()))) {
-                    exceededDomains += domains[i];
-                    if (i != domains.length - 1) {
-                        exceededDomains += ":";
-                    }
+                if (keptUsersOfRole.size() < maxKept) {
+                    keptUsersOfRole.add(anUsersOfRole);
+                } else if (anUsersOfRole.compareTo(keptUsersOfRole.peek()) < 0) {
+                    keptUsersOfRole.poll();
+                    keptUsersOfRole.add(anUsersOfRole);
                 }
             }
-            FlaggedName flaggedName = new FlaggedName();
-            if (isPrimaryExceeding) {
-                flaggedName.setItemName("true");
+        }
+        List<String> sortedUsersOfRole = new ArrayList<String>(keptUsersOfRole);
+        Collections.sort(sortedUsersOfRole);
+        if (offset >= sortedUsersOfRole.size()) {
+            return new ArrayList<String>();
+        }
+        return new ArrayList<String>(sortedUsersOfRole.subList(offset, sortedUsersOfRole.size()));
+    }
+
+    private List<FlaggedName> getMembersOfRoleFlaggedNames(List<String> usersOfRole, UserStoreManager usMan,
+                                                           String domain) throws UserStoreException {
+
+        List<FlaggedName> flaggedNames = new ArrayList<FlaggedName>();
+        Boolean editable = null;
+        for (String anUsersOfRole : usersOfRole) {
+            int combinerIndex = anUsersOfRole.indexOf("|");
+            FlaggedName fName = new FlaggedName();
+            fName.setSelected(true);
+            if (combinerIndex > 0) { //if display name is appended
+                fName.setItemName(anUsersOfRole.substring(0, combinerIndex));
+                fName.setItemDisplayName(anUsersOfRole.substring(combinerIndex + 1));
             } else {
-                flaggedName.setItemName(FALSE);
+                //if only user name is present
+                fName.setItemName(anUsersOfRole);
+                fName.setItemDisplayName(anUsersOfRole);
             }
-            flaggedName.setItemDisplayName(exceededDomains);
-            flaggedNames[flaggedNames.length - 1] = flaggedName;
-            return flaggedNames;
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new UserAdminException(e.getMessage(), e);
+            if (editable == null) {
+                editable = isRoleMembershipEditable(usMan, domain);
+            }
+            fName.setEditable(editable);
+            flaggedNames.add(fName);
+        }
+        return flaggedNames;
+    }
+
+    /**
+     * @return Maximum user list count of the domain, or of the primary domain if the domain has none.
+     */
+    private int getMaxUserListCount(UserStoreManager usMan, String domain) throws UserStoreException {
+
+        if (!(usMan instanceof AbstractUserStoreManager)) {
+            return Integer.MAX_VALUE;
+        }
+        Map<String, Integer> maxListCount = ((AbstractUserStoreManager) usMan)
+                .getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST);
+        if (maxListCount == null) {
+            return Integer.MAX_VALUE;
+        }
+        Integer maxUserListCount = maxListCount.get(domain.toUpperCase());
+        if (maxUserListCount == null) {
+            maxUserListCount = maxListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        }
+        return maxUserListCount != null && maxUserListCount > 0 ? maxUserListCount : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Checks whether the role memberships of the users of the given user store domain can be edited.
+     */
+    private boolean isRoleMembershipEditable(UserStoreManager usMan, String domain) throws UserStoreException {
+
+        if (domain != null && !(UserCoreConstants.INTERNAL_DOMAIN.equalsIgnoreCase(domain)
+                || UserMgtConstants.APPLICATION_DOMAIN.equalsIgnoreCase(domain))) {
+            UserStoreManager secondaryUserStoreManager = usMan.getSecondaryUserStoreManager(domain);
+            return !(secondaryUserStoreManager != null && (secondaryUserStoreManager.isReadOnly() ||
+                    FALSE.equals(secondaryUserStoreManager.getRealmConfiguration().
+                            getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED))));
+        }
+        return !(usMan.isReadOnly() || (usMan.getSecondaryUserStoreManager(domain) != null &&
+                FALSE.equals(usMan.getRealmConfiguration().
+                        getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED))));
+    }
+
+    private Map<String, Integer> getEntityCount(String domain, int count) {
+
+        Map<String, Integer> entityCount = new HashMap<String, Integer>();
+        if (count > 0) {
+            entityCount.put(domain, count);
         }
+        return entityCount;
+    }
+
+    /**
+     * Builds the trailing entry of the listings, which tells whether the number of entities listed from a user
+     * store domain has reached the maximum list count of the domain. The item name tells whether the primary
+     * domain has reached it and the display name has the other domains which have reached it.
+     */
+    private FlaggedName getListLimitExceededFlag(Map<String, Integer> entityCount, String maxListCountProperty)
+            throws UserStoreException {
+
+        String exceededDomains = "";
+        boolean isPrimaryExceeding = false;
+        Map<String, Integer> maxListCount = ((AbstractUserStoreManager) realm.getUserStoreManager()).
+                getMaxListCount(maxListCountProperty);
+        String[] domains = entityCount.keySet().toArray(new String[entityCount.keySet().size()]);
+        for (int i = 0; i < domains.length; i++) {
+            if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equalsIgnoreCase(domains[i])) {
+                if (entityCount.get(domains[i]).
+                        equals(maxListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME))) {
+                    isPrimaryExceeding = true;
+                }
+                continue;
+            }
+            if (entityCount.get(domains[i]).equals(maxListCount.get(domains[i].toUpperCase()))) {
+                exceededDomains += domains[i];
+                if (i != domains.length - 1) {
+                    exceededDomains += ":";
+                }
+            }
+        }
+        FlaggedName flaggedName = new FlaggedName();
+        if (isPrimaryExceeding) {
+            flaggedName.setItemName("true");
+        } else {
+            flaggedName.setItemName(FALSE);
+        }
+        flaggedName.setItemDisplayName(exceededDomains);
+        return flaggedName;
     }
 
     public FlaggedName[] getRolesOfUser(String userName, String filter, int limit) throws UserAdminException {
@@ -1271,7 +1270,7 @@ public class UserRealmProxy {
 
             UserStoreManager admin = realm.getUserStoreManager();
             String[] userRoles = ((AbstractUserStoreManager) admin).getRoleListOfUser(userName);
-            Map<String, Integer> userCount = new HashMap<String, Integer>();
+            String countDomain = domain != null ? domain : UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
 
             if (limit == 0) {
 
@@ -1285,8 +1284,9 @@ public class UserRealmProxy {
 
                 String[] hybridRoles = ((AbstractUserStoreManager) admin).getHybridRoles(modifiedFilter);
 
+                Set<String> hybridRoleSet = null;
                 if (hybridRoles != null) {
-                    Arrays.sort(hybridRoles);
+                    hybridRoleSet = new HashSet<String>(Arrays.asList(hybridRoles));
                 }
 
                 // filter with regexp
@@ -1307,18 +1307,10 @@ public class UserRealmProxy {
                                     substring(0, role.indexOf(CarbonConstants.DOMAIN_SEPARATOR) + 1);
                         }
                     }
-                    if (hybridRoles != null && Arrays.binarySearch(hybridRoles, role) > -1) {
-                        Matcher matcher = pattern.matcher(matchingRole);
-                        if (!(matcher.matches() && (roleDomain == null ||
-                                filter.toLowerCase().startsWith(roleDomain.toLowerCase())))) {
-                            continue;
-                        }
-                    } else {
-                        Matcher matcher = pattern.matcher(matchingRole);
-                        if (!(matcher.matches() && (roleDomain == null ||
-                                filter.toLowerCase().startsWith(roleDomain.toLowerCase())))) {
-                            continue;
-                        }
+                    Matcher matcher = pattern.matcher(matchingRole);
+                    if (!(matcher.matches() && (roleDomain == null ||
+                            filter.toLowerCase().startsWith(roleDomain.toLowerCase())))) {
+                        continue;
                     }
 
                     FlaggedName fName = new FlaggedName();
@@ -1331,7 +1323,7 @@ public class UserRealmProxy {
                                         getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED) != null &&
                                         admin.getSecondaryUserStoreManager(domain).getRealmConfiguration().
                                                 getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED).equals(FALSE))) &&
-                                hybridRoles != null && Arrays.binarySearch(hybridRoles, role) < 0) {
+                                hybridRoleSet != null && !hybridRoleSet.contains(role)) {
 
                             fName.setEditable(false);
                         } else {
@@ -1342,56 +1334,16 @@ public class UserRealmProxy {
                                 getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED) != null &&
                                 FALSE.equals(admin.getRealmConfiguration().
                                         getUserStoreProperty(UserCoreConstants.RealmConfig.WRITE_GROUPS_ENABLED)))) &&
-                                hybridRoles != null && Arrays.binarySearch(hybridRoles, role) < 0) {
+                                hybridRoleSet != null && !hybridRoleSet.contains(role)) {
                             fName.setEditable(false);
                         } else {
                             fName.setEditable(true);
                         }
                     }
-                    if (domain != null) {
-                        if (userCount.containsKey(domain)) {
-                            userCount.put(domain, userCount.get(domain) + 1);
-                        } else {
-                            userCount.put(domain, 1);
-                        }
-                    } else {
-                        if (userCount.containsKey(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME)) {
-                            userCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME,
-                                    userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME) + 1);
-                        } else {
-                            userCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME, 1);
-                        }
-                    }
                     flaggedNames.add(fName);
                 }
-                String exceededDomains = "";
-                boolean isPrimaryExceeding = false;
-                Map<String, Integer> maxUserListCount = ((AbstractUserStoreManager) realm.getUserStoreManager()).
-                        getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_ROLE_LIST);
-                String[] domains = userCount.keySet().toArray(new String[userCount.keySet().size()]);
-                for (int i = 0; i < domains.length; i++) {
-                    if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equals(domains[i])) {
-                        if (userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).
-                                equals(maxUserListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME))) {
-                            isPrimaryExceeding = true;
-                        }
-                        continue;
-                    }
-                    if (userCount.get(domains[i]).equals(maxUserListCount.get(domains[i].toUpperCase()))) {
-                        exceededDomains += domains[i];
-                        if (i != domains.length - 1) {
-                            exceededDomains += ":";
-                        }
-                    }
-                }
-                FlaggedName flaggedName = new FlaggedName();
-                if (isPrimaryExceeding) {
-                    flaggedName.setItemName("true");
-                } else {
-                    flaggedName.setItemName(FALSE);
-                }
-                flaggedName.setItemDisplayName(exceededDomains);
-                flaggedNames.add(flaggedName);
+                flaggedNames.add(getListLimitExceededFlag(getEntityCount(countDomain, flaggedNames.size()),
+                        UserCoreConstants.RealmConfig.PROPERTY_MAX_ROLE_LIST));
                 return flaggedNames.toArray(new FlaggedName[flaggedNames.size()]);
             }
 
@@ -1441,14 +1393,15 @@ public class UserRealmProxy {
 
             List<FlaggedName> flaggedNames = new ArrayList<FlaggedName>();
 
-            Arrays.sort(userRoles);
+            Set<String> userRoleSet = new HashSet<String>(Arrays.asList(userRoles));
+            int externalRoleCount = 0;
             if (externalRoles != null) {
                 for (String externalRole : externalRoles) {
                     FlaggedName fname = new FlaggedName();
 
                     mapEntityName(externalRole, fname, admin);
                     fname.setDomainName(domain);
-                    if (Arrays.binarySearch(userRoles, externalRole) > -1) {
+                    if (userRoleSet.contains(externalRole)) {
                         fname.setSelected(true);
                     }
                     if (domain != null) {
@@ -1468,20 +1421,7 @@ public class UserRealmProxy {
                             fname.setEditable(true);
                         }
                     }
-                    if (domain != null) {
-                        if (userCount.containsKey(domain)) {
-                            userCount.put(domain, userCount.get(domain) + 1);
-                        } else {
-                            userCount.put(domain, 1);
-                        }
-                    } else {
-                        if (userCount.containsKey(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME)) {
-                            userCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME,
-                                    userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME) + 1);
-                        } else {
-                            userCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME, 1);
-                        }
-                    }
+                    externalRoleCount++;
                     flaggedNames.add(fname);
                 }
             }
@@ -1491,7 +1431,7 @@ public class UserRealmProxy {
                     FlaggedName fname = new FlaggedName();
                     fname.setItemName(internalRole);
                     fname.setDomainName(UserCoreConstants.INTERNAL_DOMAIN);
-                    if (Arrays.binarySearch(userRoles, internalRole) > -1) {
+                    if (userRoleSet.contains(internalRole)) {
                         fname.setSelected(true);
                     }
                     fname.setEditable(true);
@@ -1507,34 +1447,8 @@ public class UserRealmProxy {
                 }
             });
 
-            String exceededDomains = "";
-            boolean isPrimaryExceeding = false;
-            Map<String, Integer> maxUserListCount = ((AbstractUserStoreManager) realm.
-                    getUserStoreManager()).getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_ROLE_LIST);
-            String[] domains = userCount.keySet().toArray(new String[userCount.keySet().size()]);
-            for (int i = 0; i < domains.length; i++) {
-                if (UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equals(domains[i])) {
-                    if (userCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).
-                            equals(maxUserListCount.get(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME))) {
-                        isPrimaryExceeding = true;
-                    }
-                    continue;
-                }
-                if (userCount.get(domains[i]).equals(maxUserListCount.get(domains[i].toUpperCase()))) {
-                    exceededDomains += domains[i];
-                    if (i != domains.length - 1) {
-                        exceededDomains += ":";
-                    }
-                }
-            }
-            FlaggedName flaggedName = new FlaggedName();
-            if (isPrimaryExceeding) {
-                flaggedName.setItemName("true");
-            } else {
-                flaggedName.setItemName(FALSE);
-            }
-            flaggedName.setItemDisplayName(exceededDomains);
-            flaggedNames.add(flaggedName);
+            flaggedNames.add(getListLimitExceededFlag(getEntityCount(countDomain, externalRoleCount),
+                    UserCoreConstants.RealmConfig.PROPERTY_MAX_ROLE_LIST));
             return flaggedNames.toArray(new FlaggedName[flaggedNames.size()]);
         } catch (Exception e) {
             log.error(e);
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.user.mgt.bulkimport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per user outcome of a bulk user import. The report is updated by the threads which provision the users.
+ */
+public class BulkImportReport {
+
+    private final AtomicInteger successCount = new AtomicInteger();
+    private final List<String> duplicateUsers = Collections.synchronizedList(new ArrayList<String>());
+    private final Map<String, String> failedUsers = Collections.synchronizedMap(new LinkedHashMap<String, String>());
+
+    void addSuccess() {
+
+        successCount.incrementAndGet();
+    }
+
+    void addDuplicate(String userName) {
+
+        duplicateUsers.add(userName);
+    }
+
+    void addFailure(String userName, String cause) {
+
+        failedUsers.put(userName, cause);
+    }
+
+    public int getSuccessCount() {
+
+        return successCount.get();
+    }
+
+    public int getDuplicateCount() {
+
+        return duplicateUsers.size();
+    }
+
+    public int getFailedCount() {
+
+        return failedUsers.size();
+    }
+
+    public int getProcessedCount() {
+
+        return getSuccessCount() + getDuplicateCount() + getFailedCount();
+    }
+
+    public boolean hasErrors() {
+
+        return !duplicateUsers.isEmpty() || !failedUsers.isEmpty();
+    }
+
+    /**
+     * @return names of the users which were already in the user store or repeated in the file
+     */
+    public List<String> getDuplicateUsers() {
+
+        synchronized (duplicateUsers) {
+            return new ArrayList<>(duplicateUsers);
+        }
+    }
+
+    /**
+     * @return names of the users which could not be imported, with the cause of the failure
+     */
+    public Map<String, String> getFailedUsers() {
+
+        synchronized (failedUsers) {
+            return new LinkedHashMap<>(failedUsers);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.user.mgt.bulkimport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.mgt.common.UserAdminException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adds the users read by a bulk import to the user store. The users are grouped into batches, and the batches are
+ * added by a bounded pool of threads. The queue of the pool is bounded too, so that the thread reading the file
+ * adds a batch by itself when all the threads are busy, instead of reading the whole file into memory.
+ */
+class BulkUserProvisioner {
+
+    private static final Log log = LogFactory.getLog(BulkUserProvisioner.class);
+    private static final int PROGRESS_LOG_INTERVAL = 10000;
+
+    private final UserStoreManager userStore;
+    private final BulkImportReport report;
+    private final int batchSize;
+    private final ThreadPoolExecutor executor;
+    private final int tenantId;
+    private final String tenantDomain;
+    private final String username;
+    private List<ImportUser> batch;
+
+    BulkUserProvisioner(UserStoreManager userStore, BulkImportReport report, int threadPoolSize, int batchSize) {
+
+        this.userStore = userStore;
+        this.report = report;
+        this.batchSize = Math.max(batchSize, 1);
+        this.batch = new ArrayList<>(this.batchSize);
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        tenantId = carbonContext.getTenantId();
+        tenantDomain = carbonContext.getTenantDomain();
+        username = carbonContext.getUsername();
+
+        if (threadPoolSize > 1) {
+            executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(threadPoolSize), new ImportThreadFactory(tenantDomain),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Queues a user to be added to the user store.
+     */
+    void add(String userName, String password, String[] roles, Map<String, String> claims) {
+
+        batch.add(new ImportUser(userName, password, roles, claims));
+        if (batch.size() >= batchSize) {
+            submit(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * Adds the remaining users and waits until all the queued users are added.
+     *
+     * @throws UserAdminException If interrupted while waiting for the users to be added.
+     */
+    void finish() throws UserAdminException {
+
+        if (!batch.isEmpty()) {
+            submit(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Waiting for the bulk user import to complete. Processed users: " +
+                        report.getProcessedCount());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new UserAdminException("Interrupted while importing users", e);
+        }
+    }
+
+    private void submit(final List<ImportUser> users) {
+
+        if (executor == null) {
+            addUsers(users);
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                PrivilegedCarbonContext.startTenantFlow();
+                try {
+                    PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                    carbonContext.setTenantId(tenantId);
+                    carbonContext.setTenantDomain(tenantDomain);
+                    carbonContext.setUsername(username);
+                    addUsers(users);
+                } finally {
+                    PrivilegedCarbonContext.endTenantFlow();
+                }
+            }
+        });
+    }
+
+    private void addUsers(List<ImportUser> users) {
+
+        int processedBefore = report.getProcessedCount();
+        for (ImportUser user : users) {
+            addUser(user);
+        }
+        int processedAfter = report.getProcessedCount();
+        if (processedAfter / PROGRESS_LOG_INTERVAL > processedBefore / PROGRESS_LOG_INTERVAL) {
+            log.info("Bulk user import in progress. Processed users: " + processedAfter + ", Success count: " +
+                    report.getSuccessCount() + ", Failed count: " + report.getFailedCount() +
+                    ", Duplicate count: " + report.getDuplicateCount());
+        }
+    }
+
+    private void addUser(ImportUser user) {
+
+        try {
+            if (!userStore.isExistingUser(user.userName)) {
+                userStore.addUser(user.userName, user.password, user.roles, user.claims, null, true);
+                report.addSuccess();
+                if (log.isDebugEnabled()) {
+                    log.debug("User import successful - Username : " + user.userName);
+                }
+            } else {
+                report.addDuplicate(user.userName);
+                log.error("User import unsuccessful - Username : " + user.userName + " - Error: Duplicate user");
+            }
+        } catch (UserStoreException | RuntimeException e) {
+            report.addFailure(user.userName, e.getMessage());
+            log.error("User import unsuccessful - Username : " + user.userName + " - Error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Names the threads after the tenant importing the users, so that they can be identified in thread dumps.
+     */
+    private static class ImportThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private ImportThreadFactory(String tenantDomain) {
+
+            this.namePrefix = "UserBulkImport-" + tenantDomain + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            return new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+        }
+    }
+
+    private static class ImportUser {
+
+        private final String userName;
+        private final String password;
+        private final String[] roles;
+        private final Map<String, String> claims;
+
+        private ImportUser(String userName, String password, String[] roles, Map<String, String> claims) {
+
+            this.userName = userName;
+            this.password = password;
+            this.roles = roles;
+            this.claims = claims;
+        }
+    }
+}
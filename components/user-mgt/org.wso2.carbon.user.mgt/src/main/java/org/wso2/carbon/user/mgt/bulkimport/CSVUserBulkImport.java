@@ -23,7 +23,6 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.CarbonConstants;
-import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.user.mgt.UserMgtConstants;
@@ -56,57 +55,39 @@ public class CSVUserBulkImport extends UserBulkImport {
         CSVReader csvReader = new CSVReader(reader, ',', '"', 1);
         try {
             userStoreDomain = config.getUserStoreDomain();
-            String[] line = csvReader.readNext();
-            boolean isDuplicate = false;
-            boolean fail = false;
-            while (line != null && line.length > 0) {
-                String userName = line[0];
+            BulkUserProvisioner provisioner = createProvisioner(userStore);
+            try {
+                // The file is read and validated here, while the users are added by the provisioner.
+                String[] line = csvReader.readNext();
+                while (line != null && line.length > 0) {
+                    String userName = line[0];
 
-                int index;
-                index = userName.indexOf(CarbonConstants.DOMAIN_SEPARATOR);
-                if (index > 0) {
-                    String domainFreeName = userName.substring(index + 1);
-                    userName = UserCoreUtil.addDomainToName(domainFreeName, userStoreDomain);
-                } else {
-                    userName = UserCoreUtil.addDomainToName(userName, userStoreDomain);
-                }
+                    int index;
+                    index = userName.indexOf(CarbonConstants.DOMAIN_SEPARATOR);
+                    if (index > 0) {
+                        String domainFreeName = userName.substring(index + 1);
+                        userName = UserCoreUtil.addDomainToName(domainFreeName, userStoreDomain);
+                    } else {
+                        userName = UserCoreUtil.addDomainToName(userName, userStoreDomain);
+                    }
 
-                if (StringUtils.isNotBlank(userName)) {
-                    try {
-                        if (!userStore.isExistingUser(userName)) {
-                            if (line.length == 1) {
-                                userStore.addUser(userName, null, null, null, null, true);
-                                successCount++;
-                            } else {
-                                try {
-                                    addUserWithClaims(userName, line, userStore);
-                                    successCount++;
-                                    if (log.isDebugEnabled()) {
-                                        log.debug("User import successful - Username : " + userName);
-                                    }
-                                } catch (IllegalArgumentException e) {
-                                    fail = true;
-                                    failCount++;
-                                    errorUsersMap.put(userName, e.getMessage());
-                                    log.error("User import unsuccessful - Username : " + userName + " - Error: " +
-                                            e.getMessage(), e);
-                                }
-                            }
+                    if (StringUtils.isNotBlank(userName) && !isRepeatedUser(userName)) {
+                        if (line.length == 1) {
+                            provisioner.add(userName, null, null, null);
                         } else {
-                            isDuplicate = true;
-                            duplicateCount++;
-                            duplicateUsers.add(userName);
-                            log.error("User import unsuccessful - Username : " + userName + " - Error: Duplicate user");
+                            try {
+                                addUserWithClaims(userName, line, provisioner);
+                            } catch (IllegalArgumentException e) {
+                                report.addFailure(userName, e.getMessage());
+                                log.error("User import unsuccessful - Username : " + userName + " - Error: " +
+                                        e.getMessage(), e);
+                            }
                         }
-                    } catch (UserStoreException e) {
-                        fail = true;
-                        failCount++;
-                        errorUsersMap.put(userName, e.getMessage());
-                        log.error("User import unsuccessful - Username : " + userName + " - Error: " +
-                                e.getMessage(), e);
                     }
+                    line = csvReader.readNext();
                 }
-                line = csvReader.readNext();
+            } finally {
+                provisioner.finish();
             }
 
             InputStream inputStream = config.getInStream();
@@ -119,10 +100,7 @@ public class CSVUserBulkImport extends UserBulkImport {
                     UserMgtConstants.OPERATION_NAME, userStoreDomain, usersImported, summaryLog));
             log.info(summaryLog);
 
-            if (fail || isDuplicate) {
-                throw new UserAdminException(String.format(UserMgtConstants.ERROR_MESSAGE, successCount, failCount,
-                        duplicateCount));
-            }
+            throwIfCompletedWithErrors();
         } catch (IOException e) {
             throw new UserAdminException("Error occurred while adding user list", e);
         } finally {
@@ -141,11 +119,10 @@ public class CSVUserBulkImport extends UserBulkImport {
      *
      * @param username : The name of the importing user.
      * @param line : The line read from the CSV file.
-     * @param userStore : The user store which the user should be imported to.
-     * @throws UserStoreException : Throws when there is any error occurred while adding the user to user store.
+     * @param provisioner : The provisioner which adds the user to the user store.
+     * @throws IllegalArgumentException : Throws when the claims of the line are not in the correct format.
      */
-    private void addUserWithClaims(String username, String[] line, UserStoreManager userStore)
-            throws UserStoreException {
+    private void addUserWithClaims(String username, String[] line, BulkUserProvisioner provisioner) {
         String roleString = null;
         String[] roles = null;
         String password = line[1];
@@ -175,6 +152,6 @@ public class CSVUserBulkImport extends UserBulkImport {
             roles = roleString.split(":");
         }
 
-        userStore.addUser(username, password, roles, claims, null, true);
+        provisioner.add(username, password, roles, claims);
     }
 }
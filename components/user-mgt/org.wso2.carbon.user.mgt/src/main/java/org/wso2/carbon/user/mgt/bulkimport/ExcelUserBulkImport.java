@@ -30,7 +30,6 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
-import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.user.mgt.UserMgtConstants;
@@ -64,45 +63,28 @@ public class ExcelUserBulkImport extends UserBulkImport {
             throw new UserAdminException("The first sheet is empty");
         }
         int limit = sheet.getLastRowNum();
-        boolean isDuplicate = false;
-        boolean fail = false;
-        for (int i = 1; i < limit + 1; i++) {
-            Row row = sheet.getRow(i);
-            Cell cell = row.getCell(0);
-            String userName = cell.getStringCellValue();
-
-            int index;
-            index = userName.indexOf(CarbonConstants.DOMAIN_SEPARATOR);
-            if (index > 0) {
-                String domainFreeName = userName.substring(index + 1);
-                userName = UserCoreUtil.addDomainToName(domainFreeName, userStoreDomain);
-            } else {
-                userName = UserCoreUtil.addDomainToName(userName, userStoreDomain);
-            }
+        BulkUserProvisioner provisioner = createProvisioner(userStore);
+        try {
+            for (int i = 1; i < limit + 1; i++) {
+                Row row = sheet.getRow(i);
+                Cell cell = row.getCell(0);
+                String userName = cell.getStringCellValue();
+
+                int index;
+                index = userName.indexOf(CarbonConstants.DOMAIN_SEPARATOR);
+                if (index > 0) {
+                    String domainFreeName = userName.substring(index + 1);
+                    userName = UserCoreUtil.addDomainToName(domainFreeName, userStoreDomain);
+                } else {
+                    userName = UserCoreUtil.addDomainToName(userName, userStoreDomain);
+                }
 
-            if (StringUtils.isNotBlank(userName)) {
-                try {
-                    if (!userStore.isExistingUser(userName)) {
-                        userStore.addUser(userName, null, null, null, null, true);
-                        successCount++;
-                        if (log.isDebugEnabled()) {
-                            log.debug("User import successful - Username : " + userName);
-                        }
-                    } else {
-                        duplicateCount++;
-                        duplicateUsers.add(userName);
-                        isDuplicate = true;
-                        log.error("User import unsuccessful - Username : " + userName + " - Error: Duplicate user");
-                        duplicateUsers.add(userName);
-                    }
-                } catch (UserStoreException e) {
-                    fail = true;
-                    failCount++;
-                    log.error("User import unsuccessful - Username : " + userName + " - Error: " +
-                            e.getMessage());
-                    errorUsersMap.put(userName, e.getMessage());
+                if (StringUtils.isNotBlank(userName) && !isRepeatedUser(userName)) {
+                    provisioner.add(userName, null, null, null);
                 }
             }
+        } finally {
+            provisioner.finish();
         }
 
         String summeryLog = super.buildBulkImportSummary();
@@ -113,10 +95,7 @@ public class ExcelUserBulkImport extends UserBulkImport {
         auditLog.info(String.format(UserMgtConstants.AUDIT_LOG_FORMAT, tenantUser, UserMgtConstants.OPERATION_NAME,
                 userStoreDomain, importedUsers, summeryLog));
 
-        if (fail || isDuplicate) {
-            throw new UserAdminException(String.format(UserMgtConstants.ERROR_MESSAGE, successCount, failCount,
-                    duplicateCount));
-        }
+        throwIfCompletedWithErrors();
     }
 
     /**
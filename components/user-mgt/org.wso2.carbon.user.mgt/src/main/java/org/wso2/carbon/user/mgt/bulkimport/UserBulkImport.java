@@ -21,17 +21,19 @@ package org.wso2.carbon.user.mgt.bulkimport;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.mgt.UserMgtConstants;
 import org.wso2.carbon.user.mgt.common.UserAdminException;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Class to import multiple users to the Identity user store.
@@ -40,12 +42,21 @@ import java.util.Map;
 public abstract class UserBulkImport {
 
     static final Log auditLog = CarbonConstants.AUDIT_LOG;
-    static final Map<String, String> errorUsersMap = new HashMap<>();
-    static final List<String> duplicateUsers = new ArrayList<>();
+    private static final Log log = LogFactory.getLog(UserBulkImport.class);
+
+    // Size of the thread pool adding the users and number of users added by a thread at a time. These can be set
+    // in identity.xml and overridden for a user store with the user store properties. By default the users are added
+    // one at a time by the importing thread, as the user stores may not allow concurrent writes.
+    private static final String THREAD_POOL_SIZE = "UserBulkImport.ThreadPoolSize";
+    private static final String BATCH_SIZE = "UserBulkImport.BatchSize";
+    private static final String USER_STORE_THREAD_POOL_SIZE = "BulkImportThreadPoolSize";
+    private static final String USER_STORE_BATCH_SIZE = "BulkImportBatchSize";
+    private static final int DEFAULT_THREAD_POOL_SIZE = 1;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    final BulkImportReport report = new BulkImportReport();
+    private final Set<String> readUserNames = new HashSet<>();
     String userStoreDomain = "";
-    int successCount = 0;
-    int failCount = 0;
-    int duplicateCount = 0;
     String tenantUser = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername() + "@"
             + PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
 
@@ -57,6 +68,66 @@ public abstract class UserBulkImport {
      */
     public abstract void addUserList(UserStoreManager userStore) throws UserAdminException;
 
+    /**
+     * @return per user outcome of the import
+     */
+    public BulkImportReport getReport() {
+
+        return report;
+    }
+
+    BulkUserProvisioner createProvisioner(UserStoreManager userStore) {
+
+        return new BulkUserProvisioner(userStore, report,
+                getImportConfig(userStore, USER_STORE_THREAD_POOL_SIZE, THREAD_POOL_SIZE, DEFAULT_THREAD_POOL_SIZE),
+                getImportConfig(userStore, USER_STORE_BATCH_SIZE, BATCH_SIZE, DEFAULT_BATCH_SIZE));
+    }
+
+    /**
+     * Checks whether the user was already read from the file, and reports the user as a duplicate if so.
+     */
+    boolean isRepeatedUser(String userName) {
+
+        if (readUserNames.add(userName)) {
+            return false;
+        }
+        report.addDuplicate(userName);
+        log.error("User import unsuccessful - Username : " + userName + " - Error: Duplicate user");
+        return true;
+    }
+
+    void throwIfCompletedWithErrors() throws UserAdminException {
+
+        if (report.hasErrors()) {
+            throw new UserAdminException(String.format(UserMgtConstants.ERROR_MESSAGE, report.getSuccessCount(),
+                    report.getFailedCount(), report.getDuplicateCount()));
+        }
+    }
+
+    private int getImportConfig(UserStoreManager userStore, String userStoreProperty, String identityProperty,
+                                int defaultValue) {
+
+        String value = null;
+        if (userStore != null && userStore.getRealmConfiguration() != null) {
+            value = userStore.getRealmConfiguration().getUserStoreProperty(userStoreProperty);
+        }
+        if (StringUtils.isBlank(value)) {
+            value = IdentityUtil.getProperty(identityProperty);
+        }
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                int intValue = Integer.parseInt(value.trim());
+                if (intValue > 0) {
+                    return intValue;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + value + " for " + identityProperty + ". Using the default value: " +
+                        defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Build the summery log for the bulk user import operation.
      * The structure of the summery would be as follows.
@@ -83,14 +154,14 @@ public abstract class UserBulkImport {
         summaryJson.addProperty(UserMgtConstants.PERFORMED_BY,
                 PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername());
         summaryJson.addProperty(UserMgtConstants.USER_STORE, userStoreDomain);
-        summaryJson.addProperty(UserMgtConstants.SUCCESS_COUNT, successCount);
+        summaryJson.addProperty(UserMgtConstants.SUCCESS_COUNT, report.getSuccessCount());
 
-        if (duplicateCount > 0) {
+        if (report.getDuplicateCount() > 0) {
             duplicateUsersJson = new JsonObject();
             duplicateUsersJsonArray = new JsonArray();
-            duplicateUsersJson.addProperty(UserMgtConstants.COUNT, duplicateCount);
+            duplicateUsersJson.addProperty(UserMgtConstants.COUNT, report.getDuplicateCount());
 
-            for (String user : duplicateUsers) {
+            for (String user : report.getDuplicateUsers()) {
                 JsonPrimitive userJson = new JsonPrimitive(user);
                 duplicateUsersJsonArray.add(userJson);
             }
@@ -99,15 +170,14 @@ public abstract class UserBulkImport {
             summaryJson.add(UserMgtConstants.DUPLICATE_USERS, duplicateUsersJson);
         }
 
-        if (failCount > 0) {
+        if (report.getFailedCount() > 0) {
             errorUsersJson = new JsonObject();
             errorUsersJsonArray = new JsonArray();
-            errorUsersJson.addProperty(UserMgtConstants.COUNT, failCount);
-            for (Object o : errorUsersMap.entrySet()) {
-                Map.Entry pair = (Map.Entry) o;
+            errorUsersJson.addProperty(UserMgtConstants.COUNT, report.getFailedCount());
+            for (Map.Entry<String, String> failedUser : report.getFailedUsers().entrySet()) {
                 errorUserJson = new JsonObject();
-                errorUserJson.addProperty(UserMgtConstants.NAME, pair.getKey().toString());
-                errorUserJson.addProperty(UserMgtConstants.CAUSE, pair.getValue().toString());
+                errorUserJson.addProperty(UserMgtConstants.NAME, failedUser.getKey());
+                errorUserJson.addProperty(UserMgtConstants.CAUSE, String.valueOf(failedUser.getValue()));
                 errorUsersJsonArray.add(errorUserJson);
             }
             errorUsersJson.add(UserMgtConstants.USERS, errorUsersJsonArray);
@@ -246,6 +246,57 @@ public class UserRealmProxyTest {
         verify(userStoreManager).updateRoleName("testRole", "testNewRole");
     }
 
+    @Test
+    public void testGetPaginatedUsersOfRole() throws Exception {
+        Mockito.when(realm.getUserStoreManager()).thenReturn(userStoreManagerWithAb);
+        Mockito.when(userStoreManagerWithAb.getUserListOfRole("pagedRole"))
+                .thenReturn(new String[]{"user5", "user1|One", "user3", "admin", "user2", "user4"});
+        FlaggedName[] flaggedNames = userRealmProxy.getPaginatedUsersOfRole("pagedRole", "user*", 1, 2);
+        Assert.assertEquals(flaggedNames.length, 3);
+        Assert.assertEquals(flaggedNames[0].getItemName(), "user2");
+        Assert.assertEquals(flaggedNames[1].getItemName(), "user3");
+        Assert.assertEquals(flaggedNames[2].getItemName(), "false");
+
+        flaggedNames = userRealmProxy.getPaginatedUsersOfRole("pagedRole", null, 5, 10);
+        Assert.assertEquals(flaggedNames.length, 2);
+        Assert.assertEquals(flaggedNames[0].getItemName(), "user5");
+
+        flaggedNames = userRealmProxy.getPaginatedUsersOfRole("pagedRole", null, 10, 10);
+        Assert.assertEquals(flaggedNames.length, 1);
+    }
+
+    @Test(expectedExceptions = UserAdminException.class)
+    public void testGetPaginatedUsersOfRoleWithInvalidLimit() throws Exception {
+        userRealmProxy.getPaginatedUsersOfRole("pagedRole", null, 0, 0);
+    }
+
+    @Test
+    public void testGetUsersOfRoleIsCappedAtMaxUserListCount() throws Exception {
+        Mockito.when(realm.getUserStoreManager()).thenReturn(userStoreManagerWithAb);
+        Mockito.when(userStoreManagerWithAb.getUserListOfRole("cappedRole"))
+                .thenReturn(new String[]{"user3", "user1", "user4", "user2"});
+        Map<String, Integer> maxListCount = new HashMap<>();
+        maxListCount.put(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME, 2);
+        Mockito.when(((AbstractUserStoreManager) userStoreManagerWithAb)
+                .getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST)).thenReturn(maxListCount);
+        try {
+            FlaggedName[] flaggedNames = userRealmProxy.getUsersOfRole("cappedRole", "*", 0);
+            Assert.assertEquals(flaggedNames.length, 3);
+            Assert.assertEquals(flaggedNames[0].getItemName(), "user1");
+            Assert.assertEquals(flaggedNames[1].getItemName(), "user2");
+            Assert.assertEquals(flaggedNames[2].getItemName(), "true");
+
+            flaggedNames = userRealmProxy.getPaginatedUsersOfRole("cappedRole", null, 1, 10);
+            Assert.assertEquals(flaggedNames.length, 3);
+            Assert.assertEquals(flaggedNames[0].getItemName(), "user2");
+            Assert.assertEquals(flaggedNames[1].getItemName(), "user3");
+        } finally {
+            Mockito.when(((AbstractUserStoreManager) userStoreManagerWithAb)
+                    .getMaxListCount(UserCoreConstants.RealmConfig.PROPERTY_MAX_USER_LIST))
+                    .thenReturn(new HashMap<String, Integer>());
+        }
+    }
+
     private static void startTenantFlow(String tenantDomain) {
         String carbonHome = Paths.get(System.getProperty("user.dir"), "target").toString();
         System.setProperty("carbon.home", carbonHome);
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.user.mgt.bulkImport;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.mgt.bulkimport.BulkImportConfig;
+import org.wso2.carbon.user.mgt.bulkimport.BulkImportReport;
+import org.wso2.carbon.user.mgt.bulkimport.CSVUserBulkImport;
+import org.wso2.carbon.user.mgt.common.UserAdminException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test cases for the report and the batches of the CSV user bulk import.
+ */
+public class CSVUserBulkImportTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final int TENANT_ID = 1;
+    private static final String USERS_CSV = "UserName,Password\n" +
+            "user1,pass1\n" +
+            "user2,pass2\n" +
+            "user1,pass1\n" +
+            "existingUser,pass3\n" +
+            "failingUser,pass4\n" +
+            "user3,pass5\n" +
+            "user4,pass6\n" +
+            "user5,pass7\n";
+
+    private final Map<String, String> tenantDomainOfAddedUsers = new ConcurrentHashMap<>();
+    private final Set<String> threadsAddingUsers = ConcurrentHashMap.newKeySet();
+
+    @BeforeMethod
+    public void setUp() {
+
+        System.setProperty("carbon.home", Paths.get(System.getProperty("user.dir"), "target").toString());
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantDomain(TENANT_DOMAIN);
+        carbonContext.setTenantId(TENANT_ID);
+        carbonContext.setUsername("admin");
+        tenantDomainOfAddedUsers.clear();
+        threadsAddingUsers.clear();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        PrivilegedCarbonContext.endTenantFlow();
+    }
+
+    @Test(description = "Test the outcome of each user in the report of the import.")
+    public void testImportReport() throws Exception {
+
+        BulkImportReport report = importUsers(mockUserStore(1, 1));
+
+        Assert.assertEquals(report.getSuccessCount(), 5);
+        Assert.assertEquals(report.getDuplicateCount(), 2);
+        Assert.assertEquals(report.getFailedCount(), 1);
+        Assert.assertEquals(report.getProcessedCount(), 8);
+        Assert.assertTrue(report.hasErrors());
+        Assert.assertEquals(report.getDuplicateUsers(), Arrays.asList("user1", "existingUser"));
+        Assert.assertEquals(report.getFailedUsers().get("failingUser"), "Failed to add the user");
+
+        // The report hands out copies of the users, which are not changed by the caller.
+        report.getDuplicateUsers().clear();
+        report.getFailedUsers().clear();
+        Assert.assertEquals(report.getDuplicateCount(), 2);
+        Assert.assertEquals(report.getFailedCount(), 1);
+    }
+
+    @Test(description = "Test that the batches are added by the import threads in the tenant flow of the importer.")
+    public void testBatchesAddedInTenantFlowOfImporter() throws Exception {
+
+        BulkImportReport report = importUsers(mockUserStore(2, 2));
+
+        Assert.assertEquals(report.getSuccessCount(), 5);
+        Assert.assertEquals(report.getDuplicateCount(), 2);
+        Assert.assertEquals(report.getFailedCount(), 1);
+        Assert.assertEquals(tenantDomainOfAddedUsers.keySet().size(), 5);
+        for (String tenantDomain : tenantDomainOfAddedUsers.values()) {
+            Assert.assertEquals(tenantDomain, TENANT_DOMAIN);
+        }
+        for (String threadName : threadsAddingUsers) {
+            // Batches are added by the importing thread itself when all the import threads are busy.
+            if (!threadName.equals(Thread.currentThread().getName())) {
+                Assert.assertTrue(threadName.startsWith("UserBulkImport-" + TENANT_DOMAIN + "-"), threadName);
+            }
+        }
+        // The importing thread is back in its own tenant flow after the import.
+        Assert.assertEquals(PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(), TENANT_DOMAIN);
+    }
+
+    private BulkImportReport importUsers(UserStoreManager userStore) {
+
+        BulkImportConfig config = new BulkImportConfig(
+                new ByteArrayInputStream(USERS_CSV.getBytes(StandardCharsets.UTF_8)), "users.csv");
+        config.setUserStoreDomain("PRIMARY");
+        CSVUserBulkImport bulkImport = new CSVUserBulkImport(config);
+        try {
+            bulkImport.addUserList(userStore);
+            Assert.fail("The import with duplicate and failed users should not complete successfully.");
+        } catch (UserAdminException e) {
+            // Expected, as the import has duplicate and failed users.
+        }
+        return bulkImport.getReport();
+    }
+
+    private UserStoreManager mockUserStore(int threadPoolSize, int batchSize) throws Exception {
+
+        UserStoreManager userStore = mock(UserStoreManager.class);
+        RealmConfiguration realmConfiguration = new RealmConfiguration();
+        Map<String, String> userStoreProperties = new HashMap<>();
+        userStoreProperties.put("BulkImportThreadPoolSize", String.valueOf(threadPoolSize));
+        userStoreProperties.put("BulkImportBatchSize", String.valueOf(batchSize));
+        realmConfiguration.setUserStoreProperties(userStoreProperties);
+        when(userStore.getRealmConfiguration()).thenReturn(realmConfiguration);
+        when(userStore.isExistingUser(anyString())).thenReturn(false);
+        when(userStore.isExistingUser("existingUser")).thenReturn(true);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+
+                tenantDomainOfAddedUsers.put((String) invocation.getArguments()[0],
+                        PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+                threadsAddingUsers.add(Thread.currentThread().getName());
+                return null;
+            }
+        }).when(userStore).addUser(anyString(), any(), any(String[].class), anyMap(), anyString(), anyBoolean());
+        doThrow(new UserStoreException("Failed to add the user")).when(userStore)
+                .addUser(eq("failingUser"), any(), any(String[].class), anyMap(), anyString(), anyBoolean());
+        return userStore;
+    }
+}
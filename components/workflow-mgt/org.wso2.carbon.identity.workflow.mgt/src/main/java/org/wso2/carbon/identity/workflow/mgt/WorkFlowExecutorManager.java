@@ -19,7 +19,6 @@
 package org.wso2.carbon.identity.workflow.mgt;
 
 import org.apache.axiom.om.OMElement;
-import org.apache.axiom.om.xpath.AXIOMXPath;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -27,11 +26,11 @@ import org.apache.commons.logging.LogFactory;
 import org.jaxen.JaxenException;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.workflow.mgt.WorkflowAssociationRegistry.AssociatedWorkflow;
 import org.wso2.carbon.identity.workflow.mgt.bean.Parameter;
 import org.wso2.carbon.identity.workflow.mgt.bean.Workflow;
 import org.wso2.carbon.identity.workflow.mgt.bean.WorkflowAssociation;
 import org.wso2.carbon.identity.workflow.mgt.dao.RequestEntityRelationshipDAO;
-import org.wso2.carbon.identity.workflow.mgt.dao.WorkflowDAO;
 import org.wso2.carbon.identity.workflow.mgt.dao.WorkflowRequestAssociationDAO;
 import org.wso2.carbon.identity.workflow.mgt.dao.WorkflowRequestDAO;
 import org.wso2.carbon.identity.workflow.mgt.dto.WorkflowRequest;
@@ -88,21 +87,18 @@ public class WorkFlowExecutorManager {
         if (StringUtils.isBlank(workFlowRequest.getUuid())) {
             workFlowRequest.setUuid(UUID.randomUUID().toString());
         }
-        OMElement xmlRequest = WorkflowRequestBuilder.buildXMLRequest(workFlowRequest);
-        WorkflowRequestAssociationDAO requestAssociationDAO = new WorkflowRequestAssociationDAO();
-        WorkflowDAO workflowDAO = new WorkflowDAO();
-        List<WorkflowAssociation> associations =
-                requestAssociationDAO.getWorkflowAssociationsForRequest(workFlowRequest.getEventType(), workFlowRequest
-                        .getTenantId());
+        List<AssociatedWorkflow> associations = WorkflowAssociationRegistry.getInstance()
+                .getAssociations(workFlowRequest.getEventType(), workFlowRequest.getTenantId());
         if (CollectionUtils.isEmpty(associations)) {
             return new WorkflowExecutorResult(ExecutorResultState.NO_ASSOCIATION);
         }
+        OMElement xmlRequest = WorkflowRequestBuilder.buildXMLRequest(workFlowRequest);
         boolean workflowEngaged = false;
         boolean requestSaved = false;
-        for (WorkflowAssociation association : associations) {
+        for (AssociatedWorkflow associatedWorkflow : associations) {
+            WorkflowAssociation association = associatedWorkflow.getAssociation();
             try {
-                AXIOMXPath axiomxPath = new AXIOMXPath(association.getAssociationCondition());
-                if (axiomxPath.booleanValueOf(xmlRequest)) {
+                if (associatedWorkflow.isConditionSatisfied(xmlRequest)) {
                     workflowEngaged = true;
                     if (!requestSaved) {
                         WorkflowRequestDAO requestDAO = new WorkflowRequestDAO();
@@ -114,10 +110,10 @@ public class WorkFlowExecutorManager {
                     String relationshipId = UUID.randomUUID().toString();
                     WorkflowRequest requestToSend = workFlowRequest.clone();
                     requestToSend.setUuid(relationshipId);
-                    Workflow workflow = workflowDAO.getWorkflow(association.getWorkflowId());
+                    Workflow workflow = associatedWorkflow.getWorkflow();
                     AbstractWorkflow templateImplementation = WorkflowServiceDataHolder.getInstance()
                             .getWorkflowImpls().get(workflow.getTemplateId()).get(workflow.getWorkflowImplId());
-                    List<Parameter> parameterList = workflowDAO.getWorkflowParams(association.getWorkflowId());
+                    List<Parameter> parameterList = associatedWorkflow.getParameters();
                     templateImplementation.execute(requestToSend, parameterList);
                     workflowRequestAssociationDAO.addNewRelationship(relationshipId, association.getWorkflowId(),
                             workFlowRequest
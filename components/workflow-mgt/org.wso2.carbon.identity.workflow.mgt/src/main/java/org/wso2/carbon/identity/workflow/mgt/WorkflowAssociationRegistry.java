@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.workflow.mgt;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.xpath.AXIOMXPath;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jaxen.JaxenException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.workflow.mgt.bean.Parameter;
+import org.wso2.carbon.identity.workflow.mgt.bean.Workflow;
+import org.wso2.carbon.identity.workflow.mgt.bean.WorkflowAssociation;
+import org.wso2.carbon.identity.workflow.mgt.dao.WorkflowDAO;
+import org.wso2.carbon.identity.workflow.mgt.dao.WorkflowRequestAssociationDAO;
+import org.wso2.carbon.identity.workflow.mgt.exception.InternalWorkflowException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the enabled workflow associations of each tenant by event type, along with the workflows and workflow
+ * parameters they engage. The associations of a tenant are invalidated through the workflow listener when workflows
+ * or associations of the tenant change, and when the tenant is unloaded. The invalidation is local to the node,
+ * hence the changes made in other nodes are picked up only once the configured timeout elapses. By default the
+ * timeout is 0, and the associations are loaded from the database for each request.
+ */
+public class WorkflowAssociationRegistry {
+
+    private static final String ASSOCIATION_CACHE_TIMEOUT = "Workflow.AssociationCacheTimeout";
+    private static final int DEFAULT_ASSOCIATION_CACHE_TIMEOUT = 0;
+
+    private static Log log = LogFactory.getLog(WorkflowAssociationRegistry.class);
+    private static WorkflowAssociationRegistry instance = new WorkflowAssociationRegistry();
+
+    private final ConcurrentMap<Integer, ConcurrentMap<String, EventAssociations>> tenantAssociations =
+            new ConcurrentHashMap<>();
+    private final long associationCacheTimeout = TimeUnit.SECONDS.toMillis(readAssociationCacheTimeout());
+
+    private WorkflowAssociationRegistry() {
+
+    }
+
+    public static WorkflowAssociationRegistry getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the enabled workflow associations of an event type in a tenant.
+     *
+     * @param eventId  Event type of the request
+     * @param tenantId Tenant ID
+     * @return Associations of the event, in the order they were retrieved from the database
+     * @throws InternalWorkflowException
+     */
+    public List<AssociatedWorkflow> getAssociations(String eventId, int tenantId) throws InternalWorkflowException {
+
+        if (associationCacheTimeout <= 0) {
+            return loadAssociations(eventId, tenantId).getAssociations();
+        }
+
+        ConcurrentMap<String, EventAssociations> eventAssociations = tenantAssociations.get(tenantId);
+        if (eventAssociations == null) {
+            ConcurrentMap<String, EventAssociations> newEventAssociations = new ConcurrentHashMap<>();
+            eventAssociations = tenantAssociations.putIfAbsent(tenantId, newEventAssociations);
+            if (eventAssociations == null) {
+                eventAssociations = newEventAssociations;
+            }
+        }
+
+        EventAssociations associations = eventAssociations.get(eventId);
+        if (associations != null && !associations.isExpired()) {
+            return associations.getAssociations();
+        }
+
+        associations = loadAssociations(eventId, tenantId);
+        // Do not replace the associations if the tenant was invalidated while loading them.
+        if (tenantAssociations.get(tenantId) == eventAssociations) {
+            eventAssociations.put(eventId, associations);
+        }
+        return associations.getAssociations();
+    }
+
+    /**
+     * Check whether there are enabled workflow associations for an event type in a tenant.
+     *
+     * @param eventId  Event type of the request
+     * @param tenantId Tenant ID
+     * @return true if the event is associated with at least one workflow
+     * @throws InternalWorkflowException
+     */
+    public boolean isEventAssociated(String eventId, int tenantId) throws InternalWorkflowException {
+
+        return !getAssociations(eventId, tenantId).isEmpty();
+    }
+
+    /**
+     * Invalidate the associations of a tenant. This is called when the workflows or the associations of the tenant
+     * change, and when the tenant is unloaded.
+     *
+     * @param tenantId Tenant ID
+     */
+    public void invalidate(int tenantId) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Invalidating the workflow associations of tenant: " + tenantId);
+        }
+        tenantAssociations.remove(tenantId);
+    }
+
+    private EventAssociations loadAssociations(String eventId, int tenantId) throws InternalWorkflowException {
+
+        WorkflowRequestAssociationDAO requestAssociationDAO = new WorkflowRequestAssociationDAO();
+        WorkflowDAO workflowDAO = new WorkflowDAO();
+        List<WorkflowAssociation> associations =
+                requestAssociationDAO.getWorkflowAssociationsForRequest(eventId, tenantId);
+        List<AssociatedWorkflow> associatedWorkflows = new ArrayList<>(associations.size());
+        for (WorkflowAssociation association : associations) {
+            Workflow workflow = workflowDAO.getWorkflow(association.getWorkflowId());
+            List<Parameter> parameters = workflowDAO.getWorkflowParams(association.getWorkflowId());
+            associatedWorkflows.add(new AssociatedWorkflow(association, workflow, parameters));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + associatedWorkflows.size() + " workflow associations for the event: " + eventId +
+                    " of tenant: " + tenantId);
+        }
+        return new EventAssociations(Collections.unmodifiableList(associatedWorkflows),
+                System.currentTimeMillis() + associationCacheTimeout);
+    }
+
+    private static int readAssociationCacheTimeout() {
+
+        String value = IdentityUtil.getProperty(ASSOCIATION_CACHE_TIMEOUT);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + value + " for " + ASSOCIATION_CACHE_TIMEOUT +
+                        ". Using the default value: " + DEFAULT_ASSOCIATION_CACHE_TIMEOUT);
+            }
+        }
+        return DEFAULT_ASSOCIATION_CACHE_TIMEOUT;
+    }
+
+    /**
+     * A workflow association along with the workflow it engages.
+     */
+    public static class AssociatedWorkflow {
+
+        private final WorkflowAssociation association;
+        private final Workflow workflow;
+        private final List<Parameter> parameters;
+
+        AssociatedWorkflow(WorkflowAssociation association, Workflow workflow, List<Parameter> parameters) {
+
+            this.association = association;
+            this.workflow = workflow;
+            this.parameters = parameters;
+        }
+
+        public WorkflowAssociation getAssociation() {
+            return association;
+        }
+
+        /**
+         * Evaluates the condition of the association against a request. The xpath expression is compiled for each
+         * evaluation, as the compiled expressions are not safe to share between the request threads.
+         *
+         * @param xmlRequest Request to evaluate the condition against
+         * @return true if the request satisfies the condition
+         * @throws JaxenException If the condition is not a valid xpath expression or can not be evaluated
+         */
+        public boolean isConditionSatisfied(OMElement xmlRequest) throws JaxenException {
+            return new AXIOMXPath(association.getAssociationCondition()).booleanValueOf(xmlRequest);
+        }
+
+        public Workflow getWorkflow() {
+            return workflow;
+        }
+
+        /**
+         * Parameters of the workflow. A new list is returned as the workflow implementations may modify it.
+         */
+        public List<Parameter> getParameters() {
+            return new ArrayList<>(parameters);
+        }
+    }
+
+    private static class EventAssociations {
+
+        private final List<AssociatedWorkflow> associations;
+        private final long expiryTime;
+
+        EventAssociations(List<AssociatedWorkflow> associations, long expiryTime) {
+
+            this.associations = associations;
+            this.expiryTime = expiryTime;
+        }
+
+        List<AssociatedWorkflow> getAssociations() {
+            return associations;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiryTime;
+        }
+    }
+}
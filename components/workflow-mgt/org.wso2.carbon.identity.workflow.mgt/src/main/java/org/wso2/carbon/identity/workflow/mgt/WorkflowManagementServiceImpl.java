@@ -25,7 +25,6 @@ import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.workflow.mgt.bean.Entity;
 import org.wso2.carbon.identity.workflow.mgt.bean.Parameter;
 import org.wso2.carbon.identity.workflow.mgt.bean.Workflow;
-import org.wso2.carbon.identity.workflow.mgt.bean.WorkflowAssociation;
 import org.wso2.carbon.identity.workflow.mgt.bean.WorkflowRequest;
 import org.wso2.carbon.identity.workflow.mgt.bean.WorkflowRequestAssociation;
 import org.wso2.carbon.identity.workflow.mgt.dao.AssociationDAO;
@@ -704,20 +703,15 @@ public class WorkflowManagementServiceImpl implements WorkflowManagementService
                 workflowListener.doPreIsEventAssociated(eventType);
             }
         }
-        List<WorkflowAssociation> associations = workflowRequestAssociationDAO.getWorkflowAssociationsForRequest
-                (eventType, CarbonContext.getThreadLocalCarbonContext().getTenantId());
+        boolean isEventAssociated = WorkflowAssociationRegistry.getInstance().isEventAssociated(eventType,
+                CarbonContext.getThreadLocalCarbonContext().getTenantId());
         for (WorkflowListener workflowListener : workflowListenerList) {
             if (workflowListener.isEnable()) {
                 workflowListener.doPreIsEventAssociated(eventType);
             }
         }
 
-        if (associations.size() > 0) {
-            return true;
-        } else {
-            return false;
-        }
-
+        return isEventAssociated;
     }
 
     /**
@@ -29,10 +29,16 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class RequestEntityRelationshipDAO {
 
+    private final RequestEntityRelationshipIndex relationshipIndex = RequestEntityRelationshipIndex.getInstance();
+
     /**
      * Add a new relationship between a workflow request and an entity.
      *
@@ -53,6 +59,7 @@ public class RequestEntityRelationshipDAO {
             prepStmt.setInt(4, entity.getTenantId());
             prepStmt.executeUpdate();
             connection.commit();
+            relationshipIndex.addRelationship(entity);
         } catch (SQLException e) {
             throw new InternalWorkflowException("Error when executing the sql query", e);
         } finally {
@@ -72,10 +79,15 @@ public class RequestEntityRelationshipDAO {
         PreparedStatement prepStmt = null;
         String query = SQLConstants.DELETE_REQUEST_ENTITY_RELATIONSHIP;
         try {
+            List<Entity> relatedEntities = Collections.emptyList();
+            if (relationshipIndex.isEnabled()) {
+                relatedEntities = getEntitiesOfRequest(connection, uuid);
+            }
             prepStmt = connection.prepareStatement(query);
             prepStmt.setString(1, uuid);
             prepStmt.executeUpdate();
             connection.commit();
+            relationshipIndex.deleteRelationships(relatedEntities);
         } catch (SQLException e) {
             throw new InternalWorkflowException("Error when executing the sql query", e);
         } finally {
@@ -92,6 +104,10 @@ public class RequestEntityRelationshipDAO {
      */
     public boolean entityHasPendingWorkflows(Entity entity) throws InternalWorkflowException {
 
+        if (!mayHaveRelationships(entity)) {
+            return false;
+        }
+
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         PreparedStatement prepStmt = null;
         String query = SQLConstants.GET_PENDING_RELATIONSHIPS_OF_ENTITY;
@@ -126,6 +142,9 @@ public class RequestEntityRelationshipDAO {
     public boolean entityHasPendingWorkflowsOfType(Entity entity, String requsetType) throws
             InternalWorkflowException {
 
+        if (!mayHaveRelationships(entity)) {
+            return false;
+        }
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         PreparedStatement prepStmt = null;
         String query = SQLConstants.GET_PENDING_RELATIONSHIPS_OF_GIVEN_TYPE_FOR_ENTITY;
@@ -160,6 +179,10 @@ public class RequestEntityRelationshipDAO {
      */
     public boolean twoEntitiesAreRelated(Entity entity1, Entity entity2) throws InternalWorkflowException {
 
+        if (!mayHaveRelationships(entity1) || !mayHaveRelationships(entity2)) {
+            return false;
+        }
+
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         PreparedStatement prepStmt = null;
         String query = SQLConstants.GET_REQUESTS_OF_TWO_ENTITIES;
@@ -229,4 +252,72 @@ public class RequestEntityRelationshipDAO {
         return entityNames;
     }
 
+    /**
+     * Check the index of related entities for an entity. A negative result is final, while a positive result has to
+     * be verified against the database.
+     *
+     * @param entity
+     * @return false if the entity is not related to any workflow request
+     * @throws InternalWorkflowException
+     */
+    private boolean mayHaveRelationships(Entity entity) throws InternalWorkflowException {
+
+        if (!relationshipIndex.isEnabled()) {
+            return true;
+        }
+        Map<String, Integer> relatedEntities = relationshipIndex.getEntities(entity.getTenantId());
+        if (relatedEntities == null) {
+            relatedEntities = loadRelatedEntities(entity.getTenantId());
+        }
+        return relatedEntities.containsKey(RequestEntityRelationshipIndex.getKey(entity.getEntityType(),
+                entity.getEntityId()));
+    }
+
+    private ConcurrentMap<String, Integer> loadRelatedEntities(int tenantId) throws InternalWorkflowException {
+
+        long modificationCount = relationshipIndex.getModificationCount();
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        String query = SQLConstants.GET_RELATED_ENTITIES_OF_TENANT;
+        ConcurrentMap<String, Integer> relatedEntities = new ConcurrentHashMap<>();
+        try {
+            prepStmt = connection.prepareStatement(query);
+            prepStmt.setInt(1, tenantId);
+            resultSet = prepStmt.executeQuery();
+            while (resultSet.next()) {
+                relatedEntities.merge(RequestEntityRelationshipIndex.getKey(
+                        resultSet.getString(SQLConstants.ENTITY_TYPE_COLUMN),
+                        resultSet.getString(SQLConstants.ENTITY_NAME_COLUMN)), 1, Integer::sum);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new InternalWorkflowException("Error when executing the sql query", e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+        }
+        relationshipIndex.putEntities(tenantId, relatedEntities, modificationCount);
+        return relatedEntities;
+    }
+
+    private List<Entity> getEntitiesOfRequest(Connection connection, String uuid) throws SQLException {
+
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        List<Entity> entities = new ArrayList<>();
+        try {
+            prepStmt = connection.prepareStatement(SQLConstants.GET_ENTITIES_OF_REQUEST);
+            prepStmt.setString(1, uuid);
+            resultSet = prepStmt.executeQuery();
+            while (resultSet.next()) {
+                entities.add(new Entity(resultSet.getString(SQLConstants.ENTITY_NAME_COLUMN),
+                        resultSet.getString(SQLConstants.ENTITY_TYPE_COLUMN),
+                        resultSet.getInt(SQLConstants.TENANT_ID_COLUMN)));
+            }
+        } finally {
+            IdentityDatabaseUtil.closeResultSet(resultSet);
+            IdentityDatabaseUtil.closeStatement(prepStmt);
+        }
+        return entities;
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.workflow.mgt.dao;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.workflow.mgt.bean.Entity;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of the entities which have relationships with workflow requests, kept per tenant. Since requests are related
+ * to only a few entities at a time, the index answers most of the pending workflow checks without querying the
+ * database. An entity found in the index is only a candidate and is always verified against the database.
+ * <p>
+ * The index is updated when relationships are added or deleted through this node, and is reloaded once the configured
+ * timeout elapses. Relationships added through other nodes are not seen until then, and a pending workflow would be
+ * missed in the meantime, hence the index is disabled by default and should only be enabled, by setting
+ * Workflow.PendingEntityIndexTimeout, when a single node adds workflow requests.
+ */
+class RequestEntityRelationshipIndex {
+
+    private static final String INDEX_TIMEOUT = "Workflow.PendingEntityIndexTimeout";
+    private static final int DEFAULT_INDEX_TIMEOUT = 0;
+
+    private static Log log = LogFactory.getLog(RequestEntityRelationshipIndex.class);
+    private static RequestEntityRelationshipIndex instance = new RequestEntityRelationshipIndex();
+
+    private final ConcurrentMap<Integer, TenantEntities> tenantEntities = new ConcurrentHashMap<>();
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final long indexTimeout = TimeUnit.SECONDS.toMillis(readIndexTimeout());
+
+    private RequestEntityRelationshipIndex() {
+
+    }
+
+    static RequestEntityRelationshipIndex getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * The index is disabled when the timeout is zero, which is the default.
+     */
+    boolean isEnabled() {
+
+        return indexTimeout > 0;
+    }
+
+    /**
+     * Get the count of the relationships of each entity of the tenant, or null if they are not loaded yet.
+     *
+     * @param tenantId
+     * @return
+     */
+    ConcurrentMap<String, Integer> getEntities(int tenantId) {
+
+        TenantEntities entities = tenantEntities.get(tenantId);
+        if (entities == null || entities.isExpired()) {
+            return null;
+        }
+        return entities.relationshipCounts;
+    }
+
+    long getModificationCount() {
+
+        return modificationCount.get();
+    }
+
+    /**
+     * Publish the entities loaded for a tenant, unless relationships were added or deleted while loading them.
+     *
+     * @param tenantId
+     * @param relationshipCounts
+     * @param loadedModificationCount Modification count read before loading the entities
+     */
+    synchronized void putEntities(int tenantId, ConcurrentMap<String, Integer> relationshipCounts,
+                                  long loadedModificationCount) {
+
+        if (loadedModificationCount == modificationCount.get()) {
+            tenantEntities.put(tenantId, new TenantEntities(relationshipCounts,
+                    System.currentTimeMillis() + indexTimeout));
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded " + relationshipCounts.size() + " entities related to workflow requests of " +
+                        "tenant: " + tenantId);
+            }
+        }
+    }
+
+    synchronized void addRelationship(Entity entity) {
+
+        modificationCount.incrementAndGet();
+        TenantEntities entities = tenantEntities.get(entity.getTenantId());
+        if (entities != null) {
+            entities.relationshipCounts.merge(getKey(entity.getEntityType(), entity.getEntityId()), 1,
+                    Integer::sum);
+        }
+    }
+
+    synchronized void deleteRelationships(List<Entity> relatedEntities) {
+
+        modificationCount.incrementAndGet();
+        for (Entity entity : relatedEntities) {
+            TenantEntities entities = tenantEntities.get(entity.getTenantId());
+            if (entities != null) {
+                entities.relationshipCounts.computeIfPresent(getKey(entity.getEntityType(), entity.getEntityId()),
+                        (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    /**
+     * Entity names are compared ignoring case, as the database may do so depending on its collation.
+     */
+    static String getKey(String entityType, String entityId) {
+
+        return entityType + ":" + StringUtils.lowerCase(entityId);
+    }
+
+    private static int readIndexTimeout() {
+
+        String value = IdentityUtil.getProperty(INDEX_TIMEOUT);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + value + " for " + INDEX_TIMEOUT + ". Using the default value: " +
+                        DEFAULT_INDEX_TIMEOUT);
+            }
+        }
+        return DEFAULT_INDEX_TIMEOUT;
+    }
+
+    private static class TenantEntities {
+
+        private final ConcurrentMap<String, Integer> relationshipCounts;
+        private final long expiryTime;
+
+        TenantEntities(ConcurrentMap<String, Integer> relationshipCounts, long expiryTime) {
+
+            this.relationshipCounts = relationshipCounts;
+            this.expiryTime = expiryTime;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiryTime;
+        }
+    }
+}
@@ -32,6 +32,8 @@ import org.wso2.carbon.identity.core.util.IdentityCoreInitializedEvent;
 import org.wso2.carbon.identity.workflow.mgt.WorkflowManagementService;
 import org.wso2.carbon.identity.workflow.mgt.WorkflowManagementServiceImpl;
 import org.wso2.carbon.identity.workflow.mgt.extension.WorkflowRequestHandler;
+import org.wso2.carbon.identity.workflow.mgt.listener.WorkflowAssociationRegistryListener;
+import org.wso2.carbon.identity.workflow.mgt.listener.WorkflowAssociationTenantUnloadListener;
 import org.wso2.carbon.identity.workflow.mgt.listener.WorkflowAuditLogger;
 import org.wso2.carbon.identity.workflow.mgt.listener.WorkflowExecutorAuditLogger;
 import org.wso2.carbon.identity.workflow.mgt.listener.WorkflowExecutorManagerListener;
@@ -40,6 +42,7 @@ import org.wso2.carbon.identity.workflow.mgt.template.AbstractTemplate;
 import org.wso2.carbon.identity.workflow.mgt.util.WFConstant;
 import org.wso2.carbon.identity.workflow.mgt.workflow.AbstractWorkflow;
 import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.utils.Axis2ConfigurationContextObserver;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
 @Component(
@@ -56,6 +59,10 @@ public class WorkflowMgtServiceComponent {
         WorkflowServiceDataHolder.getInstance().setBundleContext(bundleContext);
         ServiceRegistration serviceRegistration = context.getBundleContext().registerService(WorkflowListener.class.getName(), new WorkflowAuditLogger(), null);
         context.getBundleContext().registerService(WorkflowExecutorManagerListener.class.getName(), new WorkflowExecutorAuditLogger(), null);
+        context.getBundleContext().registerService(WorkflowListener.class.getName(),
+                new WorkflowAssociationRegistryListener(), null);
+        context.getBundleContext().registerService(Axis2ConfigurationContextObserver.class.getName(),
+                new WorkflowAssociationTenantUnloadListener(), null);
         if (serviceRegistration != null) {
             if (log.isDebugEnabled()) {
                 log.debug("WorkflowAuditLogger registered.");
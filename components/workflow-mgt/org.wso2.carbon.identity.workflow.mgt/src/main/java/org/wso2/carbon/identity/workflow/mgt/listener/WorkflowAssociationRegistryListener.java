@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.workflow.mgt.listener;
+
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.workflow.mgt.WorkflowAssociationRegistry;
+import org.wso2.carbon.identity.workflow.mgt.bean.Parameter;
+import org.wso2.carbon.identity.workflow.mgt.bean.Workflow;
+import org.wso2.carbon.identity.workflow.mgt.exception.WorkflowException;
+
+import java.util.List;
+
+/**
+ * Invalidates the workflow associations kept in {@link WorkflowAssociationRegistry} when the workflows or the
+ * associations of a tenant are changed.
+ */
+public class WorkflowAssociationRegistryListener extends AbstractWorkflowListener {
+
+    /**
+     * Trigger after adding or updating a workflow
+     *
+     * @param workflowDTO
+     * @param parameterList
+     * @param tenantId
+     * @throws WorkflowException
+     */
+    @Override
+    public void doPostAddWorkflow(Workflow workflowDTO, List<Parameter> parameterList, int tenantId)
+            throws WorkflowException {
+        invalidateTenantAssociations();
+    }
+
+    /**
+     * Trigger after delete the workflow
+     *
+     * @param workflow
+     * @throws WorkflowException
+     */
+    @Override
+    public void doPostDeleteWorkflow(Workflow workflow) throws WorkflowException {
+        invalidateTenantAssociations();
+    }
+
+    /**
+     * Trigger after adding an association
+     *
+     * @param associationName
+     * @param workflowId
+     * @param eventId
+     * @param condition
+     * @throws WorkflowException
+     */
+    @Override
+    public void doPostAddAssociation(String associationName, String workflowId, String eventId, String condition)
+            throws WorkflowException {
+        invalidateTenantAssociations();
+    }
+
+    /**
+     * Trigger after removing an association
+     *
+     * @param associationId
+     * @throws WorkflowException
+     */
+    @Override
+    public void doPostRemoveAssociation(int associationId) throws WorkflowException {
+        invalidateTenantAssociations();
+    }
+
+    /**
+     * Trigger after changing state of an association
+     *
+     * @param associationId
+     * @param isEnable
+     * @throws WorkflowException
+     */
+    @Override
+    public void doPostChangeAssociationState(String associationId, boolean isEnable) throws WorkflowException {
+        invalidateTenantAssociations();
+    }
+
+    /**
+     * The cached associations go stale if this listener is disabled, hence it is always enabled.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isEnable() {
+        return true;
+    }
+
+    /**
+     * Invalidates the associations of the tenant of the current thread. The tenant is always taken from the carbon
+     * context, as most of the listener methods do not receive it.
+     */
+    private void invalidateTenantAssociations() {
+        WorkflowAssociationRegistry.getInstance().invalidate(
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
+    }
+}
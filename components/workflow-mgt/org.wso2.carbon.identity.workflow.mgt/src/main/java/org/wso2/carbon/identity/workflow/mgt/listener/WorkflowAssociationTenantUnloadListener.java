@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.workflow.mgt.listener;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.wso2.carbon.identity.workflow.mgt.WorkflowAssociationRegistry;
+import org.wso2.carbon.utils.AbstractAxis2ConfigurationContextObserver;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+/**
+ * Evicts the workflow associations kept in {@link WorkflowAssociationRegistry} for a tenant when the tenant is
+ * unloaded.
+ */
+public class WorkflowAssociationTenantUnloadListener extends AbstractAxis2ConfigurationContextObserver {
+
+    @Override
+    public void terminatedConfigurationContext(ConfigurationContext configurationContext) {
+
+        WorkflowAssociationRegistry.getInstance().invalidate(MultitenantUtils.getTenantId(configurationContext));
+    }
+}
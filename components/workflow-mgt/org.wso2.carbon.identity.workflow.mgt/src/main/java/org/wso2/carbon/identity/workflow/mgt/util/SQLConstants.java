@@ -47,6 +47,7 @@ public class SQLConstants {
     public static final String PARAM_HOLDER_COLUMN = "PARAM_HOLDER";
     public static final String ASSOCIATION_NAME_COLUMN = "ASSOC_NAME";
     public static final String ENTITY_NAME_COLUMN = "ENTITY_NAME";
+    public static final String ENTITY_TYPE_COLUMN = "ENTITY_TYPE";
     public static final String ASSOCIATION_IS_ENABLED = "IS_ENABLED";
 
     public static final String REQUEST_UUID_COLUMN = "UUID";
@@ -151,6 +152,12 @@ public class SQLConstants {
     public static final String DELETE_REQUEST_ENTITY_RELATIONSHIP = "DELETE FROM WF_REQUEST_ENTITY_RELATIONSHIP WHERE" +
             " REQUEST_ID = ?";
 
+    public static final String GET_ENTITIES_OF_REQUEST = "SELECT ENTITY_NAME, ENTITY_TYPE, TENANT_ID FROM " +
+            "WF_REQUEST_ENTITY_RELATIONSHIP WHERE REQUEST_ID = ?";
+
+    public static final String GET_RELATED_ENTITIES_OF_TENANT = "SELECT ENTITY_NAME, ENTITY_TYPE FROM " +
+            "WF_REQUEST_ENTITY_RELATIONSHIP WHERE TENANT_ID = ?";
+
     public static final String GET_PENDING_RELATIONSHIPS_OF_ENTITY = "SELECT WF_REQUEST_ENTITY_RELATIONSHIP" +
             ".ENTITY_NAME,WF_REQUEST_ENTITY_RELATIONSHIP.REQUEST_ID  FROM WF_REQUEST,WF_REQUEST_ENTITY_RELATIONSHIP " +
             "WHERE WF_REQUEST.UUID = WF_REQUEST_ENTITY_RELATIONSHIP.REQUEST_ID  AND WF_REQUEST_ENTITY_RELATIONSHIP" +
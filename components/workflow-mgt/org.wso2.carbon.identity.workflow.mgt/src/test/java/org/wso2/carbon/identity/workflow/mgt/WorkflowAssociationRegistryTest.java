@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.workflow.mgt;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.workflow.mgt.bean.Parameter;
+import org.wso2.carbon.identity.workflow.mgt.bean.Workflow;
+import org.wso2.carbon.identity.workflow.mgt.bean.WorkflowAssociation;
+import org.wso2.carbon.identity.workflow.mgt.dao.WorkflowDAO;
+import org.wso2.carbon.identity.workflow.mgt.dao.WorkflowRequestAssociationDAO;
+import org.wso2.carbon.identity.workflow.mgt.listener.WorkflowAssociationTenantUnloadListener;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.powermock.api.mockito.PowerMockito.whenNew;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the loading and the invalidation of the workflow associations kept in the WorkflowAssociationRegistry.
+ */
+@PrepareForTest({WorkflowAssociationRegistry.class, IdentityUtil.class, MultitenantUtils.class})
+public class WorkflowAssociationRegistryTest {
+
+    private static final String ASSOCIATION_CACHE_TIMEOUT = "Workflow.AssociationCacheTimeout";
+    private static final String EVENT_ID = "ADD_USER";
+    private static final String WORKFLOW_ID = "workflow-a";
+    private static final int TENANT_ID = 1;
+
+    private WorkflowRequestAssociationDAO requestAssociationDAO;
+    private Workflow workflow;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+
+        return new org.powermock.modules.testng.PowerMockObjectFactory();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(IdentityUtil.class);
+
+        WorkflowAssociation association = new WorkflowAssociation();
+        association.setWorkflowId(WORKFLOW_ID);
+        association.setEventId(EVENT_ID);
+        requestAssociationDAO = mock(WorkflowRequestAssociationDAO.class);
+        when(requestAssociationDAO.getWorkflowAssociationsForRequest(EVENT_ID, TENANT_ID))
+                .thenReturn(Collections.singletonList(association));
+        whenNew(WorkflowRequestAssociationDAO.class).withNoArguments().thenReturn(requestAssociationDAO);
+
+        workflow = new Workflow();
+        workflow.setWorkflowId(WORKFLOW_ID);
+        WorkflowDAO workflowDAO = mock(WorkflowDAO.class);
+        when(workflowDAO.getWorkflow(WORKFLOW_ID)).thenReturn(workflow);
+        when(workflowDAO.getWorkflowParams(WORKFLOW_ID)).thenReturn(Collections.<Parameter>emptyList());
+        whenNew(WorkflowDAO.class).withNoArguments().thenReturn(workflowDAO);
+    }
+
+    @Test
+    public void testAssociationsLoadedPerRequestByDefault() throws Exception {
+
+        WorkflowAssociationRegistry registry = createRegistry(null);
+
+        List<WorkflowAssociationRegistry.AssociatedWorkflow> associations =
+                registry.getAssociations(EVENT_ID, TENANT_ID);
+        assertEquals(associations.size(), 1);
+        assertSame(associations.get(0).getWorkflow(), workflow);
+        assertTrue(registry.isEventAssociated(EVENT_ID, TENANT_ID));
+        verify(requestAssociationDAO, times(2)).getWorkflowAssociationsForRequest(EVENT_ID, TENANT_ID);
+    }
+
+    @Test
+    public void testAssociationsKeptUntilInvalidated() throws Exception {
+
+        WorkflowAssociationRegistry registry = createRegistry("60");
+
+        registry.getAssociations(EVENT_ID, TENANT_ID);
+        assertTrue(registry.isEventAssociated(EVENT_ID, TENANT_ID));
+        verify(requestAssociationDAO, times(1)).getWorkflowAssociationsForRequest(EVENT_ID, TENANT_ID);
+
+        when(requestAssociationDAO.getWorkflowAssociationsForRequest(EVENT_ID, TENANT_ID))
+                .thenReturn(Collections.<WorkflowAssociation>emptyList());
+        registry.invalidate(TENANT_ID);
+        assertFalse(registry.isEventAssociated(EVENT_ID, TENANT_ID));
+        verify(requestAssociationDAO, times(2)).getWorkflowAssociationsForRequest(EVENT_ID, TENANT_ID);
+    }
+
+    @Test
+    public void testAssociationsEvictedOnTenantUnload() throws Exception {
+
+        WorkflowAssociationRegistry registry = createRegistry("60");
+        Whitebox.setInternalState(WorkflowAssociationRegistry.class, "instance", registry);
+        ConfigurationContext configurationContext = mock(ConfigurationContext.class);
+        mockStatic(MultitenantUtils.class);
+        when(MultitenantUtils.getTenantId(configurationContext)).thenReturn(TENANT_ID);
+
+        registry.getAssociations(EVENT_ID, TENANT_ID);
+        new WorkflowAssociationTenantUnloadListener().terminatedConfigurationContext(configurationContext);
+        registry.getAssociations(EVENT_ID, TENANT_ID);
+        verify(requestAssociationDAO, times(2)).getWorkflowAssociationsForRequest(EVENT_ID, TENANT_ID);
+    }
+
+    private WorkflowAssociationRegistry createRegistry(String associationCacheTimeout) throws Exception {
+
+        when(IdentityUtil.getProperty(ASSOCIATION_CACHE_TIMEOUT)).thenReturn(associationCacheTimeout);
+        return Whitebox.invokeConstructor(WorkflowAssociationRegistry.class);
+    }
+}